@@ -6,9 +6,15 @@ import java.io.Closeable;
 import java.lang.reflect.Proxy;
 import java.net.SocketAddress;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
 import com.google.common.base.Supplier;
+import com.lambdaworks.redis.metrics.DefaultMetricsCollector;
+import com.lambdaworks.redis.metrics.MetricsCollector;
+import com.lambdaworks.redis.metrics.MetricsListener;
+import com.lambdaworks.redis.metrics.MetricsSnapshot;
 import com.lambdaworks.redis.protocol.CommandHandler;
 import com.lambdaworks.redis.protocol.ConnectionWatchdog;
 import com.lambdaworks.redis.pubsub.PubSubCommandHandler;
@@ -18,13 +24,9 @@ import io.netty.channel.*;
 import io.netty.channel.group.ChannelGroup;
 import io.netty.channel.group.ChannelGroupFuture;
 import io.netty.channel.group.DefaultChannelGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.util.HashedWheelTimer;
-import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GlobalEventExecutor;
 import io.netty.util.internal.ConcurrentSet;
-import io.netty.util.internal.SystemPropertyUtil;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
@@ -35,31 +37,39 @@ import io.netty.util.internal.logging.InternalLoggerFactory;
 public abstract class AbstractRedisClient {
     protected static final InternalLogger logger = InternalLoggerFactory.getInstance(RedisClient.class);
 
-    private static final int DEFAULT_EVENT_LOOP_THREADS;
-
-    static {
-        DEFAULT_EVENT_LOOP_THREADS = Math.max(1,
-                SystemPropertyUtil.getInt("io.netty.eventLoopThreads", Runtime.getRuntime().availableProcessors() * 4));
-
-        if (logger.isDebugEnabled()) {
-            logger.debug("-Dio.netty.eventLoopThreads: {}", DEFAULT_EVENT_LOOP_THREADS);
-        }
-    }
-
     protected EventLoopGroup eventLoopGroup;
 
     protected HashedWheelTimer timer;
+    protected ExecutorService reconnectWorkers;
+    protected Semaphore reconnectPermits;
     protected ChannelGroup channels;
     protected long timeout;
     protected TimeUnit unit;
     protected ConnectionEvents connectionEvents = new ConnectionEvents();
     protected Set<Closeable> closeableResources = new ConcurrentSet<Closeable>();
+    protected ClientOptions clientOptions = ClientOptions.create();
+    protected volatile MetricsCollector metricsCollector;
+    protected final ClientResources clientResources;
 
+    /**
+     * Create a client with its own {@link ClientResources}. The resources are shut down on {@link #shutdown()}.
+     */
     protected AbstractRedisClient() {
-        timer = new HashedWheelTimer();
-        eventLoopGroup = new NioEventLoopGroup(DEFAULT_EVENT_LOOP_THREADS);
+        this(null);
+    }
+
+    /**
+     * Create a client that uses shared {@link ClientResources}. The client holds a reference to the resources until it is shut
+     * down.
+     * 
+     * @param clientResources the shared client resources, may be {@literal null} to create resources for this client.
+     */
+    protected AbstractRedisClient(ClientResources clientResources) {
+        this.clientResources = clientResources != null ? clientResources.retain() : ClientResources.create();
+        timer = this.clientResources.getTimer();
+        reconnectWorkers = this.clientResources.getReconnectWorkers();
+        eventLoopGroup = this.clientResources.getEventLoopGroup();
         channels = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
-        timer.start();
     }
 
     /**
@@ -74,6 +84,145 @@ public abstract class AbstractRedisClient {
         this.unit = unit;
     }
 
+    /**
+     * Set the {@link ClientOptions} for the client. The options apply to connections created after setting the options.
+     *
+     * @param clientOptions client options for the client and connections that are created after setting the options, must not
+     *        be {@literal null}
+     */
+    public void setOptions(ClientOptions clientOptions) {
+        checkArgument(clientOptions != null, "ClientOptions must not be null");
+        this.clientOptions = clientOptions;
+        this.reconnectPermits = createReconnectPermits(clientOptions);
+    }
+
+    /**
+     * Returns the {@link ClientOptions} which are valid for that client. Connections inherit the current options at the moment
+     * the connection is created.
+     *
+     * @return the {@link ClientOptions} for this client
+     */
+    public ClientOptions getOptions() {
+        return clientOptions;
+    }
+
+    /**
+     * Set the {@link MetricsCollector} to record command latencies, reconnects and cluster redirects. Metrics are disabled by
+     * default. The collector applies to connections created after setting the collector.
+     *
+     * @param metricsCollector the metrics collector, may be {@literal null} to disable metrics.
+     */
+    public void setMetricsCollector(MetricsCollector metricsCollector) {
+        this.metricsCollector = metricsCollector;
+    }
+
+    /**
+     *
+     * @return the {@link MetricsCollector} or {@literal null} if metrics are disabled.
+     */
+    public MetricsCollector getMetricsCollector() {
+        return metricsCollector;
+    }
+
+    /**
+     * Publish a {@link MetricsSnapshot} to the listener at a fixed interval. Each snapshot contains the command latencies,
+     * reconnects and redirects of the past interval and the current state of the connections and connection pools. Enables
+     * metrics using a {@link DefaultMetricsCollector} if metrics are disabled. Publishing stops on {@link #shutdown()} or when
+     * closing the returned {@link Closeable}.
+     *
+     * @param listener the listener, must not be {@literal null}
+     * @param interval the publishing interval, must be greater 0
+     * @param unit the interval time unit, must not be {@literal null}
+     * @return a handle to stop publishing.
+     * @throws IllegalStateException if a custom {@link MetricsCollector} is set.
+     */
+    public synchronized Closeable publishMetrics(MetricsListener listener, long interval, TimeUnit unit) {
+        checkArgument(listener != null, "MetricsListener must not be null");
+        checkArgument(interval > 0, "Interval must be greater 0");
+        checkArgument(unit != null, "TimeUnit must not be null");
+
+        if (metricsCollector == null) {
+            metricsCollector = new DefaultMetricsCollector();
+        }
+
+        checkState(metricsCollector instanceof DefaultMetricsCollector,
+                "Publishing metrics requires a DefaultMetricsCollector");
+
+        MetricsPublisher publisher = new MetricsPublisher(this, (DefaultMetricsCollector) metricsCollector, listener,
+                timer, interval, unit);
+        closeableResources.add(publisher);
+        publisher.start();
+        return publisher;
+    }
+
+    /**
+     * Create a {@link MetricsSnapshot} containing the values of the {@link DefaultMetricsCollector} and the state of all
+     * connections and connection pools of this client.
+     */
+    MetricsSnapshot createMetricsSnapshot(DefaultMetricsCollector collector, boolean reset) {
+
+        MetricsSnapshot.Builder builder = collector.newSnapshot(reset);
+
+        for (Channel c : channels) {
+            CommandHandler<?, ?> commandHandler = c.pipeline().get(CommandHandler.class);
+            if (commandHandler != null) {
+                builder.addConnection(commandHandler.getPendingCommandCount(), commandHandler.getQueueSize(),
+                        commandHandler.getBufferedCommandCount());
+            }
+        }
+
+        for (Closeable closeableResource : closeableResources) {
+            if (closeableResource instanceof RedisConnectionPool) {
+                RedisConnectionPool<?> pool = (RedisConnectionPool<?>) closeableResource;
+                builder.addPool(pool.getNumActive(), pool.getNumIdle());
+            }
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Create a {@link ConnectionWatchdog} that reconnects using the current client options. Connections created by this client
+     * share the reconnect workers and the reconnect permits.
+     * 
+     * @param bootstrap Configuration for new channels.
+     * @param socketAddressSupplier supplier for the reconnect address, may be {@literal null} to reconnect to the last address.
+     * @return a new {@link ConnectionWatchdog}.
+     */
+    protected ConnectionWatchdog createConnectionWatchdog(Bootstrap bootstrap, Supplier<SocketAddress> socketAddressSupplier) {
+        ConnectionWatchdog watchdog = new ConnectionWatchdog(clientOptions, bootstrap, timer, reconnectWorkers,
+                reconnectPermits, socketAddressSupplier);
+        watchdog.setMetricsCollector(metricsCollector);
+        return watchdog;
+    }
+
+    /**
+     * Apply the {@link SocketOptions} of the {@link ClientOptions} to a bootstrap.
+     *
+     * @param bootstrap the bootstrap
+     */
+    protected void applySocketOptions(Bootstrap bootstrap) {
+        clientOptions.getSocketOptions().apply(bootstrap);
+    }
+
+    /**
+     * Configure the thread that completes commands of the handler according to the {@link ClientOptions#getCallbackExecution()
+     * callback execution}.
+     *
+     * @param handler the command handler
+     */
+    protected void applyCallbackExecution(CommandHandler<?, ?> handler) {
+        if (clientOptions.getCallbackExecution() == ClientOptions.CallbackExecution.COMPUTATION) {
+            handler.setCompletionExecutor(clientResources.getComputationExecutor().next());
+        }
+    }
+
+    private static Semaphore createReconnectPermits(ClientOptions clientOptions) {
+        int reconnectConcurrency = clientOptions.getReconnectConcurrency();
+        return reconnectConcurrency == ClientOptions.DEFAULT_RECONNECT_CONCURRENCY ? null : new Semaphore(
+                reconnectConcurrency);
+    }
+
     protected <K, V, T extends RedisAsyncConnectionImpl<K, V>> T connectAsyncImpl(final CommandHandler<K, V> handler,
             final T connection, final Supplier<SocketAddress> socketAddressSupplier, final boolean withReconnect) {
         try {
@@ -82,10 +231,13 @@ public abstract class AbstractRedisClient {
 
             logger.debug("Connecting to Redis, address: " + redisAddress);
 
-            final Bootstrap redisBootstrap = new Bootstrap().channel(NioSocketChannel.class).group(eventLoopGroup);
+            final Bootstrap redisBootstrap = new Bootstrap().channel(Transports.channelClass(eventLoopGroup))
+                    .group(eventLoopGroup);
             redisBootstrap.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) unit.toMillis(timeout));
+            applySocketOptions(redisBootstrap);
+            applyCallbackExecution(handler);
 
-            final ConnectionWatchdog watchdog = new ConnectionWatchdog(redisBootstrap, timer, socketAddressSupplier);
+            final ConnectionWatchdog watchdog = createConnectionWatchdog(redisBootstrap, socketAddressSupplier);
 
             redisBootstrap.handler(new ChannelInitializer<Channel>() {
                 @Override
@@ -101,6 +253,7 @@ public abstract class AbstractRedisClient {
                 }
             });
 
+            connection.setMetricsCollector(metricsCollector);
             redisBootstrap.connect(redisAddress).get();
 
             connection.registerCloseables(closeableResources, connection, handler);
@@ -121,7 +274,8 @@ public abstract class AbstractRedisClient {
     }
 
     /**
-     * Shutdown this client and close all open connections. The client should be discarded after calling shutdown.
+     * Shutdown this client and close all open connections. The client should be discarded after calling shutdown. Releases
+     * the {@link ClientResources} of the client: The resources are shut down if the client holds the last reference.
      * 
      * @param quietPeriod the quiet period as described in the documentation
      * @param timeout the maximum amount of time to wait until the executor is shutdown regardless if a task was submitted
@@ -155,15 +309,21 @@ public abstract class AbstractRedisClient {
         }
 
         ChannelGroupFuture closeFuture = channels.close();
-        Future<?> groupCloseFuture = eventLoopGroup.shutdownGracefully(quietPeriod, timeout, timeUnit);
         try {
             closeFuture.get();
-            groupCloseFuture.get();
         } catch (Exception e) {
             throw new RedisException(e);
         }
 
-        timer.stop();
+        clientResources.release(quietPeriod, timeout, timeUnit);
+    }
+
+    /**
+     * 
+     * @return the {@link ClientResources} used by this client.
+     */
+    public ClientResources getResources() {
+        return clientResources;
     }
 
     protected int getResourceCount() {
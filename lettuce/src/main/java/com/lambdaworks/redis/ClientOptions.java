@@ -0,0 +1,532 @@
+package com.lambdaworks.redis;
+
+import static com.google.common.base.Preconditions.*;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client Options to control the behavior of {@link RedisClient} and {@link com.lambdaworks.redis.cluster.RedisClusterClient}.
+ * Instances are immutable, use the {@link ClientOptions.Builder} to create them.
+ *
+ * @author <a href="mailto:mpaluch@paluch.biz">Mark Paluch</a>
+ * @since 3.0
+ */
+@SuppressWarnings("serial")
+public class ClientOptions implements Serializable {
+
+    /**
+     * The default number of dedicated connections per endpoint when running in multiplexed mode.
+     */
+    public static final int DEFAULT_DEDICATED_CONNECTIONS = 4;
+
+    /**
+     * The default request queue size (unbounded).
+     */
+    public static final int DEFAULT_REQUEST_QUEUE_SIZE = Integer.MAX_VALUE;
+
+    /**
+     * The default base delay for reconnect attempts in milliseconds.
+     */
+    public static final long DEFAULT_RECONNECT_BASE_DELAY = 2;
+
+    /**
+     * The default maximum delay for reconnect attempts in milliseconds.
+     */
+    public static final long DEFAULT_RECONNECT_MAX_DELAY = 30000;
+
+    /**
+     * The default number of concurrent reconnect attempts per client (unbounded).
+     */
+    public static final int DEFAULT_RECONNECT_CONCURRENCY = Integer.MAX_VALUE;
+
+    private final boolean multiplexed;
+    private final int dedicatedConnections;
+    private final int requestQueueSize;
+    private final BackpressurePolicy backpressurePolicy;
+    private final boolean writabilityBackpressure;
+    private final long backpressureTimeout;
+    private final TimeUnit backpressureTimeoutUnit;
+    private final DisconnectedBehavior disconnectedBehavior;
+    private final int disconnectedBufferSize;
+    private final long disconnectedBufferTimeout;
+    private final TimeUnit disconnectedBufferTimeoutUnit;
+    private final long reconnectBaseDelay;
+    private final long reconnectMaxDelay;
+    private final TimeUnit reconnectDelayUnit;
+    private final boolean reconnectJitter;
+    private final int reconnectConcurrency;
+    private final SocketOptions socketOptions;
+    private final CallbackExecution callbackExecution;
+
+    private ClientOptions(Builder builder) {
+        this.multiplexed = builder.multiplexed;
+        this.dedicatedConnections = builder.dedicatedConnections;
+        this.requestQueueSize = builder.requestQueueSize;
+        this.backpressurePolicy = builder.backpressurePolicy;
+        this.writabilityBackpressure = builder.writabilityBackpressure;
+        this.backpressureTimeout = builder.backpressureTimeout;
+        this.backpressureTimeoutUnit = builder.backpressureTimeoutUnit;
+        this.disconnectedBehavior = builder.disconnectedBehavior;
+        this.disconnectedBufferSize = builder.disconnectedBufferSize;
+        this.disconnectedBufferTimeout = builder.disconnectedBufferTimeout;
+        this.disconnectedBufferTimeoutUnit = builder.disconnectedBufferTimeoutUnit;
+        this.reconnectBaseDelay = builder.reconnectBaseDelay;
+        this.reconnectMaxDelay = builder.reconnectMaxDelay;
+        this.reconnectDelayUnit = builder.reconnectDelayUnit;
+        this.reconnectJitter = builder.reconnectJitter;
+        this.reconnectConcurrency = builder.reconnectConcurrency;
+        this.socketOptions = builder.socketOptions;
+        this.callbackExecution = builder.callbackExecution;
+    }
+
+    /**
+     * Create a new {@link ClientOptions} instance with default settings.
+     *
+     * @return a new instance of {@link ClientOptions} with default settings.
+     */
+    public static ClientOptions create() {
+        return new Builder().build();
+    }
+
+    /**
+     * Multiplexed mode. Connections opened in multiplexed mode share one connection per endpoint for all non-blocking
+     * commands. Blocking, transactional and connection-state changing commands lease a dedicated connection. Defaults to
+     * {@literal false}.
+     *
+     * @return {@literal true} if multiplexed mode is enabled.
+     */
+    public boolean isMultiplexed() {
+        return multiplexed;
+    }
+
+    /**
+     * Maximum number of dedicated connections per endpoint that can be leased in multiplexed mode. Defaults to
+     * {@link #DEFAULT_DEDICATED_CONNECTIONS}.
+     *
+     * @return the maximum number of dedicated connections per endpoint.
+     */
+    public int getDedicatedConnections() {
+        return dedicatedConnections;
+    }
+
+    /**
+     * Maximum number of commands per connection that are either buffered, written or awaiting a response. Writing a command
+     * beyond the limit applies the {@link #getBackpressurePolicy() backpressure policy}. Defaults to
+     * {@link #DEFAULT_REQUEST_QUEUE_SIZE}.
+     *
+     * @return the request queue size.
+     */
+    public int getRequestQueueSize() {
+        return requestQueueSize;
+    }
+
+    /**
+     * Behavior when the request queue is full (or the channel is not writable when using
+     * {@link #isWritabilityBackpressure() writability backpressure}). Defaults to {@link BackpressurePolicy#REJECT}.
+     *
+     * @return the backpressure policy.
+     */
+    public BackpressurePolicy getBackpressurePolicy() {
+        return backpressurePolicy;
+    }
+
+    /**
+     * Use the channel writability to apply backpressure. The channel becomes unwritable as soon as the outbound buffer exceeds
+     * the write buffer high water mark. Defaults to {@literal false}.
+     *
+     * @return {@literal true} if an unwritable channel applies the {@link #getBackpressurePolicy() backpressure policy}.
+     */
+    public boolean isWritabilityBackpressure() {
+        return writabilityBackpressure;
+    }
+
+    /**
+     * Maximum time to block a producer when using {@link BackpressurePolicy#BLOCK}.
+     *
+     * @return the backpressure timeout.
+     */
+    public long getBackpressureTimeout() {
+        return backpressureTimeout;
+    }
+
+    /**
+     *
+     * @return the unit for the {@link #getBackpressureTimeout() backpressure timeout}.
+     */
+    public TimeUnit getBackpressureTimeoutUnit() {
+        return backpressureTimeoutUnit;
+    }
+
+    /**
+     * Socket and channel options for new connections. Defaults to {@link SocketOptions#create()}.
+     *
+     * @return the socket options.
+     */
+    public SocketOptions getSocketOptions() {
+        return socketOptions;
+    }
+
+    /**
+     * Thread that completes commands and runs their listeners. Defaults to {@link CallbackExecution#IO_THREAD}.
+     *
+     * @return the callback execution.
+     */
+    public CallbackExecution getCallbackExecution() {
+        return callbackExecution;
+    }
+
+    /**
+     * Behavior of a connection for commands that are issued while the connection is disconnected. Defaults to
+     * {@link DisconnectedBehavior#ACCEPT_COMMANDS}.
+     *
+     * @return the behavior while disconnected.
+     */
+    public DisconnectedBehavior getDisconnectedBehavior() {
+        return disconnectedBehavior;
+    }
+
+    /**
+     * Maximum number of commands that are buffered while the connection is disconnected. Commands beyond the limit are
+     * rejected. Defaults to {@link #DEFAULT_REQUEST_QUEUE_SIZE} (unbounded).
+     *
+     * @return the disconnected buffer size.
+     */
+    public int getDisconnectedBufferSize() {
+        return disconnectedBufferSize;
+    }
+
+    /**
+     * Maximum time a command is buffered while the connection is disconnected. Commands buffered for a longer time are
+     * completed with an error instead of being sent after reconnecting. Defaults to {@literal 0} (no limit).
+     *
+     * @return the disconnected buffer timeout.
+     */
+    public long getDisconnectedBufferTimeout() {
+        return disconnectedBufferTimeout;
+    }
+
+    /**
+     *
+     * @return the unit for the {@link #getDisconnectedBufferTimeout() disconnected buffer timeout}.
+     */
+    public TimeUnit getDisconnectedBufferTimeoutUnit() {
+        return disconnectedBufferTimeoutUnit;
+    }
+
+    /**
+     * Base delay of the exponential reconnect backoff. The delay of the n-th reconnect attempt is {@code base * 2^n}, capped at
+     * the {@link #getReconnectMaxDelay() maximum delay}. Defaults to {@link #DEFAULT_RECONNECT_BASE_DELAY} milliseconds.
+     *
+     * @return the reconnect base delay.
+     */
+    public long getReconnectBaseDelay() {
+        return reconnectBaseDelay;
+    }
+
+    /**
+     * Maximum delay between two reconnect attempts. Defaults to {@link #DEFAULT_RECONNECT_MAX_DELAY} milliseconds.
+     *
+     * @return the reconnect maximum delay.
+     */
+    public long getReconnectMaxDelay() {
+        return reconnectMaxDelay;
+    }
+
+    /**
+     *
+     * @return the unit for the {@link #getReconnectBaseDelay() base} and {@link #getReconnectMaxDelay() maximum} reconnect
+     *         delay.
+     */
+    public TimeUnit getReconnectDelayUnit() {
+        return reconnectDelayUnit;
+    }
+
+    /**
+     * Apply full jitter to the reconnect backoff: The delay is chosen randomly between zero and the exponential delay, so
+     * connections that were disconnected at the same time spread their reconnect attempts. Defaults to {@literal true}.
+     *
+     * @return {@literal true} if the reconnect delay is randomized.
+     */
+    public boolean isReconnectJitter() {
+        return reconnectJitter;
+    }
+
+    /**
+     * Maximum number of concurrent reconnect attempts per client. Reconnect attempts beyond the limit are deferred to the
+     * next backoff interval. Defaults to {@link #DEFAULT_RECONNECT_CONCURRENCY} (unbounded).
+     *
+     * @return the reconnect concurrency.
+     */
+    public int getReconnectConcurrency() {
+        return reconnectConcurrency;
+    }
+
+    /**
+     * Behavior of a connection for commands that are issued while the connection is disconnected.
+     */
+    public static enum DisconnectedBehavior {
+
+        /**
+         * Buffer commands and send them after reconnecting.
+         */
+        ACCEPT_COMMANDS,
+
+        /**
+         * Reject commands with a {@link RedisException}.
+         */
+        REJECT_COMMANDS,
+
+        /**
+         * Buffer read-only commands and reject all other commands with a {@link RedisException}. Read-only commands are
+         * idempotent and therefore safe to send after reconnecting.
+         */
+        ACCEPT_READ_COMMANDS;
+    }
+
+    /**
+     * Thread that completes commands and runs listeners registered with a same-thread executor.
+     */
+    public static enum CallbackExecution {
+
+        /**
+         * Complete commands on the I/O thread that decoded the response. Lowest latency, but slow listeners delay decoding of
+         * all other responses of the connection.
+         */
+        IO_THREAD,
+
+        /**
+         * Complete commands on the {@link ClientResources#getComputationExecutor() computation executor}. Commands of a
+         * connection are completed in order by a single computation thread, listeners cannot stall the I/O thread.
+         * Completion requires a thread handoff.
+         */
+        COMPUTATION;
+    }
+
+    /**
+     * Behavior of a connection when it cannot accept more commands.
+     */
+    public static enum BackpressurePolicy {
+
+        /**
+         * Reject the command immediately with a {@link RedisException}.
+         */
+        REJECT,
+
+        /**
+         * Block the caller until the connection can accept the command or until the backpressure timeout is exceeded.
+         */
+        BLOCK;
+    }
+
+    /**
+     * Builder for {@link ClientOptions}.
+     */
+    public static class Builder {
+
+        private boolean multiplexed = false;
+        private int dedicatedConnections = DEFAULT_DEDICATED_CONNECTIONS;
+        private int requestQueueSize = DEFAULT_REQUEST_QUEUE_SIZE;
+        private BackpressurePolicy backpressurePolicy = BackpressurePolicy.REJECT;
+        private boolean writabilityBackpressure = false;
+        private long backpressureTimeout = 1;
+        private TimeUnit backpressureTimeoutUnit = TimeUnit.SECONDS;
+        private DisconnectedBehavior disconnectedBehavior = DisconnectedBehavior.ACCEPT_COMMANDS;
+        private int disconnectedBufferSize = DEFAULT_REQUEST_QUEUE_SIZE;
+        private long disconnectedBufferTimeout = 0;
+        private TimeUnit disconnectedBufferTimeoutUnit = TimeUnit.SECONDS;
+        private long reconnectBaseDelay = DEFAULT_RECONNECT_BASE_DELAY;
+        private long reconnectMaxDelay = DEFAULT_RECONNECT_MAX_DELAY;
+        private TimeUnit reconnectDelayUnit = TimeUnit.MILLISECONDS;
+        private boolean reconnectJitter = true;
+        private int reconnectConcurrency = DEFAULT_RECONNECT_CONCURRENCY;
+        private SocketOptions socketOptions = SocketOptions.create();
+        private CallbackExecution callbackExecution = CallbackExecution.IO_THREAD;
+
+        /**
+         * Enables or disables multiplexed mode. See {@link ClientOptions#isMultiplexed()}.
+         *
+         * @param multiplexed {@literal true} to share one connection per endpoint.
+         * @return the builder
+         */
+        public Builder withMultiplexing(boolean multiplexed) {
+            this.multiplexed = multiplexed;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of dedicated connections per endpoint. See {@link ClientOptions#getDedicatedConnections()}.
+         *
+         * @param dedicatedConnections must be greater 0
+         * @return the builder
+         */
+        public Builder withDedicatedConnections(int dedicatedConnections) {
+            checkArgument(dedicatedConnections > 0, "dedicatedConnections must be greater 0");
+            this.dedicatedConnections = dedicatedConnections;
+            return this;
+        }
+
+        /**
+         * Sets the request queue size. See {@link ClientOptions#getRequestQueueSize()}.
+         *
+         * @param requestQueueSize must be greater 0
+         * @return the builder
+         */
+        public Builder withRequestQueueSize(int requestQueueSize) {
+            checkArgument(requestQueueSize > 0, "requestQueueSize must be greater 0");
+            this.requestQueueSize = requestQueueSize;
+            return this;
+        }
+
+        /**
+         * Sets the backpressure policy. See {@link ClientOptions#getBackpressurePolicy()}.
+         *
+         * @param backpressurePolicy must not be {@literal null}
+         * @return the builder
+         */
+        public Builder withBackpressurePolicy(BackpressurePolicy backpressurePolicy) {
+            checkNotNull(backpressurePolicy, "BackpressurePolicy must not be null");
+            this.backpressurePolicy = backpressurePolicy;
+            return this;
+        }
+
+        /**
+         * Enables or disables writability backpressure. See {@link ClientOptions#isWritabilityBackpressure()}.
+         *
+         * @param writabilityBackpressure {@literal true} to apply backpressure while the channel is not writable.
+         * @return the builder
+         */
+        public Builder withWritabilityBackpressure(boolean writabilityBackpressure) {
+            this.writabilityBackpressure = writabilityBackpressure;
+            return this;
+        }
+
+        /**
+         * Sets the maximum time to block a producer. See {@link ClientOptions#getBackpressureTimeout()}.
+         *
+         * @param timeout must be greater or equal 0
+         * @param unit the timeout time unit.
+         * @return the builder
+         */
+        public Builder withBackpressureTimeout(long timeout, TimeUnit unit) {
+            checkNotNull(unit, "TimeUnit must not be null");
+            checkArgument(timeout >= 0, "Timeout must be greater or equal 0");
+            this.backpressureTimeout = timeout;
+            this.backpressureTimeoutUnit = unit;
+            return this;
+        }
+
+        /**
+         * Sets the behavior while disconnected. See {@link ClientOptions#getDisconnectedBehavior()}.
+         *
+         * @param disconnectedBehavior must not be {@literal null}
+         * @return the builder
+         */
+        public Builder withDisconnectedBehavior(DisconnectedBehavior disconnectedBehavior) {
+            checkNotNull(disconnectedBehavior, "DisconnectedBehavior must not be null");
+            this.disconnectedBehavior = disconnectedBehavior;
+            return this;
+        }
+
+        /**
+         * Sets the disconnected buffer size. See {@link ClientOptions#getDisconnectedBufferSize()}.
+         *
+         * @param disconnectedBufferSize must be greater or equal 0
+         * @return the builder
+         */
+        public Builder withDisconnectedBufferSize(int disconnectedBufferSize) {
+            checkArgument(disconnectedBufferSize >= 0, "disconnectedBufferSize must be greater or equal 0");
+            this.disconnectedBufferSize = disconnectedBufferSize;
+            return this;
+        }
+
+        /**
+         * Sets the disconnected buffer timeout. See {@link ClientOptions#getDisconnectedBufferTimeout()}.
+         *
+         * @param timeout must be greater or equal 0, {@literal 0} disables the timeout.
+         * @param unit the timeout time unit.
+         * @return the builder
+         */
+        public Builder withDisconnectedBufferTimeout(long timeout, TimeUnit unit) {
+            checkNotNull(unit, "TimeUnit must not be null");
+            checkArgument(timeout >= 0, "Timeout must be greater or equal 0");
+            this.disconnectedBufferTimeout = timeout;
+            this.disconnectedBufferTimeoutUnit = unit;
+            return this;
+        }
+
+        /**
+         * Sets the reconnect backoff. See {@link ClientOptions#getReconnectBaseDelay()} and
+         * {@link ClientOptions#getReconnectMaxDelay()}.
+         *
+         * @param baseDelay must be greater 0
+         * @param maxDelay must be greater or equal {@code baseDelay}
+         * @param unit the delay time unit.
+         * @return the builder
+         */
+        public Builder withReconnectBackoff(long baseDelay, long maxDelay, TimeUnit unit) {
+            checkNotNull(unit, "TimeUnit must not be null");
+            checkArgument(baseDelay > 0, "baseDelay must be greater 0");
+            checkArgument(maxDelay >= baseDelay, "maxDelay must be greater or equal baseDelay");
+            this.reconnectBaseDelay = baseDelay;
+            this.reconnectMaxDelay = maxDelay;
+            this.reconnectDelayUnit = unit;
+            return this;
+        }
+
+        /**
+         * Enables or disables reconnect jitter. See {@link ClientOptions#isReconnectJitter()}.
+         *
+         * @param reconnectJitter {@literal true} to randomize the reconnect delay.
+         * @return the builder
+         */
+        public Builder withReconnectJitter(boolean reconnectJitter) {
+            this.reconnectJitter = reconnectJitter;
+            return this;
+        }
+
+        /**
+         * Sets the reconnect concurrency. See {@link ClientOptions#getReconnectConcurrency()}.
+         *
+         * @param reconnectConcurrency must be greater 0
+         * @return the builder
+         */
+        public Builder withReconnectConcurrency(int reconnectConcurrency) {
+            checkArgument(reconnectConcurrency > 0, "reconnectConcurrency must be greater 0");
+            this.reconnectConcurrency = reconnectConcurrency;
+            return this;
+        }
+
+        /**
+         * Sets the socket options. See {@link ClientOptions#getSocketOptions()}.
+         *
+         * @param socketOptions must not be {@literal null}
+         * @return the builder
+         */
+        public Builder withSocketOptions(SocketOptions socketOptions) {
+            checkNotNull(socketOptions, "SocketOptions must not be null");
+            this.socketOptions = socketOptions;
+            return this;
+        }
+
+        /**
+         * Sets the callback execution. See {@link ClientOptions#getCallbackExecution()}.
+         *
+         * @param callbackExecution must not be {@literal null}
+         * @return the builder
+         */
+        public Builder withCallbackExecution(CallbackExecution callbackExecution) {
+            checkNotNull(callbackExecution, "CallbackExecution must not be null");
+            this.callbackExecution = callbackExecution;
+            return this;
+        }
+
+        /**
+         *
+         * @return a new instance of {@link ClientOptions}.
+         */
+        public ClientOptions build() {
+            return new ClientOptions(this);
+        }
+    }
+}
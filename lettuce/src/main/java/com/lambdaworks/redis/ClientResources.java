@@ -0,0 +1,249 @@
+package com.lambdaworks.redis;
+
+import static com.google.common.base.Preconditions.*;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.EventExecutorGroup;
+import io.netty.util.concurrent.Future;
+import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+/**
+ * Thread and timer resources of {@link RedisClient} and {@link com.lambdaworks.redis.cluster.RedisClusterClient}: The I/O
+ * event loops, a computation executor for listener callbacks, a timer and the reconnect workers. One instance can be shared
+ * by multiple clients to limit the number of threads. Instances are reference-counted: Creating an instance holds one
+ * reference, every client that uses the instance holds one reference until it is shut down. The threads are shut down when
+ * the last reference is {@link #release() released}.
+ *
+ * @author <a href="mailto:mpaluch@paluch.biz">Mark Paluch</a>
+ * @since 3.0
+ */
+public class ClientResources {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(ClientResources.class);
+
+    /**
+     * Minimum number of I/O and computation threads.
+     */
+    public static final int MIN_THREADS = 3;
+
+    /**
+     * The default number of I/O threads: The number of available processors (at least {@link #MIN_THREADS}). Can be
+     * overridden using the system property {@code io.netty.eventLoopThreads}.
+     */
+    public static final int DEFAULT_IO_THREADS;
+
+    /**
+     * The default number of computation threads: The number of available processors (at least {@link #MIN_THREADS}).
+     */
+    public static final int DEFAULT_COMPUTATION_THREADS;
+
+    static {
+        int threads = Math.max(MIN_THREADS, Runtime.getRuntime().availableProcessors());
+        DEFAULT_IO_THREADS = Math.max(1, SystemPropertyUtil.getInt("io.netty.eventLoopThreads", threads));
+        DEFAULT_COMPUTATION_THREADS = threads;
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("-Dio.netty.eventLoopThreads: {}", DEFAULT_IO_THREADS);
+        }
+    }
+
+    private final int ioThreadPoolSize;
+    private final int computationThreadPoolSize;
+    private final EventLoopGroup eventLoopGroup;
+    private final EventExecutorGroup computationExecutor;
+    private final HashedWheelTimer timer;
+    private final ExecutorService reconnectWorkers;
+    private final AtomicInteger refCnt = new AtomicInteger(1);
+
+    private ClientResources(Builder builder) {
+        this.ioThreadPoolSize = builder.ioThreadPoolSize;
+        this.computationThreadPoolSize = builder.computationThreadPoolSize;
+
+        eventLoopGroup = Transports.createEventLoopGroup(ioThreadPoolSize);
+        computationExecutor = new DefaultEventExecutorGroup(computationThreadPoolSize, new DefaultThreadFactory(
+                "lettuce-computation", true));
+        reconnectWorkers = Executors.newCachedThreadPool(new DefaultThreadFactory("lettuce-reconnect", true));
+        timer = new HashedWheelTimer(new DefaultThreadFactory("lettuce-timer", true));
+        timer.start();
+    }
+
+    /**
+     * Create new {@link ClientResources} with default settings.
+     *
+     * @return a new instance of {@link ClientResources} with default settings.
+     */
+    public static ClientResources create() {
+        return new Builder().build();
+    }
+
+    /**
+     *
+     * @return the event loop group for I/O.
+     */
+    public EventLoopGroup getEventLoopGroup() {
+        return eventLoopGroup;
+    }
+
+    /**
+     *
+     * @return the executor to run listener callbacks and other non-I/O work.
+     */
+    public EventExecutorGroup getComputationExecutor() {
+        return computationExecutor;
+    }
+
+    /**
+     *
+     * @return the timer for delayed tasks such as reconnects.
+     */
+    public HashedWheelTimer getTimer() {
+        return timer;
+    }
+
+    /**
+     *
+     * @return the executor to resolve reconnect addresses. Resolving can block, for example when querying a sentinel.
+     */
+    public ExecutorService getReconnectWorkers() {
+        return reconnectWorkers;
+    }
+
+    /**
+     *
+     * @return the number of I/O threads.
+     */
+    public int getIoThreadPoolSize() {
+        return ioThreadPoolSize;
+    }
+
+    /**
+     *
+     * @return the number of computation threads.
+     */
+    public int getComputationThreadPoolSize() {
+        return computationThreadPoolSize;
+    }
+
+    /**
+     *
+     * @return the current reference count, {@literal 0} if the resources are shut down.
+     */
+    public int refCnt() {
+        return refCnt.get();
+    }
+
+    /**
+     * Acquire a reference.
+     *
+     * @return this instance.
+     * @throws IllegalStateException if the resources are already shut down.
+     */
+    public ClientResources retain() {
+        while (true) {
+            int current = refCnt.get();
+            checkState(current > 0, "ClientResources are shut down");
+            if (refCnt.compareAndSet(current, current + 1)) {
+                return this;
+            }
+        }
+    }
+
+    /**
+     * Release a reference and shut down the resources with 2 secs quiet time and a timeout of 15 secs if it was the last
+     * reference.
+     *
+     * @return {@literal true} if the resources were shut down.
+     */
+    public boolean release() {
+        return release(2, 15, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Release a reference and shut down the resources if it was the last reference. Waits until the threads are terminated.
+     *
+     * @param quietPeriod the quiet period as described in the documentation
+     * @param timeout the maximum amount of time to wait until the executor is shutdown regardless if a task was submitted
+     *        during the quiet period
+     * @param timeUnit the unit of {@code quietPeriod} and {@code timeout}
+     * @return {@literal true} if the resources were shut down.
+     */
+    public boolean release(long quietPeriod, long timeout, TimeUnit timeUnit) {
+
+        int current;
+        do {
+            current = refCnt.get();
+            checkState(current > 0, "ClientResources are shut down");
+        } while (!refCnt.compareAndSet(current, current - 1));
+
+        if (current != 1) {
+            return false;
+        }
+
+        logger.debug("Shutting down ClientResources");
+
+        Future<?> eventLoopShutdown = eventLoopGroup.shutdownGracefully(quietPeriod, timeout, timeUnit);
+        Future<?> computationShutdown = computationExecutor.shutdownGracefully(quietPeriod, timeout, timeUnit);
+        try {
+            eventLoopShutdown.get();
+            computationShutdown.get();
+        } catch (Exception e) {
+            throw new RedisException(e);
+        } finally {
+            timer.stop();
+            reconnectWorkers.shutdownNow();
+        }
+
+        return true;
+    }
+
+    /**
+     * Builder for {@link ClientResources}.
+     */
+    public static class Builder {
+
+        private int ioThreadPoolSize = DEFAULT_IO_THREADS;
+        private int computationThreadPoolSize = DEFAULT_COMPUTATION_THREADS;
+
+        /**
+         * Sets the number of I/O threads. See {@link ClientResources#getIoThreadPoolSize()}.
+         *
+         * @param ioThreadPoolSize must be greater 0
+         * @return the builder
+         */
+        public Builder withIoThreadPoolSize(int ioThreadPoolSize) {
+            checkArgument(ioThreadPoolSize > 0, "ioThreadPoolSize must be greater 0");
+            this.ioThreadPoolSize = ioThreadPoolSize;
+            return this;
+        }
+
+        /**
+         * Sets the number of computation threads. See {@link ClientResources#getComputationThreadPoolSize()}.
+         *
+         * @param computationThreadPoolSize must be greater 0
+         * @return the builder
+         */
+        public Builder withComputationThreadPoolSize(int computationThreadPoolSize) {
+            checkArgument(computationThreadPoolSize > 0, "computationThreadPoolSize must be greater 0");
+            this.computationThreadPoolSize = computationThreadPoolSize;
+            return this;
+        }
+
+        /**
+         *
+         * @return a new instance of {@link ClientResources}.
+         */
+        public ClientResources build() {
+            return new ClientResources(this);
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.lambdaworks.redis;
+
+import static com.google.common.base.Preconditions.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.lambdaworks.redis.output.KeyStreamingChannel;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+/**
+ * Walks the keyspace of multiple nodes in parallel, e.g. all masters of a cluster (see
+ * {@link com.lambdaworks.redis.cluster.RedisClusterClient#connectMastersAsync()}). Every node is scanned by its own thread
+ * using {@code SCAN} with a {@link KeyStreamingChannel}. The keys of a page are passed to a {@link KeyHandler} that dispatches
+ * follow-up commands such as {@code TYPE}, {@code TTL} or {@code DUMP}. Follow-up commands are pipelined: they are awaited
+ * only after the next {@code SCAN} page was requested.
+ *
+ * A rate limit per node protects production nodes; the {@link ProgressListener} is notified after each page. Instances are
+ * immutable, use the {@link KeyspaceScanner.Builder} to create them.
+ *
+ * @param <K> Key type.
+ * @param <V> Value type.
+ * @author <a href="mailto:mpaluch@paluch.biz">Mark Paluch</a>
+ * @since 3.0
+ */
+public class KeyspaceScanner<K, V> {
+
+    private final List<RedisAsyncConnection<K, V>> connections;
+    private final ScanArgs scanArgs;
+    private final double keysPerSecond;
+    private final ProgressListener<K, V> progressListener;
+    private final long timeout;
+    private final TimeUnit unit;
+
+    private KeyspaceScanner(Builder<K, V> builder) {
+        this.connections = Collections.unmodifiableList(new ArrayList<RedisAsyncConnection<K, V>>(builder.connections));
+        this.scanArgs = builder.scanArgs;
+        this.keysPerSecond = builder.keysPerSecond;
+        this.progressListener = builder.progressListener;
+        this.timeout = builder.timeout;
+        this.unit = builder.unit;
+    }
+
+    /**
+     * Scan the keyspace of all nodes and pass every key to the {@code handler}. Blocks until all nodes are scanned and all
+     * follow-up commands completed. The scan is aborted on the first error: the other nodes stop before their next page or
+     * key.
+     *
+     * @param handler the key handler
+     * @return the number of scanned keys.
+     */
+    public long scan(final KeyHandler<K, V> handler) {
+
+        checkArgument(handler != null, "KeyHandler must not be null");
+
+        final AtomicLong total = new AtomicLong();
+        final AtomicBoolean aborted = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool(connections.size(), new DefaultThreadFactory(
+                "lettuce-keyspace-scan", true));
+        CompletionService<Long> completionService = new ExecutorCompletionService<Long>(executor);
+
+        try {
+            for (final RedisAsyncConnection<K, V> connection : connections) {
+                completionService.submit(new Callable<Long>() {
+                    @Override
+                    public Long call() throws Exception {
+                        try {
+                            return scan(connection, handler, total, aborted);
+                        } catch (RuntimeException e) {
+                            aborted.set(true);
+                            throw e;
+                        }
+                    }
+                });
+            }
+
+            // nodes are awaited in completion order, so the first failure aborts the scan right away.
+            for (int i = 0; i < connections.size(); i++) {
+                completionService.take().get();
+            }
+
+            return total.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RedisException) {
+                throw (RedisException) e.getCause();
+            }
+            throw new RedisException(e.getCause());
+        } catch (InterruptedException e) {
+            throw new RedisCommandInterruptedException(e);
+        } finally {
+            aborted.set(true);
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Scan a single node until the cursor is finished or the scan is {@code aborted}.
+     */
+    long scan(RedisAsyncConnection<K, V> connection, KeyHandler<K, V> handler, AtomicLong total, AtomicBoolean aborted) {
+
+        RateLimiter rateLimiter = keysPerSecond > 0 ? RateLimiter.create(keysPerSecond) : null;
+        List<RedisFuture<?>> followUps = Collections.emptyList();
+        ScanCursor cursor = null;
+        long count = 0;
+
+        do {
+            checkAborted(aborted);
+            KeyCollector<K> keys = new KeyCollector<K>();
+            RedisFuture<StreamScanCursor> page = connection.scan(keys, cursor, scanArgs);
+
+            awaitAll(followUps);
+            cursor = await(page);
+
+            followUps = new ArrayList<RedisFuture<?>>(keys.keys.size());
+            for (K key : keys.keys) {
+                checkAborted(aborted);
+                if (rateLimiter != null) {
+                    rateLimiter.acquire();
+                }
+                RedisFuture<?> followUp = handler.onKey(connection, key);
+                if (followUp != null) {
+                    followUps.add(followUp);
+                }
+            }
+
+            count += keys.keys.size();
+            long totalCount = total.addAndGet(keys.keys.size());
+            if (progressListener != null) {
+                progressListener.onProgress(connection, count, totalCount);
+            }
+        } while (!cursor.isFinished());
+
+        awaitAll(followUps);
+        return count;
+    }
+
+    private void checkAborted(AtomicBoolean aborted) {
+        if (aborted.get()) {
+            throw new RedisException("Scan aborted");
+        }
+    }
+
+    private void awaitAll(List<RedisFuture<?>> futures) {
+        for (RedisFuture<?> future : futures) {
+            await(future);
+        }
+    }
+
+    private <T> T await(RedisFuture<T> future) {
+        try {
+            T result = future.get(timeout, unit);
+            if (future.getError() != null) {
+                throw new RedisException(future.getError());
+            }
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new RedisException("Command timed out");
+        } catch (ExecutionException e) {
+            throw new RedisException(e.getCause());
+        } catch (InterruptedException e) {
+            throw new RedisCommandInterruptedException(e);
+        }
+    }
+
+    /**
+     * Handler for scanned keys.
+     *
+     * @param <K> Key type.
+     * @param <V> Value type.
+     */
+    public interface KeyHandler<K, V> {
+
+        /**
+         * Called for every scanned key. Dispatch follow-up commands on the {@code connection} of the node and return their
+         * future without blocking.
+         *
+         * @param connection the connection of the node that holds the key
+         * @param key the key
+         * @return the future of the follow-up command, may be {@literal null}.
+         */
+        RedisFuture<?> onKey(RedisAsyncConnection<K, V> connection, K key);
+    }
+
+    /**
+     * Listener for the progress of a scan.
+     *
+     * @param <K> Key type.
+     * @param <V> Value type.
+     */
+    public interface ProgressListener<K, V> {
+
+        /**
+         * Called after each page from the thread scanning the node.
+         *
+         * @param connection the connection of the node
+         * @param nodeKeys number of keys scanned on the node
+         * @param totalKeys number of keys scanned on all nodes
+         */
+        void onProgress(RedisAsyncConnection<K, V> connection, long nodeKeys, long totalKeys);
+    }
+
+    private static class KeyCollector<K> implements KeyStreamingChannel<K> {
+
+        private final List<K> keys = new ArrayList<K>();
+
+        @Override
+        public void onKey(K key) {
+            keys.add(key);
+        }
+    }
+
+    /**
+     * Builder for {@link KeyspaceScanner}.
+     *
+     * @param <K> Key type.
+     * @param <V> Value type.
+     */
+    public static class Builder<K, V> {
+
+        private final Collection<? extends RedisAsyncConnection<K, V>> connections;
+        private ScanArgs scanArgs;
+        private double keysPerSecond;
+        private ProgressListener<K, V> progressListener;
+        private long timeout = 60;
+        private TimeUnit unit = TimeUnit.SECONDS;
+
+        /**
+         *
+         * @param connections one connection per node to scan, must not be empty
+         */
+        public Builder(Collection<? extends RedisAsyncConnection<K, V>> connections) {
+            checkArgument(connections != null && !connections.isEmpty(), "Connections must not be empty");
+            this.connections = connections;
+        }
+
+        /**
+         * Sets the scan arguments, e.g. {@code COUNT} to control the page size.
+         *
+         * @param scanArgs the scan arguments, may be {@literal null}
+         * @return the builder
+         */
+        public Builder<K, V> withScanArgs(ScanArgs scanArgs) {
+            this.scanArgs = scanArgs;
+            return this;
+        }
+
+        /**
+         * Limits the number of keys passed to the {@link KeyHandler} per second and node. Defaults to unlimited.
+         *
+         * @param keysPerSecond keys per second and node, {@literal 0} for unlimited
+         * @return the builder
+         */
+        public Builder<K, V> withRateLimit(double keysPerSecond) {
+            checkArgument(keysPerSecond >= 0, "keysPerSecond must be greater or equal 0");
+            this.keysPerSecond = keysPerSecond;
+            return this;
+        }
+
+        /**
+         * Sets the progress listener.
+         *
+         * @param progressListener the listener, may be {@literal null}
+         * @return the builder
+         */
+        public Builder<K, V> withProgressListener(ProgressListener<K, V> progressListener) {
+            this.progressListener = progressListener;
+            return this;
+        }
+
+        /**
+         * Sets the maximum time to wait for a single command. Defaults to 60 seconds.
+         *
+         * @param timeout the timeout
+         * @param unit the unit
+         * @return the builder
+         */
+        public Builder<K, V> withTimeout(long timeout, TimeUnit unit) {
+            checkArgument(timeout > 0, "timeout must be greater 0");
+            checkArgument(unit != null, "unit must not be null");
+            this.timeout = timeout;
+            this.unit = unit;
+            return this;
+        }
+
+        /**
+         *
+         * @return a new instance of {@link KeyspaceScanner}.
+         */
+        public KeyspaceScanner<K, V> build() {
+            return new KeyspaceScanner<K, V>(this);
+        }
+    }
+}
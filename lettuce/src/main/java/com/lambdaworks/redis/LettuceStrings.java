@@ -1,5 +1,10 @@
 package com.lambdaworks.redis;
 
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import com.lambdaworks.codec.Base16;
+
 /**
  * @author <a href="mailto:mpaluch@paluch.biz">Mark Paluch</a>>
  * @since 3.0
@@ -37,4 +42,20 @@ public class LettuceStrings {
     public static boolean isNotEmpty(final CharSequence cs) {
         return !isEmpty(cs);
     }
+
+    /**
+     * Create a SHA1 digest from a Lua script.
+     * 
+     * @param script the encoded script
+     * @return the hex encoded SHA1 digest
+     */
+    public static String digest(byte[] script) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA1");
+            md.update(script);
+            return new String(Base16.encode(md.digest(), false));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RedisException("JVM does not support SHA1");
+        }
+    }
 }
@@ -0,0 +1,272 @@
+package com.lambdaworks.redis;
+
+import static com.lambdaworks.redis.protocol.CommandType.*;
+
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.base.Function;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.lambdaworks.redis.protocol.CommandType;
+import com.lambdaworks.redis.protocol.ReadOnlyCommands;
+import com.lambdaworks.redis.protocol.RedisCommand;
+
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+/**
+ * Channel writer for master/slave connections. Read-only commands are routed to a slave according to the {@link ReadPolicy},
+ * all other commands are written to the master. Commands between {@code WATCH}/{@code MULTI} and the end of the transaction
+ * are written to the master to keep the transaction consistent. Cursor commands ({@code SCAN}, {@code HSCAN}, {@code SSCAN},
+ * {@code ZSCAN}) are always written to the master because a cursor is only valid on the node that issued it. After a
+ * {@code SELECT} all reads are written to the master since the slave connections remain on the database of the
+ * {@link RedisURI}.
+ *
+ * @param <K> Key type.
+ * @param <V> Value type.
+ * @author <a href="mailto:mpaluch@paluch.biz">Mark Paluch</a>
+ * @since 3.0
+ */
+class MasterSlaveChannelWriter<K, V> implements RedisChannelWriter<K, V> {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(MasterSlaveChannelWriter.class);
+
+    private static final Set<CommandType> TRANSACTION_START = EnumSet.of(WATCH, MULTI);
+    private static final Set<CommandType> TRANSACTION_END = EnumSet.of(EXEC, DISCARD);
+    private static final Set<CommandType> CURSOR_COMMANDS = EnumSet.of(SCAN, HSCAN, SSCAN, ZSCAN);
+
+    /**
+     * Weight of a new sample in the moving average of the response time.
+     */
+    private static final double LATENCY_ALPHA = 0.2;
+
+    private final RedisChannelWriter<K, V> master;
+    private final ReadPolicy readPolicy;
+    private final AtomicInteger roundRobin = new AtomicInteger();
+    private final Random random = new Random();
+    private volatile List<Slave<K, V>> slaves = new ArrayList<Slave<K, V>>();
+    private volatile boolean inTransaction;
+    private volatile boolean inMulti;
+    private volatile boolean databaseSelected;
+    private boolean closed;
+
+    /**
+     *
+     * @param master writer of the master connection.
+     * @param readPolicy routing of read-only commands.
+     */
+    public MasterSlaveChannelWriter(RedisChannelWriter<K, V> master, ReadPolicy readPolicy) {
+        this.master = master;
+        this.readPolicy = readPolicy;
+    }
+
+    @Override
+    public <T> RedisCommand<K, V, T> write(RedisCommand<K, V, T> command) {
+
+        CommandType type = command.getType();
+
+        if (TRANSACTION_START.contains(type)) {
+            inTransaction = true;
+            inMulti |= type == MULTI;
+        } else if (TRANSACTION_END.contains(type) || (type == UNWATCH && !inMulti)) {
+            // UNWATCH inside MULTI is queued and does not end the transaction.
+            inTransaction = false;
+            inMulti = false;
+        }
+
+        if (type == SELECT) {
+            databaseSelected = true;
+        }
+
+        if (readPolicy != ReadPolicy.MASTER && !inTransaction && !databaseSelected && !CURSOR_COMMANDS.contains(type)
+                && ReadOnlyCommands.isReadOnlyCommand(type)) {
+            Slave<K, V> slave = selectSlave();
+            if (slave != null) {
+                try {
+                    return slave.write(command);
+                } catch (RedisException e) {
+                    logger.debug("Cannot write to slave " + slave.address + ", falling back to master: " + e.toString());
+                }
+            }
+        }
+
+        return master.write(command);
+    }
+
+    /**
+     * Select a connected slave according to the {@link ReadPolicy}.
+     *
+     * @return the slave or {@literal null} if no slave is connected.
+     */
+    Slave<K, V> selectSlave() {
+
+        List<Slave<K, V>> candidates = new ArrayList<Slave<K, V>>();
+        for (Slave<K, V> slave : slaves) {
+            if (slave.connection.isOpen()) {
+                candidates.add(slave);
+            }
+        }
+
+        if (candidates.isEmpty()) {
+            return null;
+        }
+
+        switch (readPolicy) {
+            case LEAST_PENDING:
+                Slave<K, V> leastPending = candidates.get(0);
+                for (Slave<K, V> slave : candidates) {
+                    if (slave.pending.get() < leastPending.pending.get()) {
+                        leastPending = slave;
+                    }
+                }
+                return leastPending;
+
+            case LATENCY_WEIGHTED:
+                double[] weights = new double[candidates.size()];
+                double sum = 0;
+                for (int i = 0; i < weights.length; i++) {
+                    weights[i] = 1d / Math.max(1d, candidates.get(i).latency);
+                    sum += weights[i];
+                }
+
+                double pick = random.nextDouble() * sum;
+                for (int i = 0; i < weights.length; i++) {
+                    pick -= weights[i];
+                    if (pick < 0) {
+                        return candidates.get(i);
+                    }
+                }
+                return candidates.get(candidates.size() - 1);
+
+            default:
+                int index = (roundRobin.getAndIncrement() & Integer.MAX_VALUE) % candidates.size();
+                return candidates.get(index);
+        }
+    }
+
+    /**
+     * Update the slaves. Connections to slaves that are no longer listed are closed, new slaves are connected using the
+     * {@code connector}.
+     *
+     * @param addresses the addresses of the available slaves.
+     * @param connector creates a connection to a slave.
+     */
+    synchronized void updateSlaves(Collection<? extends SocketAddress> addresses,
+            Function<SocketAddress, ? extends RedisChannelHandler<K, V>> connector) {
+
+        if (closed) {
+            return;
+        }
+
+        List<Slave<K, V>> updated = new ArrayList<Slave<K, V>>();
+        List<Slave<K, V>> removed = new ArrayList<Slave<K, V>>(slaves);
+
+        for (SocketAddress address : addresses) {
+            Slave<K, V> existing = null;
+            for (Slave<K, V> slave : removed) {
+                if (slave.address.equals(address)) {
+                    existing = slave;
+                }
+            }
+
+            if (existing != null) {
+                removed.remove(existing);
+                updated.add(existing);
+                continue;
+            }
+
+            try {
+                logger.debug("Connecting to slave " + address);
+                updated.add(new Slave<K, V>(address, connector.apply(address)));
+            } catch (RuntimeException e) {
+                logger.warn("Cannot connect to slave " + address + ": " + e.toString());
+            }
+        }
+
+        slaves = updated;
+
+        for (Slave<K, V> slave : removed) {
+            logger.debug("Closing connection to slave " + slave.address);
+            slave.connection.close();
+        }
+    }
+
+    /**
+     *
+     * @return the addresses of the slaves.
+     */
+    List<SocketAddress> getSlaveAddresses() {
+        List<SocketAddress> addresses = new ArrayList<SocketAddress>();
+        for (Slave<K, V> slave : slaves) {
+            addresses.add(slave.address);
+        }
+        return addresses;
+    }
+
+    @Override
+    public void close() {
+
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+
+        for (Slave<K, V> slave : slaves) {
+            slave.connection.close();
+        }
+        slaves = new ArrayList<Slave<K, V>>();
+        master.close();
+    }
+
+    @Override
+    public void setRedisChannelHandler(RedisChannelHandler<K, V> redisChannelHandler) {
+        master.setRedisChannelHandler(redisChannelHandler);
+    }
+
+    /**
+     * A slave connection with its number of pending commands and the moving average of its response time in microseconds.
+     */
+    static class Slave<K, V> {
+
+        final SocketAddress address;
+        final RedisChannelHandler<K, V> connection;
+        final AtomicInteger pending = new AtomicInteger();
+        volatile double latency;
+
+        Slave(SocketAddress address, RedisChannelHandler<K, V> connection) {
+            this.address = address;
+            this.connection = connection;
+        }
+
+        <T> RedisCommand<K, V, T> write(final RedisCommand<K, V, T> command) {
+
+            final long start = System.nanoTime();
+            pending.incrementAndGet();
+            try {
+                connection.getChannelWriter().write(command);
+            } catch (RuntimeException e) {
+                pending.decrementAndGet();
+                throw e;
+            }
+
+            command.addListener(new Runnable() {
+                @Override
+                public void run() {
+                    pending.decrementAndGet();
+                    double sample = (System.nanoTime() - start) / 1000d;
+                    latency = latency == 0 ? sample : latency + LATENCY_ALPHA * (sample - latency);
+                }
+            }, MoreExecutors.sameThreadExecutor());
+
+            return command;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.lambdaworks.redis;
+
+import java.io.Closeable;
+import java.util.concurrent.TimeUnit;
+
+import com.lambdaworks.redis.metrics.DefaultMetricsCollector;
+import com.lambdaworks.redis.metrics.MetricsListener;
+
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+/**
+ * Publishes {@link com.lambdaworks.redis.metrics.MetricsSnapshot metrics snapshots} of a client at a fixed interval using the
+ * timer of the client.
+ * 
+ * @author <a href="mailto:mpaluch@paluch.biz">Mark Paluch</a>
+ * @since 3.0
+ */
+class MetricsPublisher implements TimerTask, Closeable {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(MetricsPublisher.class);
+
+    private final AbstractRedisClient client;
+    private final DefaultMetricsCollector collector;
+    private final MetricsListener listener;
+    private final Timer timer;
+    private final long interval;
+    private final TimeUnit unit;
+    private volatile Timeout timeout;
+    private volatile boolean closed;
+
+    public MetricsPublisher(AbstractRedisClient client, DefaultMetricsCollector collector, MetricsListener listener,
+            Timer timer, long interval, TimeUnit unit) {
+        this.client = client;
+        this.collector = collector;
+        this.listener = listener;
+        this.timer = timer;
+        this.interval = interval;
+        this.unit = unit;
+    }
+
+    /**
+     * Schedule the first snapshot.
+     */
+    public void start() {
+        timeout = timer.newTimeout(this, interval, unit);
+    }
+
+    @Override
+    public void run(Timeout timeout) throws Exception {
+
+        if (closed) {
+            return;
+        }
+
+        try {
+            listener.onMetrics(client.createMetricsSnapshot(collector, true));
+        } catch (RuntimeException e) {
+            logger.warn("Cannot publish metrics: " + e.toString(), e);
+        }
+
+        if (!closed) {
+            this.timeout = timer.newTimeout(this, interval, unit);
+        }
+    }
+
+    /**
+     * Stop publishing.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Timeout timeout = this.timeout;
+        if (timeout != null) {
+            timeout.cancel();
+        }
+        client.closeableResources.remove(this);
+    }
+}
@@ -0,0 +1,210 @@
+package com.lambdaworks.redis;
+
+import static com.lambdaworks.redis.protocol.CommandKeyword.SETNAME;
+import static com.lambdaworks.redis.protocol.CommandType.*;
+
+import java.nio.ByteBuffer;
+import java.util.EnumSet;
+import java.util.Set;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import com.lambdaworks.redis.protocol.CommandArgs;
+import com.lambdaworks.redis.protocol.CommandType;
+import com.lambdaworks.redis.protocol.RedisCommand;
+
+/**
+ * Channel writer for multiplexed connections. Non-blocking commands are written to the shared connection of the endpoint.
+ * Blocking commands lease a dedicated connection until the command completes. Transactions ({@code WATCH}/{@code MULTI})
+ * and connection-state changing commands such as {@code SELECT} or {@code CLIENT SETNAME} pin a dedicated connection to
+ * this writer. Transactional pins are released once the transaction is completed, state pins are kept until the writer is
+ * closed. Dedicated connections are leased outside of the writer lock, so a slow lease does not stall other writers.
+ * {@code QUIT} closes a pinned connection. Without a pinned connection it only closes this writer and completes locally, the
+ * shared connection stays open.
+ *
+ * @param <K> Key type.
+ * @param <V> Value type.
+ * @author <a href="mailto:mpaluch@paluch.biz">Mark Paluch</a>
+ * @since 3.0
+ */
+class MultiplexedChannelWriter<K, V> implements RedisChannelWriter<K, V> {
+
+    private static final Set<CommandType> BLOCKING = EnumSet.of(BLPOP, BRPOP, BRPOPLPUSH);
+    private static final Set<CommandType> TRANSACTION_START = EnumSet.of(WATCH, MULTI);
+    private static final Set<CommandType> TRANSACTION_END = EnumSet.of(EXEC, DISCARD, UNWATCH);
+    private static final Set<CommandType> CONNECTION_STATE = EnumSet.of(AUTH, SELECT, MONITOR);
+
+    private final MultiplexedConnectionProvider connectionProvider;
+    private RedisChannelHandler<?, ?> pinned;
+    private boolean statePinned;
+    private boolean inMulti;
+    private boolean closed;
+
+    public MultiplexedChannelWriter(MultiplexedConnectionProvider connectionProvider) {
+        this.connectionProvider = connectionProvider;
+    }
+
+    @Override
+    public <T> RedisCommand<K, V, T> write(RedisCommand<K, V, T> command) {
+
+        RedisChannelHandler<?, ?> leased = null;
+        while (true) {
+            synchronized (this) {
+                if (leased != null || !requiresLease(command)) {
+                    return write(command, leased);
+                }
+            }
+
+            // leasing may block (exhausted pool, slow connect), so it must not stall the writers of the shared connection.
+            leased = connectionProvider.lease();
+        }
+    }
+
+    /**
+     * Write the command while holding the lock. {@code leased} is used if the command requires a dedicated connection and
+     * released otherwise, e.g. if another thread pinned a connection in the meantime.
+     */
+    private <T> RedisCommand<K, V, T> write(RedisCommand<K, V, T> command, RedisChannelHandler<?, ?> leased) {
+
+        if (closed) {
+            releaseUnused(leased);
+            throw new RedisException("Connection is closed");
+        }
+
+        CommandType type = command.getType();
+        RedisChannelHandler<?, ?> dedicated = leased;
+        if (pinned != null && dedicated != null) {
+            releaseUnused(dedicated);
+            dedicated = null;
+        }
+
+        if (type == QUIT && pinned == null) {
+            releaseUnused(dedicated);
+            close();
+            command.getOutput().set(ByteBuffer.wrap("OK".getBytes()));
+            command.complete();
+            return command;
+        }
+
+        if (type == QUIT) {
+            RedisChannelHandler<?, ?> connection = pinned;
+            pinned = null;
+            statePinned = false;
+            inMulti = false;
+            return writeAndRelease(connection, command, false);
+        }
+
+        if (pinned == null) {
+
+            if (BLOCKING.contains(type)) {
+                return writeAndRelease(dedicated, command, true);
+            }
+
+            if (TRANSACTION_START.contains(type) || isConnectionState(command)) {
+                pinned = dedicated;
+            } else {
+                releaseUnused(dedicated);
+                return connectionProvider.<K, V> getSharedWriter().write(command);
+            }
+        }
+
+        if (isConnectionState(command)) {
+            statePinned = true;
+        }
+
+        if (type == MULTI) {
+            inMulti = true;
+        }
+
+        if (!statePinned && TRANSACTION_END.contains(type) && !(inMulti && type == UNWATCH)) {
+            RedisChannelHandler<?, ?> connection = pinned;
+            pinned = null;
+            inMulti = false;
+            return writeAndRelease(connection, command, true);
+        }
+
+        if (type == EXEC || type == DISCARD) {
+            inMulti = false;
+        }
+
+        return writer(pinned).write(command);
+    }
+
+    private boolean requiresLease(RedisCommand<K, V, ?> command) {
+
+        if (closed || pinned != null) {
+            return false;
+        }
+
+        CommandType type = command.getType();
+        return BLOCKING.contains(type) || TRANSACTION_START.contains(type) || isConnectionState(command);
+    }
+
+    /**
+     * Commands that change the state of the connection. {@code CLIENT} only changes the state with {@code SETNAME}, other
+     * subcommands such as {@code LIST} or {@code KILL} use the shared connection.
+     */
+    private boolean isConnectionState(RedisCommand<K, V, ?> command) {
+
+        if (command.getType() != CLIENT) {
+            return CONNECTION_STATE.contains(command.getType());
+        }
+
+        CommandArgs<K, V> args = command.getArgs();
+        return args != null && !args.getKeywords().isEmpty() && args.getKeywords().get(0) == SETNAME;
+    }
+
+    private void releaseUnused(RedisChannelHandler<?, ?> connection) {
+        if (connection != null) {
+            connectionProvider.release(connection, true);
+        }
+    }
+
+    /**
+     * Write the command and release the dedicated connection as soon as the command is completed. Cancelled commands (e.g. a
+     * timed out {@code BLPOP}) leave a pending reply on the connection, so the connection is only reused if the reply was
+     * received.
+     */
+    private <T> RedisCommand<K, V, T> writeAndRelease(final RedisChannelHandler<?, ?> connection,
+            final RedisCommand<K, V, T> command, final boolean reusable) {
+
+        try {
+            writer(connection).write(command);
+        } catch (RuntimeException e) {
+            connectionProvider.release(connection, false);
+            throw e;
+        }
+
+        command.addListener(new Runnable() {
+            @Override
+            public void run() {
+                connectionProvider.release(connection, reusable && command.isDone() && !command.isCancelled());
+            }
+        }, MoreExecutors.sameThreadExecutor());
+
+        return command;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private RedisChannelWriter<K, V> writer(RedisChannelHandler<?, ?> connection) {
+        return (RedisChannelWriter) connection.getChannelWriter();
+    }
+
+    @Override
+    public synchronized void close() {
+
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        if (pinned != null) {
+            connectionProvider.release(pinned, false);
+            pinned = null;
+        }
+    }
+
+    @Override
+    public void setRedisChannelHandler(RedisChannelHandler<K, V> redisChannelHandler) {
+        // connection state is maintained by the shared and the dedicated connections.
+    }
+}
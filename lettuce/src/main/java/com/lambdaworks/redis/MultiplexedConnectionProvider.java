@@ -0,0 +1,147 @@
+package com.lambdaworks.redis;
+
+import java.io.Closeable;
+
+import org.apache.commons.pool2.BasePooledObjectFactory;
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+/**
+ * Provides the connections for one endpoint in multiplexed mode: One shared connection that carries all non-blocking commands
+ * and a small pool of dedicated connections that are leased for blocking, transactional and connection-state changing
+ * commands. Commands are encoded by the connection that issues them, so the codec of the provided connections is not relevant.
+ *
+ * @author <a href="mailto:mpaluch@paluch.biz">Mark Paluch</a>
+ * @since 3.0
+ */
+class MultiplexedConnectionProvider implements Closeable {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(MultiplexedConnectionProvider.class);
+
+    private final RedisChannelHandler<?, ?> sharedConnection;
+    private GenericObjectPool<RedisChannelHandler<?, ?>> dedicatedPool;
+    private boolean closed;
+
+    /**
+     *
+     * @param sharedConnection the shared connection.
+     * @param dedicatedConnectionProvider provider for dedicated connections.
+     * @param maxDedicated maximum number of dedicated connections.
+     * @param maxWait maximum time in milliseconds to wait for a dedicated connection.
+     */
+    public MultiplexedConnectionProvider(RedisChannelHandler<?, ?> sharedConnection,
+            RedisConnectionProvider<? extends RedisChannelHandler<?, ?>> dedicatedConnectionProvider, int maxDedicated,
+            long maxWait) {
+        this.sharedConnection = sharedConnection;
+
+        GenericObjectPoolConfig config = new GenericObjectPoolConfig();
+        config.setMaxIdle(maxDedicated);
+        config.setMaxTotal(maxDedicated);
+        config.setMaxWaitMillis(maxWait);
+        config.setTestOnBorrow(true);
+
+        dedicatedPool = new GenericObjectPool<RedisChannelHandler<?, ?>>(createFactory(dedicatedConnectionProvider), config);
+    }
+
+    private BasePooledObjectFactory<RedisChannelHandler<?, ?>> createFactory(
+            final RedisConnectionProvider<? extends RedisChannelHandler<?, ?>> dedicatedConnectionProvider) {
+        return new BasePooledObjectFactory<RedisChannelHandler<?, ?>>() {
+            @Override
+            public RedisChannelHandler<?, ?> create() throws Exception {
+                return dedicatedConnectionProvider.createConnection();
+            }
+
+            @Override
+            public PooledObject<RedisChannelHandler<?, ?>> wrap(RedisChannelHandler<?, ?> obj) {
+                return new DefaultPooledObject<RedisChannelHandler<?, ?>>(obj);
+            }
+
+            @Override
+            public boolean validateObject(PooledObject<RedisChannelHandler<?, ?>> p) {
+                return p.getObject().isOpen();
+            }
+
+            @Override
+            public void destroyObject(PooledObject<RedisChannelHandler<?, ?>> p) throws Exception {
+                p.getObject().close();
+            }
+        };
+    }
+
+    /**
+     *
+     * @return the channel writer of the shared connection.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public <K, V> RedisChannelWriter<K, V> getSharedWriter() {
+        return (RedisChannelWriter) sharedConnection.getChannelWriter();
+    }
+
+    /**
+     * Lease a dedicated connection. The connection must be returned using {@link #release(RedisChannelHandler, boolean)}.
+     *
+     * @return a dedicated connection.
+     */
+    public RedisChannelHandler<?, ?> lease() {
+        if (closed) {
+            throw new RedisException("Connection is closed");
+        }
+
+        try {
+            return dedicatedPool.borrowObject();
+        } catch (RedisException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RedisException("Cannot lease a dedicated connection: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Return a dedicated connection.
+     *
+     * @param connection the leased connection.
+     * @param reusable {@literal false} if the connection state was changed and the connection must not be reused.
+     */
+    public void release(RedisChannelHandler<?, ?> connection, boolean reusable) {
+        try {
+            if (reusable && !closed) {
+                dedicatedPool.returnObject(connection);
+            } else {
+                dedicatedPool.invalidateObject(connection);
+            }
+        } catch (Exception e) {
+            logger.debug("Cannot release dedicated connection: " + e.getMessage(), e);
+            connection.close();
+        }
+    }
+
+    /**
+     *
+     * @return the number of dedicated connections that are currently leased.
+     */
+    public int getNumLeased() {
+        return dedicatedPool.getNumActive();
+    }
+
+    /**
+     * Close the shared connection and all dedicated connections.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        dedicatedPool.close();
+
+        if (!sharedConnection.isClosed()) {
+            sharedConnection.close();
+        }
+    }
+}
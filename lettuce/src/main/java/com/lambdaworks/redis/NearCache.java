@@ -0,0 +1,542 @@
+package com.lambdaworks.redis;
+
+import static com.google.common.base.Preconditions.*;
+import static com.lambdaworks.redis.protocol.CommandType.*;
+
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.lambdaworks.redis.codec.RedisCodec;
+import com.lambdaworks.redis.protocol.Command;
+import com.lambdaworks.redis.protocol.CommandOutput;
+import com.lambdaworks.redis.protocol.CommandType;
+import com.lambdaworks.redis.protocol.LettuceCharsets;
+import com.lambdaworks.redis.pubsub.RedisPubSubAdapter;
+import com.lambdaworks.redis.pubsub.RedisPubSubConnectionImpl;
+
+/**
+ * Local cache for the results of {@code GET}, {@code HGET}, {@code HGETALL} and {@code SMEMBERS}. Reads are served from the
+ * cache and loaded through the connection on a miss. Entries are evicted by size and time to live and are invalidated through
+ * keyspace notifications: the cache subscribes to {@code __keyspace@<db>__:<pattern>} for each cached key pattern on a
+ * dedicated pub/sub connection. {@code <db>} is the database selected on the connection when the cache is built, reads bypass
+ * the cache once the connection selects another database. The server must publish keyspace notifications (e.g. {@code notify-keyspace-events Kghsx$}).
+ *
+ * The cache is bypassed until all patterns are subscribed. The cache is flushed when the pub/sub connection disconnects and
+ * again when it reconnects, so missed notifications cannot leave stale entries behind. {@code FLUSHDB} and
+ * {@code FLUSHALL} do not publish keyspace notifications, call {@link #invalidateAll()} after flushing. Writes of this client
+ * are visible once their notification arrived.
+ *
+ * Cached maps and sets are unmodifiable. Instances are thread-safe, use the {@link NearCache.Builder} to create them.
+ *
+ * @param <K> Key type.
+ * @param <V> Value type.
+ * @author <a href="mailto:mpaluch@paluch.biz">Mark Paluch</a>
+ * @since 3.0
+ */
+public class NearCache<K, V> {
+
+    private static final Object NULL = new Object();
+
+    private final RedisAsyncConnectionImpl<K, V> connection;
+    private final RedisPubSubConnectionImpl<K, V> pubSubConnection;
+    private final RedisCodec<K, V> codec;
+    private final List<byte[]> keyPatterns;
+    private final int database;
+    private final byte[] channelPrefix;
+    private final List<K> channelPatterns;
+    private final Cache<ByteBuffer, ConcurrentMap<Object, Object>> cache;
+    private final Listener listener = new Listener();
+
+    private final Set<ByteBuffer> subscribed = Collections.newSetFromMap(new ConcurrentHashMap<ByteBuffer, Boolean>());
+    private final AtomicLong generation = new AtomicLong();
+
+    private NearCache(Builder<K, V> builder) {
+        this.connection = builder.connection;
+        this.pubSubConnection = builder.pubSubConnection;
+        this.codec = builder.connection.codec;
+        this.keyPatterns = new ArrayList<byte[]>(builder.keyPatterns);
+        this.database = builder.connection.getDatabase();
+        this.channelPrefix = ("__keyspace@" + database + "__:").getBytes(LettuceCharsets.ASCII);
+
+        this.channelPatterns = new ArrayList<K>(keyPatterns.size());
+        for (byte[] keyPattern : keyPatterns) {
+            channelPatterns.add(codec.decodeKey(ByteBuffer.wrap(channel(keyPattern))));
+        }
+
+        CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder().maximumSize(builder.maximumSize);
+        if (builder.timeToLive > 0) {
+            cacheBuilder.expireAfterWrite(builder.timeToLive, builder.unit);
+        }
+        this.cache = cacheBuilder.build();
+    }
+
+    /**
+     * Subscribe to the keyspace notifications. Reads bypass the cache until the subscriptions are confirmed.
+     *
+     * @return this near cache.
+     */
+    NearCache<K, V> start() {
+        pubSubConnection.addListener(listener);
+        pubSubConnection.addConnectionStateListener(listener);
+        pubSubConnection.psubscribe(toArray(channelPatterns));
+        return this;
+    }
+
+    /**
+     * Get the value of a key.
+     *
+     * @param key the key
+     * @return V bulk-string-reply the value of {@code key}, or {@literal null} when {@code key} does not exist.
+     */
+    public RedisFuture<V> get(final K key) {
+        return cached(GET, key, GET, new Read<V>() {
+            @Override
+            RedisFuture<V> load() {
+                return connection.get(key);
+            }
+        });
+    }
+
+    /**
+     * Get the value of a hash field.
+     *
+     * @param key the key
+     * @param field the field type: key
+     * @return V bulk-string-reply the value associated with {@code field}, or {@literal null} when {@code field} is not present
+     *         in the hash or {@code key} does not exist.
+     */
+    public RedisFuture<V> hget(final K key, final K field) {
+        return cached(HGET, key, ByteBuffer.wrap(codec.encodeKey(field)), new Read<V>() {
+            @Override
+            RedisFuture<V> load() {
+                return connection.hget(key, field);
+            }
+        });
+    }
+
+    /**
+     * Get all the fields and values in a hash.
+     *
+     * @param key the key
+     * @return Map&lt;K,V&gt; array-reply list of fields and their values stored in the hash, or an empty list when {@code key}
+     *         does not exist.
+     */
+    public RedisFuture<Map<K, V>> hgetall(final K key) {
+        return cached(HGETALL, key, HGETALL, new Read<Map<K, V>>() {
+            @Override
+            RedisFuture<Map<K, V>> load() {
+                return connection.hgetall(key);
+            }
+
+            @Override
+            Map<K, V> copy(Map<K, V> value) {
+                return Collections.unmodifiableMap(new HashMap<K, V>(value));
+            }
+        });
+    }
+
+    /**
+     * Get all the members in a set.
+     *
+     * @param key the key
+     * @return Set&lt;V&gt; array-reply all elements of the set.
+     */
+    public RedisFuture<Set<V>> smembers(final K key) {
+        return cached(SMEMBERS, key, SMEMBERS, new Read<Set<V>>() {
+            @Override
+            RedisFuture<Set<V>> load() {
+                return connection.smembers(key);
+            }
+
+            @Override
+            Set<V> copy(Set<V> value) {
+                return Collections.unmodifiableSet(new HashSet<V>(value));
+            }
+        });
+    }
+
+    /**
+     * Remove all cached results of a key.
+     *
+     * @param key the key
+     */
+    public void invalidate(K key) {
+        invalidate(ByteBuffer.wrap(codec.encodeKey(key)));
+    }
+
+    /**
+     * Remove all cached results.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    /**
+     *
+     * @return the number of cached keys.
+     */
+    public long size() {
+        return cache.size();
+    }
+
+    /**
+     * Unsubscribe from the keyspace notifications and remove all cached results. The connections are not closed.
+     */
+    public void close() {
+        pubSubConnection.removeListener(listener);
+        pubSubConnection.removeConnectionStateListener(listener);
+        pubSubConnection.punsubscribe(toArray(channelPatterns));
+        subscribed.clear();
+        invalidateAll();
+    }
+
+    /**
+     * Serve a read from the cache or load it through the connection. A loaded result is only cached if no invalidation
+     * happened while the command was in flight.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> RedisFuture<T> cached(CommandType type, K key, final Object entryKey, final Read<T> read) {
+
+        byte[] encodedKey = codec.encodeKey(key);
+        if (!isActive() || connection.getDatabase() != database || !isCacheable(encodedKey)) {
+            return read.load();
+        }
+
+        final ByteBuffer cacheKey = ByteBuffer.wrap(encodedKey);
+        ConcurrentMap<Object, Object> entries = cache.getIfPresent(cacheKey);
+        Object cached = entries != null ? entries.get(entryKey) : null;
+        if (cached != null) {
+            T value = cached == NULL ? null : (T) cached;
+            Command<K, V, T> hit = new Command<K, V, T>(type, new CachedOutput<K, V, T>(codec, value), null);
+            hit.complete();
+            return hit;
+        }
+
+        final long loadGeneration = generation.get();
+        final RedisFuture<T> future = read.load();
+        future.addListener(new Runnable() {
+            @Override
+            public void run() {
+                if (future.isCancelled() || future.getError() != null) {
+                    return;
+                }
+
+                T value;
+                try {
+                    value = future.get();
+                } catch (Exception e) {
+                    return;
+                }
+                store(cacheKey, entryKey, value == null ? NULL : read.copy(value), loadGeneration);
+            }
+        }, MoreExecutors.sameThreadExecutor());
+
+        return future;
+    }
+
+    private void store(ByteBuffer cacheKey, Object entryKey, Object value, long loadGeneration) {
+
+        if (generation.get() != loadGeneration) {
+            return;
+        }
+
+        ConcurrentMap<Object, Object> entries = cache.getIfPresent(cacheKey);
+        if (entries == null) {
+            ConcurrentMap<Object, Object> created = new ConcurrentHashMap<Object, Object>(4);
+            entries = cache.asMap().putIfAbsent(cacheKey, created);
+            if (entries == null) {
+                entries = created;
+            }
+        }
+        entries.put(entryKey, value);
+
+        // an invalidation between the check and the put would be lost otherwise.
+        if (generation.get() != loadGeneration) {
+            entries.remove(entryKey, value);
+        }
+    }
+
+    /**
+     * The cache is active if all patterns are subscribed. The subscriptions are cleared when the pub/sub connection
+     * disconnects.
+     */
+    boolean isActive() {
+        return subscribed.size() == channelPatterns.size();
+    }
+
+    private void invalidate(ByteBuffer key) {
+        generation.incrementAndGet();
+        cache.invalidate(key);
+    }
+
+    private boolean isCacheable(byte[] key) {
+        for (byte[] keyPattern : keyPatterns) {
+            if (matches(keyPattern, 0, key, 0)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private byte[] channel(byte[] key) {
+        byte[] channel = new byte[channelPrefix.length + key.length];
+        System.arraycopy(channelPrefix, 0, channel, 0, channelPrefix.length);
+        System.arraycopy(key, 0, channel, channelPrefix.length, key.length);
+        return channel;
+    }
+
+    /**
+     * Glob-style matching as done by Redis for {@code KEYS} and {@code PSUBSCRIBE}: {@code *}, {@code ?}, {@code [...]} and
+     * {@code \} escapes.
+     */
+    @SuppressWarnings("fallthrough")
+    static boolean matches(byte[] pattern, int p, byte[] key, int k) {
+
+        while (p < pattern.length) {
+            switch (pattern[p]) {
+                case '*':
+                    while (p + 1 < pattern.length && pattern[p + 1] == '*') {
+                        p++;
+                    }
+                    if (p + 1 == pattern.length) {
+                        return true;
+                    }
+                    for (int i = k; i <= key.length; i++) {
+                        if (matches(pattern, p + 1, key, i)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                case '?':
+                    if (k == key.length) {
+                        return false;
+                    }
+                    k++;
+                    break;
+                case '[':
+                    if (k == key.length) {
+                        return false;
+                    }
+                    p++;
+                    boolean not = p < pattern.length && pattern[p] == '^';
+                    if (not) {
+                        p++;
+                    }
+                    boolean match = false;
+                    while (p < pattern.length && pattern[p] != ']') {
+                        if (pattern[p] == '\\' && p + 1 < pattern.length) {
+                            p++;
+                            match |= pattern[p] == key[k];
+                        } else if (p + 2 < pattern.length && pattern[p + 1] == '-') {
+                            int start = Math.min(pattern[p] & 0xff, pattern[p + 2] & 0xff);
+                            int end = Math.max(pattern[p] & 0xff, pattern[p + 2] & 0xff);
+                            match |= (key[k] & 0xff) >= start && (key[k] & 0xff) <= end;
+                            p += 2;
+                        } else {
+                            match |= pattern[p] == key[k];
+                        }
+                        p++;
+                    }
+                    if (match == not) {
+                        return false;
+                    }
+                    k++;
+                    break;
+                case '\\':
+                    if (p + 1 < pattern.length) {
+                        p++;
+                    }
+                    // fall through
+                default:
+                    if (k == key.length || pattern[p] != key[k]) {
+                        return false;
+                    }
+                    k++;
+                    break;
+            }
+            p++;
+        }
+
+        return k == key.length;
+    }
+
+    @SuppressWarnings("unchecked")
+    private K[] toArray(List<K> keys) {
+        K[] array = (K[]) Array.newInstance(keys.get(0).getClass(), keys.size());
+        return keys.toArray(array);
+    }
+
+    /**
+     * Loads a result through the connection and creates its cached representation.
+     */
+    private abstract static class Read<T> {
+
+        abstract RedisFuture<T> load();
+
+        T copy(T value) {
+            return value;
+        }
+    }
+
+    /**
+     * Output of a cache hit.
+     */
+    private static class CachedOutput<K, V, T> extends CommandOutput<K, V, T> {
+        CachedOutput(RedisCodec<K, V> codec, T value) {
+            super(codec, value);
+        }
+
+        @Override
+        public void set(ByteBuffer bytes) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Tracks the subscriptions and the state of the pub/sub connection and invalidates keys on notifications.
+     */
+    private class Listener extends RedisPubSubAdapter<K, V> implements RedisConnectionStateListener {
+
+        @Override
+        public void message(K pattern, K channel, V message) {
+            byte[] bytes = codec.encodeKey(channel);
+            if (bytes.length < channelPrefix.length) {
+                return;
+            }
+            for (int i = 0; i < channelPrefix.length; i++) {
+                if (bytes[i] != channelPrefix[i]) {
+                    return;
+                }
+            }
+            invalidate(ByteBuffer.wrap(bytes, channelPrefix.length, bytes.length - channelPrefix.length).slice());
+        }
+
+        @Override
+        public void psubscribed(K pattern, long count) {
+            // (re-)subscribed after connect, notifications before this point might be lost.
+            invalidateAll();
+            subscribed.add(ByteBuffer.wrap(codec.encodeKey(pattern)));
+        }
+
+        @Override
+        public void punsubscribed(K pattern, long count) {
+            subscribed.remove(ByteBuffer.wrap(codec.encodeKey(pattern)));
+            invalidateAll();
+        }
+
+        @Override
+        public void onRedisConnected(RedisChannelHandler<?, ?> connection) {
+            invalidateAll();
+        }
+
+        @Override
+        public void onRedisDisconnected(RedisChannelHandler<?, ?> connection) {
+            // notifications are lost until the patterns are subscribed again.
+            subscribed.clear();
+            invalidateAll();
+        }
+
+        @Override
+        public void onRedisExceptionCaught(RedisChannelHandler<?, ?> connection, Throwable cause) {
+        }
+    }
+
+    /**
+     * Builder for {@link NearCache}.
+     *
+     * @param <K> Key type.
+     * @param <V> Value type.
+     */
+    public static class Builder<K, V> {
+
+        private final RedisAsyncConnectionImpl<K, V> connection;
+        private final RedisPubSubConnectionImpl<K, V> pubSubConnection;
+        private final List<byte[]> keyPatterns = new ArrayList<byte[]>();
+        private long maximumSize = 10000;
+        private long timeToLive;
+        private TimeUnit unit = TimeUnit.SECONDS;
+
+        /**
+         *
+         * @param connection the connection used to load results, must not be {@literal null}
+         * @param pubSubConnection a dedicated pub/sub connection to the same server, must not be {@literal null}
+         */
+        public Builder(RedisAsyncConnectionImpl<K, V> connection, RedisPubSubConnectionImpl<K, V> pubSubConnection) {
+            checkArgument(connection != null, "Connection must not be null");
+            checkArgument(pubSubConnection != null, "PubSubConnection must not be null");
+            this.connection = connection;
+            this.pubSubConnection = pubSubConnection;
+        }
+
+        /**
+         * Sets the glob-style patterns of the keys to cache. Only keys matching a pattern are cached and only their
+         * notifications are subscribed. Defaults to all keys.
+         *
+         * @param keyPatterns the key patterns, must not be empty
+         * @return the builder
+         */
+        public Builder<K, V> withKeyPatterns(K... keyPatterns) {
+            checkArgument(keyPatterns != null && keyPatterns.length > 0, "KeyPatterns must not be empty");
+            this.keyPatterns.clear();
+            for (K keyPattern : keyPatterns) {
+                checkArgument(keyPattern != null, "KeyPattern must not be null");
+                this.keyPatterns.add(connection.codec.encodeKey(keyPattern));
+            }
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of cached keys. Defaults to 10000.
+         *
+         * @param maximumSize the maximum number of keys
+         * @return the builder
+         */
+        public Builder<K, V> withMaximumSize(long maximumSize) {
+            checkArgument(maximumSize > 0, "maximumSize must be greater 0");
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * Sets the time after which a key is evicted once it was cached. Defaults to no expiry.
+         *
+         * @param timeToLive the time to live, {@literal 0} for no expiry
+         * @param unit the unit
+         * @return the builder
+         */
+        public Builder<K, V> withTimeToLive(long timeToLive, TimeUnit unit) {
+            checkArgument(timeToLive >= 0, "timeToLive must be greater or equal 0");
+            checkArgument(unit != null, "unit must not be null");
+            this.timeToLive = timeToLive;
+            this.unit = unit;
+            return this;
+        }
+
+        /**
+         * Creates the near cache and subscribes to the keyspace notifications.
+         *
+         * @return a new instance of {@link NearCache}.
+         */
+        public NearCache<K, V> build() {
+            if (keyPatterns.isEmpty()) {
+                keyPatterns.add(new byte[] { '*' });
+            }
+            return new NearCache<K, V>(this).start();
+        }
+    }
+}
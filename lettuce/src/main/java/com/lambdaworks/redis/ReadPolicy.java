@@ -0,0 +1,32 @@
+package com.lambdaworks.redis;
+
+/**
+ * Routing of read-only commands in a master/slave setup. Writes, transactions and all commands that are not
+ * {@link com.lambdaworks.redis.protocol.ReadOnlyCommands read-only} are always sent to the master. Read-only commands are
+ * sent to the master if no slave is connected.
+ *
+ * @author <a href="mailto:mpaluch@paluch.biz">Mark Paluch</a>
+ * @since 3.0
+ */
+public enum ReadPolicy {
+
+    /**
+     * Send all commands to the master.
+     */
+    MASTER,
+
+    /**
+     * Distribute read-only commands evenly across the slaves.
+     */
+    ROUND_ROBIN,
+
+    /**
+     * Send read-only commands to the slave with the fewest commands awaiting a response.
+     */
+    LEAST_PENDING,
+
+    /**
+     * Distribute read-only commands randomly across the slaves, weighted by the inverse of their average response time.
+     */
+    LATENCY_WEIGHTED;
+}
@@ -4,15 +4,18 @@ package com.lambdaworks.redis;
 
 import static com.lambdaworks.redis.protocol.CommandType.*;
 
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.nio.ByteBuffer;
+import java.util.BitSet;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
-import com.lambdaworks.codec.Base16;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.lambdaworks.redis.codec.RedisCodec;
 import com.lambdaworks.redis.output.*;
 import com.lambdaworks.redis.protocol.*;
@@ -33,9 +36,18 @@ import io.netty.channel.ChannelHandler;
 public class RedisAsyncConnectionImpl<K, V> extends RedisChannelHandler<K, V> implements RedisAsyncConnection<K, V>,
         RedisClusterAsyncConnection<K, V> {
 
+    /**
+     * Read-only commands that are coalesced in single-flight mode.
+     */
+    private static final Set<CommandType> SINGLE_FLIGHT_COMMANDS = EnumSet.of(BITCOUNT, EXISTS, GET, GETBIT, GETRANGE, HEXISTS,
+            HGET, HGETALL, HKEYS, HLEN, HMGET, HVALS, LINDEX, LLEN, LRANGE, MGET, PTTL, SCARD, SISMEMBER, SMEMBERS, STRLEN, TTL,
+            TYPE, ZCARD, ZCOUNT, ZRANGE, ZRANGEBYSCORE, ZRANK, ZREVRANGE, ZREVRANGEBYSCORE, ZREVRANK, ZSCORE);
+
     protected MultiOutput<K, V> multi;
+    private final ConcurrentMap<SingleFlightKey, Command<K, V, ?>> inFlight = Maps.newConcurrentMap();
+    private volatile boolean singleFlight;
     private char[] password;
-    private int db;
+    private volatile int db;
     protected RedisCommandBuilder<K, V> commandBuilder;
     protected RedisCodec<K, V> codec;
 
@@ -287,6 +299,41 @@ public class RedisAsyncConnectionImpl<K, V> extends RedisChannelHandler<K, V> im
         return (RedisFuture<T>) dispatch(commandBuilder.evalsha(digest, type, keys, values));
     }
 
+    @Override
+    public RedisFuture<Long> eval(ValueStreamingChannel<V> channel, String script, K[] keys, V... values) {
+        return dispatch(commandBuilder.eval(channel, script, keys, values));
+    }
+
+    @Override
+    public RedisFuture<Long> evalsha(ValueStreamingChannel<V> channel, String digest, K[] keys, V... values) {
+        return dispatch(commandBuilder.evalsha(channel, digest, keys, values));
+    }
+
+    @Override
+    public RedisFuture<BitSet> scriptExistsBits(String... digests) {
+        return dispatch(commandBuilder.scriptExistsBits(digests));
+    }
+
+    @Override
+    public RedisFuture<ScoredValues<V>> zrangeWithScoresArray(K key, long start, long stop) {
+        return dispatch(commandBuilder.zrangeWithScoresArray(key, start, stop));
+    }
+
+    @Override
+    public RedisFuture<ScoredValues<V>> zrangebyscoreWithScoresArray(K key, double min, double max) {
+        return dispatch(commandBuilder.zrangebyscoreWithScoresArray(key, min, max));
+    }
+
+    @Override
+    public RedisFuture<ScoredValues<V>> zrevrangeWithScoresArray(K key, long start, long stop) {
+        return dispatch(commandBuilder.zrevrangeWithScoresArray(key, start, stop));
+    }
+
+    @Override
+    public RedisFuture<ScoredValues<V>> zrevrangebyscoreWithScoresArray(K key, double max, double min) {
+        return dispatch(commandBuilder.zrevrangebyscoreWithScoresArray(key, max, min));
+    }
+
     @Override
     public RedisFuture<Boolean> exists(K key) {
         return dispatch(commandBuilder.exists(key));
@@ -318,6 +365,17 @@ public class RedisAsyncConnectionImpl<K, V> extends RedisChannelHandler<K, V> im
         return dispatch(EXEC, multi);
     }
 
+    /**
+     * Build a transaction that is written with a single flush on {@link RedisTransaction#exec()}. Commands issued on the
+     * transaction are recorded and complete with their result within <code>EXEC</code>. Keys are watched on this connection
+     * before building the transaction.
+     * 
+     * @return a new transaction.
+     */
+    public RedisTransaction<K, V> transaction() {
+        return new RedisTransaction<K, V>(this);
+    }
+
     @Override
     public RedisFuture<String> flushall() {
         return dispatch(commandBuilder.flushall());
@@ -746,6 +804,13 @@ public class RedisAsyncConnectionImpl<K, V> extends RedisChannelHandler<K, V> im
         return status;
     }
 
+    /**
+     * @return the database selected on this connection.
+     */
+    int getDatabase() {
+        return db;
+    }
+
     @Override
     public RedisFuture<String> set(K key, V value) {
         return dispatch(commandBuilder.set(key, value));
@@ -1258,7 +1323,7 @@ public class RedisAsyncConnectionImpl<K, V> extends RedisChannelHandler<K, V> im
 
     @Override
     public RedisFuture<KeyScanCursor<K>> scan(ScanCursor scanCursor, ScanArgs scanArgs) {
-        return dispatch(commandBuilder.scan(scanArgs));
+        return dispatch(commandBuilder.scan(scanCursor, scanArgs));
     }
 
     @Override
@@ -1410,13 +1475,7 @@ public class RedisAsyncConnectionImpl<K, V> extends RedisChannelHandler<K, V> im
 
     @Override
     public String digest(V script) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA1");
-            md.update(codec.encodeValue(script));
-            return new String(Base16.encode(md.digest(), false));
-        } catch (NoSuchAlgorithmException e) {
-            throw new RedisException("JVM does not support SHA1");
-        }
+        return LettuceStrings.digest(codec.encodeValue(script));
     }
 
     @Override
@@ -1479,6 +1538,11 @@ public class RedisAsyncConnectionImpl<K, V> extends RedisChannelHandler<K, V> im
         return dispatch(commandBuilder.clusterGetKeysInSlot(slot, count));
     }
 
+    @Override
+    public RedisFuture<Long> clusterGetKeysInSlot(KeyStreamingChannel<K> channel, int slot, int count) {
+        return dispatch(commandBuilder.clusterGetKeysInSlot(channel, slot, count));
+    }
+
     @Override
     public RedisFuture<List<Object>> clusterSlots() {
         return dispatch(commandBuilder.clusterSlots());
@@ -1549,6 +1613,17 @@ public class RedisAsyncConnectionImpl<K, V> extends RedisChannelHandler<K, V> im
         return dispatch(commandBuilder.zrangebylex(key, min, max, offset, count));
     }
 
+    @Override
+    public RedisFuture<Long> zrangebylex(ValueStreamingChannel<V> channel, K key, String min, String max) {
+        return dispatch(commandBuilder.zrangebylex(channel, key, min, max));
+    }
+
+    @Override
+    public RedisFuture<Long> zrangebylex(ValueStreamingChannel<V> channel, K key, String min, String max, long offset,
+            long count) {
+        return dispatch(commandBuilder.zrangebylex(channel, key, min, max, offset, count));
+    }
+
     protected <T> RedisCommand<K, V, T> dispatch(CommandType type, CommandOutput<K, V, T> output) {
         return dispatch(type, output, null);
     }
@@ -1565,10 +1640,89 @@ public class RedisAsyncConnectionImpl<K, V> extends RedisChannelHandler<K, V> im
             Command<K, V, T> command = (Command<K, V, T>) cmd;
             command.setMulti(true);
             multi.add(cmd);
+        } else if (singleFlight && cmd instanceof Command && isSingleFlight(cmd)) {
+            return singleFlight((Command<K, V, T>) cmd);
+        }
+
+        // reads issued after a write must not share the result of a read issued before it.
+        if (!inFlight.isEmpty() && !SINGLE_FLIGHT_COMMANDS.contains(cmd.getType())) {
+            inFlight.clear();
         }
         return super.dispatch(cmd);
     }
 
+    /**
+     * Enable or disable single-flight mode. Identical read-only commands (same type, arguments and output) that are issued
+     * while such a command is in flight are not written again: they complete with the result of the pending command. Results
+     * are shared between the callers and must not be modified. Commands within {@link #multi() MULTI} and streaming commands
+     * are never coalesced. Any other command ends coalescing with the reads issued before it, so reads observe the writes of
+     * this connection. Every caller receives its own future: cancelling it does not cancel the command in flight or the
+     * futures of the other callers. Disabled by default.
+     * 
+     * @param singleFlight {@literal true} to coalesce identical in-flight reads
+     */
+    public void setSingleFlight(boolean singleFlight) {
+        this.singleFlight = singleFlight;
+    }
+
+    private boolean isSingleFlight(RedisCommand<K, V, ?> cmd) {
+        CommandOutput<K, V, ?> output = cmd.getOutput();
+        return SINGLE_FLIGHT_COMMANDS.contains(cmd.getType()) && output != null && !(output instanceof ValueStreamingOutput)
+                && !(output instanceof KeyStreamingOutput) && !(output instanceof KeyValueStreamingOutput)
+                && !(output instanceof ScoredValueStreamingOutput);
+    }
+
+    /**
+     * Dispatch {@code cmd} unless an identical command is pending and return a future that follows the pending command. The
+     * dispatched command is not handed out, so cancelling a future does not affect the other callers.
+     */
+    private <T> RedisCommand<K, V, T> singleFlight(final Command<K, V, T> cmd) {
+
+        final SingleFlightKey key = new SingleFlightKey(cmd);
+        Command<K, V, ?> pending = inFlight.putIfAbsent(key, cmd);
+
+        if (pending == null) {
+            pending = cmd;
+            cmd.addListener(new Runnable() {
+                @Override
+                public void run() {
+                    inFlight.remove(key, cmd);
+                }
+            }, MoreExecutors.sameThreadExecutor());
+
+            try {
+                super.dispatch(cmd);
+            } catch (RuntimeException e) {
+                inFlight.remove(key, cmd);
+                throw e;
+            }
+        }
+
+        return follow(pending, cmd);
+    }
+
+    private <T> RedisCommand<K, V, T> follow(final Command<K, V, ?> pending, Command<K, V, T> cmd) {
+
+        final SharedOutput<K, V, T> output = new SharedOutput<K, V, T>(codec);
+        final Command<K, V, T> follower = new Command<K, V, T>(cmd.getType(), output, cmd.getArgs());
+        pending.addListener(new Runnable() {
+            @Override
+            public void run() {
+                CommandOutput<K, V, ?> result = pending.getOutput();
+                if (pending.isCancelled() || result == null) {
+                    follower.cancel(true);
+                    return;
+                }
+
+                output.share(result);
+                follower.setException(pending.getException());
+                follower.complete();
+            }
+        }, MoreExecutors.sameThreadExecutor());
+
+        return follower;
+    }
+
     public static String string(double n) {
         if (Double.isInfinite(n)) {
             return (n > 0) ? "+inf" : "-inf";
@@ -1594,4 +1748,57 @@ public class RedisAsyncConnectionImpl<K, V> extends RedisChannelHandler<K, V> im
         }
     }
 
+    /**
+     * Identifies identical commands by type, output type and encoded arguments.
+     */
+    private static class SingleFlightKey {
+
+        private final CommandType type;
+        private final Class<?> outputType;
+        private final ByteBuffer args;
+
+        SingleFlightKey(RedisCommand<?, ?, ?> cmd) {
+            this.type = cmd.getType();
+            this.outputType = cmd.getOutput().getClass();
+            this.args = cmd.getArgs() != null ? cmd.getArgs().buffer() : null;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SingleFlightKey)) {
+                return false;
+            }
+
+            SingleFlightKey that = (SingleFlightKey) o;
+            return type == that.type && outputType == that.outputType
+                    && (args == null ? that.args == null : args.equals(that.args));
+        }
+
+        @Override
+        public int hashCode() {
+            int result = type.hashCode();
+            result = 31 * result + outputType.hashCode();
+            result = 31 * result + (args != null ? args.hashCode() : 0);
+            return result;
+        }
+    }
+
+    /**
+     * Output of a coalesced command, takes the result of the pending command.
+     */
+    private static class SharedOutput<K, V, T> extends CommandOutput<K, V, T> {
+
+        SharedOutput(RedisCodec<K, V> codec) {
+            super(codec, null);
+        }
+
+        @SuppressWarnings("unchecked")
+        void share(CommandOutput<K, V, ?> source) {
+            output = (T) source.get();
+            error = source.getError();
+        }
+    }
 }
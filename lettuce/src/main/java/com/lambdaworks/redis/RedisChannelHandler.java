@@ -4,12 +4,18 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
+import com.google.common.util.concurrent.MoreExecutors;
+import com.lambdaworks.redis.metrics.MetricsCollector;
 import com.lambdaworks.redis.protocol.RedisCommand;
 
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.util.internal.ConcurrentSet;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
@@ -29,9 +35,24 @@ public abstract class RedisChannelHandler<K, V> extends ChannelInboundHandlerAda
     protected TimeUnit unit;
 
     private CloseEvents closeEvents = new CloseEvents();
+    private final Set<RedisConnectionStateListener> connectionStateListeners = new ConcurrentSet<RedisConnectionStateListener>();
     private boolean closed;
     private final RedisChannelWriter<K, V> channelWriter;
     private boolean active = true;
+    private MetricsCollector metricsCollector;
+    private volatile Channel channel;
+
+    private final Executor eventLoopExecutor = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            Channel channel = RedisChannelHandler.this.channel;
+            if (channel == null || channel.eventLoop().inEventLoop()) {
+                command.run();
+            } else {
+                channel.eventLoop().execute(command);
+            }
+        }
+    };
 
     /**
      * @param writer
@@ -75,6 +96,12 @@ public abstract class RedisChannelHandler<K, V> extends ChannelInboundHandlerAda
 
     }
 
+    @Override
+    public void channelRegistered(ChannelHandlerContext ctx) throws Exception {
+        channel = ctx.channel();
+        super.channelRegistered(ctx);
+    }
+
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
         channelRead(msg);
@@ -90,9 +117,36 @@ public abstract class RedisChannelHandler<K, V> extends ChannelInboundHandlerAda
     }
 
     protected <T> RedisCommand<K, V, T> dispatch(RedisCommand<K, V, T> cmd) {
+
+        if (metricsCollector != null) {
+            recordLatency(cmd, metricsCollector);
+        }
+
         return channelWriter.write(cmd);
     }
 
+    private void recordLatency(final RedisCommand<K, V, ?> cmd, final MetricsCollector metricsCollector) {
+
+        final long start = System.nanoTime();
+        cmd.addListener(new Runnable() {
+            @Override
+            public void run() {
+                if (cmd.isDone() && !cmd.isCancelled()) {
+                    metricsCollector.recordCommandLatency(cmd.getType(), System.nanoTime() - start);
+                }
+            }
+        }, MoreExecutors.sameThreadExecutor());
+    }
+
+    /**
+     * Set the {@link MetricsCollector} to record command latencies. Internal access only.
+     * 
+     * @param metricsCollector the metrics collector, may be {@literal null} to disable metrics.
+     */
+    public void setMetricsCollector(MetricsCollector metricsCollector) {
+        this.metricsCollector = metricsCollector;
+    }
+
     /**
      * Register Closeable resources. Internal access only.
      * 
@@ -138,12 +192,34 @@ public abstract class RedisChannelHandler<K, V> extends ChannelInboundHandlerAda
         return closed;
     }
 
+    /**
+     * Add a listener that is notified when this connection is connected or disconnected. Exceptions are only reported to the
+     * listeners of the client.
+     * 
+     * @param listener the listener, must not be {@literal null}
+     */
+    public void addConnectionStateListener(RedisConnectionStateListener listener) {
+        connectionStateListeners.add(listener);
+    }
+
+    /**
+     * Remove a connection state listener.
+     * 
+     * @param listener the listener
+     */
+    public void removeConnectionStateListener(RedisConnectionStateListener listener) {
+        connectionStateListeners.remove(listener);
+    }
+
     /**
      * Notification when the connection becomes active (connected).
      */
     public void activated() {
         active = true;
 
+        for (RedisConnectionStateListener listener : connectionStateListeners) {
+            listener.onRedisConnected(this);
+        }
     }
 
     /**
@@ -151,6 +227,30 @@ public abstract class RedisChannelHandler<K, V> extends ChannelInboundHandlerAda
      */
     public void deactivated() {
         active = false;
+
+        for (RedisConnectionStateListener listener : connectionStateListeners) {
+            listener.onRedisDisconnected(this);
+        }
+    }
+
+    /**
+     * 
+     * @return the channel of this connection, {@literal null} if the connection is not bound to a channel.
+     */
+    protected Channel getChannel() {
+        return channel;
+    }
+
+    /**
+     * Executor that runs tasks on the I/O thread (event loop) of this connection. Tasks submitted from the I/O thread run
+     * immediately. Register listeners with this executor to chain commands without a thread handoff: Commands dispatched from
+     * the I/O thread are written directly to the channel. Tasks run on the calling thread if the connection is not bound to a
+     * channel. Listeners must not block since they stall the I/O of all connections sharing the event loop.
+     * 
+     * @return the event loop executor of this connection.
+     */
+    public Executor getEventLoopExecutor() {
+        return eventLoopExecutor;
     }
 
     /**
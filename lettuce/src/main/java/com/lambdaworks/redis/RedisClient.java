@@ -4,11 +4,20 @@ package com.lambdaworks.redis;
 
 import static com.google.common.base.Preconditions.*;
 
+import java.io.Closeable;
 import java.net.ConnectException;
+import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
 
+import com.google.common.base.Charsets;
+import com.google.common.base.Function;
 import com.google.common.base.Supplier;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
 import com.lambdaworks.redis.codec.RedisCodec;
 import com.lambdaworks.redis.codec.Utf8StringCodec;
 import com.lambdaworks.redis.protocol.CommandHandler;
@@ -22,18 +31,22 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
-import io.netty.channel.socket.nio.NioSocketChannel;
 
 /**
  * A scalable thread-safe <a href="http://redis.io/">Redis</a> client. Multiple threads may share one connection provided they
  * avoid blocking and transactional operations such as BLPOP and MULTI/EXEC.
  * 
+ * In {@link ClientOptions#isMultiplexed() multiplexed mode} all connections to the same endpoint share one connection for
+ * non-blocking commands. Blocking and transactional operations transparently lease a dedicated connection.
+ * 
  * @author Will Glozer
  */
 public class RedisClient extends AbstractRedisClient {
 
     private final RedisCodec<String, String> codec = new Utf8StringCodec();
     private final RedisURI redisURI;
+    private final Map<String, MultiplexedConnectionProvider> multiplexedProviders = Maps.newHashMap();
+    private final Map<String, SentinelTopologyProvider> sentinelProviders = Maps.newHashMap();
 
     /**
      * Creates a uri-less RedisClient. You can connect to different redis servers but you must supply a {@link RedisURI} on
@@ -43,6 +56,17 @@ public class RedisClient extends AbstractRedisClient {
         redisURI = null;
     }
 
+    /**
+     * Creates a uri-less RedisClient that uses shared {@link ClientResources}. You must supply a {@link RedisURI} on
+     * connecting.
+     * 
+     * @param clientResources the shared client resources, must not be {@literal null}
+     */
+    public RedisClient(ClientResources clientResources) {
+        super(checkNotNull(clientResources, "ClientResources must not be null"));
+        redisURI = null;
+    }
+
     /**
      * Create a new client that connects to the supplied host on the default port.
      * 
@@ -75,6 +99,19 @@ public class RedisClient extends AbstractRedisClient {
         setDefaultTimeout(redisURI.getTimeout(), redisURI.getUnit());
     }
 
+    /**
+     * Create a new client that connects to the supplied {@link RedisURI} and uses shared {@link ClientResources}. The client
+     * holds a reference to the resources until it is shut down.
+     * 
+     * @param clientResources the shared client resources, must not be {@literal null}
+     * @param redisURI Redis URI.
+     */
+    public RedisClient(ClientResources clientResources, RedisURI redisURI) {
+        super(checkNotNull(clientResources, "ClientResources must not be null"));
+        this.redisURI = redisURI;
+        setDefaultTimeout(redisURI.getTimeout(), redisURI.getUnit());
+    }
+
     /**
      * Creates a connection pool for synchronous connections. 5 max idle connections and 20 max active connections. Please keep
      * in mind to free all collections and close the pool once you do not need it anymore.
@@ -295,9 +332,81 @@ public class RedisClient extends AbstractRedisClient {
 
     private <K, V> RedisAsyncConnectionImpl<K, V> connectAsyncImpl(RedisCodec<K, V> codec, boolean withReconnect,
             RedisURI redisURI) {
+
+        if (clientOptions.isMultiplexed()) {
+            return connectMultiplexedAsyncImpl(codec, redisURI);
+        }
+
+        return connectStandaloneAsyncImpl(codec, withReconnect, redisURI);
+    }
+
+    private <K, V> RedisAsyncConnectionImpl<K, V> connectMultiplexedAsyncImpl(RedisCodec<K, V> codec, RedisURI redisURI) {
+
+        MultiplexedChannelWriter<K, V> writer = new MultiplexedChannelWriter<K, V>(getMultiplexedConnectionProvider(redisURI));
+        RedisAsyncConnectionImpl<K, V> connection = new RedisAsyncConnectionImpl<K, V>(writer, codec, timeout, unit);
+        connection.setMetricsCollector(metricsCollector);
+
+        connection.registerCloseables(closeableResources, connection, writer);
+
+        return connection;
+    }
+
+    /**
+     * Retrieve the shared connections for the endpoint of the {@link RedisURI}. The connections are created on first access and
+     * closed on {@link #shutdown()}.
+     */
+    private synchronized MultiplexedConnectionProvider getMultiplexedConnectionProvider(final RedisURI redisURI) {
+
+        String endpoint = multiplexedEndpoint(redisURI);
+
+        MultiplexedConnectionProvider connectionProvider = multiplexedProviders.get(endpoint);
+        if (connectionProvider != null) {
+            return connectionProvider;
+        }
+
+        logger.debug("Creating shared connection for " + endpoint);
+        RedisAsyncConnectionImpl<String, String> sharedConnection = connectStandaloneAsyncImpl(codec, true, redisURI);
+
+        connectionProvider = new MultiplexedConnectionProvider(sharedConnection,
+                new RedisConnectionProvider<RedisAsyncConnectionImpl<String, String>>() {
+                    @Override
+                    public RedisAsyncConnectionImpl<String, String> createConnection() {
+                        return connectStandaloneAsyncImpl(codec, false, redisURI);
+                    }
+
+                    @Override
+                    @SuppressWarnings({ "rawtypes", "unchecked" })
+                    public Class<? extends RedisAsyncConnectionImpl<String, String>> getComponentType() {
+                        return (Class) RedisAsyncConnectionImpl.class;
+                    }
+                }, clientOptions.getDedicatedConnections(), unit.toMillis(timeout));
+
+        multiplexedProviders.put(endpoint, connectionProvider);
+        closeableResources.add(connectionProvider);
+
+        return connectionProvider;
+    }
+
+    /**
+     * Key of the shared connections. Connections are only shared between URIs with the same credentials, the password is
+     * included as digest.
+     */
+    static String multiplexedEndpoint(RedisURI redisURI) {
+
+        String credentials = "";
+        if (redisURI.getPassword() != null) {
+            credentials = Hashing.sha256().hashString(new String(redisURI.getPassword()), Charsets.UTF_8).toString();
+        }
+
+        return redisURI.getHost() + ":" + redisURI.getPort() + "/" + redisURI.getDatabase() + "/"
+                + redisURI.getSentinelMasterId() + redisURI.getSentinels() + "/" + credentials;
+    }
+
+    private <K, V> RedisAsyncConnectionImpl<K, V> connectStandaloneAsyncImpl(RedisCodec<K, V> codec, boolean withReconnect,
+            RedisURI redisURI) {
         BlockingQueue<RedisCommand<K, V, ?>> queue = new LinkedBlockingQueue<RedisCommand<K, V, ?>>();
 
-        CommandHandler<K, V> handler = new CommandHandler<K, V>(queue);
+        CommandHandler<K, V> handler = new CommandHandler<K, V>(clientOptions, queue);
         RedisAsyncConnectionImpl<K, V> connection = new RedisAsyncConnectionImpl<K, V>(handler, codec, timeout, unit);
 
         connectAsyncImpl(handler, connection, withReconnect, redisURI);
@@ -309,6 +418,10 @@ public class RedisClient extends AbstractRedisClient {
             boolean withReconnect, RedisURI redisURI) {
 
         connectAsyncImpl(handler, connection, getSocketAddressSupplier(redisURI), withReconnect);
+        if (withReconnect && isSentinelURI(redisURI)) {
+            getSentinelTopologyProvider(redisURI).register(connection);
+        }
+
         if (redisURI.getPassword() != null && redisURI.getPassword().length != 0) {
             connection.auth(new String(redisURI.getPassword()));
         }
@@ -341,7 +454,7 @@ public class RedisClient extends AbstractRedisClient {
         checkArgument(codec != null, "RedisCodec must not be null");
         BlockingQueue<RedisCommand<K, V, ?>> queue = new LinkedBlockingQueue<RedisCommand<K, V, ?>>();
 
-        PubSubCommandHandler<K, V> handler = new PubSubCommandHandler<K, V>(queue, codec);
+        PubSubCommandHandler<K, V> handler = new PubSubCommandHandler<K, V>(clientOptions, queue, codec);
         RedisPubSubConnectionImpl<K, V> connection = new RedisPubSubConnectionImpl<K, V>(handler, codec, timeout, unit);
 
         connectAsyncImpl(handler, connection, true, redisURI);
@@ -349,6 +462,86 @@ public class RedisClient extends AbstractRedisClient {
         return connection;
     }
 
+    /**
+     * Open a new synchronous master/slave connection that treats keys and values as UTF-8 strings. See
+     * {@link #connectMasterSlaveAsync(RedisCodec, ReadPolicy)}.
+     * 
+     * @param readPolicy routing of read-only commands, must not be {@literal null}
+     * @return A new connection.
+     */
+    @SuppressWarnings("unchecked")
+    public RedisConnection<String, String> connectMasterSlave(ReadPolicy readPolicy) {
+        return (RedisConnection<String, String>) syncHandler(connectMasterSlaveAsyncImpl(codec, readPolicy),
+                RedisConnection.class);
+    }
+
+    /**
+     * Open a new asynchronous master/slave connection that treats keys and values as UTF-8 strings. See
+     * {@link #connectMasterSlaveAsync(RedisCodec, ReadPolicy)}.
+     * 
+     * @param readPolicy routing of read-only commands, must not be {@literal null}
+     * @return A new connection.
+     */
+    public RedisAsyncConnection<String, String> connectMasterSlaveAsync(ReadPolicy readPolicy) {
+        return connectMasterSlaveAsyncImpl(codec, readPolicy);
+    }
+
+    /**
+     * Open a new asynchronous master/slave connection to a sentinel-managed master. Writes are sent to the master, read-only
+     * commands are routed to the slaves according to the {@link ReadPolicy}. The slaves are discovered using the sentinels and
+     * refreshed when sentinels announce a new slave, a slave goes down or comes back, or the master switches. You must supply
+     * a RedisURI containing one or more sentinels and a master id.
+     * 
+     * @param codec Use this codec to encode/decode keys and values, must not be {@literal null}
+     * @param readPolicy routing of read-only commands, must not be {@literal null}
+     * @return A new connection.
+     */
+    public <K, V> RedisAsyncConnection<K, V> connectMasterSlaveAsync(RedisCodec<K, V> codec, ReadPolicy readPolicy) {
+        checkArgument(codec != null, "RedisCodec must not be null");
+        return connectMasterSlaveAsyncImpl(codec, readPolicy);
+    }
+
+    private <K, V> RedisAsyncConnectionImpl<K, V> connectMasterSlaveAsyncImpl(final RedisCodec<K, V> codec,
+            ReadPolicy readPolicy) {
+
+        checkForRedisURI();
+        checkArgument(readPolicy != null, "ReadPolicy must not be null");
+        checkArgument(isSentinelURI(redisURI), "RedisURI must contain sentinels and a sentinel master id");
+
+        BlockingQueue<RedisCommand<K, V, ?>> queue = new LinkedBlockingQueue<RedisCommand<K, V, ?>>();
+        CommandHandler<K, V> handler = new CommandHandler<K, V>(clientOptions, queue);
+        final MasterSlaveChannelWriter<K, V> writer = new MasterSlaveChannelWriter<K, V>(handler, readPolicy);
+        RedisAsyncConnectionImpl<K, V> connection = new RedisAsyncConnectionImpl<K, V>(writer, codec, timeout, unit);
+
+        connectAsyncImpl(handler, connection, true, redisURI);
+
+        if (readPolicy == ReadPolicy.MASTER) {
+            return connection;
+        }
+
+        final SlaveRefresh<K, V> refresh = new SlaveRefresh<K, V>(writer, codec);
+
+        final SentinelTopologyProvider topologyProvider = getSentinelTopologyProvider(redisURI);
+        final Runnable topologyListener = new Runnable() {
+            @Override
+            public void run() {
+                reconnectWorkers.execute(refresh);
+            }
+        };
+        topologyProvider.addTopologyListener(topologyListener);
+
+        connection.registerCloseables(closeableResources, connection, writer, new Closeable() {
+            @Override
+            public void close() {
+                topologyProvider.removeTopologyListener(topologyListener);
+            }
+        }, refresh);
+
+        refresh.run();
+
+        return connection;
+    }
+
     /**
      * Creates an asynchronous connection to Sentinel. You must supply a valid RedisURI containing one or more sentinels.
      * 
@@ -373,16 +566,20 @@ public class RedisClient extends AbstractRedisClient {
         return connectSentinelAsyncImpl(codec, redisURI);
     }
 
-    private <K, V> RedisSentinelAsyncConnection<K, V> connectSentinelAsyncImpl(RedisCodec<K, V> codec, RedisURI redisURI) {
+    private <K, V> RedisSentinelAsyncConnectionImpl<K, V> connectSentinelAsyncImpl(RedisCodec<K, V> codec, RedisURI redisURI) {
         BlockingQueue<RedisCommand<K, V, ?>> queue = new LinkedBlockingQueue<RedisCommand<K, V, ?>>();
 
-        final CommandHandler<K, V> commandHandler = new CommandHandler<K, V>(queue);
+        final CommandHandler<K, V> commandHandler = new CommandHandler<K, V>(clientOptions, queue);
         final RedisSentinelAsyncConnectionImpl<K, V> connection = new RedisSentinelAsyncConnectionImpl<K, V>(commandHandler,
                 codec, timeout, unit);
+        connection.setMetricsCollector(metricsCollector);
 
         logger.debug("Trying to get a Sentinel connection for one of: " + redisURI.getSentinels());
-        final Bootstrap sentinelBootstrap = new Bootstrap().channel(NioSocketChannel.class).group(eventLoopGroup);
-        final ConnectionWatchdog watchdog = new ConnectionWatchdog(sentinelBootstrap, timer);
+        final Bootstrap sentinelBootstrap = new Bootstrap().channel(Transports.channelClass(eventLoopGroup)).group(
+                eventLoopGroup);
+        applySocketOptions(sentinelBootstrap);
+        applyCallbackExecution(commandHandler);
+        final ConnectionWatchdog watchdog = createConnectionWatchdog(sentinelBootstrap, null);
         watchdog.setReconnect(true);
 
         sentinelBootstrap.handler(new ChannelInitializer<Channel>() {
@@ -458,10 +655,10 @@ public class RedisClient extends AbstractRedisClient {
             ExecutionException {
         SocketAddress redisAddress;
 
-        if (redisURI.getSentinelMasterId() != null && !redisURI.getSentinels().isEmpty()) {
+        if (isSentinelURI(redisURI)) {
             logger.debug("Connecting to Redis using Sentinels " + redisURI.getSentinels() + ", MasterId "
                     + redisURI.getSentinelMasterId());
-            redisAddress = lookupRedis(redisURI.getSentinelMasterId());
+            redisAddress = getSentinelTopologyProvider(redisURI).getMaster();
 
             if (redisAddress == null) {
                 throw new RedisException("Cannot provide redisAddress using sentinel for masterId "
@@ -474,14 +671,154 @@ public class RedisClient extends AbstractRedisClient {
         return redisAddress;
     }
 
-    private SocketAddress lookupRedis(String sentinelMasterId) throws InterruptedException, TimeoutException,
-            ExecutionException {
-        RedisSentinelAsyncConnection<String, String> connection = connectSentinelAsync();
+    private boolean isSentinelURI(RedisURI redisURI) {
+        return redisURI.getSentinelMasterId() != null && !redisURI.getSentinels().isEmpty();
+    }
+
+    /**
+     * Retrieve the {@link SentinelTopologyProvider} for the master of the {@link RedisURI}. The provider is created on first
+     * access, subscribes to master changes on all reachable sentinels and is closed on {@link #shutdown()}.
+     */
+    private synchronized SentinelTopologyProvider getSentinelTopologyProvider(final RedisURI redisURI) {
+
+        String key = redisURI.getSentinelMasterId() + redisURI.getSentinels();
+        SentinelTopologyProvider provider = sentinelProviders.get(key);
+        if (provider != null) {
+            return provider;
+        }
+
+        provider = new SentinelTopologyProvider(redisURI.getSentinelMasterId(), new Supplier<SocketAddress>() {
+            @Override
+            public SocketAddress get() {
+                try {
+                    return lookupRedis(redisURI);
+                } catch (InterruptedException e) {
+                    throw new RedisException(e);
+                } catch (TimeoutException e) {
+                    throw new RedisException(e);
+                } catch (ExecutionException e) {
+                    throw new RedisException(e);
+                }
+            }
+        });
+
+        for (RedisURI sentinel : redisURI.getSentinels()) {
+            try {
+                BlockingQueue<RedisCommand<String, String, ?>> queue = new LinkedBlockingQueue<RedisCommand<String, String, ?>>();
+                PubSubCommandHandler<String, String> handler = new PubSubCommandHandler<String, String>(clientOptions, queue,
+                        codec);
+                RedisPubSubConnectionImpl<String, String> connection = new RedisPubSubConnectionImpl<String, String>(handler,
+                        codec, timeout, unit);
+                connectAsyncImpl(handler, connection, true, sentinel);
+                provider.subscribe(connection);
+            } catch (RuntimeException e) {
+                logger.warn("Cannot subscribe to master changes on sentinel " + sentinel.getHost() + ":" + sentinel.getPort()
+                        + ": " + e.toString());
+            }
+        }
+
+        sentinelProviders.put(key, provider);
+        closeableResources.add(provider);
+
+        return provider;
+    }
+
+    private SocketAddress lookupRedis(RedisURI redisURI) throws InterruptedException, TimeoutException, ExecutionException {
+        RedisSentinelAsyncConnection<String, String> connection = connectSentinelAsyncImpl(codec, redisURI);
         try {
-            return connection.getMasterAddrByName(sentinelMasterId).get(timeout, unit);
+            return connection.getMasterAddrByName(redisURI.getSentinelMasterId()).get(timeout, unit);
         } finally {
             connection.close();
         }
     }
 
+
+    /**
+     * Looks up the slaves of the master and updates the slave connections of a master/slave writer. Slaves that are down or
+     * disconnected from the sentinels are skipped. The sentinel connection is opened on the first refresh and reused until the
+     * master/slave connection is closed.
+     *
+     * @param <K> Key type.
+     * @param <V> Value type.
+     */
+    class SlaveRefresh<K, V> implements Runnable, Closeable {
+
+        private final MasterSlaveChannelWriter<K, V> writer;
+        private final RedisCodec<K, V> codec;
+        private RedisSentinelAsyncConnectionImpl<String, String> sentinel;
+        private boolean closed;
+
+        SlaveRefresh(MasterSlaveChannelWriter<K, V> writer, RedisCodec<K, V> codec) {
+            this.writer = writer;
+            this.codec = codec;
+        }
+
+        @Override
+        public void run() {
+            try {
+                refresh();
+            } catch (RuntimeException e) {
+                logger.warn("Cannot refresh slaves of " + redisURI.getSentinelMasterId() + ": " + e.toString(), e);
+            }
+        }
+
+        private void refresh() {
+
+            List<Map<String, String>> slaves;
+            try {
+                slaves = sentinel().slaveList(redisURI.getSentinelMasterId()).get(timeout, unit);
+            } catch (RedisException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new RedisException("Cannot retrieve slaves of " + redisURI.getSentinelMasterId(), e);
+            }
+
+            List<SocketAddress> addresses = new ArrayList<SocketAddress>();
+            for (Map<String, String> slave : slaves) {
+                String flags = slave.get("flags");
+                if (flags != null && (flags.contains("s_down") || flags.contains("o_down") || flags.contains("disconnected"))) {
+                    continue;
+                }
+                addresses.add(new InetSocketAddress(slave.get("ip"), Integer.parseInt(slave.get("port"))));
+            }
+
+            writer.updateSlaves(addresses, new Function<SocketAddress, RedisAsyncConnectionImpl<K, V>>() {
+                @Override
+                public RedisAsyncConnectionImpl<K, V> apply(SocketAddress address) {
+                    InetSocketAddress inetAddress = (InetSocketAddress) address;
+                    RedisURI slaveUri = new RedisURI(inetAddress.getHostName(), inetAddress.getPort(), redisURI.getTimeout(),
+                            redisURI.getUnit());
+                    if (redisURI.getPassword() != null) {
+                        slaveUri.setPassword(new String(redisURI.getPassword()));
+                    }
+                    slaveUri.setDatabase(redisURI.getDatabase());
+                    return connectStandaloneAsyncImpl(codec, true, slaveUri);
+                }
+            });
+        }
+
+        private synchronized RedisSentinelAsyncConnectionImpl<String, String> sentinel() {
+
+            if (closed) {
+                throw new RedisException("Connection is closed");
+            }
+
+            if (sentinel == null || !sentinel.isOpen()) {
+                if (sentinel != null) {
+                    sentinel.close();
+                }
+                sentinel = connectSentinelAsyncImpl(RedisClient.this.codec, redisURI);
+            }
+            return sentinel;
+        }
+
+        @Override
+        public synchronized void close() {
+            closed = true;
+            if (sentinel != null) {
+                sentinel.close();
+                sentinel = null;
+            }
+        }
+    }
 }
@@ -2,6 +2,8 @@ package com.lambdaworks.redis;
 
 import java.util.List;
 
+import com.lambdaworks.redis.output.KeyStreamingChannel;
+
 /**
  * Complete asynchronous cluster Redis API with 400+ Methods..
  * 
@@ -29,6 +31,8 @@ public interface RedisClusterAsyncConnection<K, V> extends RedisHashesAsyncConne
 
     RedisFuture<List<K>> clusterGetKeysInSlot(int slot, int count);
 
+    RedisFuture<Long> clusterGetKeysInSlot(KeyStreamingChannel<K> channel, int slot, int count);
+
     /**
      * Get array of Cluster slot to node mappings.
      * 
@@ -3,6 +3,8 @@ package com.lambdaworks.redis;
 import java.util.List;
 import java.util.Map;
 
+import com.lambdaworks.redis.output.KeyStreamingChannel;
+
 /**
  * Complete synchronous cluster Redis API with 400+ Methods..
  * 
@@ -29,6 +31,8 @@ public interface RedisClusterConnection<K, V> extends RedisHashesConnection<K, V
 
     List<K> clusterGetKeysInSlot(int slot, int count);
 
+    Long clusterGetKeysInSlot(KeyStreamingChannel<K> channel, int slot, int count);
+
     /**
      * Get array of Cluster slot to node mappings.
      * 
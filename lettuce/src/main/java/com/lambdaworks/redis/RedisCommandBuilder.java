@@ -3,6 +3,7 @@ package com.lambdaworks.redis;
 import static com.lambdaworks.redis.protocol.CommandKeyword.*;
 import static com.lambdaworks.redis.protocol.CommandType.*;
 
+import java.util.BitSet;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -251,6 +252,18 @@ class RedisCommandBuilder<K, V> extends BaseRedisCommandBuilder<K, V> {
         return createCommand(EVALSHA, output, args);
     }
 
+    public Command<K, V, Long> eval(ValueStreamingChannel<V> channel, String script, K[] keys, V... values) {
+        CommandArgs<K, V> args = new CommandArgs<K, V>(codec);
+        args.add(script).add(keys.length).addKeys(keys).addValues(values);
+        return createCommand(EVAL, new ValueStreamingOutput<K, V>(codec, channel), args);
+    }
+
+    public Command<K, V, Long> evalsha(ValueStreamingChannel<V> channel, String digest, K[] keys, V... values) {
+        CommandArgs<K, V> args = new CommandArgs<K, V>(codec);
+        args.add(digest).add(keys.length).addKeys(keys).addValues(values);
+        return createCommand(EVALSHA, new ValueStreamingOutput<K, V>(codec, channel), args);
+    }
+
     public Command<K, V, Boolean> exists(K key) {
         return createCommand(EXISTS, new BooleanOutput<K, V>(codec), key);
     }
@@ -611,6 +624,14 @@ class RedisCommandBuilder<K, V> extends BaseRedisCommandBuilder<K, V> {
         return createCommand(SCARD, new IntegerOutput<K, V>(codec), key);
     }
 
+    public Command<K, V, BitSet> scriptExistsBits(String... digests) {
+        CommandArgs<K, V> args = new CommandArgs<K, V>(codec).add(EXISTS);
+        for (String sha : digests) {
+            args.add(sha);
+        }
+        return createCommand(SCRIPT, new BitSetOutput<K, V>(codec), args);
+    }
+
     public Command<K, V, List<Boolean>> scriptExists(String... digests) {
         CommandArgs<K, V> args = new CommandArgs<K, V>(codec).add(EXISTS);
         for (String sha : digests) {
@@ -902,6 +923,18 @@ class RedisCommandBuilder<K, V> extends BaseRedisCommandBuilder<K, V> {
         return createCommand(ZRANGE, new ValueListOutput<K, V>(codec), args);
     }
 
+    public Command<K, V, ScoredValues<V>> zrangeWithScoresArray(K key, long start, long stop) {
+        CommandArgs<K, V> args = new CommandArgs<K, V>(codec);
+        args.addKey(key).add(start).add(stop).add(WITHSCORES);
+        return createCommand(ZRANGE, new ScoredValuesOutput<K, V>(codec), args);
+    }
+
+    public Command<K, V, ScoredValues<V>> zrangebyscoreWithScoresArray(K key, double min, double max) {
+        CommandArgs<K, V> args = new CommandArgs<K, V>(codec);
+        args.addKey(key).add(string(min)).add(string(max)).add(WITHSCORES);
+        return createCommand(ZRANGEBYSCORE, new ScoredValuesOutput<K, V>(codec), args);
+    }
+
     public Command<K, V, List<ScoredValue<V>>> zrangeWithScores(K key, long start, long stop) {
         CommandArgs<K, V> args = new CommandArgs<K, V>(codec);
         args.addKey(key).add(start).add(stop).add(WITHSCORES);
@@ -1028,6 +1061,18 @@ class RedisCommandBuilder<K, V> extends BaseRedisCommandBuilder<K, V> {
         return createCommand(ZREVRANGE, new ValueListOutput<K, V>(codec), args);
     }
 
+    public Command<K, V, ScoredValues<V>> zrevrangeWithScoresArray(K key, long start, long stop) {
+        CommandArgs<K, V> args = new CommandArgs<K, V>(codec);
+        args.addKey(key).add(start).add(stop).add(WITHSCORES);
+        return createCommand(ZREVRANGE, new ScoredValuesOutput<K, V>(codec), args);
+    }
+
+    public Command<K, V, ScoredValues<V>> zrevrangebyscoreWithScoresArray(K key, double max, double min) {
+        CommandArgs<K, V> args = new CommandArgs<K, V>(codec);
+        args.addKey(key).add(string(max)).add(string(min)).add(WITHSCORES);
+        return createCommand(ZREVRANGEBYSCORE, new ScoredValuesOutput<K, V>(codec), args);
+    }
+
     public Command<K, V, List<ScoredValue<V>>> zrevrangeWithScores(K key, long start, long stop) {
         CommandArgs<K, V> args = new CommandArgs<K, V>(codec);
         args.addKey(key).add(start).add(stop).add(WITHSCORES);
@@ -1170,6 +1215,19 @@ class RedisCommandBuilder<K, V> extends BaseRedisCommandBuilder<K, V> {
         return createCommand(ZRANGEBYLEX, new ValueListOutput<K, V>(codec), args);
     }
 
+    public RedisCommand<K, V, Long> zrangebylex(ValueStreamingChannel<V> channel, K key, String min, String max) {
+        CommandArgs<K, V> args = new CommandArgs<K, V>(codec);
+        args.addKey(key).add(min).add(max);
+        return createCommand(ZRANGEBYLEX, new ValueStreamingOutput<K, V>(codec, channel), args);
+    }
+
+    public RedisCommand<K, V, Long> zrangebylex(ValueStreamingChannel<V> channel, K key, String min, String max, long offset,
+            long count) {
+        CommandArgs<K, V> args = new CommandArgs<K, V>(codec);
+        args.addKey(key).add(min).add(max).add(LIMIT).add(offset).add(count);
+        return createCommand(ZRANGEBYLEX, new ValueStreamingOutput<K, V>(codec, channel), args);
+    }
+
     public Command<K, V, List<V>> time() {
         CommandArgs<K, V> args = new CommandArgs<K, V>(codec);
         return createCommand(TIME, new ValueListOutput<K, V>(codec), args);
@@ -1425,6 +1483,11 @@ class RedisCommandBuilder<K, V> extends BaseRedisCommandBuilder<K, V> {
         return createCommand(CLUSTER, new KeyListOutput<K, V>(codec), args);
     }
 
+    public Command<K, V, Long> clusterGetKeysInSlot(KeyStreamingChannel<K> channel, int slot, int count) {
+        CommandArgs<K, V> args = new CommandArgs<K, V>(codec).add(GETKEYSINSLOT).add(slot).add(count);
+        return createCommand(CLUSTER, new KeyStreamingOutput<K, V>(codec, channel), args);
+    }
+
     public Command<K, V, List<Object>> clusterSlots() {
         CommandArgs<K, V> args = new CommandArgs<K, V>(codec).add(SLOTS);
         return createCommand(CLUSTER, new ArrayOutput<K, V>(codec), args);
@@ -1,7 +1,10 @@
 package com.lambdaworks.redis;
 
+import java.util.BitSet;
 import java.util.List;
 
+import com.lambdaworks.redis.output.ValueStreamingChannel;
+
 /**
  * Asynchronous executed commands for Scripting.
  * 
@@ -53,6 +56,29 @@ public interface RedisScriptingAsyncConnection<K, V> {
      */
     <T> RedisFuture<T> evalsha(String digest, ScriptOutputType type, K[] keys, V... values);
 
+    /**
+     * Execute a Lua script server side and stream the elements of its multi-bulk reply. The script must return bulk strings.
+     * 
+     * @param channel the channel
+     * @param script Lua 5.1 script.
+     * @param keys the keys
+     * @param values the values
+     * @return RedisFuture&lt;Long&gt; count of streamed elements.
+     */
+    RedisFuture<Long> eval(ValueStreamingChannel<V> channel, String script, K[] keys, V... values);
+
+    /**
+     * Evaluate a script cached on the server side by its SHA1 digest and stream the elements of its multi-bulk reply. The
+     * script must return bulk strings.
+     * 
+     * @param channel the channel
+     * @param digest SHA1 of the script
+     * @param keys the keys
+     * @param values the values
+     * @return RedisFuture&lt;Long&gt; count of streamed elements.
+     */
+    RedisFuture<Long> evalsha(ValueStreamingChannel<V> channel, String digest, K[] keys, V... values);
+
     /**
      * Check existence of scripts in the script cache.
      * 
@@ -63,6 +89,14 @@ public interface RedisScriptingAsyncConnection<K, V> {
      */
     RedisFuture<List<Boolean>> scriptExists(String... digests);
 
+    /**
+     * Check existence of scripts in the script cache.
+     * 
+     * @param digests
+     * @return RedisFuture&lt;BitSet&gt; bit {@code i} is set if the script with the {@code i}-th digest exists in the script cache.
+     */
+    RedisFuture<BitSet> scriptExistsBits(String... digests);
+
     /**
      * Remove all the scripts from the script cache.
      * 
@@ -70,6 +70,18 @@ class RedisSentinelAsyncConnectionImpl<K, V> extends RedisChannelHandler<K, V> i
         return dispatch(commandBuilder.slaves(key));
     }
 
+    /**
+     * Provides the slaves of the master with the specified name. Unlike {@link #slaves(Object)}, each slave is returned as a
+     * separate map.
+     * 
+     * @param key the master name
+     * @return RedisFuture&lt;List&lt;Map&lt;K, V&gt;&gt;&gt;
+     */
+    RedisFuture<List<Map<K, V>>> slaveList(K key) {
+
+        return dispatch(commandBuilder.slaveList(key));
+    }
+
     @Override
     public RedisFuture<Long> reset(K key) {
 
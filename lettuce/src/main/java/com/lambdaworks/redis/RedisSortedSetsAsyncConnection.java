@@ -727,4 +727,70 @@ public interface RedisSortedSetsAsyncConnection<K, V> {
      * @return RedisFuture&lt;List&lt;V&gt;&gt; array-reply list of elements in the specified score range.
      */
     RedisFuture<List<V>> zrangebylex(K key, String min, String max, long offset, long count);
+
+    /**
+     * Stream over a range of members in a sorted set, by lexicographical range.
+     * 
+     * @param channel the channel
+     * @param key the key
+     * @param min the min type: string
+     * @param max the max type: string
+     * @return RedisFuture&lt;Long&gt; count of elements in the specified range.
+     */
+    RedisFuture<Long> zrangebylex(ValueStreamingChannel<V> channel, K key, String min, String max);
+
+    /**
+     * Stream over a range of members in a sorted set, by lexicographical range.
+     * 
+     * @param channel the channel
+     * @param key the key
+     * @param min the min type: string
+     * @param max the max type: string
+     * @param offset the offset
+     * @param count the count
+     * @return RedisFuture&lt;Long&gt; count of elements in the specified range.
+     */
+    RedisFuture<Long> zrangebylex(ValueStreamingChannel<V> channel, K key, String min, String max, long offset, long count);
+
+    /**
+     * Return a range of members with scores in a sorted set, by index. Scores are stored as primitive doubles.
+     * 
+     * @param key the key
+     * @param start the start
+     * @param stop the stop
+     * @return RedisFuture&lt;ScoredValues&lt;V&gt;&gt; array-reply elements in the specified range.
+     */
+    RedisFuture<ScoredValues<V>> zrangeWithScoresArray(K key, long start, long stop);
+
+    /**
+     * Return a range of members with scores in a sorted set, by score. Scores are stored as primitive doubles.
+     * 
+     * @param key the key
+     * @param min the min
+     * @param max the max
+     * @return RedisFuture&lt;ScoredValues&lt;V&gt;&gt; array-reply elements in the specified score range.
+     */
+    RedisFuture<ScoredValues<V>> zrangebyscoreWithScoresArray(K key, double min, double max);
+
+    /**
+     * Return a range of members with scores in a sorted set, by index, with scores ordered from high to low. Scores are
+     * stored as primitive doubles.
+     * 
+     * @param key the key
+     * @param start the start
+     * @param stop the stop
+     * @return RedisFuture&lt;ScoredValues&lt;V&gt;&gt; array-reply elements in the specified range.
+     */
+    RedisFuture<ScoredValues<V>> zrevrangeWithScoresArray(K key, long start, long stop);
+
+    /**
+     * Return a range of members with scores in a sorted set, by score, with scores ordered from high to low. Scores are
+     * stored as primitive doubles.
+     * 
+     * @param key the key
+     * @param max the max
+     * @param min the min
+     * @return RedisFuture&lt;ScoredValues&lt;V&gt;&gt; array-reply elements in the specified score range.
+     */
+    RedisFuture<ScoredValues<V>> zrevrangebyscoreWithScoresArray(K key, double max, double min);
 }
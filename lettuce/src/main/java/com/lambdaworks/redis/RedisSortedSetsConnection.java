@@ -720,4 +720,70 @@ public interface RedisSortedSetsConnection<K, V> {
      * @return List&lt;V&gt; array-reply list of elements in the specified score range.
      */
     List<V> zrangebylex(K key, String min, String max, long offset, long count);
+
+    /**
+     * Stream over a range of members in a sorted set, by lexicographical range.
+     * 
+     * @param channel the channel
+     * @param key the key
+     * @param min the min type: string
+     * @param max the max type: string
+     * @return Long count of elements in the specified range.
+     */
+    Long zrangebylex(ValueStreamingChannel<V> channel, K key, String min, String max);
+
+    /**
+     * Stream over a range of members in a sorted set, by lexicographical range.
+     * 
+     * @param channel the channel
+     * @param key the key
+     * @param min the min type: string
+     * @param max the max type: string
+     * @param offset the offset
+     * @param count the count
+     * @return Long count of elements in the specified range.
+     */
+    Long zrangebylex(ValueStreamingChannel<V> channel, K key, String min, String max, long offset, long count);
+
+    /**
+     * Return a range of members with scores in a sorted set, by index. Scores are stored as primitive doubles.
+     * 
+     * @param key the key
+     * @param start the start
+     * @param stop the stop
+     * @return ScoredValues&lt;V&gt; array-reply elements in the specified range.
+     */
+    ScoredValues<V> zrangeWithScoresArray(K key, long start, long stop);
+
+    /**
+     * Return a range of members with scores in a sorted set, by score. Scores are stored as primitive doubles.
+     * 
+     * @param key the key
+     * @param min the min
+     * @param max the max
+     * @return ScoredValues&lt;V&gt; array-reply elements in the specified score range.
+     */
+    ScoredValues<V> zrangebyscoreWithScoresArray(K key, double min, double max);
+
+    /**
+     * Return a range of members with scores in a sorted set, by index, with scores ordered from high to low. Scores are
+     * stored as primitive doubles.
+     * 
+     * @param key the key
+     * @param start the start
+     * @param stop the stop
+     * @return ScoredValues&lt;V&gt; array-reply elements in the specified range.
+     */
+    ScoredValues<V> zrevrangeWithScoresArray(K key, long start, long stop);
+
+    /**
+     * Return a range of members with scores in a sorted set, by score, with scores ordered from high to low. Scores are
+     * stored as primitive doubles.
+     * 
+     * @param key the key
+     * @param max the max
+     * @param min the min
+     * @return ScoredValues&lt;V&gt; array-reply elements in the specified score range.
+     */
+    ScoredValues<V> zrevrangebyscoreWithScoresArray(K key, double max, double min);
 }
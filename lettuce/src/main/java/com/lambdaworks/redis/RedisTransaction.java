@@ -0,0 +1,196 @@
+package com.lambdaworks.redis;
+
+import static com.google.common.base.Preconditions.*;
+import static com.lambdaworks.redis.protocol.CommandType.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import com.lambdaworks.redis.codec.RedisCodec;
+import com.lambdaworks.redis.output.MultiOutput;
+import com.lambdaworks.redis.output.StatusOutput;
+import com.lambdaworks.redis.protocol.Command;
+import com.lambdaworks.redis.protocol.CommandBatch;
+import com.lambdaworks.redis.protocol.CommandOutput;
+import com.lambdaworks.redis.protocol.RedisCommand;
+
+/**
+ * A transaction that is built client-side and written with a single flush. Commands issued on the transaction are recorded
+ * and return futures that complete with the result of the command within {@code EXEC}. {@link #exec()} writes
+ * {@code MULTI}, the recorded commands and {@code EXEC} as one {@link CommandBatch}, so the transaction takes one round trip
+ * and commands of other threads sharing the connection cannot interleave.
+ *
+ * Keys are watched on the connection before building the transaction: {@code WATCH}, {@code UNWATCH} and {@code MULTI} are
+ * not supported on the transaction. A transaction can be executed or discarded once.
+ *
+ * @param <K> Key type.
+ * @param <V> Value type.
+ * @author <a href="mailto:mpaluch@paluch.biz">Mark Paluch</a>
+ * @since 3.0
+ */
+public class RedisTransaction<K, V> extends RedisAsyncConnectionImpl<K, V> {
+
+    private static final String EXECABORT = "EXECABORT";
+
+    private final RedisAsyncConnectionImpl<K, V> connection;
+    private final TransactionWriter<K, V> writer;
+
+    /**
+     *
+     * @param connection the connection to execute the transaction, must not be {@literal null}
+     */
+    public RedisTransaction(RedisAsyncConnectionImpl<K, V> connection) {
+        super(new TransactionWriter<K, V>(), checkNotNull(connection, "Connection must not be null").codec,
+                connection.timeout, connection.unit);
+        this.connection = connection;
+        this.writer = (TransactionWriter<K, V>) getChannelWriter();
+        this.multi = new TransactionOutput<K, V>(codec);
+    }
+
+    /**
+     * Execute the recorded commands within {@code MULTI}/{@code EXEC}. The transaction is written with a single flush.
+     *
+     * @return RedisFuture&lt;List&lt;Object&gt;&gt; array-reply each element being the reply to each of the commands in the
+     *         transaction.
+     */
+    @Override
+    public synchronized RedisFuture<List<Object>> exec() {
+
+        checkState(!connection.isMulti(), "Connection is in MULTI state");
+        final List<RedisCommand<K, V, ?>> commands = writer.finish();
+
+        List<RedisCommand<K, V, ?>> batch = new ArrayList<RedisCommand<K, V, ?>>(commands.size() + 2);
+        batch.add(commandBuilder.multi());
+        batch.addAll(commands);
+
+        final Command<K, V, List<Object>> exec = new Command<K, V, List<Object>>(EXEC, multi, null);
+        batch.add(exec);
+
+        exec.addListener(new Runnable() {
+            @Override
+            public void run() {
+                completeAll(commands, exec.getOutput() != null ? exec.getOutput().getError() : null);
+            }
+        }, MoreExecutors.sameThreadExecutor());
+
+        connection.dispatch(new CommandBatch<K, V, List<Object>>(batch));
+        return exec;
+    }
+
+    /**
+     * Discard the recorded commands. The commands complete with an error, nothing is sent to the server.
+     *
+     * @return RedisFuture&lt;String&gt; always <code>OK</code>.
+     */
+    @Override
+    public synchronized RedisFuture<String> discard() {
+
+        completeAll(writer.finish(), "Transaction discarded");
+
+        StatusOutput<K, V> output = new StatusOutput<K, V>(codec);
+        output.set(ByteBuffer.wrap("OK".getBytes()));
+        Command<K, V, String> cmd = new Command<K, V, String>(DISCARD, output, null);
+        cmd.complete();
+        return cmd;
+    }
+
+    @Override
+    public RedisTransaction<K, V> transaction() {
+        throw new RedisException("Transactions cannot be nested");
+    }
+
+    @Override
+    public RedisFuture<String> multi() {
+        throw new RedisException("MULTI is issued by exec()");
+    }
+
+    @Override
+    public RedisFuture<String> watch(K... keys) {
+        throw new RedisException("WATCH must be issued on the connection before building the transaction");
+    }
+
+    @Override
+    public RedisFuture<String> unwatch() {
+        throw new RedisException("UNWATCH must be issued on the connection");
+    }
+
+    /**
+     *
+     * @return the number of recorded commands.
+     */
+    public int size() {
+        return writer.commands.size();
+    }
+
+    /**
+     * Complete commands that did not receive a response within {@code EXEC}.
+     */
+    private static <K, V> void completeAll(List<RedisCommand<K, V, ?>> commands, String error) {
+        for (RedisCommand<K, V, ?> command : commands) {
+            CommandOutput<K, V, ?> output = command.getOutput();
+            if (error != null && output != null && !output.hasError() && !command.isDone()) {
+                output.setError(error);
+            }
+            while (!command.isDone()) {
+                command.complete();
+            }
+        }
+    }
+
+    /**
+     * Records the commands of the transaction.
+     */
+    private static class TransactionWriter<K, V> implements RedisChannelWriter<K, V> {
+
+        private final List<RedisCommand<K, V, ?>> commands = new ArrayList<RedisCommand<K, V, ?>>();
+        private boolean finished;
+
+        @Override
+        public synchronized <T> RedisCommand<K, V, T> write(RedisCommand<K, V, T> command) {
+            if (finished) {
+                throw new RedisException("Transaction was already executed or discarded");
+            }
+            commands.add(command);
+            return command;
+        }
+
+        synchronized List<RedisCommand<K, V, ?>> finish() {
+            if (finished) {
+                throw new RedisException("Transaction was already executed or discarded");
+            }
+            finished = true;
+            return commands;
+        }
+
+        @Override
+        public synchronized void close() {
+            finished = true;
+        }
+
+        @Override
+        public void setRedisChannelHandler(RedisChannelHandler<K, V> redisChannelHandler) {
+        }
+    }
+
+    /**
+     * Reports {@code EXECABORT} on {@code EXEC} instead of on the first queued command.
+     */
+    private static class TransactionOutput<K, V> extends MultiOutput<K, V> {
+
+        public TransactionOutput(RedisCodec<K, V> codec) {
+            super(codec);
+        }
+
+        @Override
+        public void setError(ByteBuffer error) {
+            String message = decodeAscii(error);
+            if (message.startsWith(EXECABORT)) {
+                setError(message);
+            } else {
+                super.setError(error);
+            }
+        }
+    }
+}
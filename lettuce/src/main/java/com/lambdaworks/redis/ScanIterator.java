@@ -0,0 +1,363 @@
+package com.lambdaworks.redis;
+
+import static com.google.common.base.Preconditions.*;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * Lazy iterator over the results of {@code SCAN}, {@code HSCAN}, {@code SSCAN} and {@code ZSCAN}. The iterator feeds the
+ * cursor of each page back into the next scan call. The next page is requested asynchronously as soon as the previous page
+ * arrives, so consuming a page overlaps with the round trip for the following pages. The prefetch depth limits the number of
+ * pages that are buffered ahead of the consumer; the page size is controlled by {@link ScanArgs#limit(long) COUNT}.
+ *
+ * Iterators are not thread-safe and do not support {@link #remove()}. Elements may be returned more than once, see the
+ * guarantees of the scan commands. A failed or timed out page ends the iteration: every later call to {@link #hasNext()} or
+ * {@link #next()} rethrows its error.
+ *
+ * @param <T> Element type.
+ * @author <a href="mailto:mpaluch@paluch.biz">Mark Paluch</a>
+ * @since 3.0
+ */
+public abstract class ScanIterator<T> implements Iterator<T> {
+
+    /**
+     * Default number of pages requested ahead of the consumer.
+     */
+    public static final int DEFAULT_PREFETCH = 1;
+
+    private static final long DEFAULT_TIMEOUT = 60;
+
+    private final ScanArgs scanArgs;
+    private final int prefetch;
+    private final long timeout;
+    private final TimeUnit unit;
+
+    private final Queue<RedisFuture<? extends ScanCursor>> pages = new LinkedList<RedisFuture<? extends ScanCursor>>();
+    private RedisFuture<? extends ScanCursor> tail;
+    private Iterator<T> current = Collections.<T> emptyList().iterator();
+    private RedisException error;
+
+    /**
+     *
+     * @param connection the connection, used to determine the timeout.
+     * @param scanArgs scan arguments, may be {@literal null}
+     * @param prefetch number of pages to request ahead of the consumer, must be greater than zero
+     */
+    protected ScanIterator(Object connection, ScanArgs scanArgs, int prefetch) {
+        checkArgument(connection != null, "Connection must not be null");
+        checkArgument(prefetch > 0, "Prefetch must be greater than 0");
+
+        this.scanArgs = scanArgs;
+        this.prefetch = prefetch;
+
+        if (connection instanceof RedisChannelHandler) {
+            this.timeout = ((RedisChannelHandler<?, ?>) connection).timeout;
+            this.unit = ((RedisChannelHandler<?, ?>) connection).unit;
+        } else {
+            this.timeout = DEFAULT_TIMEOUT;
+            this.unit = TimeUnit.SECONDS;
+        }
+    }
+
+    /**
+     * Iterate over the keys of the database using {@code SCAN}.
+     *
+     * @param connection the connection
+     * @param <K> Key type.
+     * @return a lazy iterator over the keys.
+     */
+    public static <K> ScanIterator<K> scan(RedisKeysAsyncConnection<K, ?> connection) {
+        return scan(connection, null, DEFAULT_PREFETCH);
+    }
+
+    /**
+     * Iterate over the keys of the database using {@code SCAN}.
+     *
+     * @param connection the connection
+     * @param scanArgs scan arguments, may be {@literal null}
+     * @param prefetch number of pages to request ahead of the consumer
+     * @param <K> Key type.
+     * @return a lazy iterator over the keys.
+     */
+    public static <K> ScanIterator<K> scan(final RedisKeysAsyncConnection<K, ?> connection, ScanArgs scanArgs, int prefetch) {
+        return new ScanIterator<K>(connection, scanArgs, prefetch) {
+            @Override
+            protected RedisFuture<? extends ScanCursor> nextPage(ScanCursor cursor, ScanArgs scanArgs) {
+                return connection.scan(cursor, scanArgs);
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            protected Collection<K> elements(ScanCursor cursor) {
+                return ((KeyScanCursor<K>) cursor).getKeys();
+            }
+        }.start();
+    }
+
+    /**
+     * Iterate over the entries of a hash using {@code HSCAN}.
+     *
+     * @param connection the connection
+     * @param key the key
+     * @param <K> Key type.
+     * @param <V> Value type.
+     * @return a lazy iterator over the hash entries.
+     */
+    public static <K, V> ScanIterator<KeyValue<K, V>> hscan(RedisHashesAsyncConnection<K, V> connection, K key) {
+        return hscan(connection, key, null, DEFAULT_PREFETCH);
+    }
+
+    /**
+     * Iterate over the entries of a hash using {@code HSCAN}.
+     *
+     * @param connection the connection
+     * @param key the key
+     * @param scanArgs scan arguments, may be {@literal null}
+     * @param prefetch number of pages to request ahead of the consumer
+     * @param <K> Key type.
+     * @param <V> Value type.
+     * @return a lazy iterator over the hash entries.
+     */
+    public static <K, V> ScanIterator<KeyValue<K, V>> hscan(final RedisHashesAsyncConnection<K, V> connection, final K key,
+            ScanArgs scanArgs, int prefetch) {
+        checkArgument(key != null, "Key must not be null");
+        return new ScanIterator<KeyValue<K, V>>(connection, scanArgs, prefetch) {
+            @Override
+            protected RedisFuture<? extends ScanCursor> nextPage(ScanCursor cursor, ScanArgs scanArgs) {
+                return connection.hscan(key, cursor, scanArgs);
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            protected Collection<KeyValue<K, V>> elements(ScanCursor cursor) {
+                Map<K, V> map = ((MapScanCursor<K, V>) cursor).getMap();
+                List<KeyValue<K, V>> entries = new LinkedList<KeyValue<K, V>>();
+                for (Map.Entry<K, V> entry : map.entrySet()) {
+                    entries.add(new KeyValue<K, V>(entry.getKey(), entry.getValue()));
+                }
+                return entries;
+            }
+        }.start();
+    }
+
+    /**
+     * Iterate over the members of a set using {@code SSCAN}.
+     *
+     * @param connection the connection
+     * @param key the key
+     * @param <K> Key type.
+     * @param <V> Value type.
+     * @return a lazy iterator over the set members.
+     */
+    public static <K, V> ScanIterator<V> sscan(RedisSetsAsyncConnection<K, V> connection, K key) {
+        return sscan(connection, key, null, DEFAULT_PREFETCH);
+    }
+
+    /**
+     * Iterate over the members of a set using {@code SSCAN}.
+     *
+     * @param connection the connection
+     * @param key the key
+     * @param scanArgs scan arguments, may be {@literal null}
+     * @param prefetch number of pages to request ahead of the consumer
+     * @param <K> Key type.
+     * @param <V> Value type.
+     * @return a lazy iterator over the set members.
+     */
+    public static <K, V> ScanIterator<V> sscan(final RedisSetsAsyncConnection<K, V> connection, final K key,
+            ScanArgs scanArgs, int prefetch) {
+        checkArgument(key != null, "Key must not be null");
+        return new ScanIterator<V>(connection, scanArgs, prefetch) {
+            @Override
+            protected RedisFuture<? extends ScanCursor> nextPage(ScanCursor cursor, ScanArgs scanArgs) {
+                return connection.sscan(key, cursor, scanArgs);
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            protected Collection<V> elements(ScanCursor cursor) {
+                return ((ValueScanCursor<V>) cursor).getValues();
+            }
+        }.start();
+    }
+
+    /**
+     * Iterate over the members of a sorted set using {@code ZSCAN}.
+     *
+     * @param connection the connection
+     * @param key the key
+     * @param <K> Key type.
+     * @param <V> Value type.
+     * @return a lazy iterator over the scored values.
+     */
+    public static <K, V> ScanIterator<ScoredValue<V>> zscan(RedisSortedSetsAsyncConnection<K, V> connection, K key) {
+        return zscan(connection, key, null, DEFAULT_PREFETCH);
+    }
+
+    /**
+     * Iterate over the members of a sorted set using {@code ZSCAN}.
+     *
+     * @param connection the connection
+     * @param key the key
+     * @param scanArgs scan arguments, may be {@literal null}
+     * @param prefetch number of pages to request ahead of the consumer
+     * @param <K> Key type.
+     * @param <V> Value type.
+     * @return a lazy iterator over the scored values.
+     */
+    public static <K, V> ScanIterator<ScoredValue<V>> zscan(final RedisSortedSetsAsyncConnection<K, V> connection,
+            final K key, ScanArgs scanArgs, int prefetch) {
+        checkArgument(key != null, "Key must not be null");
+        return new ScanIterator<ScoredValue<V>>(connection, scanArgs, prefetch) {
+            @Override
+            protected RedisFuture<? extends ScanCursor> nextPage(ScanCursor cursor, ScanArgs scanArgs) {
+                return connection.zscan(key, cursor, scanArgs);
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            protected Collection<ScoredValue<V>> elements(ScanCursor cursor) {
+                return ((ScoredValueScanCursor<V>) cursor).getValues();
+            }
+        }.start();
+    }
+
+    /**
+     * Issue the scan command for the next page.
+     *
+     * @param cursor the cursor of the previous page, {@literal null} for the first page
+     * @param scanArgs scan arguments, may be {@literal null}
+     * @return the future of the page.
+     */
+    protected abstract RedisFuture<? extends ScanCursor> nextPage(ScanCursor cursor, ScanArgs scanArgs);
+
+    /**
+     *
+     * @param cursor the page
+     * @return the elements of the page.
+     */
+    protected abstract Collection<T> elements(ScanCursor cursor);
+
+    @Override
+    public boolean hasNext() {
+
+        while (!current.hasNext()) {
+
+            if (error != null) {
+                throw error;
+            }
+
+            RedisFuture<? extends ScanCursor> page;
+            synchronized (this) {
+                page = pages.peek();
+            }
+
+            if (page == null) {
+                return false;
+            }
+
+            // the page stays queued until it completed, an interrupted caller may retry.
+            ScanCursor cursor;
+            try {
+                cursor = await(page);
+            } catch (RedisCommandInterruptedException e) {
+                throw e;
+            } catch (RedisException e) {
+                error = e;
+                throw e;
+            }
+
+            synchronized (this) {
+                pages.poll();
+            }
+            current = elements(cursor).iterator();
+            requestPages();
+        }
+
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    ScanIterator<T> start() {
+        synchronized (this) {
+            request(null);
+        }
+        return this;
+    }
+
+    /**
+     * Request the next page if the last page arrived, the scan is not finished and less than {@code prefetch} pages are
+     * buffered.
+     */
+    private synchronized void requestPages() {
+
+        if (pages.size() >= prefetch || !tail.isDone() || tail.isCancelled() || tail.getError() != null) {
+            return;
+        }
+
+        ScanCursor cursor;
+        try {
+            cursor = tail.get();
+        } catch (Exception e) {
+            return;
+        }
+
+        if (cursor != null && !cursor.isFinished()) {
+            request(cursor);
+        }
+    }
+
+    private void request(ScanCursor cursor) {
+
+        tail = nextPage(cursor, scanArgs);
+        pages.add(tail);
+        tail.addListener(new Runnable() {
+            @Override
+            public void run() {
+                requestPages();
+            }
+        }, MoreExecutors.sameThreadExecutor());
+    }
+
+    private ScanCursor await(RedisFuture<? extends ScanCursor> page) {
+
+        try {
+            ScanCursor cursor = page.get(timeout, unit);
+            if (page.getError() != null) {
+                throw new RedisException(page.getError());
+            }
+            return cursor;
+        } catch (TimeoutException e) {
+            page.cancel(true);
+            throw new RedisException("Command timed out");
+        } catch (ExecutionException e) {
+            throw new RedisException(e.getCause());
+        } catch (InterruptedException e) {
+            throw new RedisCommandInterruptedException(e);
+        }
+    }
+}
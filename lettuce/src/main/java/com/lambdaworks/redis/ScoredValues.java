@@ -0,0 +1,98 @@
+package com.lambdaworks.redis;
+
+import static com.google.common.base.Preconditions.*;
+
+import java.util.Arrays;
+
+/**
+ * Values and their associated scores from a ZSET, stored in arrays. Scores are kept as primitive doubles, so no object is
+ * allocated per score.
+ * 
+ * @param <V> Value type.
+ * @author <a href="mailto:mpaluch@paluch.biz">Mark Paluch</a>
+ * @since 3.0
+ */
+public class ScoredValues<V> {
+
+    private Object[] values;
+    private double[] scores;
+    private int size;
+
+    /**
+     * 
+     * @param capacity initial capacity
+     */
+    public ScoredValues(int capacity) {
+        checkArgument(capacity >= 0, "Capacity must be greater or equal 0");
+        this.values = new Object[capacity];
+        this.scores = new double[capacity];
+    }
+
+    /**
+     * Add a value and its score.
+     * 
+     * @param score the score
+     * @param value the value
+     */
+    public void add(double score, V value) {
+        if (size == scores.length) {
+            int capacity = Math.max(8, size * 2);
+            values = Arrays.copyOf(values, capacity);
+            scores = Arrays.copyOf(scores, capacity);
+        }
+        values[size] = value;
+        scores[size] = score;
+        size++;
+    }
+
+    /**
+     * 
+     * @return the number of values.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 
+     * @param index the index
+     * @return the value at {@code index}.
+     */
+    @SuppressWarnings("unchecked")
+    public V getValue(int index) {
+        checkElementIndex(index, size);
+        return (V) values[index];
+    }
+
+    /**
+     * 
+     * @param index the index
+     * @return the score at {@code index}.
+     */
+    public double getScore(int index) {
+        checkElementIndex(index, size);
+        return scores[index];
+    }
+
+    /**
+     * 
+     * @return a copy of the scores.
+     */
+    public double[] getScores() {
+        return Arrays.copyOf(scores, size);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(getClass().getSimpleName()).append(" [");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append('(').append(scores[i]).append(", ").append(values[i]).append(')');
+        }
+        sb.append(']');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,193 @@
+package com.lambdaworks.redis;
+
+import static com.google.common.base.Preconditions.*;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * Executes Lua scripts using {@code EVALSHA}. The SHA1 digest of a script is computed once and cached. If the server does not
+ * know the script ({@code NOSCRIPT}), the script is executed using {@code EVAL}, which also loads the script into the script
+ * cache of the server. Subsequent executions send only the digest.
+ *
+ * The executor works with cluster connections: {@code EVALSHA} and the {@code EVAL} fallback are routed by the same keys, so
+ * the script is loaded on each node that executes it.
+ *
+ * @param <K> Key type.
+ * @param <V> Value type.
+ * @author <a href="mailto:mpaluch@paluch.biz">Mark Paluch</a>
+ * @since 3.0
+ */
+public class ScriptExecutor<K, V> {
+
+    private static final String NOSCRIPT = "NOSCRIPT";
+
+    private final RedisScriptingAsyncConnection<K, V> connection;
+    private final ConcurrentMap<String, String> digests = new ConcurrentHashMap<String, String>();
+
+    /**
+     *
+     * @param connection the connection to execute scripts, must not be {@literal null}
+     */
+    public ScriptExecutor(RedisScriptingAsyncConnection<K, V> connection) {
+        checkNotNull(connection, "Connection must not be null");
+        this.connection = connection;
+    }
+
+    /**
+     * Execute a Lua script.
+     *
+     * @param script Lua 5.1 script.
+     * @param type output type
+     * @param keys the keys
+     * @param <T> expected return type
+     * @return script result
+     */
+    public <T> RedisFuture<T> execute(String script, ScriptOutputType type, K... keys) {
+        return executeScript(script, type, keys, null);
+    }
+
+    /**
+     * Execute a Lua script.
+     *
+     * @param script Lua 5.1 script.
+     * @param type the type
+     * @param keys the keys
+     * @param values the values
+     * @param <T> expected return type
+     * @return script result
+     */
+    public <T> RedisFuture<T> execute(String script, ScriptOutputType type, K[] keys, V... values) {
+        return executeScript(script, type, keys, values);
+    }
+
+    private <T> RedisFuture<T> executeScript(final String script, final ScriptOutputType type, final K[] keys,
+            final V[] values) {
+
+        checkArgument(script != null, "Script must not be null");
+
+        final RedisFuture<T> evalsha = values == null ? connection.<T> evalsha(getDigest(script), type, keys) : connection
+                .<T> evalsha(getDigest(script), type, keys, values);
+        final ScriptFuture<T> result = new ScriptFuture<T>(evalsha);
+
+        evalsha.addListener(new Runnable() {
+            @Override
+            public void run() {
+                String error = evalsha.getError();
+                if (error != null && error.startsWith(NOSCRIPT) && !evalsha.isCancelled()) {
+                    RedisFuture<T> eval = values == null ? connection.<T> eval(script, type, keys) : connection.<T> eval(
+                            script, type, keys, values);
+                    result.completeWith(eval);
+                } else {
+                    result.completeWith(evalsha);
+                }
+            }
+        }, MoreExecutors.sameThreadExecutor());
+
+        return result;
+    }
+
+    /**
+     * Retrieve the SHA1 digest of a script. The digest is computed once per script.
+     *
+     * @param script Lua 5.1 script.
+     * @return the hex encoded SHA1 digest.
+     */
+    public String getDigest(String script) {
+
+        String digest = digests.get(script);
+        if (digest == null) {
+            digest = digest(script);
+            digests.putIfAbsent(script, digest);
+        }
+        return digest;
+    }
+
+    /**
+     *
+     * @return the number of cached digests.
+     */
+    public int size() {
+        return digests.size();
+    }
+
+    /**
+     * Compute the SHA1 digest of the script as it is sent to the server. Script arguments are encoded one byte per char, see
+     * {@link com.lambdaworks.redis.protocol.CommandArgs#add(String)}.
+     */
+    static String digest(String script) {
+        byte[] bytes = new byte[script.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) script.charAt(i);
+        }
+        return LettuceStrings.digest(bytes);
+    }
+
+    /**
+     * Future of a script execution. Completes with the result of {@code EVALSHA} or of the {@code EVAL} fallback.
+     */
+    private static class ScriptFuture<T> extends AbstractFuture<T> implements RedisFuture<T> {
+
+        private volatile RedisFuture<T> current;
+
+        ScriptFuture(RedisFuture<T> current) {
+            this.current = current;
+        }
+
+        void completeWith(final RedisFuture<T> future) {
+
+            current = future;
+            future.addListener(new Runnable() {
+                @Override
+                public void run() {
+                    if (future.isCancelled()) {
+                        cancel(false);
+                        return;
+                    }
+
+                    try {
+                        set(future.get());
+                    } catch (ExecutionException e) {
+                        setException(e.getCause());
+                    } catch (Exception e) {
+                        setException(e);
+                    }
+                }
+            }, MoreExecutors.sameThreadExecutor());
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            current.cancel(mayInterruptIfRunning);
+            return super.cancel(mayInterruptIfRunning);
+        }
+
+        @Override
+        public String getError() {
+            return isDone() ? current.getError() : null;
+        }
+
+        @Override
+        public boolean await(long timeout, TimeUnit unit) {
+            try {
+                get(timeout, unit);
+                return true;
+            } catch (TimeoutException e) {
+                return false;
+            } catch (ExecutionException e) {
+                return true;
+            } catch (InterruptedException e) {
+                throw new RedisCommandInterruptedException(e);
+            } catch (CancellationException e) {
+                return true;
+            }
+        }
+    }
+}
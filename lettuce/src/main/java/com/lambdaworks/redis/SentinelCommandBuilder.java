@@ -41,6 +41,11 @@ class SentinelCommandBuilder<K, V> extends BaseRedisCommandBuilder<K, V> {
         return createCommand(SENTINEL, new MapOutput<K, V>(codec), args);
     }
 
+    public Command<K, V, List<Map<K, V>>> slaveList(K key) {
+        CommandArgs<K, V> args = new CommandArgs<K, V>(codec).add(SLAVES).addKey(key);
+        return createCommand(SENTINEL, new ListOfMapsOutput<K, V>(codec), args);
+    }
+
     public Command<K, V, Long> reset(K key) {
         CommandArgs<K, V> args = new CommandArgs<K, V>(codec).add(RESET).addKey(key);
         return createCommand(SENTINEL, new IntegerOutput<K, V>(codec), args);
@@ -0,0 +1,200 @@
+package com.lambdaworks.redis;
+
+import java.io.Closeable;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.google.common.base.Supplier;
+import com.lambdaworks.redis.pubsub.RedisPubSubAdapter;
+import com.lambdaworks.redis.pubsub.RedisPubSubConnection;
+
+import io.netty.channel.Channel;
+import io.netty.util.internal.ConcurrentSet;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+/**
+ * Tracks the master of a sentinel-managed redis setup. The provider subscribes to {@code +switch-master} on the sentinels and
+ * caches the current master address, so (re)connects do not need to query a sentinel. On a failover, all registered
+ * connections that are connected to another address are disconnected and reconnect to the new master.
+ *
+ * Listeners registered with {@link #addTopologyListener(Runnable)} are notified on master switches and when a slave of the
+ * master is added, goes down or comes back ({@code +slave}, {@code +sdown}, {@code -sdown}).
+ *
+ * The cached address is only trusted while at least one sentinel subscription is connected, otherwise the master is looked
+ * up again because {@code +switch-master} messages may have been missed.
+ *
+ * @author <a href="mailto:mpaluch@paluch.biz">Mark Paluch</a>
+ * @since 3.0
+ */
+class SentinelTopologyProvider extends RedisPubSubAdapter<String, String> implements Closeable {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(SentinelTopologyProvider.class);
+
+    static final String SWITCH_MASTER = "+switch-master";
+    static final String SLAVE = "+slave";
+    static final String SDOWN = "+sdown";
+    static final String SDOWN_END = "-sdown";
+
+    private final String masterId;
+    private final Supplier<SocketAddress> masterLookup;
+    private final List<RedisPubSubConnection<String, String>> sentinelConnections = new CopyOnWriteArrayList<RedisPubSubConnection<String, String>>();
+    private final Set<RedisChannelHandler<?, ?>> connections = new ConcurrentSet<RedisChannelHandler<?, ?>>();
+    private final List<Runnable> topologyListeners = new CopyOnWriteArrayList<Runnable>();
+    private volatile SocketAddress master;
+
+    /**
+     *
+     * @param masterId the sentinel master id.
+     * @param masterLookup looks up the master address using a sentinel.
+     */
+    SentinelTopologyProvider(String masterId, Supplier<SocketAddress> masterLookup) {
+        this.masterId = masterId;
+        this.masterLookup = masterLookup;
+    }
+
+    /**
+     * Subscribe to master changes on a sentinel. The connection is closed when the provider is closed.
+     *
+     * @param sentinelConnection pub/sub connection to a sentinel.
+     */
+    void subscribe(RedisPubSubConnection<String, String> sentinelConnection) {
+        sentinelConnections.add(sentinelConnection);
+        sentinelConnection.addListener(this);
+        sentinelConnection.subscribe(SWITCH_MASTER, SLAVE, SDOWN, SDOWN_END);
+    }
+
+    /**
+     * Add a listener that is notified when the master or its slaves change. Listeners are called on the I/O thread and must
+     * not block.
+     *
+     * @param listener the listener.
+     */
+    void addTopologyListener(Runnable listener) {
+        topologyListeners.add(listener);
+    }
+
+    /**
+     * Remove a topology listener.
+     *
+     * @param listener the listener.
+     */
+    void removeTopologyListener(Runnable listener) {
+        topologyListeners.remove(listener);
+    }
+
+    /**
+     * Register a connection to the master. The connection is disconnected on a failover and unregistered once it is closed.
+     *
+     * @param connection the connection.
+     */
+    void register(final RedisChannelHandler<?, ?> connection) {
+        connections.add(connection);
+        connection.addListener(new CloseEvents.CloseListener() {
+            @Override
+            public void resourceClosed(Object resource) {
+                connections.remove(connection);
+            }
+        });
+    }
+
+    /**
+     *
+     * @return the current master address.
+     */
+    SocketAddress getMaster() {
+
+        SocketAddress master = this.master;
+        if (master == null || !isSubscribed()) {
+            master = masterLookup.get();
+            this.master = master;
+        }
+
+        return master;
+    }
+
+    @Override
+    public void message(String channel, String message) {
+
+        if (message == null) {
+            return;
+        }
+
+        if (SLAVE.equals(channel) || SDOWN.equals(channel) || SDOWN_END.equals(channel)) {
+            // slave <name> <ip> <port> @ <master name> <master ip> <master port>
+            String[] parts = message.split(" ");
+            if (parts.length == 8 && "slave".equals(parts[0]) && masterId.equals(parts[5])) {
+                logger.debug("Slave event " + channel + " " + message);
+                notifyTopologyListeners();
+            }
+            return;
+        }
+
+        if (!SWITCH_MASTER.equals(channel)) {
+            return;
+        }
+
+        // <master name> <old ip> <old port> <new ip> <new port>
+        String[] parts = message.split(" ");
+        if (parts.length != 5 || !masterId.equals(parts[0])) {
+            return;
+        }
+
+        SocketAddress newMaster;
+        try {
+            newMaster = new InetSocketAddress(parts[3], Integer.parseInt(parts[4]));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Cannot parse " + SWITCH_MASTER + " message: " + message);
+            return;
+        }
+
+        if (newMaster.equals(master)) {
+            return;
+        }
+
+        logger.info("Master " + masterId + " switched from " + master + " to " + newMaster);
+        master = newMaster;
+
+        for (RedisChannelHandler<?, ?> connection : connections) {
+            Channel nettyChannel = connection.getChannel();
+            if (nettyChannel != null && nettyChannel.isActive() && !newMaster.equals(nettyChannel.remoteAddress())) {
+                logger.debug("Reconnecting " + nettyChannel + " to " + newMaster);
+                nettyChannel.close();
+            }
+        }
+
+        notifyTopologyListeners();
+    }
+
+    private void notifyTopologyListeners() {
+        for (Runnable listener : topologyListeners) {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                logger.warn("Topology listener failed: " + e.toString(), e);
+            }
+        }
+    }
+
+    private boolean isSubscribed() {
+        for (RedisPubSubConnection<String, String> sentinelConnection : sentinelConnections) {
+            if (sentinelConnection.isOpen()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void close() {
+        for (RedisPubSubConnection<String, String> sentinelConnection : sentinelConnections) {
+            sentinelConnection.close();
+        }
+        sentinelConnections.clear();
+        connections.clear();
+        topologyListeners.clear();
+    }
+}
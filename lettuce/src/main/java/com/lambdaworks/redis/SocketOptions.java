@@ -0,0 +1,376 @@
+package com.lambdaworks.redis;
+
+import static com.google.common.base.Preconditions.*;
+
+import java.io.Serializable;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.AdaptiveRecvByteBufAllocator;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.FixedRecvByteBufAllocator;
+
+/**
+ * Socket and channel options for Redis connections. The options are applied to standalone, cluster and sentinel connections.
+ * Instances are immutable, use the {@link SocketOptions.Builder} to create them. Buffer sizes and watermarks set to
+ * {@literal 0} keep the operating system respective netty defaults.
+ *
+ * @author <a href="mailto:mpaluch@paluch.biz">Mark Paluch</a>
+ * @since 3.0
+ */
+@SuppressWarnings("serial")
+public class SocketOptions implements Serializable {
+
+    /**
+     * Netty's default low write buffer watermark. Used to determine the order in which the watermarks are applied.
+     */
+    private static final int NETTY_DEFAULT_WRITE_BUFFER_LOW_WATER_MARK = 32 * 1024;
+
+    private final boolean tcpNoDelay;
+    private final boolean keepAlive;
+    private final int sendBufferSize;
+    private final int receiveBufferSize;
+    private final int writeBufferLowWaterMark;
+    private final int writeBufferHighWaterMark;
+    private final int receiveBufferAllocatorMinimum;
+    private final int receiveBufferAllocatorInitial;
+    private final int receiveBufferAllocatorMaximum;
+    private final BufferAllocator bufferAllocator;
+    private final boolean directBuffers;
+
+    private SocketOptions(Builder builder) {
+        this.tcpNoDelay = builder.tcpNoDelay;
+        this.keepAlive = builder.keepAlive;
+        this.sendBufferSize = builder.sendBufferSize;
+        this.receiveBufferSize = builder.receiveBufferSize;
+        this.writeBufferLowWaterMark = builder.writeBufferLowWaterMark;
+        this.writeBufferHighWaterMark = builder.writeBufferHighWaterMark;
+        this.receiveBufferAllocatorMinimum = builder.receiveBufferAllocatorMinimum;
+        this.receiveBufferAllocatorInitial = builder.receiveBufferAllocatorInitial;
+        this.receiveBufferAllocatorMaximum = builder.receiveBufferAllocatorMaximum;
+        this.bufferAllocator = builder.bufferAllocator;
+        this.directBuffers = builder.directBuffers;
+    }
+
+    /**
+     * Create a new {@link SocketOptions} instance with default settings.
+     *
+     * @return a new instance of {@link SocketOptions} with default settings.
+     */
+    public static SocketOptions create() {
+        return new Builder().build();
+    }
+
+    /**
+     * Disable Nagle's algorithm ({@code TCP_NODELAY}). Small pipelined commands are sent without delay. Defaults to
+     * {@literal true}.
+     *
+     * @return {@literal true} if {@code TCP_NODELAY} is enabled.
+     */
+    public boolean isTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    /**
+     * TCP keepalive ({@code SO_KEEPALIVE}) to detect dead peers on idle connections. Defaults to {@literal false}.
+     *
+     * @return {@literal true} if {@code SO_KEEPALIVE} is enabled.
+     */
+    public boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    /**
+     * Socket send buffer size ({@code SO_SNDBUF}) in bytes. Defaults to {@literal 0} (operating system default).
+     *
+     * @return the send buffer size.
+     */
+    public int getSendBufferSize() {
+        return sendBufferSize;
+    }
+
+    /**
+     * Socket receive buffer size ({@code SO_RCVBUF}) in bytes. Defaults to {@literal 0} (operating system default).
+     *
+     * @return the receive buffer size.
+     */
+    public int getReceiveBufferSize() {
+        return receiveBufferSize;
+    }
+
+    /**
+     * Low write buffer watermark in bytes. A channel becomes writable again once the outbound buffer drops below the low
+     * watermark. Defaults to {@literal 0} (netty default).
+     *
+     * @return the low write buffer watermark.
+     */
+    public int getWriteBufferLowWaterMark() {
+        return writeBufferLowWaterMark;
+    }
+
+    /**
+     * High write buffer watermark in bytes. A channel becomes unwritable once the outbound buffer exceeds the high watermark.
+     * Defaults to {@literal 0} (netty default).
+     *
+     * @return the high write buffer watermark.
+     */
+    public int getWriteBufferHighWaterMark() {
+        return writeBufferHighWaterMark;
+    }
+
+    /**
+     * Minimum size of the adaptive receive buffer in bytes. {@literal 0} if the netty default receive buffer allocator is
+     * used.
+     *
+     * @return the minimum receive buffer allocation size.
+     */
+    public int getReceiveBufferAllocatorMinimum() {
+        return receiveBufferAllocatorMinimum;
+    }
+
+    /**
+     * Initial size of the adaptive receive buffer in bytes. {@literal 0} if the netty default receive buffer allocator is
+     * used.
+     *
+     * @return the initial receive buffer allocation size.
+     */
+    public int getReceiveBufferAllocatorInitial() {
+        return receiveBufferAllocatorInitial;
+    }
+
+    /**
+     * Maximum size of the adaptive receive buffer in bytes. {@literal 0} if the netty default receive buffer allocator is
+     * used.
+     *
+     * @return the maximum receive buffer allocation size.
+     */
+    public int getReceiveBufferAllocatorMaximum() {
+        return receiveBufferAllocatorMaximum;
+    }
+
+    /**
+     * The {@link io.netty.buffer.ByteBufAllocator} for channel buffers. Defaults to {@link BufferAllocator#DEFAULT}.
+     *
+     * @return the buffer allocator.
+     */
+    public BufferAllocator getBufferAllocator() {
+        return bufferAllocator;
+    }
+
+    /**
+     * Use direct buffers to encode commands and to cumulate responses. Direct buffers are written to the socket without
+     * copying them into native memory first. Combine with {@link BufferAllocator#POOLED} to use pooled direct buffers end to
+     * end. Defaults to {@literal false} (heap buffers).
+     *
+     * @return {@literal true} if direct buffers are used.
+     */
+    public boolean isDirectBuffers() {
+        return directBuffers;
+    }
+
+    /**
+     * Apply the options to a {@link Bootstrap}.
+     *
+     * @param bootstrap the bootstrap
+     */
+    void apply(Bootstrap bootstrap) {
+
+        bootstrap.option(ChannelOption.TCP_NODELAY, tcpNoDelay);
+        bootstrap.option(ChannelOption.SO_KEEPALIVE, keepAlive);
+
+        if (sendBufferSize > 0) {
+            bootstrap.option(ChannelOption.SO_SNDBUF, sendBufferSize);
+        }
+
+        if (receiveBufferSize > 0) {
+            bootstrap.option(ChannelOption.SO_RCVBUF, receiveBufferSize);
+        }
+
+        // netty rejects a high watermark below the current low watermark, so lower the low watermark first if required.
+        if (writeBufferHighWaterMark > 0 && writeBufferHighWaterMark < NETTY_DEFAULT_WRITE_BUFFER_LOW_WATER_MARK) {
+            applyLowWaterMark(bootstrap);
+            applyHighWaterMark(bootstrap);
+        } else {
+            applyHighWaterMark(bootstrap);
+            applyLowWaterMark(bootstrap);
+        }
+
+        if (receiveBufferAllocatorInitial > 0) {
+            if (receiveBufferAllocatorMinimum == receiveBufferAllocatorMaximum) {
+                bootstrap.option(ChannelOption.RCVBUF_ALLOCATOR, new FixedRecvByteBufAllocator(receiveBufferAllocatorInitial));
+            } else {
+                bootstrap.option(ChannelOption.RCVBUF_ALLOCATOR, new AdaptiveRecvByteBufAllocator(
+                        receiveBufferAllocatorMinimum, receiveBufferAllocatorInitial, receiveBufferAllocatorMaximum));
+            }
+        }
+
+        if (bufferAllocator == BufferAllocator.POOLED) {
+            bootstrap.option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
+        } else if (bufferAllocator == BufferAllocator.UNPOOLED) {
+            bootstrap.option(ChannelOption.ALLOCATOR, UnpooledByteBufAllocator.DEFAULT);
+        }
+    }
+
+    private void applyLowWaterMark(Bootstrap bootstrap) {
+        if (writeBufferLowWaterMark > 0) {
+            bootstrap.option(ChannelOption.WRITE_BUFFER_LOW_WATER_MARK, writeBufferLowWaterMark);
+        }
+    }
+
+    private void applyHighWaterMark(Bootstrap bootstrap) {
+        if (writeBufferHighWaterMark > 0) {
+            bootstrap.option(ChannelOption.WRITE_BUFFER_HIGH_WATER_MARK, writeBufferHighWaterMark);
+        }
+    }
+
+    /**
+     * The {@link io.netty.buffer.ByteBufAllocator} used for channel buffers.
+     */
+    public static enum BufferAllocator {
+
+        /**
+         * Use netty's default allocator.
+         */
+        DEFAULT,
+
+        /**
+         * Use pooled buffers ({@link PooledByteBufAllocator}). Reduces allocation and GC pressure for high throughput.
+         */
+        POOLED,
+
+        /**
+         * Use unpooled buffers ({@link UnpooledByteBufAllocator}).
+         */
+        UNPOOLED;
+    }
+
+    /**
+     * Builder for {@link SocketOptions}.
+     */
+    public static class Builder {
+
+        private boolean tcpNoDelay = true;
+        private boolean keepAlive = false;
+        private int sendBufferSize = 0;
+        private int receiveBufferSize = 0;
+        private int writeBufferLowWaterMark = 0;
+        private int writeBufferHighWaterMark = 0;
+        private int receiveBufferAllocatorMinimum = 0;
+        private int receiveBufferAllocatorInitial = 0;
+        private int receiveBufferAllocatorMaximum = 0;
+        private BufferAllocator bufferAllocator = BufferAllocator.DEFAULT;
+        private boolean directBuffers = false;
+
+        /**
+         * Enables or disables {@code TCP_NODELAY}. See {@link SocketOptions#isTcpNoDelay()}.
+         *
+         * @param tcpNoDelay {@literal true} to disable Nagle's algorithm.
+         * @return the builder
+         */
+        public Builder withTcpNoDelay(boolean tcpNoDelay) {
+            this.tcpNoDelay = tcpNoDelay;
+            return this;
+        }
+
+        /**
+         * Enables or disables {@code SO_KEEPALIVE}. See {@link SocketOptions#isKeepAlive()}.
+         *
+         * @param keepAlive {@literal true} to enable TCP keepalive.
+         * @return the builder
+         */
+        public Builder withKeepAlive(boolean keepAlive) {
+            this.keepAlive = keepAlive;
+            return this;
+        }
+
+        /**
+         * Sets the socket send buffer size. See {@link SocketOptions#getSendBufferSize()}.
+         *
+         * @param sendBufferSize must be greater or equal 0
+         * @return the builder
+         */
+        public Builder withSendBufferSize(int sendBufferSize) {
+            checkArgument(sendBufferSize >= 0, "sendBufferSize must be greater or equal 0");
+            this.sendBufferSize = sendBufferSize;
+            return this;
+        }
+
+        /**
+         * Sets the socket receive buffer size. See {@link SocketOptions#getReceiveBufferSize()}.
+         *
+         * @param receiveBufferSize must be greater or equal 0
+         * @return the builder
+         */
+        public Builder withReceiveBufferSize(int receiveBufferSize) {
+            checkArgument(receiveBufferSize >= 0, "receiveBufferSize must be greater or equal 0");
+            this.receiveBufferSize = receiveBufferSize;
+            return this;
+        }
+
+        /**
+         * Sets the write buffer watermarks. See {@link SocketOptions#getWriteBufferLowWaterMark()} and
+         * {@link SocketOptions#getWriteBufferHighWaterMark()}.
+         *
+         * @param low must be greater 0
+         * @param high must be greater or equal {@code low}
+         * @return the builder
+         */
+        public Builder withWriteBufferWaterMarks(int low, int high) {
+            checkArgument(low > 0, "low must be greater 0");
+            checkArgument(high >= low, "high must be greater or equal low");
+            this.writeBufferLowWaterMark = low;
+            this.writeBufferHighWaterMark = high;
+            return this;
+        }
+
+        /**
+         * Use an adaptive receive buffer allocator that sizes read buffers between {@code minimum} and {@code maximum},
+         * starting with {@code initial}. Use the same value for all three to allocate read buffers of a fixed size.
+         *
+         * @param minimum must be greater 0
+         * @param initial must be between {@code minimum} and {@code maximum}
+         * @param maximum must be greater or equal {@code minimum}
+         * @return the builder
+         */
+        public Builder withReceiveBufferAllocator(int minimum, int initial, int maximum) {
+            checkArgument(minimum > 0, "minimum must be greater 0");
+            checkArgument(initial >= minimum && initial <= maximum, "initial must be between minimum and maximum");
+            this.receiveBufferAllocatorMinimum = minimum;
+            this.receiveBufferAllocatorInitial = initial;
+            this.receiveBufferAllocatorMaximum = maximum;
+            return this;
+        }
+
+        /**
+         * Sets the buffer allocator. See {@link SocketOptions#getBufferAllocator()}.
+         *
+         * @param bufferAllocator must not be {@literal null}
+         * @return the builder
+         */
+        public Builder withBufferAllocator(BufferAllocator bufferAllocator) {
+            checkNotNull(bufferAllocator, "BufferAllocator must not be null");
+            this.bufferAllocator = bufferAllocator;
+            return this;
+        }
+
+        /**
+         * Enables or disables direct buffers. See {@link SocketOptions#isDirectBuffers()}.
+         *
+         * @param directBuffers {@literal true} to use direct buffers.
+         * @return the builder
+         */
+        public Builder withDirectBuffers(boolean directBuffers) {
+            this.directBuffers = directBuffers;
+            return this;
+        }
+
+        /**
+         *
+         * @return a new instance of {@link SocketOptions}.
+         */
+        public SocketOptions build() {
+            return new SocketOptions(this);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.lambdaworks.redis;
+
+import java.lang.reflect.Method;
+
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+/**
+ * Selects the netty transport for client connections. The native epoll transport is used on Linux if
+ * {@code netty-transport-native-epoll} is on the class path, otherwise NIO. The epoll classes are loaded reflectively, so the
+ * native transport is an optional runtime dependency. Set the system property {@code lettuce.epoll} to {@literal false} to
+ * disable the native transport.
+ *
+ * @author <a href="mailto:mpaluch@paluch.biz">Mark Paluch</a>
+ * @since 3.0
+ */
+class Transports {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(Transports.class);
+
+    private static final String EPOLL_PACKAGE = "io.netty.channel.epoll.";
+
+    private static final boolean EPOLL_AVAILABLE;
+
+    static {
+        boolean available = false;
+
+        if (SystemPropertyUtil.getBoolean("lettuce.epoll", true)) {
+            try {
+                Class<?> epoll = Class.forName(EPOLL_PACKAGE + "Epoll");
+                Method isAvailable = epoll.getMethod("isAvailable");
+                available = (Boolean) isAvailable.invoke(null);
+            } catch (ClassNotFoundException e) {
+                // netty-transport-native-epoll is not on the class path.
+            } catch (Exception e) {
+                logger.debug("Cannot determine epoll availability: " + e.toString(), e);
+            } catch (LinkageError e) {
+                logger.debug("Cannot load the epoll transport: " + e.toString(), e);
+            }
+        }
+
+        EPOLL_AVAILABLE = available;
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Native epoll transport available: " + EPOLL_AVAILABLE);
+        }
+    }
+
+    private Transports() {
+
+    }
+
+    /**
+     *
+     * @return true if the native epoll transport is available and enabled.
+     */
+    public static boolean isEpollAvailable() {
+        return EPOLL_AVAILABLE;
+    }
+
+    /**
+     * Create an {@link EventLoopGroup} for the preferred transport.
+     *
+     * @param threads number of event loop threads.
+     * @return a new {@link EventLoopGroup}.
+     */
+    public static EventLoopGroup createEventLoopGroup(int threads) {
+
+        if (EPOLL_AVAILABLE) {
+            try {
+                return (EventLoopGroup) Class.forName(EPOLL_PACKAGE + "EpollEventLoopGroup").getConstructor(int.class)
+                        .newInstance(threads);
+            } catch (Exception e) {
+                logger.warn("Cannot create epoll event loop group, falling back to NIO: " + e.toString(), e);
+            }
+        }
+
+        return new NioEventLoopGroup(threads);
+    }
+
+    /**
+     * Select the {@link Channel} type that matches the event loop group.
+     *
+     * @param eventLoopGroup the event loop group of the client.
+     * @return the channel type.
+     */
+    public static Class<? extends Channel> channelClass(EventLoopGroup eventLoopGroup) {
+
+        if (eventLoopGroup.getClass().getName().startsWith(EPOLL_PACKAGE)) {
+            return loadChannelClass("EpollSocketChannel");
+        }
+
+        return NioSocketChannel.class;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Class<? extends Channel> loadChannelClass(String simpleName) {
+        try {
+            return (Class<? extends Channel>) Class.forName(EPOLL_PACKAGE + simpleName);
+        } catch (ClassNotFoundException e) {
+            throw new RedisException("Cannot load " + EPOLL_PACKAGE + simpleName, e);
+        }
+    }
+}
@@ -9,9 +9,11 @@ import java.util.concurrent.TimeoutException;
 
 import com.google.common.util.concurrent.AbstractFuture;
 import com.lambdaworks.redis.RedisChannelWriter;
+import com.lambdaworks.redis.metrics.MetricsCollector;
 import com.lambdaworks.redis.protocol.CommandArgs;
 import com.lambdaworks.redis.protocol.CommandKeyword;
 import com.lambdaworks.redis.protocol.CommandOutput;
+import com.lambdaworks.redis.protocol.CommandType;
 import com.lambdaworks.redis.protocol.RedisCommand;
 import io.netty.buffer.ByteBuf;
 
@@ -26,11 +28,18 @@ class ClusterCommand<K, V, T> extends AbstractFuture<T> implements RedisCommand<
     private int executions;
     private int executionLimit;
     private List<Throwable> exceptions = new ArrayList<Throwable>();
+    private MetricsCollector metricsCollector;
 
     ClusterCommand(RedisCommand<K, V, T> command, RedisChannelWriter<K, V> retry, int executionLimit) {
+        this(command, retry, executionLimit, null);
+    }
+
+    ClusterCommand(RedisCommand<K, V, T> command, RedisChannelWriter<K, V> retry, int executionLimit,
+            MetricsCollector metricsCollector) {
         this.command = command;
         this.retry = retry;
         this.executionLimit = executionLimit;
+        this.metricsCollector = metricsCollector;
     }
 
     @Override
@@ -42,6 +51,10 @@ class ClusterCommand<K, V, T> extends AbstractFuture<T> implements RedisCommand<
     public void complete() {
         executions++;
 
+        if (metricsCollector != null) {
+            recordRedirect();
+        }
+
         if (executions < executionLimit && isMoved()) {
             retry.write(this);
             return;
@@ -50,6 +63,14 @@ class ClusterCommand<K, V, T> extends AbstractFuture<T> implements RedisCommand<
         command.complete();
     }
 
+    private void recordRedirect() {
+        if (isMoved()) {
+            metricsCollector.recordRedirect(getType(), MetricsCollector.RedirectType.MOVED);
+        } else if (getError() != null && getError().startsWith(CommandKeyword.ASK.name())) {
+            metricsCollector.recordRedirect(getType(), MetricsCollector.RedirectType.ASK);
+        }
+    }
+
     public boolean isMoved() {
         if (getError() != null && getError().startsWith(CommandKeyword.MOVED.name())) {
             return true;
@@ -92,6 +113,11 @@ class ClusterCommand<K, V, T> extends AbstractFuture<T> implements RedisCommand<
         return command.getError();
     }
 
+    @Override
+    public CommandType getType() {
+        return command.getType();
+    }
+
     @Override
     public CommandArgs<K, V> getArgs() {
         return command.getArgs();
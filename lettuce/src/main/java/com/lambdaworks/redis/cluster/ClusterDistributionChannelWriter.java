@@ -10,6 +10,7 @@ import com.lambdaworks.redis.LettuceStrings;
 import com.lambdaworks.redis.RedisAsyncConnectionImpl;
 import com.lambdaworks.redis.RedisChannelHandler;
 import com.lambdaworks.redis.RedisChannelWriter;
+import com.lambdaworks.redis.metrics.MetricsCollector;
 import com.lambdaworks.redis.protocol.Command;
 import com.lambdaworks.redis.protocol.CommandArgs;
 import com.lambdaworks.redis.protocol.CommandKeyword;
@@ -29,6 +30,7 @@ class ClusterDistributionChannelWriter<K, V> implements RedisChannelWriter<K, V>
     private ClusterConnectionProvider clusterConnectionProvider;
     private boolean closed = false;
     private int executionLimit = 5;
+    private MetricsCollector metricsCollector;
 
     public ClusterDistributionChannelWriter(RedisChannelWriter<K, V> defaultWriter,
             ClusterConnectionProvider clusterConnectionProvider) {
@@ -45,7 +47,7 @@ class ClusterDistributionChannelWriter<K, V> implements RedisChannelWriter<K, V>
         if (command instanceof Command) {
             Command<K, V, T> singleCommand = (Command<K, V, T>) command;
             if (!singleCommand.isMulti()) {
-                commandToSend = new ClusterCommand<K, V, T>(singleCommand, this, executionLimit);
+                commandToSend = new ClusterCommand<K, V, T>(singleCommand, this, executionLimit, metricsCollector);
             }
         }
 
@@ -128,6 +130,15 @@ class ClusterDistributionChannelWriter<K, V> implements RedisChannelWriter<K, V>
         defaultWriter.setRedisChannelHandler(redisChannelHandler);
     }
 
+    /**
+     * Set the {@link MetricsCollector} to record redirects.
+     * 
+     * @param metricsCollector the metrics collector, may be {@literal null} to disable metrics.
+     */
+    public void setMetricsCollector(MetricsCollector metricsCollector) {
+        this.metricsCollector = metricsCollector;
+    }
+
     public ClusterConnectionProvider getClusterConnectionProvider() {
         return clusterConnectionProvider;
     }
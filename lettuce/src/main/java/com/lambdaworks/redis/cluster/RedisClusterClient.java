@@ -18,6 +18,8 @@ import com.lambdaworks.redis.codec.RedisCodec;
 import com.lambdaworks.redis.codec.Utf8StringCodec;
 import com.lambdaworks.redis.protocol.CommandHandler;
 import com.lambdaworks.redis.protocol.RedisCommand;
+import com.lambdaworks.redis.pubsub.PubSubCommandHandler;
+import com.lambdaworks.redis.pubsub.RedisPubSubConnectionImpl;
 
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
@@ -57,6 +59,30 @@ public class RedisClusterClient extends AbstractRedisClient {
      * @param initialUris
      */
     public RedisClusterClient(List<RedisURI> initialUris) {
+        this(null, initialUris);
+    }
+
+    /**
+     * Initialize the client with an initial cluster URI and shared {@link ClientResources}. The client holds a reference to
+     * the resources until it is shut down.
+     * 
+     * @param clientResources the shared client resources, must not be {@literal null}
+     * @param initialUri
+     */
+    public RedisClusterClient(ClientResources clientResources, RedisURI initialUri) {
+        this(checkNotNull(clientResources, "ClientResources must not be null"), Collections.singletonList(checkNotNull(
+                initialUri, "RedisURI (initial uri) must not be null")));
+    }
+
+    /**
+     * Initialize the client with a list of cluster URI's and shared {@link ClientResources}. See
+     * {@link #RedisClusterClient(List)}.
+     * 
+     * @param clientResources the shared client resources, may be {@literal null} to create resources for this client.
+     * @param initialUris
+     */
+    public RedisClusterClient(ClientResources clientResources, List<RedisURI> initialUris) {
+        super(clientResources);
         this.initialUris = initialUris;
         checkNotNull(initialUris, "initialUris must not be null");
         checkArgument(!initialUris.isEmpty(), "initialUris must not be empty");
@@ -106,6 +132,82 @@ public class RedisClusterClient extends AbstractRedisClient {
         return connectClusterAsyncImpl(codec, getSocketAddressSupplier());
     }
 
+    /**
+     * Open a new pub/sub connection to the redis cluster that treats keys and values as UTF-8 strings. Channels are subscribed
+     * on the node that owns the slot of the channel name.
+     * 
+     * @return A new pub/sub connection.
+     */
+    public RedisClusterPubSubConnection<String, String> connectPubSub() {
+        return connectPubSub(codec);
+    }
+
+    /**
+     * Open a new pub/sub connection to the redis cluster. Use the supplied {@link RedisCodec codec} to encode/decode keys and
+     * values. See {@link RedisClusterPubSubConnection}.
+     * 
+     * @param codec Use this codec to encode/decode keys and values, must not be {@literal null}
+     * @return A new pub/sub connection.
+     */
+    public <K, V> RedisClusterPubSubConnection<K, V> connectPubSub(RedisCodec<K, V> codec) {
+
+        checkArgument(codec != null, "RedisCodec must not be null");
+
+        if (partitions == null) {
+            initializePartitions();
+        }
+
+        return new RedisClusterPubSubConnection<K, V>(this, codec, reconnectWorkers, closeableResources);
+    }
+
+    /**
+     * Open a connection to each master node of the cluster that treats keys and values as UTF-8 strings, e.g. to scan the
+     * keyspace using {@link KeyspaceScanner}.
+     * 
+     * @return new connections, one per master node.
+     */
+    public List<RedisAsyncConnection<String, String>> connectMastersAsync() {
+        return connectMastersAsync(codec);
+    }
+
+    /**
+     * Open a connection to each master node of the cluster. Use the supplied {@link RedisCodec codec} to encode/decode keys
+     * and values.
+     * 
+     * @param codec Use this codec to encode/decode keys and values.
+     * @return new connections, one per master node.
+     * @throws RedisException if a master cannot be connected, connections opened until then are closed.
+     */
+    public <K, V> List<RedisAsyncConnection<K, V>> connectMastersAsync(RedisCodec<K, V> codec) {
+
+        checkArgument(codec != null, "RedisCodec must not be null");
+
+        if (partitions == null) {
+            initializePartitions();
+        }
+
+        List<RedisAsyncConnection<K, V>> connections = Lists.newArrayList();
+        try {
+            for (RedisClusterNode node : partitions) {
+                if (!node.getFlags().contains(RedisClusterNode.NodeFlag.MASTER)) {
+                    continue;
+                }
+
+                RedisAsyncConnectionImpl<K, V> connection = connectAsyncImpl(codec, node.getUri().getResolvedAddress());
+                connections.add(connection);
+                if (node.getUri().getPassword() != null) {
+                    connection.auth(new String(node.getUri().getPassword()));
+                }
+            }
+        } catch (RuntimeException e) {
+            for (RedisAsyncConnection<K, V> connection : connections) {
+                connection.close();
+            }
+            throw e;
+        }
+        return connections;
+    }
+
     protected RedisAsyncConnectionImpl<String, String> connectAsyncImpl(SocketAddress socketAddress) {
         return connectAsyncImpl(codec, socketAddress);
     }
@@ -121,7 +223,7 @@ public class RedisClusterClient extends AbstractRedisClient {
         logger.debug("connectAsyncImpl(" + socketAddress + ")");
         BlockingQueue<RedisCommand<K, V, ?>> queue = new LinkedBlockingQueue<RedisCommand<K, V, ?>>();
 
-        CommandHandler<K, V> handler = new CommandHandler<K, V>(queue);
+        CommandHandler<K, V> handler = new CommandHandler<K, V>(clientOptions, queue);
         RedisAsyncConnectionImpl<K, V> connection = new RedisAsyncConnectionImpl<K, V>(handler, codec, timeout, unit);
 
         connectAsyncImpl(handler, connection, new Supplier<SocketAddress>() {
@@ -136,6 +238,37 @@ public class RedisClusterClient extends AbstractRedisClient {
         return connection;
     }
 
+    /**
+     * Create a pub/sub connection to a cluster node.
+     * 
+     * @param codec
+     * @param nodeUri
+     * @return RedisPubSubConnectionImpl<K, V>
+     */
+    <K, V> RedisPubSubConnectionImpl<K, V> connectPubSubAsyncImpl(RedisCodec<K, V> codec, final RedisURI nodeUri) {
+
+        logger.debug("connectPubSubAsyncImpl(" + nodeUri + ")");
+        BlockingQueue<RedisCommand<K, V, ?>> queue = new LinkedBlockingQueue<RedisCommand<K, V, ?>>();
+
+        PubSubCommandHandler<K, V> handler = new PubSubCommandHandler<K, V>(clientOptions, queue, codec);
+        RedisPubSubConnectionImpl<K, V> connection = new RedisPubSubConnectionImpl<K, V>(handler, codec, timeout, unit);
+
+        connectAsyncImpl(handler, connection, new Supplier<SocketAddress>() {
+            @Override
+            public SocketAddress get() {
+                return nodeUri.getResolvedAddress();
+            }
+        }, true);
+
+        connection.registerCloseables(closeableResources, connection);
+
+        if (nodeUri.getPassword() != null) {
+            connection.auth(new String(nodeUri.getPassword()));
+        }
+
+        return connection;
+    }
+
     <K, V> RedisAsyncConnectionImpl<K, V> connectClusterAsyncImpl(RedisCodec<K, V> codec) {
         return connectClusterAsyncImpl(codec, getSocketAddressSupplier());
     }
@@ -159,13 +292,14 @@ public class RedisClusterClient extends AbstractRedisClient {
         logger.debug("connectCluster(" + socketAddressSupplier.get() + ")");
         BlockingQueue<RedisCommand<K, V, ?>> queue = new LinkedBlockingQueue<RedisCommand<K, V, ?>>();
 
-        CommandHandler<K, V> handler = new CommandHandler<K, V>(queue);
+        CommandHandler<K, V> handler = new CommandHandler<K, V>(clientOptions, queue);
 
         final PooledClusterConnectionProvider<K, V> pooledClusterConnectionProvider = new PooledClusterConnectionProvider<K, V>(
                 this, partitions, codec);
 
         final ClusterDistributionChannelWriter<K, V> clusterWriter = new ClusterDistributionChannelWriter<K, V>(handler,
                 pooledClusterConnectionProvider);
+        clusterWriter.setMetricsCollector(metricsCollector);
         RedisAsyncConnectionImpl<K, V> connection = new RedisAsyncConnectionImpl<K, V>(clusterWriter, codec, timeout, unit);
 
         connectAsyncImpl(handler, connection, socketAddressSupplier, true);
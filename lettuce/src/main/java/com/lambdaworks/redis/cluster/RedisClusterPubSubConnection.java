@@ -0,0 +1,416 @@
+package com.lambdaworks.redis.cluster;
+
+import static com.google.common.base.Preconditions.*;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.lambdaworks.redis.RedisChannelHandler;
+import com.lambdaworks.redis.RedisConnectionStateListener;
+import com.lambdaworks.redis.RedisException;
+import com.lambdaworks.redis.cluster.models.partitions.Partitions;
+import com.lambdaworks.redis.cluster.models.partitions.RedisClusterNode;
+import com.lambdaworks.redis.codec.RedisCodec;
+import com.lambdaworks.redis.pubsub.RedisPubSubConnectionImpl;
+import com.lambdaworks.redis.pubsub.RedisPubSubListener;
+
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+/**
+ * A pub/sub connection to a redis cluster. Channels are subscribed on the node that owns the slot of the channel name (see
+ * {@link SlotHash}), so the subscriptions and the message delivery of many channels are spread across the cluster nodes.
+ * Redis broadcasts published messages to every node, so each node delivers the messages of all channels. Patterns cannot be
+ * mapped to a slot and are subscribed on the node that owns slot {@literal 0}.
+ *
+ * The connection opens one pub/sub connection per node that holds subscriptions. Subscriptions are moved to the new slot
+ * owner after {@link #refreshSubscriptions()}; the refresh is triggered automatically when a node connection disconnects.
+ * Messages may be delivered twice while a subscription moves.
+ *
+ * @param <K> Key type.
+ * @param <V> Value type.
+ * @author <a href="mailto:mpaluch@paluch.biz">Mark Paluch</a>
+ * @since 3.0
+ */
+public class RedisClusterPubSubConnection<K, V> implements Closeable {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(RedisClusterPubSubConnection.class);
+
+    private final RedisClusterClient client;
+    private final RedisCodec<K, V> codec;
+    private final Executor refreshExecutor;
+    private final Collection<Closeable> closeableResources;
+    private final List<RedisPubSubListener<K, V>> listeners = new CopyOnWriteArrayList<RedisPubSubListener<K, V>>();
+    private final RedisPubSubListener<K, V> forwarder = new ListenerForwarder();
+    private final RedisConnectionStateListener topologyListener = new TopologyListener();
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+
+    private final Map<String, RedisPubSubConnectionImpl<K, V>> nodeConnections = new LinkedHashMap<String, RedisPubSubConnectionImpl<K, V>>();
+    private final Map<Object, Subscription<K>> channels = new LinkedHashMap<Object, Subscription<K>>();
+    private final Map<Object, Subscription<K>> patterns = new LinkedHashMap<Object, Subscription<K>>();
+    private boolean closed;
+
+    /**
+     * Initialize a new connection.
+     *
+     * @param client the cluster client
+     * @param codec Codec used to encode/decode keys and values.
+     * @param refreshExecutor executor to refresh subscriptions after a node disconnected.
+     * @param closeableResources registry of the client, the connection is unregistered on close.
+     */
+    RedisClusterPubSubConnection(RedisClusterClient client, RedisCodec<K, V> codec, Executor refreshExecutor,
+            Collection<Closeable> closeableResources) {
+        this.client = client;
+        this.codec = codec;
+        this.refreshExecutor = refreshExecutor;
+        this.closeableResources = closeableResources;
+        closeableResources.add(this);
+        client.addListener(topologyListener);
+    }
+
+    /**
+     * Add a new listener. The listener receives messages and subscription notifications of all nodes.
+     *
+     * @param listener Listener.
+     */
+    public void addListener(RedisPubSubListener<K, V> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Remove an existing listener.
+     *
+     * @param listener Listener.
+     */
+    public void removeListener(RedisPubSubListener<K, V> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Listen for messages published to the given channels. Each channel is subscribed on the node owning its slot.
+     *
+     * @param channels the channels
+     */
+    public synchronized void subscribe(K... channels) {
+
+        for (Map.Entry<String, List<K>> entry : groupByNode(channels).entrySet()) {
+            String nodeId = entry.getKey();
+            List<K> nodeChannels = entry.getValue();
+
+            getNodeConnection(nodeId).subscribe(toArray(nodeChannels));
+            for (K channel : nodeChannels) {
+                this.channels.put(routingKey(channel), new Subscription<K>(channel, nodeId));
+            }
+        }
+    }
+
+    /**
+     * Stop listening for messages posted to the given channels.
+     *
+     * @param channels the channels
+     */
+    public synchronized void unsubscribe(K... channels) {
+
+        for (K channel : channels) {
+            Subscription<K> subscription = this.channels.remove(routingKey(channel));
+            if (subscription != null) {
+                getNodeConnection(subscription.nodeId).unsubscribe(toArray(subscription.name));
+            }
+        }
+    }
+
+    /**
+     * Listen for messages published to channels matching the given patterns.
+     *
+     * @param patterns the patterns
+     */
+    public synchronized void psubscribe(K... patterns) {
+
+        String nodeId = getPatternNodeId();
+        getNodeConnection(nodeId).psubscribe(patterns);
+        for (K pattern : patterns) {
+            this.patterns.put(routingKey(pattern), new Subscription<K>(pattern, nodeId));
+        }
+    }
+
+    /**
+     * Stop listening for messages posted to channels matching the given patterns.
+     *
+     * @param patterns the patterns
+     */
+    public synchronized void punsubscribe(K... patterns) {
+
+        for (K pattern : patterns) {
+            Subscription<K> subscription = this.patterns.remove(routingKey(pattern));
+            if (subscription != null) {
+                getNodeConnection(subscription.nodeId).punsubscribe(toArray(subscription.name));
+            }
+        }
+    }
+
+    /**
+     * Reload the cluster topology and move subscriptions whose node no longer owns the slot to the new slot owner. Blocks
+     * while the topology is loaded.
+     */
+    public void refreshSubscriptions() {
+
+        client.reloadPartitions();
+
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+
+            for (Subscription<K> subscription : new ArrayList<Subscription<K>>(channels.values())) {
+                String nodeId = getNodeId(subscription.name);
+                if (!nodeId.equals(subscription.nodeId)) {
+                    logger.debug("Moving subscription " + subscription.name + " from " + subscription.nodeId + " to " + nodeId);
+                    getNodeConnection(subscription.nodeId).unsubscribe(toArray(subscription.name));
+                    getNodeConnection(nodeId).subscribe(toArray(subscription.name));
+                    channels.put(routingKey(subscription.name), new Subscription<K>(subscription.name, nodeId));
+                }
+            }
+
+            String patternNodeId = getPatternNodeId();
+            for (Subscription<K> subscription : new ArrayList<Subscription<K>>(patterns.values())) {
+                if (!patternNodeId.equals(subscription.nodeId)) {
+                    getNodeConnection(subscription.nodeId).punsubscribe(toArray(subscription.name));
+                    getNodeConnection(patternNodeId).psubscribe(toArray(subscription.name));
+                    patterns.put(routingKey(subscription.name), new Subscription<K>(subscription.name, patternNodeId));
+                }
+            }
+
+            closeUnusedConnections();
+        }
+    }
+
+    /**
+     *
+     * @param channel the channel
+     * @return the node id of the node that holds the subscription of {@code channel} or {@literal null} if the channel is not
+     *         subscribed.
+     */
+    public synchronized String getSubscriptionNodeId(K channel) {
+        Subscription<K> subscription = channels.get(routingKey(channel));
+        return subscription != null ? subscription.nodeId : null;
+    }
+
+    /**
+     * Close the connection and all node connections.
+     */
+    @Override
+    public synchronized void close() {
+
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        client.removeListener(topologyListener);
+        closeableResources.remove(this);
+        for (RedisPubSubConnectionImpl<K, V> connection : nodeConnections.values()) {
+            connection.close();
+        }
+        nodeConnections.clear();
+        channels.clear();
+        patterns.clear();
+    }
+
+    private Map<String, List<K>> groupByNode(K... channels) {
+
+        Map<String, List<K>> byNode = new LinkedHashMap<String, List<K>>();
+        for (K channel : channels) {
+            String nodeId = getNodeId(channel);
+            List<K> nodeChannels = byNode.get(nodeId);
+            if (nodeChannels == null) {
+                nodeChannels = new ArrayList<K>();
+                byNode.put(nodeId, nodeChannels);
+            }
+            nodeChannels.add(channel);
+        }
+        return byNode;
+    }
+
+    private String getNodeId(K channel) {
+        return getNodeBySlot(SlotHash.getSlot(codec.encodeKey(channel))).getNodeId();
+    }
+
+    private String getPatternNodeId() {
+        return getNodeBySlot(0).getNodeId();
+    }
+
+    private RedisClusterNode getNodeBySlot(int slot) {
+        Partitions partitions = client.getPartitions();
+        RedisClusterNode node = partitions != null ? partitions.getPartitionBySlot(slot) : null;
+        if (node == null) {
+            throw new RedisException("Cannot determine a partition for slot " + slot + " (Partitions: " + partitions + ")");
+        }
+        return node;
+    }
+
+    private RedisPubSubConnectionImpl<K, V> getNodeConnection(String nodeId) {
+
+        checkState(!closed, "Connection is closed");
+
+        RedisPubSubConnectionImpl<K, V> connection = nodeConnections.get(nodeId);
+        if (connection == null) {
+            RedisClusterNode node = null;
+            for (RedisClusterNode partition : client.getPartitions()) {
+                if (partition.getNodeId().equals(nodeId)) {
+                    node = partition;
+                }
+            }
+
+            if (node == null) {
+                throw new RedisException("Cannot find cluster node " + nodeId);
+            }
+
+            connection = client.connectPubSubAsyncImpl(codec, node.getUri());
+            connection.addListener(forwarder);
+            nodeConnections.put(nodeId, connection);
+        }
+        return connection;
+    }
+
+    private void closeUnusedConnections() {
+
+        List<String> used = new ArrayList<String>();
+        for (Subscription<K> subscription : channels.values()) {
+            used.add(subscription.nodeId);
+        }
+        for (Subscription<K> subscription : patterns.values()) {
+            used.add(subscription.nodeId);
+        }
+
+        for (String nodeId : new ArrayList<String>(nodeConnections.keySet())) {
+            if (!used.contains(nodeId)) {
+                nodeConnections.remove(nodeId).close();
+            }
+        }
+    }
+
+    private synchronized boolean isNodeConnection(RedisChannelHandler<?, ?> connection) {
+        return nodeConnections.containsValue(connection);
+    }
+
+    @SuppressWarnings("unchecked")
+    private K[] toArray(K key) {
+        return (K[]) new Object[] { key };
+    }
+
+    @SuppressWarnings("unchecked")
+    private K[] toArray(List<K> keys) {
+        return (K[]) keys.toArray();
+    }
+
+    /**
+     * Keys are used for hash lookups. Arrays (e.g. {@code byte[]} keys) are wrapped to compare them by content.
+     */
+    private static Object routingKey(Object key) {
+        if (key instanceof byte[]) {
+            return ByteBuffer.wrap((byte[]) key);
+        }
+        return key;
+    }
+
+    private static class Subscription<K> {
+
+        private final K name;
+        private final String nodeId;
+
+        Subscription(K name, String nodeId) {
+            this.name = name;
+            this.nodeId = nodeId;
+        }
+    }
+
+    /**
+     * Forwards messages and notifications of all node connections to the listeners of this connection.
+     */
+    private class ListenerForwarder implements RedisPubSubListener<K, V> {
+
+        @Override
+        public void message(K channel, V message) {
+            for (RedisPubSubListener<K, V> listener : listeners) {
+                listener.message(channel, message);
+            }
+        }
+
+        @Override
+        public void message(K pattern, K channel, V message) {
+            for (RedisPubSubListener<K, V> listener : listeners) {
+                listener.message(pattern, channel, message);
+            }
+        }
+
+        @Override
+        public void subscribed(K channel, long count) {
+            for (RedisPubSubListener<K, V> listener : listeners) {
+                listener.subscribed(channel, count);
+            }
+        }
+
+        @Override
+        public void psubscribed(K pattern, long count) {
+            for (RedisPubSubListener<K, V> listener : listeners) {
+                listener.psubscribed(pattern, count);
+            }
+        }
+
+        @Override
+        public void unsubscribed(K channel, long count) {
+            for (RedisPubSubListener<K, V> listener : listeners) {
+                listener.unsubscribed(channel, count);
+            }
+        }
+
+        @Override
+        public void punsubscribed(K pattern, long count) {
+            for (RedisPubSubListener<K, V> listener : listeners) {
+                listener.punsubscribed(pattern, count);
+            }
+        }
+    }
+
+    /**
+     * Refreshes the subscriptions when a node connection disconnects, the slots of the node may have moved to another node.
+     */
+    private class TopologyListener implements RedisConnectionStateListener {
+
+        @Override
+        public void onRedisConnected(RedisChannelHandler<?, ?> connection) {
+        }
+
+        @Override
+        public void onRedisDisconnected(RedisChannelHandler<?, ?> connection) {
+
+            if (!isNodeConnection(connection) || !refreshScheduled.compareAndSet(false, true)) {
+                return;
+            }
+
+            refreshExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    refreshScheduled.set(false);
+                    try {
+                        refreshSubscriptions();
+                    } catch (RuntimeException e) {
+                        logger.warn("Cannot refresh cluster subscriptions: " + e.toString(), e);
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void onRedisExceptionCaught(RedisChannelHandler<?, ?> connection, Throwable cause) {
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.lambdaworks.redis.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency statistics of one command type. Percentiles are approximated by power-of-two buckets and reported as the upper
+ * bound of the bucket containing the percentile.
+ * 
+ * @author <a href="mailto:mpaluch@paluch.biz">Mark Paluch</a>
+ * @since 3.0
+ */
+public class CommandLatency {
+
+    private final long count;
+    private final long min;
+    private final long max;
+    private final long total;
+    private final long[] buckets;
+
+    CommandLatency(long count, long min, long max, long total, long[] buckets) {
+        this.count = count;
+        this.min = min;
+        this.max = max;
+        this.total = total;
+        this.buckets = buckets;
+    }
+
+    /**
+     * 
+     * @return the number of completed commands.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * 
+     * @param unit the time unit.
+     * @return the minimum latency.
+     */
+    public long getMin(TimeUnit unit) {
+        return unit.convert(min, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 
+     * @param unit the time unit.
+     * @return the maximum latency.
+     */
+    public long getMax(TimeUnit unit) {
+        return unit.convert(max, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 
+     * @param unit the time unit.
+     * @return the mean latency.
+     */
+    public long getMean(TimeUnit unit) {
+        return count == 0 ? 0 : unit.convert(total / count, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 
+     * @param percentile the percentile between {@literal 0} and {@literal 100}, e.g. {@literal 99.9}.
+     * @param unit the time unit.
+     * @return the approximated latency at the given percentile, never greater than the maximum latency.
+     */
+    public long getPercentile(double percentile, TimeUnit unit) {
+
+        if (count == 0) {
+            return 0;
+        }
+
+        long threshold = (long) Math.ceil(count * Math.min(100, Math.max(0, percentile)) / 100);
+        long seen = 0;
+
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= threshold && seen > 0) {
+                long upperBound = i == 0 ? 0 : (i >= 63 ? Long.MAX_VALUE : (1L << i) - 1);
+                return unit.convert(Math.min(upperBound, max), TimeUnit.NANOSECONDS);
+            }
+        }
+
+        return unit.convert(max, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(getClass().getSimpleName());
+        sb.append(" [count=").append(count);
+        sb.append(", min=").append(getMin(TimeUnit.MICROSECONDS));
+        sb.append(", mean=").append(getMean(TimeUnit.MICROSECONDS));
+        sb.append(", p99=").append(getPercentile(99, TimeUnit.MICROSECONDS));
+        sb.append(", max=").append(getMax(TimeUnit.MICROSECONDS));
+        sb.append(" (us)]");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,79 @@
+package com.lambdaworks.redis.metrics;
+
+import java.net.SocketAddress;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.collect.Maps;
+import com.lambdaworks.redis.protocol.CommandType;
+
+/**
+ * Default {@link MetricsCollector} that aggregates command latencies in per-{@link CommandType} histograms and counts
+ * reconnects and redirects. The aggregated values are retrieved using {@link #newSnapshot(boolean)}.
+ * 
+ * @author <a href="mailto:mpaluch@paluch.biz">Mark Paluch</a>
+ * @since 3.0
+ */
+public class DefaultMetricsCollector implements MetricsCollector {
+
+    private final ConcurrentMap<CommandType, LatencyHistogram> latencies = Maps.newConcurrentMap();
+    private final AtomicLong reconnects = new AtomicLong();
+    private final AtomicLong movedRedirects = new AtomicLong();
+    private final AtomicLong askRedirects = new AtomicLong();
+
+    @Override
+    public void recordCommandLatency(CommandType commandType, long latency) {
+
+        LatencyHistogram histogram = latencies.get(commandType);
+        if (histogram == null) {
+            LatencyHistogram newHistogram = new LatencyHistogram();
+            histogram = latencies.putIfAbsent(commandType, newHistogram);
+            if (histogram == null) {
+                histogram = newHistogram;
+            }
+        }
+
+        histogram.record(latency);
+    }
+
+    @Override
+    public void recordReconnect(SocketAddress remoteAddress) {
+        reconnects.incrementAndGet();
+    }
+
+    @Override
+    public void recordRedirect(CommandType commandType, RedirectType redirectType) {
+        if (redirectType == RedirectType.ASK) {
+            askRedirects.incrementAndGet();
+        } else {
+            movedRedirects.incrementAndGet();
+        }
+    }
+
+    /**
+     * Create a snapshot builder that contains the values aggregated by this collector.
+     * 
+     * @param reset {@literal true} to reset the aggregated values, so the next snapshot contains only values recorded after
+     *        this snapshot.
+     * @return a new {@link MetricsSnapshot.Builder}.
+     */
+    public MetricsSnapshot.Builder newSnapshot(boolean reset) {
+
+        Map<CommandType, CommandLatency> commandLatencies = new EnumMap<CommandType, CommandLatency>(CommandType.class);
+        for (Map.Entry<CommandType, LatencyHistogram> entry : latencies.entrySet()) {
+            CommandLatency latency = entry.getValue().snapshot(reset);
+            if (latency.getCount() != 0) {
+                commandLatencies.put(entry.getKey(), latency);
+            }
+        }
+
+        MetricsSnapshot.Builder builder = new MetricsSnapshot.Builder().withCommandLatencies(commandLatencies);
+        builder.withReconnects(reset ? reconnects.getAndSet(0) : reconnects.get());
+        builder.withRedirects(reset ? movedRedirects.getAndSet(0) : movedRedirects.get(),
+                reset ? askRedirects.getAndSet(0) : askRedirects.get());
+
+        return builder;
+    }
+}
@@ -0,0 +1,71 @@
+package com.lambdaworks.redis.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with power-of-two buckets. Bucket {@code i} counts latencies in the range
+ * {@code [2^(i-1), 2^i)} nanoseconds, bucket {@literal 0} counts zero latencies.
+ * 
+ * @author <a href="mailto:mpaluch@paluch.biz">Mark Paluch</a>
+ * @since 3.0
+ */
+class LatencyHistogram {
+
+    static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Record a latency.
+     * 
+     * @param latency latency in nanoseconds, negative values are recorded as zero.
+     */
+    public void record(long latency) {
+
+        long value = Math.max(0, latency);
+
+        buckets.incrementAndGet(bucket(value));
+        count.incrementAndGet();
+        total.addAndGet(value);
+
+        long current;
+        while ((current = min.get()) > value && !min.compareAndSet(current, value)) {
+            // retry
+        }
+
+        while ((current = max.get()) < value && !max.compareAndSet(current, value)) {
+            // retry
+        }
+    }
+
+    static int bucket(long value) {
+        return Math.min(BUCKETS - 1, BUCKETS - Long.numberOfLeadingZeros(value));
+    }
+
+    /**
+     * Create a snapshot of the recorded values. Values that are recorded concurrently to a reset are either part of this or of
+     * the next snapshot.
+     * 
+     * @param reset {@literal true} to reset the histogram.
+     * @return the snapshot.
+     */
+    public CommandLatency snapshot(boolean reset) {
+
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = reset ? buckets.getAndSet(i, 0) : buckets.get(i);
+        }
+
+        long count = reset ? this.count.getAndSet(0) : this.count.get();
+        long total = reset ? this.total.getAndSet(0) : this.total.get();
+        long min = reset ? this.min.getAndSet(Long.MAX_VALUE) : this.min.get();
+        long max = reset ? this.max.getAndSet(0) : this.max.get();
+
+        return new CommandLatency(count, count == 0 ? 0 : min, max, total, counts);
+    }
+}
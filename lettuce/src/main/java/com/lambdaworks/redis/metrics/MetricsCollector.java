@@ -0,0 +1,55 @@
+package com.lambdaworks.redis.metrics;
+
+import java.net.SocketAddress;
+
+import com.lambdaworks.redis.protocol.CommandType;
+
+/**
+ * Service provider interface to collect client metrics. Implementations can forward the recorded values to a metrics library
+ * of choice or aggregate them using {@link DefaultMetricsCollector}. Methods are called by I/O and application threads and
+ * must therefore be thread-safe and must not block.
+ * 
+ * @author <a href="mailto:mpaluch@paluch.biz">Mark Paluch</a>
+ * @since 3.0
+ */
+public interface MetricsCollector {
+
+    /**
+     * Record the latency of a completed command, measured from writing the command to the connection until its completion.
+     * 
+     * @param commandType the command type.
+     * @param latency the latency in nanoseconds.
+     */
+    void recordCommandLatency(CommandType commandType, long latency);
+
+    /**
+     * Record a successful reconnect.
+     * 
+     * @param remoteAddress the address the connection was reconnected to.
+     */
+    void recordReconnect(SocketAddress remoteAddress);
+
+    /**
+     * Record a cluster redirect.
+     * 
+     * @param commandType the command type.
+     * @param redirectType the redirect type.
+     */
+    void recordRedirect(CommandType commandType, RedirectType redirectType);
+
+    /**
+     * Cluster redirect types.
+     */
+    enum RedirectType {
+
+        /**
+         * The slot is served by a different node ({@code -MOVED}).
+         */
+        MOVED,
+
+        /**
+         * The slot is being migrated ({@code -ASK}).
+         */
+        ASK;
+    }
+}
@@ -0,0 +1,17 @@
+package com.lambdaworks.redis.metrics;
+
+/**
+ * Listener for periodically published {@link MetricsSnapshot metrics snapshots}.
+ * 
+ * @author <a href="mailto:mpaluch@paluch.biz">Mark Paluch</a>
+ * @since 3.0
+ */
+public interface MetricsListener {
+
+    /**
+     * Invoked on the timer thread of the client with the metrics of the last interval. Implementations must not block.
+     * 
+     * @param snapshot the metrics snapshot.
+     */
+    void onMetrics(MetricsSnapshot snapshot);
+}
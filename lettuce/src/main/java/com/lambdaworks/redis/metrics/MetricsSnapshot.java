@@ -0,0 +1,220 @@
+package com.lambdaworks.redis.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+
+import com.lambdaworks.redis.protocol.CommandType;
+
+/**
+ * Immutable snapshot of client metrics: Command latencies, reconnect and redirect counts of the snapshot interval as well as
+ * the connection and pool state at the time of the snapshot.
+ * 
+ * @author <a href="mailto:mpaluch@paluch.biz">Mark Paluch</a>
+ * @since 3.0
+ */
+public class MetricsSnapshot {
+
+    private final long timestamp;
+    private final Map<CommandType, CommandLatency> commandLatencies;
+    private final long reconnects;
+    private final long movedRedirects;
+    private final long askRedirects;
+    private final int connections;
+    private final int pendingCommands;
+    private final int queuedCommands;
+    private final int bufferedCommands;
+    private final int poolActive;
+    private final int poolIdle;
+
+    private MetricsSnapshot(Builder builder) {
+        this.timestamp = builder.timestamp;
+        this.commandLatencies = Collections.unmodifiableMap(builder.commandLatencies);
+        this.reconnects = builder.reconnects;
+        this.movedRedirects = builder.movedRedirects;
+        this.askRedirects = builder.askRedirects;
+        this.connections = builder.connections;
+        this.pendingCommands = builder.pendingCommands;
+        this.queuedCommands = builder.queuedCommands;
+        this.bufferedCommands = builder.bufferedCommands;
+        this.poolActive = builder.poolActive;
+        this.poolIdle = builder.poolIdle;
+    }
+
+    /**
+     * 
+     * @return the time of the snapshot in milliseconds since the epoch.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * 
+     * @return latencies of the commands that completed within the snapshot interval.
+     */
+    public Map<CommandType, CommandLatency> getCommandLatencies() {
+        return commandLatencies;
+    }
+
+    /**
+     * 
+     * @return the number of reconnects.
+     */
+    public long getReconnects() {
+        return reconnects;
+    }
+
+    /**
+     * 
+     * @return the number of {@code MOVED} redirects.
+     */
+    public long getMovedRedirects() {
+        return movedRedirects;
+    }
+
+    /**
+     * 
+     * @return the number of {@code ASK} redirects.
+     */
+    public long getAskRedirects() {
+        return askRedirects;
+    }
+
+    /**
+     * 
+     * @return the number of open connections (channels).
+     */
+    public int getConnections() {
+        return connections;
+    }
+
+    /**
+     * 
+     * @return the number of pending commands (buffered, written or awaiting a response) of all connections.
+     */
+    public int getPendingCommands() {
+        return pendingCommands;
+    }
+
+    /**
+     * 
+     * @return the number of written commands awaiting a response of all connections.
+     */
+    public int getQueuedCommands() {
+        return queuedCommands;
+    }
+
+    /**
+     * 
+     * @return the number of commands buffered while disconnected of all connections.
+     */
+    public int getBufferedCommands() {
+        return bufferedCommands;
+    }
+
+    /**
+     * 
+     * @return the number of borrowed connections of all connection pools.
+     */
+    public int getPoolActive() {
+        return poolActive;
+    }
+
+    /**
+     * 
+     * @return the number of idle connections of all connection pools.
+     */
+    public int getPoolIdle() {
+        return poolIdle;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(getClass().getSimpleName());
+        sb.append(" [timestamp=").append(timestamp);
+        sb.append(", connections=").append(connections);
+        sb.append(", pendingCommands=").append(pendingCommands);
+        sb.append(", queuedCommands=").append(queuedCommands);
+        sb.append(", bufferedCommands=").append(bufferedCommands);
+        sb.append(", reconnects=").append(reconnects);
+        sb.append(", movedRedirects=").append(movedRedirects);
+        sb.append(", askRedirects=").append(askRedirects);
+        sb.append(", poolActive=").append(poolActive);
+        sb.append(", poolIdle=").append(poolIdle);
+        sb.append(", commandLatencies=").append(commandLatencies);
+        sb.append(']');
+        return sb.toString();
+    }
+
+    /**
+     * Builder for {@link MetricsSnapshot}.
+     */
+    public static class Builder {
+
+        private long timestamp = System.currentTimeMillis();
+        private Map<CommandType, CommandLatency> commandLatencies = Collections.emptyMap();
+        private long reconnects;
+        private long movedRedirects;
+        private long askRedirects;
+        private int connections;
+        private int pendingCommands;
+        private int queuedCommands;
+        private int bufferedCommands;
+        private int poolActive;
+        private int poolIdle;
+
+        public Builder withCommandLatencies(Map<CommandType, CommandLatency> commandLatencies) {
+            this.commandLatencies = commandLatencies;
+            return this;
+        }
+
+        public Builder withReconnects(long reconnects) {
+            this.reconnects = reconnects;
+            return this;
+        }
+
+        public Builder withRedirects(long movedRedirects, long askRedirects) {
+            this.movedRedirects = movedRedirects;
+            this.askRedirects = askRedirects;
+            return this;
+        }
+
+        /**
+         * Add the state of a connection. Can be called multiple times to sum up the state of all connections.
+         * 
+         * @param pendingCommands pending commands of the connection.
+         * @param queuedCommands commands awaiting a response.
+         * @param bufferedCommands commands buffered while disconnected.
+         * @return the builder
+         */
+        public Builder addConnection(int pendingCommands, int queuedCommands, int bufferedCommands) {
+            this.connections++;
+            this.pendingCommands += pendingCommands;
+            this.queuedCommands += queuedCommands;
+            this.bufferedCommands += bufferedCommands;
+            return this;
+        }
+
+        /**
+         * Add the state of a connection pool. Can be called multiple times to sum up the state of all pools.
+         * 
+         * @param active borrowed connections.
+         * @param idle idle connections.
+         * @return the builder
+         */
+        public Builder addPool(int active, int idle) {
+            this.poolActive += active;
+            this.poolIdle += idle;
+            return this;
+        }
+
+        /**
+         * 
+         * @return a new instance of {@link MetricsSnapshot}.
+         */
+        public MetricsSnapshot build() {
+            return new MetricsSnapshot(this);
+        }
+    }
+}
@@ -0,0 +1,5 @@
+/**
+ * Metrics SPI to instrument connections of {@link com.lambdaworks.redis.RedisClient} and
+ * {@link com.lambdaworks.redis.cluster.RedisClusterClient}.
+ */
+package com.lambdaworks.redis.metrics;
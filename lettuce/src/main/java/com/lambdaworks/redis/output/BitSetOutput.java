@@ -0,0 +1,30 @@
+package com.lambdaworks.redis.output;
+
+import java.util.BitSet;
+
+import com.lambdaworks.redis.codec.RedisCodec;
+import com.lambdaworks.redis.protocol.CommandOutput;
+
+/**
+ * {@link BitSet} output of an array of boolean integer replies. Bit {@code i} is set if the {@code i}-th reply is {@code 1}.
+ * 
+ * @param <K> Key type.
+ * @param <V> Value type.
+ * @author <a href="mailto:mpaluch@paluch.biz">Mark Paluch</a>
+ */
+public class BitSetOutput<K, V> extends CommandOutput<K, V, BitSet> {
+
+    private int index;
+
+    public BitSetOutput(RedisCodec<K, V> codec) {
+        super(codec, new BitSet());
+    }
+
+    @Override
+    public void set(long integer) {
+        if (integer == 1) {
+            output.set(index);
+        }
+        index++;
+    }
+}
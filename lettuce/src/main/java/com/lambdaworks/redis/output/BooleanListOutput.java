@@ -25,4 +25,11 @@ public class BooleanListOutput<K, V> extends CommandOutput<K, V, List<Boolean>>
     public void set(long integer) {
         output.add((integer == 1) ? Boolean.TRUE : Boolean.FALSE);
     }
+
+    @Override
+    public void multi(int count) {
+        if (output.isEmpty() && count > 0) {
+            output = new ArrayList<Boolean>(count);
+        }
+    }
 }
@@ -7,8 +7,6 @@ import java.nio.ByteBuffer;
 import com.lambdaworks.redis.codec.RedisCodec;
 import com.lambdaworks.redis.protocol.CommandOutput;
 
-import static java.lang.Double.parseDouble;
-
 /**
  * Double output, may be null.
  * 
@@ -23,6 +21,6 @@ public class DoubleOutput<K, V> extends CommandOutput<K, V, Double> {
 
     @Override
     public void set(ByteBuffer bytes) {
-        output = (bytes == null) ? null : parseDouble(decodeAscii(bytes));
+        output = (bytes == null) ? null : decodeDouble(bytes);
     }
 }
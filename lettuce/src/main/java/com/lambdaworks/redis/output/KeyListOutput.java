@@ -26,4 +26,11 @@ public class KeyListOutput<K, V> extends CommandOutput<K, V, List<K>> {
     public void set(ByteBuffer bytes) {
         output.add(codec.decodeKey(bytes));
     }
+
+    @Override
+    public void multi(int count) {
+        if (output.isEmpty() && count > 0) {
+            output = new ArrayList<K>(count);
+        }
+    }
 }
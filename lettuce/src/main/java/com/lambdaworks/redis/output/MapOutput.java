@@ -2,6 +2,7 @@
 
 package com.lambdaworks.redis.output;
 
+import com.google.common.collect.Maps;
 import com.lambdaworks.redis.codec.RedisCodec;
 import com.lambdaworks.redis.protocol.CommandOutput;
 
@@ -35,4 +36,11 @@ public class MapOutput<K, V> extends CommandOutput<K, V, Map<K, V>> {
         output.put(key, value);
         key = null;
     }
+
+    @Override
+    public void multi(int count) {
+        if (output.isEmpty() && count > 0) {
+            output = Maps.newHashMapWithExpectedSize(count / 2);
+        }
+    }
 }
@@ -32,8 +32,15 @@ public class ScoredValueListOutput<K, V> extends CommandOutput<K, V, List<Scored
             return;
         }
 
-        double score = Double.parseDouble(decodeAscii(bytes));
+        double score = decodeDouble(bytes);
         output.add(new ScoredValue<V>(score, value));
         value = null;
     }
+
+    @Override
+    public void multi(int count) {
+        if (output.isEmpty() && count > 0) {
+            output = new ArrayList<ScoredValue<V>>(count / 2);
+        }
+    }
 }
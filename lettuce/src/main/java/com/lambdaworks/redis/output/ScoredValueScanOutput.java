@@ -29,7 +29,7 @@ public class ScoredValueScanOutput<K, V> extends ScanOutput<K, V, ScoredValueSca
             return;
         }
 
-        double score = Double.parseDouble(decodeAscii(bytes));
+        double score = decodeDouble(bytes);
         output.getValues().add(new ScoredValue<V>(score, value));
         value = null;
     }
@@ -30,7 +30,7 @@ public class ScoredValueScanStreamingOutput<K, V> extends ScanOutput<K, V, Strea
             return;
         }
 
-        double score = Double.parseDouble(decodeAscii(bytes));
+        double score = decodeDouble(bytes);
         channel.onValue(new ScoredValue<V>(score, value));
         value = null;
         output.setCount(output.getCount() + 1);
@@ -30,7 +30,7 @@ public class ScoredValueStreamingOutput<K, V> extends CommandOutput<K, V, Long>
             return;
         }
 
-        double score = Double.parseDouble(decodeAscii(bytes));
+        double score = decodeDouble(bytes);
         channel.onValue(new ScoredValue<V>(score, value));
         value = null;
         output = output.longValue() + 1;
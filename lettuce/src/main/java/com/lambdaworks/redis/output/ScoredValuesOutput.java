@@ -0,0 +1,45 @@
+package com.lambdaworks.redis.output;
+
+import java.nio.ByteBuffer;
+
+import com.lambdaworks.redis.ScoredValues;
+import com.lambdaworks.redis.codec.RedisCodec;
+import com.lambdaworks.redis.protocol.CommandOutput;
+
+/**
+ * {@link ScoredValues} output. Scores are parsed from the reply bytes into primitive doubles.
+ * 
+ * @param <K> Key type.
+ * @param <V> Value type.
+ * @author <a href="mailto:mpaluch@paluch.biz">Mark Paluch</a>
+ */
+public class ScoredValuesOutput<K, V> extends CommandOutput<K, V, ScoredValues<V>> {
+
+    private V value;
+    private boolean hasValue;
+
+    public ScoredValuesOutput(RedisCodec<K, V> codec) {
+        super(codec, new ScoredValues<V>(0));
+    }
+
+    @Override
+    public void set(ByteBuffer bytes) {
+
+        if (!hasValue) {
+            value = bytes == null ? null : codec.decodeValue(bytes);
+            hasValue = true;
+            return;
+        }
+
+        output.add(decodeDouble(bytes), value);
+        value = null;
+        hasValue = false;
+    }
+
+    @Override
+    public void multi(int count) {
+        if (output.size() == 0 && count > 0) {
+            output = new ScoredValues<V>(count / 2);
+        }
+    }
+}
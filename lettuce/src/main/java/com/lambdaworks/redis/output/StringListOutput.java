@@ -25,4 +25,11 @@ public class StringListOutput<K, V> extends CommandOutput<K, V, List<String>> {
     public void set(ByteBuffer bytes) {
         output.add(bytes == null ? null : decodeAscii(bytes));
     }
+
+    @Override
+    public void multi(int count) {
+        if (output.isEmpty() && count > 0) {
+            output = new ArrayList<String>(count);
+        }
+    }
 }
@@ -26,4 +26,11 @@ public class ValueListOutput<K, V> extends CommandOutput<K, V, List<V>> {
     public void set(ByteBuffer bytes) {
         output.add(bytes == null ? null : codec.decodeValue(bytes));
     }
+
+    @Override
+    public void multi(int count) {
+        if (output.isEmpty() && count > 0) {
+            output = new ArrayList<V>(count);
+        }
+    }
 }
@@ -228,6 +228,11 @@ public class Command<K, V, T> extends AbstractFuture<T> implements RedisCommand<
         return args;
     }
 
+    @Override
+    public CommandType getType() {
+        return type;
+    }
+
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder();
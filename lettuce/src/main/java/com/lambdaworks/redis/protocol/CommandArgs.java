@@ -33,9 +33,15 @@ public class CommandArgs<K, V> {
         this.buffer = ByteBuffer.allocate(32);
     }
 
+    /**
+     * 
+     * @return a read-only view of the encoded arguments. The arguments are not consumed, so the buffer can be obtained
+     *         repeatedly, e.g. when a command is written again after a reconnect.
+     */
     public ByteBuffer buffer() {
-        buffer.flip();
-        return buffer;
+        ByteBuffer view = buffer.asReadOnlyBuffer();
+        view.flip();
+        return view;
     }
 
     public int count() {
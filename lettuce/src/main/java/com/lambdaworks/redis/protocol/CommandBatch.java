@@ -0,0 +1,172 @@
+package com.lambdaworks.redis.protocol;
+
+import static com.google.common.base.Preconditions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.lambdaworks.redis.RedisCommandInterruptedException;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * A sequence of commands that is written to the channel at once: The commands are encoded into one buffer and sent with a
+ * single flush, so no command of another thread can be written in between. The {@link CommandHandler} queues the commands of
+ * the batch individually, every command completes with its own response. The batch itself completes with its last command.
+ *
+ * Channel writers see the batch as a single command of the type of the last command. {@link #getArgs()} returns the arguments
+ * of the first command with keys to route the batch.
+ *
+ * @param <K> Key type.
+ * @param <V> Value type.
+ * @param <T> Output type of the last command.
+ * @author <a href="mailto:mpaluch@paluch.biz">Mark Paluch</a>
+ * @since 3.0
+ */
+public class CommandBatch<K, V, T> extends AbstractFuture<T> implements RedisCommand<K, V, T> {
+
+    private final List<RedisCommand<K, V, ?>> commands;
+    private final RedisCommand<K, V, T> last;
+
+    /**
+     *
+     * @param commands the commands, must not be empty. The batch completes with the last command.
+     */
+    @SuppressWarnings("unchecked")
+    public CommandBatch(List<? extends RedisCommand<K, V, ?>> commands) {
+        checkArgument(commands != null && !commands.isEmpty(), "Commands must not be empty");
+
+        this.commands = Collections.unmodifiableList(new ArrayList<RedisCommand<K, V, ?>>(commands));
+        this.last = (RedisCommand<K, V, T>) this.commands.get(this.commands.size() - 1);
+
+        last.addListener(new Runnable() {
+            @Override
+            public void run() {
+                if (last.isCancelled()) {
+                    CommandBatch.super.cancel(false);
+                    return;
+                }
+
+                try {
+                    set(last.get());
+                } catch (ExecutionException e) {
+                    setException(e.getCause());
+                } catch (Exception e) {
+                    setException(e);
+                }
+            }
+        }, MoreExecutors.sameThreadExecutor());
+    }
+
+    /**
+     *
+     * @return the commands of this batch.
+     */
+    public List<RedisCommand<K, V, ?>> getCommands() {
+        return commands;
+    }
+
+    /**
+     *
+     * @return the number of commands.
+     */
+    public int size() {
+        return commands.size();
+    }
+
+    @Override
+    public CommandType getType() {
+        return last.getType();
+    }
+
+    @Override
+    public CommandOutput<K, V, T> getOutput() {
+        return last.getOutput();
+    }
+
+    /**
+     * Complete all commands of this batch, e.g. if the batch was not written.
+     */
+    @Override
+    public void complete() {
+        for (RedisCommand<K, V, ?> command : commands) {
+            if (!command.isDone()) {
+                command.complete();
+            }
+        }
+    }
+
+    @Override
+    public CommandArgs<K, V> getArgs() {
+        for (RedisCommand<K, V, ?> command : commands) {
+            CommandArgs<K, V> args = command.getArgs();
+            if (args != null && !args.getKeys().isEmpty()) {
+                return args;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void encode(ByteBuf buf) {
+        for (RedisCommand<K, V, ?> command : commands) {
+            command.encode(buf);
+        }
+    }
+
+    @Override
+    public boolean setException(Throwable throwable) {
+        for (RedisCommand<K, V, ?> command : commands) {
+            if (command != last && !command.isDone()) {
+                command.setException(throwable);
+                command.complete();
+            }
+        }
+        return last.setException(throwable);
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        for (RedisCommand<K, V, ?> command : commands) {
+            command.cancel(mayInterruptIfRunning);
+        }
+        return super.cancel(mayInterruptIfRunning);
+    }
+
+    @Override
+    public String getError() {
+        return last.getError();
+    }
+
+    @Override
+    public boolean await(long timeout, TimeUnit unit) {
+        try {
+            get(timeout, unit);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            return true;
+        } catch (CancellationException e) {
+            return true;
+        } catch (InterruptedException e) {
+            throw new RedisCommandInterruptedException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(getClass().getSimpleName());
+        sb.append(" [commands=").append(commands);
+        sb.append(']');
+        return sb.toString();
+    }
+}
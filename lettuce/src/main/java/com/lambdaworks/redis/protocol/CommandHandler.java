@@ -3,13 +3,20 @@
 package com.lambdaworks.redis.protocol;
 
 import java.nio.charset.Charset;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantLock;
 
+import com.lambdaworks.redis.ClientOptions;
 import com.lambdaworks.redis.RedisChannelHandler;
 import com.lambdaworks.redis.RedisChannelWriter;
 import com.lambdaworks.redis.RedisCommandInterruptedException;
@@ -21,7 +28,11 @@ import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
 /**
- * A netty {@link ChannelHandler} responsible for writing redis commands and reading responses from the server.
+ * A netty {@link ChannelHandler} responsible for writing redis commands and reading responses from the server. The number of
+ * pending commands can be limited using {@link ClientOptions#getRequestQueueSize()}; commands exceeding the limit are handled
+ * according to the {@link ClientOptions#getBackpressurePolicy() backpressure policy}. Commands issued while the connection
+ * is disconnected are buffered or rejected according to the {@link ClientOptions#getDisconnectedBehavior() disconnected
+ * behavior}.
  * 
  * @param <K> Key type.
  * @param <V> Value type.
@@ -40,6 +51,17 @@ public class CommandHandler<K, V> extends ChannelDuplexHandler implements RedisC
     private RedisChannelHandler<K, V> redisChannelHandler;
     private final ReentrantLock writeLock = new ReentrantLock();
     private final ReentrantLock readLock = new ReentrantLock();
+    private final ClientOptions clientOptions;
+    private final Semaphore requestPermits;
+    private final AtomicInteger pendingCommands = new AtomicInteger();
+    private final Object writabilityMonitor = new Object();
+    private final Deque<Long> bufferTimestamps = new ArrayDeque<Long>();
+    private final long disconnectedBufferTimeoutNanos;
+    private long disconnectedAt;
+    private boolean disconnected;
+    private final boolean directBuffers;
+    private Executor completionExecutor;
+    private boolean wasActive;
 
     /**
      * Initialize a new instance that handles commands from the supplied queue.
@@ -47,7 +69,25 @@ public class CommandHandler<K, V> extends ChannelDuplexHandler implements RedisC
      * @param queue The command queue.
      */
     public CommandHandler(BlockingQueue<RedisCommand<K, V, ?>> queue) {
+        this(ClientOptions.create(), queue);
+    }
+
+    /**
+     * Initialize a new instance that handles commands from the supplied queue.
+     * 
+     * @param clientOptions client options for this connection.
+     * @param queue The command queue.
+     */
+    public CommandHandler(ClientOptions clientOptions, BlockingQueue<RedisCommand<K, V, ?>> queue) {
+        this.clientOptions = clientOptions;
         this.queue = queue;
+
+        int requestQueueSize = clientOptions.getRequestQueueSize();
+        this.requestPermits = requestQueueSize == ClientOptions.DEFAULT_REQUEST_QUEUE_SIZE ? null : new Semaphore(
+                requestQueueSize);
+        this.disconnectedBufferTimeoutNanos = clientOptions.getDisconnectedBufferTimeoutUnit().toNanos(
+                clientOptions.getDisconnectedBufferTimeout());
+        this.directBuffers = clientOptions.getSocketOptions().isDirectBuffers();
     }
 
     /**
@@ -56,10 +96,35 @@ public class CommandHandler<K, V> extends ChannelDuplexHandler implements RedisC
      */
     @Override
     public void channelRegistered(ChannelHandlerContext ctx) throws Exception {
-        buffer = ctx.alloc().heapBuffer();
+
+        try {
+            readLock.lock();
+            // the handler is registered again with every reconnect, partially received responses are obsolete.
+            if (buffer != null) {
+                buffer.release();
+            }
+            buffer = allocateBuffer(ctx);
+        } finally {
+            readLock.unlock();
+        }
+
         rsm = new RedisStateMachine<K, V>();
     }
 
+    /**
+     * Allocate a buffer from the channel allocator. Direct buffers are allocated if
+     * {@link com.lambdaworks.redis.SocketOptions#isDirectBuffers() direct buffers} are enabled, heap buffers otherwise.
+     *
+     * @param ctx the channel handler context
+     * @return a new buffer, the caller is responsible for releasing it.
+     */
+    protected ByteBuf allocateBuffer(ChannelHandlerContext ctx) {
+        if (directBuffers) {
+            return ctx.alloc().directBuffer();
+        }
+        return ctx.alloc().heapBuffer();
+    }
+
     /**
      * 
      * @see io.netty.channel.ChannelInboundHandlerAdapter#channelRead(io.netty.channel.ChannelHandlerContext, java.lang.Object)
@@ -100,17 +165,44 @@ public class CommandHandler<K, V> extends ChannelDuplexHandler implements RedisC
 
         while (!queue.isEmpty() && rsm.decode(buffer, queue.peek(), queue.peek().getOutput())) {
             RedisCommand<K, V, ?> cmd = queue.take();
-            cmd.complete();
+            releaseCapacity();
+            complete(cmd);
             if (buffer != null && buffer.refCnt() != 0) {
                 buffer.discardReadBytes();
             }
         }
     }
 
+    private void complete(final RedisCommand<K, V, ?> cmd) {
+
+        if (completionExecutor == null) {
+            cmd.complete();
+            return;
+        }
+
+        completionExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                cmd.complete();
+            }
+        });
+    }
+
+    /**
+     * Set the {@link Executor} to complete decoded commands. Commands are completed in the order of the responses, so the
+     * executor should run tasks in submission order. Internal access only.
+     *
+     * @param completionExecutor the executor, may be {@literal null} to complete commands on the I/O thread.
+     */
+    public void setCompletionExecutor(Executor completionExecutor) {
+        this.completionExecutor = completionExecutor;
+    }
+
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
         if (!queue.isEmpty()) {
             RedisCommand<K, V, ?> command = queue.take();
+            releaseCapacity();
             command.setException(cause);
             command.complete();
         }
@@ -125,6 +217,9 @@ public class CommandHandler<K, V> extends ChannelDuplexHandler implements RedisC
                 throw new RedisException("Connection is closed");
             }
 
+            int permits = permits(command);
+            acquireCapacity(permits);
+
             try {
                 writeLock.lock();
                 Channel channel = this.channel.get();
@@ -135,11 +230,14 @@ public class CommandHandler<K, V> extends ChannelDuplexHandler implements RedisC
                     }
                     channel.writeAndFlush(command);
                 } else {
-                    if (logger.isDebugEnabled()) {
-                        logger.debug("[" + this + "] write() buffering Command " + command);
-                    }
-                    commandBuffer.put(command);
+                    bufferCommand(command);
                 }
+            } catch (InterruptedException e) {
+                releaseCapacity(permits);
+                throw e;
+            } catch (RuntimeException e) {
+                releaseCapacity(permits);
+                throw e;
             } finally {
                 writeLock.unlock();
             }
@@ -151,6 +249,189 @@ public class CommandHandler<K, V> extends ChannelDuplexHandler implements RedisC
         return command;
     }
 
+    /**
+     * Buffer a command while the connection is disconnected. Must be called while holding the write lock.
+     * 
+     * @throws RedisException if the command is rejected by the disconnected behavior or the buffer is full.
+     */
+    private void bufferCommand(RedisCommand<K, V, ?> command) throws InterruptedException {
+
+        // commands issued before the connection was activated for the first time are always buffered.
+        if (wasActive) {
+            switch (clientOptions.getDisconnectedBehavior()) {
+                case REJECT_COMMANDS:
+                    throw new RedisException("Connection is disconnected, commands are not accepted");
+                case ACCEPT_READ_COMMANDS:
+                    if (!ReadOnlyCommands.isReadOnlyCommand(command.getType())) {
+                        throw new RedisException("Connection is disconnected, only read commands are accepted");
+                    }
+                    break;
+                default:
+            }
+        }
+
+        long now = System.nanoTime();
+        expireBufferedCommands(now);
+
+        if (commandBuffer.size() >= clientOptions.getDisconnectedBufferSize()) {
+            throw new RedisException("Disconnected buffer size exceeded: " + clientOptions.getDisconnectedBufferSize()
+                    + " commands buffered");
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("[" + this + "] write() buffering Command " + command);
+        }
+
+        commandBuffer.put(command);
+        if (disconnectedBufferTimeoutNanos > 0) {
+            bufferTimestamps.add(now);
+        }
+    }
+
+    /**
+     * Complete buffered commands that exceeded the disconnected buffer timeout with an error. Must be called while holding
+     * the write lock.
+     */
+    private void expireBufferedCommands(long now) {
+
+        if (disconnectedBufferTimeoutNanos <= 0) {
+            return;
+        }
+
+        while (!bufferTimestamps.isEmpty() && now - bufferTimestamps.peekFirst() > disconnectedBufferTimeoutNanos) {
+            bufferTimestamps.pollFirst();
+            RedisCommand<K, V, ?> cmd = commandBuffer.poll();
+            releaseCapacity(permits(cmd));
+
+            if (logger.isDebugEnabled()) {
+                logger.debug("[" + this + "] expired buffered Command " + cmd);
+            }
+
+            if (cmd.getOutput() != null) {
+                cmd.getOutput().setError("Command expired while disconnected");
+            }
+            cmd.complete();
+        }
+    }
+
+    /**
+     * Complete commands that were written before the disconnect but not answered with an error if the connection was
+     * disconnected for longer than the disconnected buffer timeout. These commands are re-queued on reconnect and wait at
+     * least since the disconnect. Must be called while holding the write lock.
+     */
+    private void expireQueuedCommands(long now) {
+
+        if (disconnectedBufferTimeoutNanos <= 0 || !disconnected || now - disconnectedAt <= disconnectedBufferTimeoutNanos) {
+            return;
+        }
+
+        RedisCommand<K, V, ?> cmd;
+        while ((cmd = queue.poll()) != null) {
+            releaseCapacity(permits(cmd));
+
+            if (logger.isDebugEnabled()) {
+                logger.debug("[" + this + "] expired queued Command " + cmd);
+            }
+
+            if (cmd.getOutput() != null) {
+                cmd.getOutput().setError("Command expired while disconnected");
+            }
+            cmd.complete();
+        }
+    }
+
+    /**
+     * Reserve capacity for a command according to the request queue size and the writability of the channel.
+     * 
+     * @throws RedisException if the command cannot be accepted.
+     */
+    private void acquireCapacity(int permits) throws InterruptedException {
+
+        boolean block = clientOptions.getBackpressurePolicy() == ClientOptions.BackpressurePolicy.BLOCK;
+        Channel channel = this.channel.get();
+
+        if (block && channel != null && channel.eventLoop().inEventLoop()) {
+            // never block the I/O thread, it is required to free capacity.
+            block = false;
+        }
+
+        long deadline = System.nanoTime()
+                + clientOptions.getBackpressureTimeoutUnit().toNanos(clientOptions.getBackpressureTimeout());
+
+        if (clientOptions.isWritabilityBackpressure()) {
+            awaitWritable(block, deadline);
+        }
+
+        if (requestPermits != null) {
+            boolean acquired;
+            if (block) {
+                acquired = requestPermits.tryAcquire(permits, Math.max(0, deadline - System.nanoTime()),
+                        TimeUnit.NANOSECONDS);
+            } else {
+                acquired = requestPermits.tryAcquire(permits);
+            }
+
+            if (!acquired) {
+                throw new RedisException("Request queue size exceeded: " + clientOptions.getRequestQueueSize()
+                        + " commands pending");
+            }
+        }
+
+        pendingCommands.addAndGet(permits);
+    }
+
+    private void awaitWritable(boolean block, long deadline) throws InterruptedException {
+
+        Channel channel = this.channel.get();
+        if (channel == null || channel.isWritable()) {
+            return;
+        }
+
+        if (!block) {
+            throw new RedisException("Channel is not writable");
+        }
+
+        synchronized (writabilityMonitor) {
+            while (channel.isActive() && !channel.isWritable()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new RedisException("Channel is not writable");
+                }
+                TimeUnit.NANOSECONDS.timedWait(writabilityMonitor, remaining);
+            }
+        }
+    }
+
+    /**
+     * Release the capacity of a command that is no longer pending. Subclasses must call this method for every command taken
+     * from the {@link #queue}.
+     */
+    protected void releaseCapacity() {
+        releaseCapacity(1);
+    }
+
+    private void releaseCapacity(int permits) {
+        pendingCommands.addAndGet(-permits);
+        if (requestPermits != null) {
+            requestPermits.release(permits);
+        }
+    }
+
+    /**
+     * Every command of a {@link CommandBatch} is queued and released individually, so a batch holds one permit per command.
+     */
+    private static int permits(RedisCommand<?, ?, ?> command) {
+        return command instanceof CommandBatch ? ((CommandBatch<?, ?, ?>) command).size() : 1;
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        synchronized (writabilityMonitor) {
+            writabilityMonitor.notifyAll();
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+
     /**
      * 
      * @see io.netty.channel.ChannelDuplexHandler#write(io.netty.channel.ChannelHandlerContext, java.lang.Object,
@@ -161,21 +442,51 @@ public class CommandHandler<K, V> extends ChannelDuplexHandler implements RedisC
     public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
 
         final RedisCommand<K, V, ?> cmd = (RedisCommand<K, V, ?>) msg;
-        ByteBuf buf = ctx.alloc().heapBuffer();
-        cmd.encode(buf);
+        ByteBuf buf = allocateBuffer(ctx);
+        try {
+            cmd.encode(buf);
+        } catch (RuntimeException e) {
+            // the command is neither queued nor written, so it releases its capacity and completes here.
+            buf.release();
+            releaseCapacity(permits(cmd));
+            cmd.setException(e);
+            cmd.complete();
+            throw e;
+        }
+
+        try {
+            if (cmd instanceof CommandBatch) {
+                queueBatch((CommandBatch<K, V, ?>) cmd);
+            } else if (cmd.getOutput() != null) {
+                queue.put(cmd);
+            }
+        } catch (Exception e) {
+            // the buffer is released by the transport once it is written, release it here if it is not passed on.
+            buf.release();
+            throw e;
+        }
 
         if (logger.isTraceEnabled()) {
             logger.trace("[" + ctx.channel().remoteAddress() + "] Sent: " + buf.toString(Charset.defaultCharset()).trim());
         }
 
-        if (cmd.getOutput() == null) {
-            ctx.write(buf, promise);
+        ctx.write(buf, promise);
+
+        if (cmd.getOutput() == null && !(cmd instanceof CommandBatch)) {
+            releaseCapacity();
             cmd.complete();
-        } else {
-            queue.put(cmd);
-            ctx.write(buf, promise);
         }
+    }
 
+    private void queueBatch(CommandBatch<K, V, ?> batch) throws InterruptedException {
+        for (RedisCommand<K, V, ?> command : batch.getCommands()) {
+            if (command.getOutput() != null) {
+                queue.put(command);
+            } else {
+                releaseCapacity();
+                command.complete();
+            }
+        }
     }
 
     /**
@@ -190,13 +501,20 @@ public class CommandHandler<K, V> extends ChannelDuplexHandler implements RedisC
         try {
             writeLock.lock();
 
+            long now = System.nanoTime();
+            expireBufferedCommands(now);
+            expireQueuedCommands(now);
+
             tmp.addAll(commandBuffer);
             tmp.addAll(queue);
 
             queue.clear();
             commandBuffer.clear();
+            bufferTimestamps.clear();
 
             this.channel.set(ctx.channel());
+            wasActive = true;
+            disconnected = false;
 
             if (redisChannelHandler != null) {
                 redisChannelHandler.activated();
@@ -213,6 +531,8 @@ public class CommandHandler<K, V> extends ChannelDuplexHandler implements RedisC
                     logger.debug("[" + this + "] channelActive() triggering command " + cmd);
                 }
                 ctx.channel().writeAndFlush(cmd);
+            } else {
+                releaseCapacity(permits(cmd));
             }
         }
 
@@ -229,7 +549,15 @@ public class CommandHandler<K, V> extends ChannelDuplexHandler implements RedisC
     @Override
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
         logger.debug("[" + this + "] channelInactive()");
-        this.channel.set(null);
+
+        try {
+            writeLock.lock();
+            this.channel.set(null);
+            disconnectedAt = System.nanoTime();
+            disconnected = true;
+        } finally {
+            writeLock.unlock();
+        }
 
         if (closed) {
 
@@ -243,6 +571,7 @@ public class CommandHandler<K, V> extends ChannelDuplexHandler implements RedisC
 
             commandBuffer.clear();
             commandBuffer = null;
+            bufferTimestamps.clear();
 
             for (RedisCommand<K, V, ?> cmd : toCancel) {
                 if (cmd.getOutput() != null) {
@@ -304,6 +633,41 @@ public class CommandHandler<K, V> extends ChannelDuplexHandler implements RedisC
         return closed;
     }
 
+    /**
+     * 
+     * @return the number of commands that were written and await a response.
+     */
+    public int getQueueSize() {
+        BlockingQueue<RedisCommand<K, V, ?>> queue = this.queue;
+        return queue != null ? queue.size() : 0;
+    }
+
+    /**
+     * 
+     * @return the number of commands that are buffered while the connection is disconnected.
+     */
+    public int getBufferedCommandCount() {
+        BlockingQueue<RedisCommand<K, V, ?>> commandBuffer = this.commandBuffer;
+        return commandBuffer != null ? commandBuffer.size() : 0;
+    }
+
+    /**
+     * 
+     * @return the number of pending commands (buffered, written or awaiting a response).
+     */
+    public int getPendingCommandCount() {
+        return pendingCommands.get();
+    }
+
+    /**
+     * 
+     * @return true if the connection is active and the outbound buffer is below the write buffer high water mark.
+     */
+    public boolean isWritable() {
+        Channel channel = this.channel.get();
+        return channel != null && channel.isWritable();
+    }
+
     @Override
     public void setRedisChannelHandler(RedisChannelHandler<K, V> redisChannelHandler) {
         this.redisChannelHandler = redisChannelHandler;
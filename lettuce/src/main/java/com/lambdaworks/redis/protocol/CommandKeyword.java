@@ -8,7 +8,7 @@ package com.lambdaworks.redis.protocol;
  * @author Will Glozer
  */
 public enum CommandKeyword {
-    ADDR, ADDSLOTS, AFTER, AGGREGATE, ALPHA, AND, ASC, BEFORE, BY, CHANNELS, COUNT, DELSLOTS, DESC, SOFT, HARD, ENCODING,
+    ADDR, ADDSLOTS, AFTER, AGGREGATE, ALPHA, AND, ASC, ASK, BEFORE, BY, CHANNELS, COUNT, DELSLOTS, DESC, SOFT, HARD, ENCODING,
 
     FAILOVER, FORGET, FLUSH, FORCE, FLUSHSLOTS, GETNAME, GETKEYSINSLOT, ID, IDLETIME, KILL, LEN, LIMIT, LIST, LOAD, MATCH,
 
@@ -16,6 +16,15 @@ import com.lambdaworks.redis.codec.RedisCodec;
  * @author Will Glozer
  */
 public abstract class CommandOutput<K, V, T> {
+
+    /**
+     * Mantissas with up to 15 digits and powers of ten up to 10^15 are exact doubles, so a single division is rounded
+     * correctly.
+     */
+    private static final int MAX_EXACT_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13,
+            1e14, 1e15 };
+
     protected RedisCodec<K, V> codec;
     protected T output;
     protected String error;
@@ -106,6 +115,60 @@ public abstract class CommandOutput<K, V, T> {
         // nothing to do by default
     }
 
+    /**
+     * Parse a double from its ASCII representation without creating a {@link String}. Decimals with up to 15 significant
+     * digits are parsed exactly; other representations (exponents, more digits) fall back to
+     * {@link Double#parseDouble(String)}. {@code inf}, {@code +inf} and {@code -inf} are parsed as infinity.
+     * 
+     * @param bytes the bytes, must not be {@literal null}
+     * @return the parsed double.
+     */
+    protected double decodeDouble(ByteBuffer bytes) {
+
+        int end = bytes.limit();
+        int i = bytes.position();
+        boolean negative = false;
+
+        if (i < end && (bytes.get(i) == '-' || bytes.get(i) == '+')) {
+            negative = bytes.get(i) == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fraction = -1;
+
+        for (; i < end; i++) {
+            byte b = bytes.get(i);
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (fraction != -1) {
+                    fraction++;
+                }
+            } else if (b == '.' && fraction == -1) {
+                fraction = 0;
+            } else {
+                break;
+            }
+        }
+
+        if (i != end || digits == 0 || digits > MAX_EXACT_DIGITS) {
+            String value = decodeAscii(bytes);
+            if ("inf".equals(value) || "+inf".equals(value)) {
+                return Double.POSITIVE_INFINITY;
+            }
+            if ("-inf".equals(value)) {
+                return Double.NEGATIVE_INFINITY;
+            }
+            return Double.parseDouble(value);
+        }
+
+        bytes.position(end);
+        double value = fraction > 0 ? mantissa / POWERS_OF_TEN[fraction] : mantissa;
+        return negative ? -value : value;
+    }
+
     protected String decodeAscii(ByteBuffer bytes) {
         char[] chars = new char[bytes.remaining()];
         for (int i = 0; i < chars.length; i++) {
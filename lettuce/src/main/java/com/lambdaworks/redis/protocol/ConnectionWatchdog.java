@@ -3,12 +3,20 @@
 package com.lambdaworks.redis.protocol;
 
 import java.net.SocketAddress;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
 import com.google.common.base.Supplier;
+import com.lambdaworks.redis.ClientOptions;
+import com.lambdaworks.redis.metrics.MetricsCollector;
 
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
@@ -23,6 +31,9 @@ import io.netty.util.internal.logging.InternalLoggerFactory;
 
 /**
  * A netty {@link ChannelHandler} responsible for monitoring the channel and reconnecting when the connection is lost.
+ * Reconnect attempts are delayed using a capped exponential backoff with optional full jitter (see
+ * {@link ClientOptions#getReconnectBaseDelay()}). Reconnecting never blocks the {@link Timer} thread: The connect is
+ * asynchronous and resolving the address using the {@code socketAddressSupplier} is performed by the reconnect workers.
  * 
  * @author Will Glozer
  */
@@ -30,17 +41,27 @@ import io.netty.util.internal.logging.InternalLoggerFactory;
 public class ConnectionWatchdog extends ChannelInboundHandlerAdapter implements TimerTask {
 
     private static final InternalLogger logger = InternalLoggerFactory.getInstance(ConnectionWatchdog.class);
+    private static final Random RANDOM = new Random();
+    private static final int MAX_BACKOFF_SHIFT = 30;
     public static final long LOGGING_QUIET_TIME_MS = TimeUnit.MILLISECONDS.convert(5, TimeUnit.SECONDS);
 
+    /**
+     * @deprecated the backoff is capped by {@link ClientOptions#getReconnectMaxDelay()}.
+     */
+    @Deprecated
     public static final int RETRY_TIMEOUT_MAX = 14;
+    private final ClientOptions clientOptions;
+    private final Executor reconnectWorkers;
+    private final Semaphore reconnectPermits;
     private Bootstrap bootstrap;
-    private Channel channel;
+    private volatile Channel channel;
     private Timer timer;
-    private boolean reconnect;
-    private int attempts;
-    private SocketAddress remoteAddress;
+    private volatile boolean reconnect;
+    private volatile int attempts;
+    private volatile SocketAddress remoteAddress;
     private Supplier<SocketAddress> socketAddressSupplier;
-    private long lastReconnectionLogging = -1;
+    private volatile long lastReconnectionLogging = -1;
+    private MetricsCollector metricsCollector;
 
     /**
      * Create a new watchdog that adds to new connections to the supplied {@link ChannelGroup} and establishes a new
@@ -62,14 +83,44 @@ public class ConnectionWatchdog extends ChannelInboundHandlerAdapter implements
      * @param socketAddressSupplier
      */
     public ConnectionWatchdog(Bootstrap bootstrap, Timer timer, Supplier<SocketAddress> socketAddressSupplier) {
+        this(ClientOptions.create(), bootstrap, timer, null, null, socketAddressSupplier);
+    }
+
+    /**
+     * Create a new watchdog that adds to new connections to the supplied {@link ChannelGroup} and establishes a new
+     * {@link Channel} when disconnected, while reconnect is true. The socketAddressSupplier can supply the reconnect address.
+     * 
+     * @param clientOptions client options that provide the reconnect backoff.
+     * @param bootstrap Configuration for new channels.
+     * @param timer Timer used for delayed reconnect.
+     * @param reconnectWorkers Executor used to resolve the reconnect address, may be {@literal null} to resolve the address on
+     *        the timer thread.
+     * @param reconnectPermits Permits to limit the number of concurrent reconnect attempts, may be {@literal null}.
+     * @param socketAddressSupplier
+     */
+    public ConnectionWatchdog(ClientOptions clientOptions, Bootstrap bootstrap, Timer timer, Executor reconnectWorkers,
+            Semaphore reconnectPermits, Supplier<SocketAddress> socketAddressSupplier) {
+        this.clientOptions = clientOptions;
         this.bootstrap = bootstrap;
         this.timer = timer;
+        this.reconnectWorkers = reconnectWorkers;
+        this.reconnectPermits = reconnectPermits;
+        this.socketAddressSupplier = socketAddressSupplier;
     }
 
     public void setReconnect(boolean reconnect) {
         this.reconnect = reconnect;
     }
 
+    /**
+     * Set the {@link MetricsCollector} to record reconnects.
+     * 
+     * @param metricsCollector the metrics collector, may be {@literal null} to disable metrics.
+     */
+    public void setMetricsCollector(MetricsCollector metricsCollector) {
+        this.metricsCollector = metricsCollector;
+    }
+
     @Override
     public void channelActive(ChannelHandlerContext ctx) throws Exception {
         channel = ctx.channel();
@@ -89,18 +140,43 @@ public class ConnectionWatchdog extends ChannelInboundHandlerAdapter implements
     }
 
     private void scheduleReconnect() {
-        if (channel == null || !channel.isActive()) {
-            if (attempts < RETRY_TIMEOUT_MAX) {
+        Channel channel = this.channel;
+        if (reconnect && (channel == null || !channel.isActive())) {
+            if (attempts < MAX_BACKOFF_SHIFT) {
                 attempts++;
             }
-            int timeout = 2 << attempts;
-            timer.newTimeout(this, timeout, TimeUnit.MILLISECONDS);
+            timer.newTimeout(this, getReconnectDelay(attempts), clientOptions.getReconnectDelayUnit());
         }
     }
 
+    /**
+     * Calculate the delay of a reconnect attempt: {@code base * 2^attempt}, capped at the maximum delay. With jitter, the delay
+     * is a random value between zero and the capped delay.
+     * 
+     * @param attempt the reconnect attempt, starting at 1.
+     * @return the delay in {@link ClientOptions#getReconnectDelayUnit()}.
+     */
+    protected long getReconnectDelay(int attempt) {
+
+        long maxDelay = clientOptions.getReconnectMaxDelay();
+        int shift = Math.min(attempt, MAX_BACKOFF_SHIFT);
+        long delay = clientOptions.getReconnectBaseDelay() << shift;
+
+        if (delay <= 0 || delay > maxDelay || (delay >> shift) != clientOptions.getReconnectBaseDelay()) {
+            delay = maxDelay;
+        }
+
+        if (clientOptions.isReconnectJitter()) {
+            return (long) (RANDOM.nextDouble() * (delay + 1));
+        }
+
+        return delay;
+    }
+
     /**
      * Reconnect to the remote address that the closed channel was connected to. This creates a new {@link ChannelPipeline} with
-     * the same handler instances contained in the old channel's pipeline.
+     * the same handler instances contained in the old channel's pipeline. The reconnect attempt is deferred to the next
+     * backoff interval if the client exceeds its reconnect concurrency.
      * 
      * @param timeout Timer task handle.
      * 
@@ -109,18 +185,51 @@ public class ConnectionWatchdog extends ChannelInboundHandlerAdapter implements
     @Override
     public void run(Timeout timeout) throws Exception {
 
+        if (!reconnect) {
+            return;
+        }
+
+        if (reconnectPermits != null && !reconnectPermits.tryAcquire()) {
+            logger.debug("Deferring reconnect to " + remoteAddress + ", too many concurrent reconnects");
+            scheduleReconnect();
+            return;
+        }
+
+        if (socketAddressSupplier == null || reconnectWorkers == null) {
+            reconnect();
+            return;
+        }
+
+        try {
+            reconnectWorkers.execute(new Runnable() {
+                @Override
+                public void run() {
+                    reconnect();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            releasePermit();
+            logger.debug("Cannot reconnect: " + e.toString());
+        }
+    }
+
+    private void reconnect() {
+
         boolean shouldLog = shouldLog();
 
         InternalLogLevel infoLevel = InternalLogLevel.INFO;
-        InternalLogLevel warnLevel = InternalLogLevel.WARN;
+        final InternalLogLevel warnLevel;
 
         if (shouldLog) {
             lastReconnectionLogging = System.currentTimeMillis();
+            warnLevel = InternalLogLevel.WARN;
         } else {
             warnLevel = InternalLogLevel.DEBUG;
             infoLevel = InternalLogLevel.DEBUG;
         }
 
+        final InternalLogLevel reconnectedLevel = infoLevel;
+
         try {
             logger.log(infoLevel, "Reconnecting, last destination was " + remoteAddress);
             if (socketAddressSupplier != null) {
@@ -131,13 +240,36 @@ public class ConnectionWatchdog extends ChannelInboundHandlerAdapter implements
                 }
             }
 
-            bootstrap.connect(remoteAddress).sync().await();
-            logger.log(infoLevel, "Reconnected to " + remoteAddress);
+            final SocketAddress address = remoteAddress;
+            ChannelFuture connect = bootstrap.connect(address);
+            connect.addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture future) throws Exception {
+                    releasePermit();
+
+                    if (future.isSuccess()) {
+                        logger.log(reconnectedLevel, "Reconnected to " + address);
+                        if (metricsCollector != null) {
+                            metricsCollector.recordReconnect(address);
+                        }
+                        return;
+                    }
+
+                    logger.log(warnLevel, "Cannot connect: " + future.cause());
+                    scheduleReconnect();
+                }
+            });
         } catch (Exception e) {
+            releasePermit();
             logger.log(warnLevel, "Cannot connect: " + e.toString());
             scheduleReconnect();
         }
+    }
 
+    private void releasePermit() {
+        if (reconnectPermits != null) {
+            reconnectPermits.release();
+        }
     }
 
     private boolean shouldLog() {
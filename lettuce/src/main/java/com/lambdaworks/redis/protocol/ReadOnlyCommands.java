@@ -0,0 +1,44 @@
+package com.lambdaworks.redis.protocol;
+
+import static com.lambdaworks.redis.protocol.CommandType.*;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Classification of {@link CommandType command types} that only read data. Read-only commands do not change the data set and
+ * are therefore idempotent: They can be retried, sent to a replica or served from a previous response.
+ *
+ * @author <a href="mailto:mpaluch@paluch.biz">Mark Paluch</a>
+ * @since 3.0
+ */
+public class ReadOnlyCommands {
+
+    private static final Set<CommandType> READ_ONLY_COMMANDS = EnumSet.of(ECHO, PING, DBSIZE, TIME, DUMP, EXISTS, KEYS, PTTL,
+            RANDOMKEY, TTL, TYPE, SCAN, GET, GETRANGE, MGET, STRLEN, LINDEX, LLEN, LRANGE, HEXISTS, HGET, HGETALL, HKEYS, HLEN,
+            HMGET, HVALS, HSCAN, PFCOUNT, SCARD, SDIFF, SINTER, SISMEMBER, SMEMBERS, SRANDMEMBER, SUNION, SSCAN, ZCARD, ZCOUNT,
+            ZRANGE, ZRANGEBYSCORE, ZRANK, ZREVRANGE, ZREVRANGEBYSCORE, ZREVRANK, ZSCORE, ZSCAN, ZLEXCOUNT, ZRANGEBYLEX,
+            BITCOUNT, GETBIT, BITPOS);
+
+    private ReadOnlyCommands() {
+
+    }
+
+    /**
+     *
+     * @param type the command type, may be {@literal null}
+     * @return {@literal true} if the command only reads data.
+     */
+    public static boolean isReadOnlyCommand(CommandType type) {
+        return type != null && READ_ONLY_COMMANDS.contains(type);
+    }
+
+    /**
+     *
+     * @return an immutable view of the read-only command types.
+     */
+    public static Set<CommandType> getReadOnlyCommands() {
+        return Collections.unmodifiableSet(READ_ONLY_COMMANDS);
+    }
+}
@@ -13,6 +13,13 @@ import io.netty.buffer.ByteBuf;
  */
 public interface RedisCommand<K, V, T> extends ListenableFuture<T>, RedisFuture<T> {
 
+    /**
+     * The command type.
+     * 
+     * @return CommandType
+     */
+    CommandType getType();
+
     /**
      * The command output. Can be null.
      * 
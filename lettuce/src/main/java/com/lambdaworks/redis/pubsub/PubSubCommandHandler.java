@@ -4,6 +4,7 @@ package com.lambdaworks.redis.pubsub;
 
 import java.util.concurrent.BlockingQueue;
 
+import com.lambdaworks.redis.ClientOptions;
 import com.lambdaworks.redis.codec.RedisCodec;
 import com.lambdaworks.redis.protocol.CommandHandler;
 import com.lambdaworks.redis.protocol.CommandOutput;
@@ -25,6 +26,8 @@ import io.netty.channel.ChannelHandlerContext;
 public class PubSubCommandHandler<K, V> extends CommandHandler<K, V> {
     private RedisCodec<K, V> codec;
     private PubSubOutput<K, V> output;
+    private volatile RedisPubSubConnection.MessageDelivery messageDelivery = RedisPubSubConnection.MessageDelivery.SINGLE;
+    private PubSubMessageBatch<K, V> batch;
 
     /**
      * Initialize a new instance.
@@ -33,7 +36,19 @@ public class PubSubCommandHandler<K, V> extends CommandHandler<K, V> {
      * @param codec Codec.
      */
     public PubSubCommandHandler(BlockingQueue<RedisCommand<K, V, ?>> queue, RedisCodec<K, V> codec) {
-        super(queue);
+        this(ClientOptions.create(), queue, codec);
+    }
+
+    /**
+     * Initialize a new instance.
+     * 
+     * @param clientOptions client options for this connection.
+     * @param queue Command queue.
+     * @param codec Codec.
+     */
+    public PubSubCommandHandler(ClientOptions clientOptions, BlockingQueue<RedisCommand<K, V, ?>> queue,
+            RedisCodec<K, V> codec) {
+        super(clientOptions, queue);
         this.codec = codec;
         this.output = new PubSubOutput<K, V>(codec);
     }
@@ -45,16 +60,76 @@ public class PubSubCommandHandler<K, V> extends CommandHandler<K, V> {
             if (!rsm.decode(buffer, output)) {
                 return;
             }
-            queue.take().complete();
+            RedisCommand<K, V, ?> command = queue.take();
+            releaseCapacity();
+            command.complete();
             if (output instanceof PubSubOutput) {
                 ctx.fireChannelRead(output);
             }
         }
 
+        RedisPubSubConnection.MessageDelivery messageDelivery = this.messageDelivery;
+        boolean raw = messageDelivery == RedisPubSubConnection.MessageDelivery.RAW_BATCH;
+
+        // the delivery mode can only change between elements of the stream.
+        if (output.type() == null && output.isRaw() != raw) {
+            output = new PubSubOutput<K, V>(codec, raw);
+        }
+
+        if (messageDelivery != RedisPubSubConnection.MessageDelivery.SINGLE) {
+            decodeBatch(ctx, buffer);
+            return;
+        }
+
         while (rsm.decode(buffer, output)) {
             ctx.fireChannelRead(output);
             output = new PubSubOutput<K, V>(codec);
         }
+
+        buffer.discardReadBytes();
     }
 
+    /**
+     * Decode all complete messages into the reusable batch and deliver the batch once per read. Subscription notifications
+     * are delivered individually, the batch is flushed before to retain the order.
+     */
+    private void decodeBatch(ChannelHandlerContext ctx, ByteBuf buffer) {
+
+        boolean raw = output.isRaw();
+        if (batch == null || batch.isRaw() != raw) {
+            batch = new PubSubMessageBatch<K, V>(raw);
+        }
+
+        // raw payloads are views of the receive buffer which is not modified until decoding completes.
+        while (rsm.decode(buffer, output)) {
+            if (output.isMessage()) {
+                batch.add(output);
+                output.reset();
+            } else {
+                flushBatch(ctx);
+                ctx.fireChannelRead(output);
+                output = new PubSubOutput<K, V>(codec, raw);
+            }
+        }
+
+        flushBatch(ctx);
+        buffer.discardReadBytes();
+    }
+
+    private void flushBatch(ChannelHandlerContext ctx) {
+        if (batch.size() != 0) {
+            ctx.fireChannelRead(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Set the message delivery mode. Internal access only, use
+     * {@link RedisPubSubConnection#setMessageDelivery(RedisPubSubConnection.MessageDelivery)}.
+     * 
+     * @param messageDelivery the message delivery mode
+     */
+    public void setMessageDelivery(RedisPubSubConnection.MessageDelivery messageDelivery) {
+        this.messageDelivery = messageDelivery;
+    }
 }
@@ -0,0 +1,133 @@
+package com.lambdaworks.redis.pubsub;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Messages of the pub/sub stream that were received with one read. The batch is reused for the next read: Listeners must
+ * not keep a reference to the batch or its raw payload buffers after returning from
+ * {@link RedisPubSubBatchListener#messages(PubSubMessageBatch)}.
+ * 
+ * In {@link RedisPubSubConnection.MessageDelivery#RAW_BATCH raw mode} message payloads are not decoded, {@link #getMessage}
+ * returns {@literal null} and {@link #getRawMessage} returns the payload as it was received.
+ * 
+ * @param <K> Key type.
+ * @param <V> Value type.
+ * @author <a href="mailto:mpaluch@paluch.biz">Mark Paluch</a>
+ * @since 3.0
+ */
+public class PubSubMessageBatch<K, V> {
+
+    private final boolean raw;
+    private final List<K> patterns;
+    private final List<K> channels;
+    private final List<V> messages;
+    private final List<ByteBuffer> rawMessages;
+
+    PubSubMessageBatch(boolean raw) {
+        this(raw, 16);
+    }
+
+    private PubSubMessageBatch(boolean raw, int capacity) {
+        this.raw = raw;
+        this.patterns = new ArrayList<K>(capacity);
+        this.channels = new ArrayList<K>(capacity);
+        this.messages = raw ? null : new ArrayList<V>(capacity);
+        this.rawMessages = raw ? new ArrayList<ByteBuffer>(capacity) : null;
+    }
+
+    /**
+     * 
+     * @return the number of messages in this batch.
+     */
+    public int size() {
+        return channels.size();
+    }
+
+    /**
+     * 
+     * @return true if message payloads are not decoded.
+     */
+    public boolean isRaw() {
+        return raw;
+    }
+
+    /**
+     * 
+     * @param index message index
+     * @return the pattern that matched the channel or {@literal null} if the message was received from a channel
+     *         subscription.
+     */
+    public K getPattern(int index) {
+        return patterns.get(index);
+    }
+
+    /**
+     * 
+     * @param index message index
+     * @return the channel the message was published to.
+     */
+    public K getChannel(int index) {
+        return channels.get(index);
+    }
+
+    /**
+     * 
+     * @param index message index
+     * @return the decoded message or {@literal null} in raw mode.
+     */
+    public V getMessage(int index) {
+        return raw ? null : messages.get(index);
+    }
+
+    /**
+     * 
+     * @param index message index
+     * @return the undecoded payload in raw mode, {@literal null} otherwise. The buffer is only valid during the listener
+     *         call.
+     */
+    public ByteBuffer getRawMessage(int index) {
+        return raw ? rawMessages.get(index) : null;
+    }
+
+    void add(PubSubOutput<K, V> output) {
+        patterns.add(output.type() == PubSubOutput.Type.pmessage ? output.pattern() : null);
+        channels.add(output.channel());
+        if (raw) {
+            rawMessages.add(output.rawMessage());
+        } else {
+            messages.add(output.get());
+        }
+    }
+
+    void clear() {
+        patterns.clear();
+        channels.clear();
+        if (raw) {
+            rawMessages.clear();
+        } else {
+            messages.clear();
+        }
+    }
+
+    /**
+     * 
+     * @return a copy of this batch that can be used after the next read. Raw payloads are copied.
+     */
+    PubSubMessageBatch<K, V> copy() {
+        PubSubMessageBatch<K, V> copy = new PubSubMessageBatch<K, V>(raw, size());
+        copy.patterns.addAll(patterns);
+        copy.channels.addAll(channels);
+        if (raw) {
+            for (ByteBuffer rawMessage : rawMessages) {
+                ByteBuffer buffer = ByteBuffer.allocate(rawMessage.remaining());
+                buffer.put(rawMessage.duplicate()).flip();
+                copy.rawMessages.add(buffer);
+            }
+        } else {
+            copy.messages.addAll(messages);
+        }
+        return copy;
+    }
+}
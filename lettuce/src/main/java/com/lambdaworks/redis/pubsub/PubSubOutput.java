@@ -23,11 +23,24 @@ public class PubSubOutput<K, V> extends CommandOutput<K, V, V> {
     private K channel;
     private K pattern;
     private long count;
+    private boolean raw;
+    private ByteBuffer rawMessage;
 
     public PubSubOutput(RedisCodec<K, V> codec) {
         super(codec, null);
     }
 
+    /**
+     * Create an output that keeps the payload of messages as {@link ByteBuffer} instead of decoding it with the codec.
+     * 
+     * @param codec Codec.
+     * @param raw {@literal true} to keep the raw payload.
+     */
+    PubSubOutput(RedisCodec<K, V> codec, boolean raw) {
+        super(codec, null);
+        this.raw = raw;
+    }
+
     public Type type() {
         return type;
     }
@@ -44,6 +57,43 @@ public class PubSubOutput<K, V> extends CommandOutput<K, V, V> {
         return count;
     }
 
+    /**
+     * 
+     * @return the undecoded message payload if the output was created in raw mode. The buffer is a view of the receive buffer
+     *         and only valid until the next read.
+     */
+    ByteBuffer rawMessage() {
+        return rawMessage;
+    }
+
+    /**
+     * 
+     * @return true if message payloads are not decoded.
+     */
+    boolean isRaw() {
+        return raw;
+    }
+
+    /**
+     * 
+     * @return true if the output is a channel or pattern message.
+     */
+    boolean isMessage() {
+        return type == Type.message || type == Type.pmessage;
+    }
+
+    /**
+     * Reset the output to decode the next element of the pub/sub stream.
+     */
+    void reset() {
+        type = null;
+        channel = null;
+        pattern = null;
+        count = 0;
+        output = null;
+        rawMessage = null;
+    }
+
     @Override
     @SuppressWarnings("fallthrough")
     public void set(ByteBuffer bytes) {
@@ -63,7 +113,11 @@ public class PubSubOutput<K, V> extends CommandOutput<K, V, V> {
                     channel = codec.decodeKey(bytes);
                     break;
                 }
-                output = codec.decodeValue(bytes);
+                if (raw) {
+                    rawMessage = bytes;
+                } else {
+                    output = codec.decodeValue(bytes);
+                }
                 break;
             case psubscribe:
             case punsubscribe:
@@ -0,0 +1,23 @@
+package com.lambdaworks.redis.pubsub;
+
+/**
+ * Listener for messages of a single channel or pattern subscription. Register it with
+ * {@link RedisPubSubConnection#addMessageListener(Object, RedisMessageListener)} or
+ * {@link RedisPubSubConnection#addPatternListener(Object, RedisMessageListener)} to receive only the messages of the
+ * channel respective pattern.
+ * 
+ * @param <K> Key type.
+ * @param <V> Value type.
+ * @author <a href="mailto:mpaluch@paluch.biz">Mark Paluch</a>
+ * @since 3.0
+ */
+public interface RedisMessageListener<K, V> {
+
+    /**
+     * Message received from a channel or pattern subscription.
+     * 
+     * @param channel Channel the message was published to.
+     * @param message Message.
+     */
+    void message(K channel, V message);
+}
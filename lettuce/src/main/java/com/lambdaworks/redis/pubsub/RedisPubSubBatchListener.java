@@ -0,0 +1,21 @@
+package com.lambdaworks.redis.pubsub;
+
+/**
+ * Listener for batches of pub/sub messages. Batches are delivered if the connection uses
+ * {@link RedisPubSubConnection.MessageDelivery#BATCH} or {@link RedisPubSubConnection.MessageDelivery#RAW_BATCH} message
+ * delivery.
+ * 
+ * @param <K> Key type.
+ * @param <V> Value type.
+ * @author <a href="mailto:mpaluch@paluch.biz">Mark Paluch</a>
+ * @since 3.0
+ */
+public interface RedisPubSubBatchListener<K, V> {
+
+    /**
+     * Messages received with one read. The batch is reused after this method returns.
+     * 
+     * @param batch the messages
+     */
+    void messages(PubSubMessageBatch<K, V> batch);
+}
@@ -1,5 +1,8 @@
 package com.lambdaworks.redis.pubsub;
 
+import java.util.Set;
+import java.util.concurrent.Executor;
+
 import com.lambdaworks.redis.RedisAsyncConnection;
 
 /**
@@ -24,6 +27,113 @@ public interface RedisPubSubConnection<K, V> extends RedisAsyncConnection<K, V>
      */
     void removeListener(RedisPubSubListener<K, V> listener);
 
+    /**
+     * Add a listener for messages published to a channel. The listener only receives messages of {@code channel}, messages
+     * are routed without notifying listeners of other channels. The channel must be subscribed using {@link #subscribe}.
+     * 
+     * @param channel the channel
+     * @param listener Listener.
+     */
+    void addMessageListener(K channel, RedisMessageListener<K, V> listener);
+
+    /**
+     * Remove a listener for messages published to a channel.
+     * 
+     * @param channel the channel
+     * @param listener Listener.
+     */
+    void removeMessageListener(K channel, RedisMessageListener<K, V> listener);
+
+    /**
+     * Add a listener for messages received from a pattern subscription. The listener only receives messages that matched
+     * {@code pattern}. The pattern must be subscribed using {@link #psubscribe}.
+     * 
+     * @param pattern the pattern
+     * @param listener Listener.
+     */
+    void addPatternListener(K pattern, RedisMessageListener<K, V> listener);
+
+    /**
+     * Remove a listener for messages received from a pattern subscription.
+     * 
+     * @param pattern the pattern
+     * @param listener Listener.
+     */
+    void removePatternListener(K pattern, RedisMessageListener<K, V> listener);
+
+    /**
+     * 
+     * @return a snapshot of the subscribed channels.
+     */
+    Set<K> getChannels();
+
+    /**
+     * 
+     * @return a snapshot of the subscribed patterns.
+     */
+    Set<K> getPatterns();
+
+    /**
+     * Add a listener for batches of messages. Batches are only delivered in {@link MessageDelivery#BATCH} and
+     * {@link MessageDelivery#RAW_BATCH} mode.
+     * 
+     * @param listener Listener.
+     */
+    void addBatchListener(RedisPubSubBatchListener<K, V> listener);
+
+    /**
+     * Remove a batch listener.
+     * 
+     * @param listener Listener.
+     */
+    void removeBatchListener(RedisPubSubBatchListener<K, V> listener);
+
+    /**
+     * Set how messages are delivered to listeners. Defaults to {@link MessageDelivery#SINGLE}.
+     * 
+     * @param messageDelivery the message delivery mode, must not be {@literal null}
+     */
+    void setMessageDelivery(MessageDelivery messageDelivery);
+
+    /**
+     * Buffer messages per channel respective pattern subscription in a bounded queue. Messages are delivered to
+     * {@link RedisPubSubListener}s and {@link RedisMessageListener}s by the {@link #setDispatchExecutor dispatch executor},
+     * one drain task per subscription so the message order of a subscription is retained. Subscription notifications and
+     * batches are not buffered.
+     * 
+     * @param capacity maximum number of buffered messages per subscription, {@literal 0} to disable buffering
+     * @param overflowPolicy behavior if a buffer is full, must not be {@literal null}
+     * @throws IllegalStateException if no dispatch executor is set.
+     */
+    void setSubscriptionBuffer(int capacity, OverflowPolicy overflowPolicy);
+
+    /**
+     * 
+     * @return the number of buffered messages of all subscriptions (the lag of the listeners).
+     */
+    int getBufferedMessageCount();
+
+    /**
+     * 
+     * @param channelOrPattern the subscribed channel or pattern
+     * @return the number of buffered messages of the subscription.
+     */
+    int getBufferedMessageCount(K channelOrPattern);
+
+    /**
+     * 
+     * @return the number of messages dropped by the overflow policy since the connection was created.
+     */
+    long getDroppedMessageCount();
+
+    /**
+     * Set the {@link Executor} to notify listeners. Listeners are notified on the I/O thread by default. Use a single
+     * threaded executor to retain the message order.
+     * 
+     * @param dispatchExecutor the executor, may be {@literal null} to notify listeners on the I/O thread.
+     */
+    void setDispatchExecutor(Executor dispatchExecutor);
+
     /**
      * Listen for messages published to channels matching the given patterns.
      * 
@@ -51,4 +161,57 @@ public interface RedisPubSubConnection<K, V> extends RedisAsyncConnection<K, V>
      * @param channels the channels
      */
     void unsubscribe(K... channels);
+
+    /**
+     * Delivery mode of pub/sub messages.
+     */
+    enum MessageDelivery {
+
+        /**
+         * Decode every message into its own output and notify listeners per message.
+         */
+        SINGLE,
+
+        /**
+         * Decode all messages of one read into a reusable {@link PubSubMessageBatch} and deliver it to the
+         * {@link RedisPubSubBatchListener}s with one call. Message and pattern listeners are notified per message of the
+         * batch.
+         */
+        BATCH,
+
+        /**
+         * Like {@link #BATCH} but message payloads are not decoded: Batch listeners receive the raw payload
+         * {@link java.nio.ByteBuffer}. Message and pattern listeners are not notified of messages.
+         */
+        RAW_BATCH;
+    }
+
+    /**
+     * Behavior if a subscription buffer is full.
+     */
+    enum OverflowPolicy {
+
+        /**
+         * Stop reading from the socket ({@code autoRead=false}) until the buffer drained to half of its capacity. Messages
+         * that were already received are still buffered. Redis buffers the messages in the meantime and closes the connection
+         * once its {@code client-output-buffer-limit pubsub} is exceeded.
+         */
+        PAUSE_READS,
+
+        /**
+         * Drop the oldest buffered message.
+         */
+        DROP_OLDEST,
+
+        /**
+         * Drop the new message.
+         */
+        DROP_NEWEST,
+
+        /**
+         * Drop all buffered messages of the subscription and close the connection. The connection reconnects and renews its
+         * subscriptions if auto-reconnect is enabled.
+         */
+        DISCONNECT;
+    }
 }
@@ -2,30 +2,41 @@
 
 package com.lambdaworks.redis.pubsub;
 
+import static com.google.common.base.Preconditions.*;
 import static com.lambdaworks.redis.protocol.CommandType.PSUBSCRIBE;
 import static com.lambdaworks.redis.protocol.CommandType.PUNSUBSCRIBE;
 import static com.lambdaworks.redis.protocol.CommandType.SUBSCRIBE;
 import static com.lambdaworks.redis.protocol.CommandType.UNSUBSCRIBE;
 
 import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.lambdaworks.redis.RedisAsyncConnectionImpl;
 import com.lambdaworks.redis.RedisChannelWriter;
 import com.lambdaworks.redis.codec.RedisCodec;
 import com.lambdaworks.redis.protocol.CommandArgs;
 
+import io.netty.channel.Channel;
+
 /**
  * An asynchronous thread-safe pub/sub connection to a redis server. After one or more channels are subscribed to only pub/sub
  * related commands or {@link #quit} may be called.
  * 
  * Incoming messages and results of the {@link #subscribe}/{@link #unsubscribe} calls will be passed to all registered
- * {@link RedisPubSubListener}s.
+ * {@link RedisPubSubListener}s. Messages are additionally routed to the {@link RedisMessageListener}s registered for their
+ * channel or pattern.
  * 
  * A {@link com.lambdaworks.redis.protocol.ConnectionWatchdog} monitors each connection and reconnects automatically until
  * {@link #close} is called. Channel and pattern subscriptions are renewed after reconnecting.
@@ -36,8 +47,18 @@ import com.lambdaworks.redis.protocol.CommandArgs;
  */
 public class RedisPubSubConnectionImpl<K, V> extends RedisAsyncConnectionImpl<K, V> implements RedisPubSubConnection<K, V> {
     private final List<RedisPubSubListener<K, V>> listeners;
-    private final Set<K> channels;
-    private final Set<K> patterns;
+    private final List<RedisPubSubBatchListener<K, V>> batchListeners;
+    private final ConcurrentMap<Object, K> channels;
+    private final ConcurrentMap<Object, K> patterns;
+    private final ConcurrentMap<Object, List<RedisMessageListener<K, V>>> channelListeners;
+    private final ConcurrentMap<Object, List<RedisMessageListener<K, V>>> patternListeners;
+    private final ConcurrentMap<Object, SubscriptionBuffer<K, V>> subscriptionBuffers;
+    private final AtomicLong droppedMessages = new AtomicLong();
+    private final AtomicInteger pausedBuffers = new AtomicInteger();
+    private final SubscriptionBuffer.Callback<K, V> bufferCallback = new BufferCallback();
+    private volatile Executor dispatchExecutor;
+    private volatile int bufferCapacity;
+    private volatile OverflowPolicy overflowPolicy;
 
     /**
      * Initialize a new connection.
@@ -50,8 +71,12 @@ public class RedisPubSubConnectionImpl<K, V> extends RedisAsyncConnectionImpl<K,
     public RedisPubSubConnectionImpl(RedisChannelWriter<K, V> writer, RedisCodec<K, V> codec, long timeout, TimeUnit unit) {
         super(writer, codec, timeout, unit);
         listeners = new CopyOnWriteArrayList<RedisPubSubListener<K, V>>();
-        channels = new HashSet<K>();
-        patterns = new HashSet<K>();
+        batchListeners = new CopyOnWriteArrayList<RedisPubSubBatchListener<K, V>>();
+        channels = new ConcurrentHashMap<Object, K>();
+        patterns = new ConcurrentHashMap<Object, K>();
+        channelListeners = new ConcurrentHashMap<Object, List<RedisMessageListener<K, V>>>();
+        patternListeners = new ConcurrentHashMap<Object, List<RedisMessageListener<K, V>>>();
+        subscriptionBuffers = new ConcurrentHashMap<Object, SubscriptionBuffer<K, V>>();
     }
 
     /**
@@ -72,6 +97,92 @@ public class RedisPubSubConnectionImpl<K, V> extends RedisAsyncConnectionImpl<K,
         listeners.remove(listener);
     }
 
+    @Override
+    public void addMessageListener(K channel, RedisMessageListener<K, V> listener) {
+        addRoutedListener(channelListeners, channel, listener);
+    }
+
+    @Override
+    public void removeMessageListener(K channel, RedisMessageListener<K, V> listener) {
+        removeRoutedListener(channelListeners, channel, listener);
+    }
+
+    @Override
+    public void addPatternListener(K pattern, RedisMessageListener<K, V> listener) {
+        addRoutedListener(patternListeners, pattern, listener);
+    }
+
+    @Override
+    public void removePatternListener(K pattern, RedisMessageListener<K, V> listener) {
+        removeRoutedListener(patternListeners, pattern, listener);
+    }
+
+    @Override
+    public void addBatchListener(RedisPubSubBatchListener<K, V> listener) {
+        batchListeners.add(listener);
+    }
+
+    @Override
+    public void removeBatchListener(RedisPubSubBatchListener<K, V> listener) {
+        batchListeners.remove(listener);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void setMessageDelivery(MessageDelivery messageDelivery) {
+        checkNotNull(messageDelivery, "MessageDelivery must not be null");
+        checkState(getChannelWriter() instanceof PubSubCommandHandler, "Message delivery requires a PubSubCommandHandler");
+        ((PubSubCommandHandler<K, V>) getChannelWriter()).setMessageDelivery(messageDelivery);
+    }
+
+    @Override
+    public Set<K> getChannels() {
+        return new LinkedHashSet<K>(channels.values());
+    }
+
+    @Override
+    public Set<K> getPatterns() {
+        return new LinkedHashSet<K>(patterns.values());
+    }
+
+    @Override
+    public void setDispatchExecutor(Executor dispatchExecutor) {
+        this.dispatchExecutor = dispatchExecutor;
+    }
+
+    @Override
+    public void setSubscriptionBuffer(int capacity, OverflowPolicy overflowPolicy) {
+        checkArgument(capacity >= 0, "capacity must be greater or equal 0");
+        checkNotNull(overflowPolicy, "OverflowPolicy must not be null");
+        checkState(capacity == 0 || dispatchExecutor != null, "Subscription buffers require a dispatch executor");
+
+        this.overflowPolicy = overflowPolicy;
+        this.bufferCapacity = capacity;
+
+        // buffers drain with their previous settings, new messages are buffered with the new settings.
+        subscriptionBuffers.clear();
+    }
+
+    @Override
+    public int getBufferedMessageCount() {
+        int count = 0;
+        for (SubscriptionBuffer<K, V> buffer : subscriptionBuffers.values()) {
+            count += buffer.size();
+        }
+        return count;
+    }
+
+    @Override
+    public int getBufferedMessageCount(K channelOrPattern) {
+        SubscriptionBuffer<K, V> buffer = subscriptionBuffers.get(routingKey(channelOrPattern));
+        return buffer != null ? buffer.size() : 0;
+    }
+
+    @Override
+    public long getDroppedMessageCount() {
+        return droppedMessages.get();
+    }
+
     @Override
     public void psubscribe(K... patterns) {
         dispatch(PSUBSCRIBE, new PubSubOutput<K, V>(codec), args(patterns));
@@ -95,21 +206,147 @@ public class RedisPubSubConnectionImpl<K, V> extends RedisAsyncConnectionImpl<K,
     @Override
     public void activated() {
 
+        super.activated();
+
+        Channel channel = getChannel();
+        if (channel != null && pausedBuffers.get() > 0) {
+            channel.config().setAutoRead(false);
+        }
+
         if (!channels.isEmpty()) {
-            subscribe(toArray(channels));
+            List<K> subscribed = new ArrayList<K>(channels.values());
             channels.clear();
+            subscribe(toArray(subscribed));
         }
 
         if (!patterns.isEmpty()) {
-            psubscribe(toArray(patterns));
+            List<K> subscribed = new ArrayList<K>(patterns.values());
             patterns.clear();
+            psubscribe(toArray(subscribed));
         }
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public void channelRead(Object msg) {
-        PubSubOutput<K, V> output = (PubSubOutput<K, V>) msg;
+
+        if (msg instanceof PubSubMessageBatch) {
+            batchRead((PubSubMessageBatch<K, V>) msg);
+            return;
+        }
+
+        final PubSubOutput<K, V> output = (PubSubOutput<K, V>) msg;
+
+        // subscription state is updated on the I/O thread so it reflects the order of the responses.
+        switch (output.type()) {
+            case psubscribe:
+                patterns.put(routingKey(output.pattern()), output.pattern());
+                break;
+            case punsubscribe:
+                patterns.remove(routingKey(output.pattern()));
+                subscriptionBuffers.remove(routingKey(output.pattern()));
+                break;
+            case subscribe:
+                channels.put(routingKey(output.channel()), output.channel());
+                break;
+            case unsubscribe:
+                channels.remove(routingKey(output.channel()));
+                subscriptionBuffers.remove(routingKey(output.channel()));
+                break;
+            default:
+                break;
+        }
+
+        if (bufferCapacity > 0 && output.isMessage()) {
+            buffer(output.type() == PubSubOutput.Type.pmessage ? output.pattern() : null, output.channel(), output.get());
+            return;
+        }
+
+        Executor dispatchExecutor = this.dispatchExecutor;
+        if (dispatchExecutor == null) {
+            notifyListeners(output);
+            return;
+        }
+
+        dispatchExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                notifyListeners(output);
+            }
+        });
+    }
+
+    private void batchRead(PubSubMessageBatch<K, V> batch) {
+
+        final boolean buffered = bufferCapacity > 0 && !batch.isRaw();
+        if (buffered) {
+            for (int i = 0; i < batch.size(); i++) {
+                buffer(batch.getPattern(i), batch.getChannel(i), batch.getMessage(i));
+            }
+        }
+
+        Executor dispatchExecutor = this.dispatchExecutor;
+        if (dispatchExecutor == null) {
+            notifyListeners(batch, !buffered);
+            return;
+        }
+
+        // the batch is reused with the next read.
+        final PubSubMessageBatch<K, V> copy = batch.copy();
+        dispatchExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                notifyListeners(copy, !buffered);
+            }
+        });
+    }
+
+    private void notifyListeners(PubSubMessageBatch<K, V> batch, boolean notifyMessageListeners) {
+
+        for (RedisPubSubBatchListener<K, V> listener : batchListeners) {
+            listener.messages(batch);
+        }
+
+        if (batch.isRaw() || !notifyMessageListeners) {
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            notifyMessage(batch.getPattern(i), batch.getChannel(i), batch.getMessage(i));
+        }
+    }
+
+    private void buffer(K pattern, K channel, V message) {
+
+        Object key = routingKey(pattern != null ? pattern : channel);
+        SubscriptionBuffer<K, V> buffer = subscriptionBuffers.get(key);
+        if (buffer == null) {
+            SubscriptionBuffer<K, V> created = new SubscriptionBuffer<K, V>(bufferCapacity, overflowPolicy, dispatchExecutor,
+                    bufferCallback);
+            buffer = subscriptionBuffers.putIfAbsent(key, created);
+            if (buffer == null) {
+                buffer = created;
+            }
+        }
+
+        buffer.offer(pattern, channel, message);
+    }
+
+    private void notifyMessage(K pattern, K channel, V message) {
+
+        for (RedisPubSubListener<K, V> listener : listeners) {
+            if (pattern == null) {
+                listener.message(channel, message);
+            } else {
+                listener.message(pattern, channel, message);
+            }
+        }
+
+        notifyRoutedListeners(pattern, channel, message);
+    }
+
+    private void notifyListeners(PubSubOutput<K, V> output) {
+
         for (RedisPubSubListener<K, V> listener : listeners) {
             switch (output.type()) {
                 case message:
@@ -119,25 +356,130 @@ public class RedisPubSubConnectionImpl<K, V> extends RedisAsyncConnectionImpl<K,
                     listener.message(output.pattern(), output.channel(), output.get());
                     break;
                 case psubscribe:
-                    patterns.add(output.pattern());
                     listener.psubscribed(output.pattern(), output.count());
                     break;
                 case punsubscribe:
-                    patterns.remove(output.pattern());
                     listener.punsubscribed(output.pattern(), output.count());
                     break;
                 case subscribe:
-                    channels.add(output.channel());
                     listener.subscribed(output.channel(), output.count());
                     break;
                 case unsubscribe:
-                    channels.remove(output.channel());
                     listener.unsubscribed(output.channel(), output.count());
                     break;
                 default:
                     throw new UnsupportedOperationException("Operation " + output.type() + " not supported");
             }
         }
+
+        if (output.type() == PubSubOutput.Type.message) {
+            notifyRoutedListeners(null, output.channel(), output.get());
+        } else if (output.type() == PubSubOutput.Type.pmessage) {
+            notifyRoutedListeners(output.pattern(), output.channel(), output.get());
+        }
+    }
+
+    private void notifyRoutedListeners(K pattern, K channel, V message) {
+
+        List<RedisMessageListener<K, V>> routed = pattern == null ? channelListeners.get(routingKey(channel))
+                : patternListeners.get(routingKey(pattern));
+
+        if (routed != null) {
+            for (RedisMessageListener<K, V> listener : routed) {
+                listener.message(channel, message);
+            }
+        }
+    }
+
+    private void addRoutedListener(ConcurrentMap<Object, List<RedisMessageListener<K, V>>> registry, K key,
+            RedisMessageListener<K, V> listener) {
+        checkNotNull(key, "Key must not be null");
+        checkNotNull(listener, "Listener must not be null");
+
+        Object routingKey = routingKey(key);
+        while (true) {
+            List<RedisMessageListener<K, V>> listeners = registry.get(routingKey);
+            if (listeners == null) {
+                List<RedisMessageListener<K, V>> created = new CopyOnWriteArrayList<RedisMessageListener<K, V>>();
+                listeners = registry.putIfAbsent(routingKey, created);
+                if (listeners == null) {
+                    listeners = created;
+                }
+            }
+
+            listeners.add(listener);
+
+            // retry if the list was removed concurrently because it became empty.
+            if (registry.get(routingKey) == listeners) {
+                return;
+            }
+            listeners.remove(listener);
+        }
+    }
+
+    private void removeRoutedListener(ConcurrentMap<Object, List<RedisMessageListener<K, V>>> registry, K key,
+            RedisMessageListener<K, V> listener) {
+
+        Object routingKey = routingKey(key);
+        List<RedisMessageListener<K, V>> listeners = registry.get(routingKey);
+        if (listeners != null && listeners.remove(listener) && listeners.isEmpty()) {
+            registry.remove(routingKey, listeners);
+        }
+    }
+
+    /**
+     * Delivers buffered messages and controls the channel if a buffer overflows.
+     */
+    private class BufferCallback implements SubscriptionBuffer.Callback<K, V> {
+
+        @Override
+        public void deliver(K pattern, K channel, V message) {
+            notifyMessage(pattern, channel, message);
+        }
+
+        @Override
+        public void dropped(int count) {
+            droppedMessages.addAndGet(count);
+        }
+
+        @Override
+        public void pause() {
+            if (pausedBuffers.incrementAndGet() == 1) {
+                setAutoRead(false);
+            }
+        }
+
+        @Override
+        public void resume() {
+            if (pausedBuffers.decrementAndGet() == 0) {
+                setAutoRead(true);
+            }
+        }
+
+        @Override
+        public void disconnect() {
+            Channel channel = getChannel();
+            if (channel != null) {
+                channel.close();
+            }
+        }
+
+        private void setAutoRead(boolean autoRead) {
+            Channel channel = getChannel();
+            if (channel != null) {
+                channel.config().setAutoRead(autoRead);
+            }
+        }
+    }
+
+    /**
+     * Keys are used for hash lookups. Arrays (e.g. {@code byte[]} keys) are wrapped to compare them by content.
+     */
+    private static Object routingKey(Object key) {
+        if (key instanceof byte[]) {
+            return ByteBuffer.wrap((byte[]) key);
+        }
+        return key;
     }
 
     private CommandArgs<K, V> args(K... keys) {
@@ -0,0 +1,192 @@
+package com.lambdaworks.redis.pubsub;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+/**
+ * Bounded queue of the messages of one channel or pattern subscription. Messages are offered on the I/O thread and delivered
+ * in order by a drain task on the dispatch executor; at most one drain task per subscription runs at a time. The
+ * {@link RedisPubSubConnection.OverflowPolicy} decides what happens if the queue is full.
+ * 
+ * @param <K> Key type.
+ * @param <V> Value type.
+ * @author <a href="mailto:mpaluch@paluch.biz">Mark Paluch</a>
+ * @since 3.0
+ */
+class SubscriptionBuffer<K, V> implements Runnable {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(SubscriptionBuffer.class);
+
+    private final int capacity;
+    private final RedisPubSubConnection.OverflowPolicy overflowPolicy;
+    private final Executor executor;
+    private final Callback<K, V> callback;
+    private final Deque<Message<K, V>> queue = new ArrayDeque<Message<K, V>>();
+
+    private boolean scheduled;
+    private boolean paused;
+
+    SubscriptionBuffer(int capacity, RedisPubSubConnection.OverflowPolicy overflowPolicy, Executor executor,
+            Callback<K, V> callback) {
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.executor = executor;
+        this.callback = callback;
+    }
+
+    /**
+     * Offer a message. Applies the overflow policy if the buffer is full.
+     * 
+     * @param pattern the pattern or {@literal null}
+     * @param channel the channel
+     * @param message the message
+     */
+    void offer(K pattern, K channel, V message) {
+
+        boolean schedule;
+        boolean accept = true;
+        int dropped = 0;
+        boolean pause = false;
+        boolean disconnect = false;
+
+        synchronized (this) {
+            if (queue.size() >= capacity) {
+                switch (overflowPolicy) {
+                    case DROP_NEWEST:
+                        accept = false;
+                        dropped = 1;
+                        break;
+                    case DROP_OLDEST:
+                        queue.pollFirst();
+                        dropped = 1;
+                        break;
+                    case DISCONNECT:
+                        dropped = queue.size() + 1;
+                        queue.clear();
+                        accept = false;
+                        disconnect = true;
+                        break;
+                    case PAUSE_READS:
+                        // messages of the current read are still queued, the buffer exceeds the capacity by at most one read.
+                        pause = !paused;
+                        paused = true;
+                        break;
+                    default:
+                        throw new UnsupportedOperationException("Overflow policy " + overflowPolicy + " not supported");
+                }
+            }
+
+            if (accept) {
+                queue.addLast(new Message<K, V>(pattern, channel, message));
+            }
+
+            schedule = !scheduled && !queue.isEmpty();
+            scheduled |= schedule;
+        }
+
+        if (dropped != 0) {
+            callback.dropped(dropped);
+        }
+
+        if (pause) {
+            callback.pause();
+        }
+
+        if (disconnect) {
+            callback.disconnect();
+        }
+
+        if (schedule) {
+            executor.execute(this);
+        }
+    }
+
+    /**
+     * 
+     * @return the number of buffered messages.
+     */
+    synchronized int size() {
+        return queue.size();
+    }
+
+    @Override
+    public void run() {
+
+        while (true) {
+
+            Message<K, V> message;
+            boolean resume = false;
+
+            synchronized (this) {
+                message = queue.pollFirst();
+                if (message == null) {
+                    scheduled = false;
+                    return;
+                }
+
+                if (paused && queue.size() <= capacity / 2) {
+                    paused = false;
+                    resume = true;
+                }
+            }
+
+            if (resume) {
+                callback.resume();
+            }
+
+            try {
+                callback.deliver(message.pattern, message.channel, message.message);
+            } catch (RuntimeException e) {
+                logger.warn("Listener failed to process message from " + message.channel + ": " + e.toString(), e);
+            }
+        }
+    }
+
+    /**
+     * Callback of the connection.
+     */
+    interface Callback<K, V> {
+
+        /**
+         * Deliver a message to the listeners.
+         */
+        void deliver(K pattern, K channel, V message);
+
+        /**
+         * Messages were dropped.
+         */
+        void dropped(int count);
+
+        /**
+         * The buffer is full, stop reading from the socket.
+         */
+        void pause();
+
+        /**
+         * The buffer drained below half of its capacity, continue reading from the socket.
+         */
+        void resume();
+
+        /**
+         * The buffer is full, close the connection.
+         */
+        void disconnect();
+    }
+
+    private static class Message<K, V> {
+
+        private final K pattern;
+        private final K channel;
+        private final V message;
+
+        Message(K pattern, K channel, V message) {
+            this.pattern = pattern;
+            this.channel = channel;
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.lambdaworks.redis;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class ClientResourcesTest {
+
+    @Test
+    public void sharedResourcesAreReferenceCounted() throws Exception {
+        ClientResources resources = new ClientResources.Builder().withIoThreadPoolSize(2).withComputationThreadPoolSize(1)
+                .build();
+
+        RedisClient first = new RedisClient(resources, RedisURI.Builder.redis("localhost").build());
+        RedisClient second = new RedisClient(resources);
+
+        assertThat(resources.refCnt()).isEqualTo(3);
+        assertThat(first.getResources()).isSameAs(resources);
+
+        first.shutdown(0, 0, TimeUnit.MILLISECONDS);
+        second.shutdown(0, 0, TimeUnit.MILLISECONDS);
+
+        assertThat(resources.refCnt()).isEqualTo(1);
+        assertThat(resources.getEventLoopGroup().isShutdown()).isFalse();
+
+        assertThat(resources.release(0, 0, TimeUnit.MILLISECONDS)).isTrue();
+        assertThat(resources.getEventLoopGroup().isTerminated()).isTrue();
+        assertThat(resources.getComputationExecutor().isTerminated()).isTrue();
+    }
+
+    @Test
+    public void clientOwnsDefaultResources() throws Exception {
+        RedisClient client = new RedisClient(RedisURI.Builder.redis("localhost").build());
+        ClientResources resources = client.getResources();
+
+        assertThat(resources.refCnt()).isEqualTo(1);
+
+        client.shutdown(0, 0, TimeUnit.MILLISECONDS);
+        assertThat(resources.refCnt()).isEqualTo(0);
+        assertThat(resources.getEventLoopGroup().isTerminated()).isTrue();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void retainAfterShutdownFails() throws Exception {
+        ClientResources resources = ClientResources.create();
+        resources.release(0, 0, TimeUnit.MILLISECONDS);
+
+        new RedisClient(resources);
+    }
+}
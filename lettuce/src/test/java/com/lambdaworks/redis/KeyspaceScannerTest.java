@@ -0,0 +1,162 @@
+package com.lambdaworks.redis;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+import com.lambdaworks.redis.codec.Utf8StringCodec;
+import com.lambdaworks.redis.output.KeyScanStreamingOutput;
+import com.lambdaworks.redis.output.KeyStreamingChannel;
+import com.lambdaworks.redis.output.StatusOutput;
+import com.lambdaworks.redis.protocol.Command;
+import com.lambdaworks.redis.protocol.CommandType;
+
+@RunWith(MockitoJUnitRunner.class)
+@SuppressWarnings({ "unchecked", "rawtypes" })
+public class KeyspaceScannerTest {
+
+    @Mock
+    private RedisAsyncConnection<String, String> node1;
+
+    @Mock
+    private RedisAsyncConnection<String, String> node2;
+
+    @Test
+    public void scansAllNodesAndPages() throws Exception {
+        pages(node1, Arrays.asList("a", "b"), Arrays.asList("c"));
+        pages(node2, Arrays.asList("d"));
+
+        final List<String> keys = Collections.synchronizedList(new ArrayList<String>());
+        KeyspaceScanner<String, String> scanner = new KeyspaceScanner.Builder<String, String>(Arrays.asList(node1, node2))
+                .build();
+
+        long count = scanner.scan(new KeyspaceScanner.KeyHandler<String, String>() {
+            @Override
+            public RedisFuture<?> onKey(RedisAsyncConnection<String, String> connection, String key) {
+                keys.add(key);
+                return null;
+            }
+        });
+
+        assertThat(count).isEqualTo(4);
+        assertThat(keys).containsOnly("a", "b", "c", "d");
+        verify(node1, times(2)).scan(any(KeyStreamingChannel.class), any(ScanCursor.class), any(ScanArgs.class));
+        verify(node2, times(1)).scan(any(KeyStreamingChannel.class), any(ScanCursor.class), any(ScanArgs.class));
+    }
+
+    @Test
+    public void followUpsAreAwaitedAndProgressIsReported() throws Exception {
+        pages(node1, Arrays.asList("a", "b"), Arrays.asList("c"));
+        final Command<String, String, String> followUp = new Command<String, String, String>(CommandType.TYPE,
+                new StatusOutput<String, String>(new Utf8StringCodec()), null);
+        followUp.getOutput().set(ByteBuffer.wrap("string".getBytes()));
+        followUp.complete();
+        when(node1.type(any(String.class))).thenReturn((RedisFuture) followUp);
+
+        final AtomicLong progress = new AtomicLong();
+        KeyspaceScanner<String, String> scanner = new KeyspaceScanner.Builder<String, String>(Arrays.asList(node1))
+                .withScanArgs(ScanArgs.Builder.limit(100)).withRateLimit(1000).withTimeout(1, TimeUnit.SECONDS)
+                .withProgressListener(new KeyspaceScanner.ProgressListener<String, String>() {
+                    @Override
+                    public void onProgress(RedisAsyncConnection<String, String> connection, long nodeKeys, long totalKeys) {
+                        progress.set(totalKeys);
+                    }
+                }).build();
+
+        scanner.scan(new KeyspaceScanner.KeyHandler<String, String>() {
+            @Override
+            public RedisFuture<?> onKey(RedisAsyncConnection<String, String> connection, String key) {
+                return connection.type(key);
+            }
+        });
+
+        assertThat(progress.get()).isEqualTo(3);
+        verify(node1, times(3)).type(any(String.class));
+    }
+
+    @Test(expected = RedisException.class)
+    public void errorsAbortTheScan() throws Exception {
+        Command<String, String, StreamScanCursor> failed = new Command<String, String, StreamScanCursor>(CommandType.SCAN,
+                new KeyScanStreamingOutput<String, String>(new Utf8StringCodec(), null), null);
+        failed.getOutput().setError("ERR scan failed");
+        failed.complete();
+        when(node1.scan(any(KeyStreamingChannel.class), any(ScanCursor.class), any(ScanArgs.class))).thenReturn(
+                (RedisFuture) failed);
+
+        new KeyspaceScanner.Builder<String, String>(Arrays.asList(node1)).build().scan(
+                new KeyspaceScanner.KeyHandler<String, String>() {
+                    @Override
+                    public RedisFuture<?> onKey(RedisAsyncConnection<String, String> connection, String key) {
+                        return null;
+                    }
+                });
+    }
+
+    @Test(timeout = 10000)
+    public void errorOnOneNodeAbortsTheOtherNodes() throws Exception {
+        Command<String, String, StreamScanCursor> failed = new Command<String, String, StreamScanCursor>(CommandType.SCAN,
+                new KeyScanStreamingOutput<String, String>(new Utf8StringCodec(), null), null);
+        failed.getOutput().setError("ERR scan failed");
+        failed.complete();
+        when(node2.scan(any(KeyStreamingChannel.class), any(ScanCursor.class), any(ScanArgs.class))).thenReturn(
+                (RedisFuture) failed);
+
+        // node1 never finishes on its own and is awaited first.
+        final List<String>[] endless = new List[10000];
+        Arrays.fill(endless, Arrays.asList("a"));
+        pages(node1, endless);
+
+        try {
+            new KeyspaceScanner.Builder<String, String>(Arrays.asList(node1, node2)).build().scan(
+                    new KeyspaceScanner.KeyHandler<String, String>() {
+                        @Override
+                        public RedisFuture<?> onKey(RedisAsyncConnection<String, String> connection, String key) {
+                            return null;
+                        }
+                    });
+            fail("Missing RedisException");
+        } catch (RedisException e) {
+            assertThat(e).hasMessageContaining("ERR scan failed");
+        }
+    }
+
+    private void pages(RedisAsyncConnection<String, String> node, final List<String>... pages) {
+        when(node.scan(any(KeyStreamingChannel.class), any(ScanCursor.class), any(ScanArgs.class))).thenAnswer(
+                new Answer<Object>() {
+                    private int page;
+
+                    @Override
+                    public Object answer(InvocationOnMock invocation) throws Throwable {
+                        KeyStreamingChannel<String> channel = (KeyStreamingChannel<String>) invocation.getArguments()[0];
+                        KeyScanStreamingOutput<String, String> output = new KeyScanStreamingOutput<String, String>(
+                                new Utf8StringCodec(), channel);
+                        String cursor = page == pages.length - 1 ? "0" : Integer.toString(page + 1);
+                        output.set(ByteBuffer.wrap(cursor.getBytes()));
+                        for (String key : pages[page]) {
+                            output.set(ByteBuffer.wrap(key.getBytes()));
+                        }
+                        page++;
+
+                        Command<String, String, StreamScanCursor> command = new Command<String, String, StreamScanCursor>(
+                                CommandType.SCAN, output, null);
+                        command.complete();
+                        return command;
+                    }
+                });
+    }
+}
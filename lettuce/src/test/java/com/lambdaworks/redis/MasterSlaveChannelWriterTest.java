@@ -0,0 +1,254 @@
+package com.lambdaworks.redis;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.google.common.base.Function;
+import com.lambdaworks.redis.codec.Utf8StringCodec;
+import com.lambdaworks.redis.output.StatusOutput;
+import com.lambdaworks.redis.protocol.Command;
+import com.lambdaworks.redis.protocol.CommandType;
+
+@RunWith(MockitoJUnitRunner.class)
+@SuppressWarnings({ "unchecked", "rawtypes" })
+public class MasterSlaveChannelWriterTest {
+
+    private SocketAddress slave1Address = new InetSocketAddress("127.0.0.1", 6380);
+    private SocketAddress slave2Address = new InetSocketAddress("127.0.0.1", 6381);
+
+    @Mock
+    private RedisChannelWriter master;
+
+    @Mock
+    private RedisChannelWriter slave1Writer;
+
+    @Mock
+    private RedisChannelWriter slave2Writer;
+
+    @Mock
+    private RedisChannelHandler slave1;
+
+    @Mock
+    private RedisChannelHandler slave2;
+
+    private Map<SocketAddress, RedisChannelHandler> slaves = new HashMap<SocketAddress, RedisChannelHandler>();
+
+    private Function<SocketAddress, RedisChannelHandler<String, String>> connector = new Function<SocketAddress, RedisChannelHandler<String, String>>() {
+        @Override
+        public RedisChannelHandler<String, String> apply(SocketAddress input) {
+            return slaves.get(input);
+        }
+    };
+
+    @Before
+    public void before() throws Exception {
+        when(slave1.getChannelWriter()).thenReturn(slave1Writer);
+        when(slave2.getChannelWriter()).thenReturn(slave2Writer);
+        when(slave1.isOpen()).thenReturn(true);
+        when(slave2.isOpen()).thenReturn(true);
+        slaves.put(slave1Address, slave1);
+        slaves.put(slave2Address, slave2);
+    }
+
+    @Test
+    public void writesGoToMaster() throws Exception {
+        MasterSlaveChannelWriter<String, String> sut = writer(ReadPolicy.ROUND_ROBIN);
+        Command<String, String, String> command = command(CommandType.SET);
+
+        sut.write(command);
+
+        verify(master).write(command);
+        verifyZeroInteractions(slave1Writer, slave2Writer);
+    }
+
+    @Test
+    public void readsWithoutSlavesGoToMaster() throws Exception {
+        MasterSlaveChannelWriter<String, String> sut = new MasterSlaveChannelWriter<String, String>(master,
+                ReadPolicy.ROUND_ROBIN);
+        Command<String, String, String> command = command(CommandType.GET);
+
+        sut.write(command);
+
+        verify(master).write(command);
+    }
+
+    @Test
+    public void masterPolicySendsReadsToMaster() throws Exception {
+        MasterSlaveChannelWriter<String, String> sut = writer(ReadPolicy.MASTER);
+        Command<String, String, String> command = command(CommandType.GET);
+
+        sut.write(command);
+
+        verify(master).write(command);
+        verifyZeroInteractions(slave1Writer, slave2Writer);
+    }
+
+    @Test
+    public void roundRobinAlternatesSlaves() throws Exception {
+        MasterSlaveChannelWriter<String, String> sut = writer(ReadPolicy.ROUND_ROBIN);
+
+        for (int i = 0; i < 4; i++) {
+            sut.write(command(CommandType.GET));
+        }
+
+        verify(slave1Writer, times(2)).write(any(Command.class));
+        verify(slave2Writer, times(2)).write(any(Command.class));
+        verify(master, never()).write(any(Command.class));
+    }
+
+    @Test
+    public void leastPendingPrefersIdleSlave() throws Exception {
+        MasterSlaveChannelWriter<String, String> sut = writer(ReadPolicy.LEAST_PENDING);
+
+        sut.write(command(CommandType.GET));
+        sut.write(command(CommandType.GET));
+        sut.write(command(CommandType.GET));
+
+        verify(slave1Writer, times(2)).write(any(Command.class));
+        verify(slave2Writer, times(1)).write(any(Command.class));
+    }
+
+    @Test
+    public void completedCommandsAreNotPending() throws Exception {
+        MasterSlaveChannelWriter<String, String> sut = writer(ReadPolicy.LEAST_PENDING);
+
+        Command<String, String, String> command = command(CommandType.GET);
+        sut.write(command);
+        command.complete();
+        sut.write(command(CommandType.GET));
+
+        verify(slave1Writer, times(2)).write(any(Command.class));
+        verifyZeroInteractions(slave2Writer);
+    }
+
+    @Test
+    public void latencyWeightedPrefersFastSlave() throws Exception {
+        MasterSlaveChannelWriter<String, String> sut = writer(ReadPolicy.LATENCY_WEIGHTED);
+        MasterSlaveChannelWriter.Slave<String, String> fast = null;
+        MasterSlaveChannelWriter.Slave<String, String> slow = null;
+
+        for (int i = 0; i < 100 && (fast == null || slow == null); i++) {
+            MasterSlaveChannelWriter.Slave<String, String> slave = sut.selectSlave();
+            if (slave.address.equals(slave1Address)) {
+                fast = slave;
+            } else {
+                slow = slave;
+            }
+        }
+        fast.latency = 100;
+        slow.latency = 100000;
+
+        int fastCount = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (sut.selectSlave() == fast) {
+                fastCount++;
+            }
+        }
+
+        assertThat(fastCount).isGreaterThan(950);
+    }
+
+    @Test
+    public void transactionStaysOnMaster() throws Exception {
+        MasterSlaveChannelWriter<String, String> sut = writer(ReadPolicy.ROUND_ROBIN);
+
+        sut.write(command(CommandType.WATCH));
+        sut.write(command(CommandType.GET));
+        sut.write(command(CommandType.MULTI));
+        sut.write(command(CommandType.UNWATCH));
+        sut.write(command(CommandType.GET));
+        sut.write(command(CommandType.EXEC));
+
+        verify(master, times(6)).write(any(Command.class));
+        verifyZeroInteractions(slave1Writer, slave2Writer);
+
+        sut.write(command(CommandType.GET));
+        verify(master, times(6)).write(any(Command.class));
+    }
+
+    @Test
+    public void cursorCommandsGoToMaster() throws Exception {
+        MasterSlaveChannelWriter<String, String> sut = writer(ReadPolicy.ROUND_ROBIN);
+
+        sut.write(command(CommandType.SCAN));
+        sut.write(command(CommandType.HSCAN));
+        sut.write(command(CommandType.SSCAN));
+        sut.write(command(CommandType.ZSCAN));
+
+        verify(master, times(4)).write(any(Command.class));
+        verifyZeroInteractions(slave1Writer, slave2Writer);
+    }
+
+    @Test
+    public void readsGoToMasterAfterSelect() throws Exception {
+        MasterSlaveChannelWriter<String, String> sut = writer(ReadPolicy.ROUND_ROBIN);
+
+        sut.write(command(CommandType.GET));
+        verify(slave1Writer).write(any(Command.class));
+
+        sut.write(command(CommandType.SELECT));
+        sut.write(command(CommandType.GET));
+        sut.write(command(CommandType.GET));
+
+        verify(master, times(3)).write(any(Command.class));
+        verifyNoMoreInteractions(slave1Writer);
+        verifyZeroInteractions(slave2Writer);
+    }
+
+    @Test
+    public void closedSlavesAreSkipped() throws Exception {
+        MasterSlaveChannelWriter<String, String> sut = writer(ReadPolicy.ROUND_ROBIN);
+        when(slave1.isOpen()).thenReturn(false);
+
+        sut.write(command(CommandType.GET));
+        sut.write(command(CommandType.GET));
+
+        verify(slave2Writer, times(2)).write(any(Command.class));
+        verifyZeroInteractions(slave1Writer);
+    }
+
+    @Test
+    public void updateSlavesClosesRemovedSlaves() throws Exception {
+        MasterSlaveChannelWriter<String, String> sut = writer(ReadPolicy.ROUND_ROBIN);
+
+        sut.updateSlaves(Arrays.asList(slave2Address), connector);
+
+        assertThat(sut.getSlaveAddresses()).containsExactly(slave2Address);
+        verify(slave1).close();
+        verify(slave2, never()).close();
+    }
+
+    @Test
+    public void closeClosesMasterAndSlaves() throws Exception {
+        MasterSlaveChannelWriter<String, String> sut = writer(ReadPolicy.ROUND_ROBIN);
+
+        sut.close();
+
+        verify(master).close();
+        verify(slave1).close();
+        verify(slave2).close();
+    }
+
+    private MasterSlaveChannelWriter<String, String> writer(ReadPolicy readPolicy) {
+        MasterSlaveChannelWriter<String, String> sut = new MasterSlaveChannelWriter<String, String>(master, readPolicy);
+        sut.updateSlaves(Arrays.asList(slave1Address, slave2Address), connector);
+        return sut;
+    }
+
+    private Command<String, String, String> command(CommandType type) {
+        return new Command<String, String, String>(type, new StatusOutput<String, String>(new Utf8StringCodec()), null);
+    }
+}
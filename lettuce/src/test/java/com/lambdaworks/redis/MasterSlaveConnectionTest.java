@@ -0,0 +1,49 @@
+package com.lambdaworks.redis;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.lambdaworks.redis.codec.Utf8StringCodec;
+
+public class MasterSlaveConnectionTest extends AbstractCommandTest {
+
+    private static RedisClient sentinelClient;
+
+    @BeforeClass
+    public static void setupClient() {
+        sentinelClient = new RedisClient(RedisURI.Builder.sentinel("localhost", 26380, "mymaster").build());
+    }
+
+    @AfterClass
+    public static void shutdownClient() {
+        sentinelClient.shutdown(0, 0, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void refreshReusesTheSentinelConnection() throws Exception {
+        RedisAsyncConnectionImpl<String, String> connection = (RedisAsyncConnectionImpl<String, String>) sentinelClient
+                .connectMasterSlaveAsync(ReadPolicy.ROUND_ROBIN);
+        MasterSlaveChannelWriter<String, String> writer = (MasterSlaveChannelWriter<String, String>) connection
+                .getChannelWriter();
+
+        RedisClient.SlaveRefresh<String, String> refresh = sentinelClient.new SlaveRefresh<String, String>(writer,
+                new Utf8StringCodec());
+        refresh.run();
+        int channels = sentinelClient.getChannelCount();
+
+        for (int i = 0; i < 10; i++) {
+            refresh.run();
+        }
+
+        assertThat(sentinelClient.getChannelCount()).isEqualTo(channels);
+
+        refresh.close();
+        connection.close();
+    }
+}
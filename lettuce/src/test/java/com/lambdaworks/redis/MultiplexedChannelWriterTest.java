@@ -0,0 +1,231 @@
+package com.lambdaworks.redis;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+import com.lambdaworks.redis.codec.Utf8StringCodec;
+import com.lambdaworks.redis.output.StatusOutput;
+import com.lambdaworks.redis.protocol.Command;
+import com.lambdaworks.redis.protocol.CommandType;
+import com.lambdaworks.redis.protocol.RedisCommand;
+
+@RunWith(MockitoJUnitRunner.class)
+@SuppressWarnings({ "unchecked", "rawtypes" })
+public class MultiplexedChannelWriterTest {
+
+    @Mock
+    private MultiplexedConnectionProvider connectionProvider;
+
+    @Mock
+    private RedisChannelWriter sharedWriter;
+
+    @Mock
+    private RedisChannelWriter dedicatedWriter;
+
+    @Mock
+    private RedisChannelHandler dedicatedConnection;
+
+    private MultiplexedChannelWriter<String, String> sut;
+
+    @Before
+    public void before() throws Exception {
+        when(connectionProvider.getSharedWriter()).thenReturn(sharedWriter);
+        when(connectionProvider.lease()).thenReturn(dedicatedConnection);
+        when(dedicatedConnection.getChannelWriter()).thenReturn(dedicatedWriter);
+        sut = new MultiplexedChannelWriter<String, String>(connectionProvider);
+    }
+
+    @Test
+    public void nonBlockingCommandUsesSharedConnection() throws Exception {
+        Command<String, String, String> command = command(CommandType.GET);
+        sut.write(command);
+
+        verify(sharedWriter).write(command);
+        verify(connectionProvider, never()).lease();
+    }
+
+    @Test
+    public void blockingCommandLeasesDedicatedConnection() throws Exception {
+        Command<String, String, String> command = command(CommandType.BLPOP);
+        sut.write(command);
+
+        verify(dedicatedWriter).write(command);
+        verify(connectionProvider, never()).release(any(RedisChannelHandler.class), anyBoolean());
+
+        command.complete();
+        verify(connectionProvider).release(dedicatedConnection, true);
+    }
+
+    @Test
+    public void quitWithoutPinnedConnectionCompletesLocally() throws Exception {
+        Command<String, String, String> command = command(CommandType.QUIT);
+        sut.write(command);
+
+        assertThat(command.get()).isEqualTo("OK");
+        verify(connectionProvider, never()).lease();
+        verifyZeroInteractions(sharedWriter);
+
+        try {
+            sut.write(command(CommandType.GET));
+            fail("Missing RedisException");
+        } catch (RedisException e) {
+            assertThat(e).hasMessage("Connection is closed");
+        }
+        verifyZeroInteractions(sharedWriter);
+    }
+
+    @Test
+    public void cancelledBlockingCommandInvalidatesConnection() throws Exception {
+        Command<String, String, String> command = command(CommandType.BRPOPLPUSH);
+        sut.write(command);
+
+        command.cancel(true);
+        verify(connectionProvider).release(dedicatedConnection, false);
+    }
+
+    @Test
+    public void transactionPinsDedicatedConnection() throws Exception {
+        sut.write(command(CommandType.MULTI));
+        sut.write(command(CommandType.SET));
+        Command<String, String, String> exec = command(CommandType.EXEC);
+        sut.write(exec);
+
+        verify(connectionProvider, times(1)).lease();
+        verify(dedicatedWriter, times(3)).write(any(RedisCommand.class));
+        verify(sharedWriter, never()).write(any(RedisCommand.class));
+
+        RedisCommand<String, String, String> afterTransaction = command(CommandType.GET);
+        sut.write(afterTransaction);
+        verify(sharedWriter).write(afterTransaction);
+
+        exec.complete();
+        verify(connectionProvider).release(dedicatedConnection, true);
+    }
+
+    @Test
+    public void unwatchWithinMultiKeepsConnection() throws Exception {
+        sut.write(command(CommandType.WATCH));
+        sut.write(command(CommandType.MULTI));
+        sut.write(command(CommandType.UNWATCH));
+        sut.write(command(CommandType.GET));
+
+        verify(dedicatedWriter, times(4)).write(any(RedisCommand.class));
+        verify(sharedWriter, never()).write(any(RedisCommand.class));
+    }
+
+    @Test
+    public void selectPinsConnectionUntilClose() throws Exception {
+        sut.write(command(CommandType.SELECT));
+        sut.write(command(CommandType.MULTI));
+        sut.write(command(CommandType.EXEC));
+        sut.write(command(CommandType.GET));
+
+        verify(dedicatedWriter, times(4)).write(any(RedisCommand.class));
+        verify(sharedWriter, never()).write(any(RedisCommand.class));
+
+        sut.close();
+        verify(connectionProvider).release(dedicatedConnection, false);
+    }
+
+    @Test
+    public void clientSetnamePinsConnection() throws Exception {
+        RedisCommandBuilder<String, String> builder = new RedisCommandBuilder<String, String>(new Utf8StringCodec());
+        sut.write(builder.clientList());
+        sut.write(builder.clientKill("127.0.0.1:1"));
+        sut.write(builder.clientGetname());
+
+        verify(sharedWriter, times(3)).write(any(RedisCommand.class));
+        verify(connectionProvider, never()).lease();
+
+        sut.write(builder.clientSetname("name"));
+        sut.write(builder.clientList());
+
+        verify(connectionProvider, times(1)).lease();
+        verify(dedicatedWriter, times(2)).write(any(RedisCommand.class));
+    }
+
+    @Test
+    public void slowLeaseDoesNotBlockSharedWriters() throws Exception {
+        final CountDownLatch leasing = new CountDownLatch(1);
+        final CountDownLatch leased = new CountDownLatch(1);
+        when(connectionProvider.lease()).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                leasing.countDown();
+                leased.await();
+                return dedicatedConnection;
+            }
+        });
+
+        final Command<String, String, String> blpop = command(CommandType.BLPOP);
+        Thread blocking = new Thread() {
+            @Override
+            public void run() {
+                sut.write(blpop);
+            }
+        };
+        blocking.start();
+        assertThat(leasing.await(1, TimeUnit.SECONDS)).isTrue();
+
+        Command<String, String, String> get = command(CommandType.GET);
+        sut.write(get);
+        verify(sharedWriter).write(get);
+
+        leased.countDown();
+        blocking.join(1000);
+        verify(dedicatedWriter).write(blpop);
+    }
+
+    @Test
+    public void concurrentlyLeasedConnectionIsReleasedIfPinned() throws Exception {
+        final RedisChannelHandler other = mock(RedisChannelHandler.class);
+        when(connectionProvider.lease()).thenAnswer(new Answer<Object>() {
+            private int leases;
+
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                if (leases++ > 0) {
+                    return dedicatedConnection;
+                }
+
+                // another writer pins a connection while this lease is in progress.
+                sut.write(command(CommandType.MULTI));
+                return other;
+            }
+        });
+
+        sut.write(command(CommandType.SET));
+        sut.write(command(CommandType.WATCH));
+
+        verify(connectionProvider).release(other, true);
+        verify(dedicatedWriter, times(2)).write(any(RedisCommand.class));
+    }
+
+    @Test
+    public void writeAfterCloseFails() throws Exception {
+        sut.close();
+
+        try {
+            sut.write(command(CommandType.GET));
+            fail("Missing RedisException");
+        } catch (RedisException e) {
+            assertThat(e).hasMessage("Connection is closed");
+        }
+    }
+
+    private Command<String, String, String> command(CommandType type) {
+        return new Command<String, String, String>(type, new StatusOutput<String, String>(new Utf8StringCodec()), null);
+    }
+}
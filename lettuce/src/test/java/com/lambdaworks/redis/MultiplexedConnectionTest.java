@@ -0,0 +1,115 @@
+package com.lambdaworks.redis;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MultiplexedConnectionTest extends AbstractCommandTest {
+
+    private RedisClient multiplexedClient;
+
+    @Before
+    public void before() throws Exception {
+        multiplexedClient = getRedisClient();
+        multiplexedClient.setOptions(new ClientOptions.Builder().withMultiplexing(true).withDedicatedConnections(2).build());
+    }
+
+    @After
+    public void after() throws Exception {
+        multiplexedClient.shutdown(0, 0, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void connectionsShareOneChannel() throws Exception {
+        RedisAsyncConnection<String, String> first = multiplexedClient.connectAsync();
+        RedisConnection<String, String> second = multiplexedClient.connect();
+
+        first.set(key, value).get();
+        assertThat(second.get(key)).isEqualTo(value);
+        assertThat(multiplexedClient.getChannelCount()).isEqualTo(1);
+
+        first.close();
+        assertThat(second.ping()).isEqualTo("PONG");
+        second.close();
+    }
+
+    @Test
+    public void blockingCommandUsesDedicatedConnection() throws Exception {
+        RedisAsyncConnection<String, String> connection = multiplexedClient.connectAsync();
+
+        RedisFuture<KeyValue<String, String>> blpop = connection.blpop(5, key);
+        assertThat(connection.ping().get()).isEqualTo("PONG");
+        assertThat(multiplexedClient.getChannelCount()).isEqualTo(2);
+
+        connection.rpush(key, value).get();
+        assertThat(blpop.get()).isEqualTo(kv(key, value));
+        connection.close();
+    }
+
+    @Test
+    public void transaction() throws Exception {
+        RedisConnection<String, String> connection = multiplexedClient.connect();
+        RedisConnection<String, String> other = multiplexedClient.connect();
+
+        connection.multi();
+        connection.set(key, value);
+        assertThat(other.get(key)).isNull();
+        List<Object> result = connection.exec();
+
+        assertThat(result).containsExactly("OK");
+        assertThat(other.get(key)).isEqualTo(value);
+        connection.close();
+        other.close();
+    }
+
+    @Test
+    public void selectKeepsDedicatedConnection() throws Exception {
+        RedisConnection<String, String> connection = multiplexedClient.connect();
+        RedisConnection<String, String> other = multiplexedClient.connect();
+
+        connection.select(1);
+        connection.set(key, value);
+
+        assertThat(other.get(key)).isNull();
+        assertThat(connection.get(key)).isEqualTo(value);
+        connection.close();
+        other.close();
+    }
+
+    @Test
+    public void connectionsAreSharedPerCredentials() throws Exception {
+        RedisURI anonymous = RedisURI.Builder.redis(host, port).build();
+        RedisURI authenticated = RedisURI.Builder.redis(host, port).withPassword(passwd).build();
+        RedisURI other = RedisURI.Builder.redis(host, port).withPassword(passwd + "X").build();
+
+        assertThat(RedisClient.multiplexedEndpoint(authenticated)).isNotEqualTo(RedisClient.multiplexedEndpoint(anonymous))
+                .isNotEqualTo(RedisClient.multiplexedEndpoint(other)).doesNotContain(passwd);
+
+        new WithPasswordRequired() {
+            @Override
+            protected void run(RedisClient client) throws Exception {
+                client.setOptions(new ClientOptions.Builder().withMultiplexing(true).build());
+
+                RedisConnection<String, String> withPassword = client.connect(RedisURI.Builder.redis(host, port)
+                        .withPassword(passwd).build());
+                RedisConnection<String, String> withoutPassword = client.connect(RedisURI.Builder.redis(host, port).build());
+
+                assertThat(withPassword.ping()).isEqualTo("PONG");
+                try {
+                    withoutPassword.ping();
+                    fail("Connection without password shares the authenticated connection");
+                } catch (RedisException e) {
+                    assertThat(e.getMessage()).startsWith("NOAUTH");
+                }
+
+                withPassword.close();
+                withoutPassword.close();
+            }
+        };
+    }
+}
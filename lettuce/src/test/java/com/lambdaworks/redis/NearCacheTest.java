@@ -0,0 +1,223 @@
+package com.lambdaworks.redis;
+
+import static com.google.code.tempusfugit.temporal.Duration.*;
+import static com.google.code.tempusfugit.temporal.WaitFor.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.code.tempusfugit.temporal.Condition;
+import com.google.code.tempusfugit.temporal.Timeout;
+import com.lambdaworks.redis.pubsub.RedisPubSubConnectionImpl;
+
+public class NearCacheTest extends AbstractCommandTest {
+
+    private RedisAsyncConnectionImpl<String, String> async;
+    private RedisPubSubConnectionImpl<String, String> pubSub;
+    private NearCache<String, String> nearCache;
+
+    @Before
+    public void openNearCache() throws Exception {
+        redis.configSet("notify-keyspace-events", "KA");
+
+        async = (RedisAsyncConnectionImpl<String, String>) client.connectAsync();
+        pubSub = client.connectPubSub();
+        nearCache = new NearCache.Builder<String, String>(async, pubSub).withKeyPatterns("config:*").build();
+        waitForCondition(new Condition() {
+            @Override
+            public boolean isSatisfied() {
+                return nearCache.isActive();
+            }
+        });
+    }
+
+    @After
+    public void closeNearCache() throws Exception {
+        nearCache.close();
+        pubSub.close();
+        async.close();
+        redis.configSet("notify-keyspace-events", "");
+    }
+
+    @Test
+    public void readsAreCached() throws Exception {
+        redis.set("config:a", "1");
+
+        assertThat(nearCache.get("config:a").get()).isEqualTo("1");
+        waitForSize(1);
+
+        assertThat(nearCache.get("config:a").get()).isEqualTo("1");
+        assertThat(nearCache.get("other").get()).isNull();
+        assertThat(nearCache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void writeOfAnotherConnectionInvalidatesKey() throws Exception {
+        redis.set("config:a", "1");
+        redis.hset("config:hash", "field", "1");
+        nearCache.get("config:a").get();
+        nearCache.hget("config:hash", "field").get();
+        waitForSize(2);
+
+        RedisConnection<String, String> other = client.connect();
+        other.set("config:a", "2");
+        other.close();
+        waitForSize(1);
+
+        assertThat(nearCache.get("config:a").get()).isEqualTo("2");
+        assertThat(nearCache.hget("config:hash", "field").get()).isEqualTo("1");
+    }
+
+    @Test
+    public void reconnectWithoutReadsFlushesTheCache() throws Exception {
+        redis.set("config:a", "1");
+        nearCache.get("config:a").get();
+        waitForSize(1);
+
+        final AtomicBoolean disconnected = new AtomicBoolean();
+        pubSub.addConnectionStateListener(new RedisConnectionStateListener() {
+            @Override
+            public void onRedisConnected(RedisChannelHandler<?, ?> connection) {
+            }
+
+            @Override
+            public void onRedisDisconnected(RedisChannelHandler<?, ?> connection) {
+                disconnected.set(true);
+            }
+
+            @Override
+            public void onRedisExceptionCaught(RedisChannelHandler<?, ?> connection, Throwable cause) {
+            }
+        });
+
+        pubSub.getChannel().close();
+        waitForCondition(new Condition() {
+            @Override
+            public boolean isSatisfied() {
+                return disconnected.get();
+            }
+        });
+        assertThat(nearCache.size()).isEqualTo(0);
+
+        redis.set("config:a", "2");
+
+        waitForCondition(new Condition() {
+            @Override
+            public boolean isSatisfied() {
+                return nearCache.isActive();
+            }
+        });
+        assertThat(nearCache.get("config:a").get()).isEqualTo("2");
+    }
+
+    @Test
+    public void readsBypassTheCacheAfterSelect() throws Exception {
+        redis.set("config:a", "1");
+        nearCache.get("config:a").get();
+        waitForSize(1);
+
+        async.select(1);
+        try {
+            async.set("config:a", "2").get();
+            assertThat(nearCache.get("config:a").get()).isEqualTo("2");
+        } finally {
+            async.del("config:a").get();
+            async.select(0);
+        }
+        assertThat(nearCache.get("config:a").get()).isEqualTo("1");
+    }
+
+    @Test
+    public void subscribesToTheKeyspaceOfTheSelectedDatabase() throws Exception {
+        RedisURI db2 = RedisURI.Builder.redis(host, port).withDatabase(2).build();
+        RedisAsyncConnectionImpl<String, String> connection = (RedisAsyncConnectionImpl<String, String>) client
+                .connectAsync(db2);
+        RedisPubSubConnectionImpl<String, String> db2PubSub = client.connectPubSub();
+        final NearCache<String, String> db2Cache = new NearCache.Builder<String, String>(connection, db2PubSub)
+                .withKeyPatterns("config:*").build();
+        try {
+            waitForCondition(new Condition() {
+                @Override
+                public boolean isSatisfied() {
+                    return db2Cache.isActive();
+                }
+            });
+            connection.set("config:a", "1").get();
+            db2Cache.get("config:a").get();
+            waitForCondition(new Condition() {
+                @Override
+                public boolean isSatisfied() {
+                    return db2Cache.size() == 1;
+                }
+            });
+
+            RedisConnection<String, String> other = client.connect(db2);
+            other.set("config:a", "2");
+            other.close();
+            waitForCondition(new Condition() {
+                @Override
+                public boolean isSatisfied() {
+                    return db2Cache.size() == 0;
+                }
+            });
+
+            assertThat(db2Cache.get("config:a").get()).isEqualTo("2");
+        } finally {
+            connection.del("config:a").get();
+            db2Cache.close();
+            db2PubSub.close();
+            connection.close();
+        }
+    }
+
+    @Test
+    public void cachedMapsAreUnmodifiable() throws Exception {
+        redis.hset("config:hash", "field", "value");
+        nearCache.hgetall("config:hash").get();
+        waitForSize(1);
+
+        Map<String, String> cached = nearCache.hgetall("config:hash").get();
+        try {
+            cached.put("field", "changed");
+            fail("Missing UnsupportedOperationException");
+        } catch (UnsupportedOperationException e) {
+            assertThat(nearCache.hgetall("config:hash").get()).containsEntry("field", "value");
+        }
+    }
+
+    @Test
+    public void matchesGlobPatterns() throws Exception {
+        assertThat(matches("*", "")).isTrue();
+        assertThat(matches("config:*", "config:a")).isTrue();
+        assertThat(matches("config:*", "conf")).isFalse();
+        assertThat(matches("h?llo", "hallo")).isTrue();
+        assertThat(matches("h[ae]llo", "hello")).isTrue();
+        assertThat(matches("h[^e]llo", "hello")).isFalse();
+        assertThat(matches("h[a-c]llo", "hbllo")).isTrue();
+        assertThat(matches("a\\*b", "a*b")).isTrue();
+        assertThat(matches("a\\*b", "axb")).isFalse();
+        assertThat(matches("*:flag:*", "app:flag:x")).isTrue();
+    }
+
+    private void waitForSize(final long size) throws Exception {
+        waitForCondition(new Condition() {
+            @Override
+            public boolean isSatisfied() {
+                return nearCache.size() == size;
+            }
+        });
+    }
+
+    private void waitForCondition(Condition condition) throws Exception {
+        waitOrTimeout(condition, Timeout.timeout(seconds(2)));
+    }
+
+    private boolean matches(String pattern, String key) {
+        return NearCache.matches(pattern.getBytes(), 0, key.getBytes(), 0);
+    }
+}
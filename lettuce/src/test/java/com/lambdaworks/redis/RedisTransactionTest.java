@@ -0,0 +1,115 @@
+package com.lambdaworks.redis;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.lambdaworks.redis.codec.Utf8StringCodec;
+import com.lambdaworks.redis.output.StatusOutput;
+import com.lambdaworks.redis.protocol.CommandType;
+
+public class RedisTransactionTest extends AbstractCommandTest {
+
+    private RedisAsyncConnectionImpl<String, String> async;
+
+    @Before
+    public void openAsyncConnection() throws Exception {
+        async = (RedisAsyncConnectionImpl<String, String>) client.connectAsync();
+    }
+
+    @After
+    public void closeAsyncConnection() throws Exception {
+        async.close();
+    }
+
+    @Test
+    public void exec() throws Exception {
+        RedisTransaction<String, String> transaction = async.transaction();
+        RedisFuture<String> set = transaction.set(key, value);
+        RedisFuture<Long> rpush = transaction.rpush("list", "1", "2");
+        RedisFuture<List<String>> lrange = transaction.lrange("list", 0, -1);
+
+        assertThat(transaction.size()).isEqualTo(3);
+        assertThat(redis.get(key)).isNull();
+
+        assertThat(transaction.exec().get()).isEqualTo(list("OK", 2L, list("1", "2")));
+        assertThat(set.get()).isEqualTo("OK");
+        assertThat(rpush.get()).isEqualTo(2L);
+        assertThat(lrange.get()).isEqualTo(list("1", "2"));
+        assertThat(redis.get(key)).isEqualTo(value);
+    }
+
+    @Test
+    public void execReturnsEmptyListIfWatchedKeyChanged() throws Exception {
+        assertThat(async.watch(key).get()).isEqualTo("OK");
+        redis.set(key, value + "X");
+
+        RedisTransaction<String, String> transaction = async.transaction();
+        RedisFuture<String> set = transaction.set(key, value);
+
+        assertThat(transaction.exec().get()).isEqualTo(list());
+        assertThat(set.isDone()).isTrue();
+        assertThat(set.get()).isNull();
+        assertThat(redis.get(key)).isEqualTo(value + "X");
+    }
+
+    @Test
+    public void errorRepliesWithinExec() throws Exception {
+        redis.set(key, value);
+
+        RedisTransaction<String, String> transaction = async.transaction();
+        RedisFuture<Long> incr = transaction.incr(key);
+        RedisFuture<String> get = transaction.get(key);
+
+        List<Object> result = transaction.exec().get();
+
+        assertThat(result).hasSize(2);
+        assertThat(result.get(0)).isInstanceOf(RedisException.class);
+        assertThat(result.get(1)).isEqualTo(value);
+        assertThat(incr.getError()).startsWith("ERR");
+        assertThat(get.get()).isEqualTo(value);
+    }
+
+    @Test
+    public void execAbortIsReportedOnExec() throws Exception {
+        RedisTransaction<String, String> transaction = async.transaction();
+        RedisFuture<String> set = transaction.set(key, value);
+        transaction.dispatch(CommandType.SET, new StatusOutput<String, String>(new Utf8StringCodec()));
+
+        RedisFuture<List<Object>> exec = transaction.exec();
+
+        assertThat(exec.await(1, TimeUnit.MINUTES)).isTrue();
+        assertThat(exec.getError()).startsWith("EXECABORT");
+        assertThat(set.getError()).startsWith("EXECABORT");
+        assertThat(redis.get(key)).isNull();
+    }
+
+    @Test
+    public void discardDoesNotWriteTheTransaction() throws Exception {
+        RedisTransaction<String, String> transaction = async.transaction();
+        RedisFuture<String> set = transaction.set(key, value);
+
+        assertThat(transaction.discard().get()).isEqualTo("OK");
+
+        assertThat(set.getError()).isEqualTo("Transaction discarded");
+        assertThat(redis.get(key)).isNull();
+        assertThat(async.ping().get()).isEqualTo("PONG");
+    }
+
+    @Test(expected = RedisException.class)
+    public void transactionCannotBeExecutedTwice() throws Exception {
+        RedisTransaction<String, String> transaction = async.transaction();
+        transaction.exec().get();
+        transaction.exec();
+    }
+
+    @Test(expected = RedisException.class)
+    public void watchIsRejected() throws Exception {
+        async.transaction().watch(key);
+    }
+}
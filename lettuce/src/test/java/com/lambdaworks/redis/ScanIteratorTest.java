@@ -0,0 +1,135 @@
+package com.lambdaworks.redis;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.lambdaworks.redis.codec.Utf8StringCodec;
+import com.lambdaworks.redis.output.KeyScanOutput;
+import com.lambdaworks.redis.protocol.Command;
+import com.lambdaworks.redis.protocol.CommandType;
+
+@RunWith(MockitoJUnitRunner.class)
+@SuppressWarnings({ "unchecked", "rawtypes" })
+public class ScanIteratorTest {
+
+    @Mock
+    private RedisKeysAsyncConnection<String, String> connection;
+
+    @Test
+    public void iteratesOverAllPages() throws Exception {
+        Command<String, String, KeyScanCursor<String>> first = page("1", "a", "b");
+        Command<String, String, KeyScanCursor<String>> second = page("0", "c");
+        when(connection.scan(any(ScanCursor.class), any(ScanArgs.class))).thenReturn((RedisFuture) first,
+                (RedisFuture) second);
+
+        List<String> keys = new ArrayList<String>();
+        ScanIterator<String> iterator = ScanIterator.scan(connection);
+        while (iterator.hasNext()) {
+            keys.add(iterator.next());
+        }
+
+        assertThat(keys).containsExactly("a", "b", "c");
+        ArgumentCaptor<ScanCursor> cursors = ArgumentCaptor.forClass(ScanCursor.class);
+        verify(connection, times(2)).scan(cursors.capture(), any(ScanArgs.class));
+        assertThat(cursors.getAllValues().get(0)).isNull();
+        assertThat(cursors.getAllValues().get(1).getCursor()).isEqualTo("1");
+    }
+
+    @Test
+    public void prefetchesNextPageBeforeConsumption() throws Exception {
+        Command<String, String, KeyScanCursor<String>> first = pending();
+        Command<String, String, KeyScanCursor<String>> second = pending();
+        Command<String, String, KeyScanCursor<String>> third = pending();
+        when(connection.scan(any(ScanCursor.class), any(ScanArgs.class))).thenReturn((RedisFuture) first,
+                (RedisFuture) second, (RedisFuture) third);
+
+        ScanIterator<String> iterator = ScanIterator.scan(connection, ScanArgs.Builder.limit(2), 2);
+        verify(connection, times(1)).scan(any(ScanCursor.class), any(ScanArgs.class));
+
+        complete(first, "1", "a");
+        verify(connection, times(2)).scan(any(ScanCursor.class), any(ScanArgs.class));
+
+        complete(second, "2", "b");
+        verify(connection, times(2)).scan(any(ScanCursor.class), any(ScanArgs.class));
+
+        assertThat(iterator.next()).isEqualTo("a");
+        verify(connection, times(3)).scan(any(ScanCursor.class), any(ScanArgs.class));
+    }
+
+    @Test
+    public void emptyPagesAreSkipped() throws Exception {
+        when(connection.scan(any(ScanCursor.class), any(ScanArgs.class))).thenReturn((RedisFuture) page("1"),
+                (RedisFuture) page("0", "a"));
+
+        ScanIterator<String> iterator = ScanIterator.scan(connection);
+
+        assertThat(iterator.next()).isEqualTo("a");
+        assertThat(iterator.hasNext()).isFalse();
+    }
+
+    @Test(expected = RedisException.class)
+    public void errorsAreReported() throws Exception {
+        Command<String, String, KeyScanCursor<String>> failed = pending();
+        failed.getOutput().setError("ERR invalid cursor");
+        failed.complete();
+        when(connection.scan(isNull(ScanCursor.class), any(ScanArgs.class))).thenReturn((RedisFuture) failed);
+
+        ScanIterator.scan(connection).hasNext();
+    }
+
+    @Test
+    public void errorsAreReportedOnEveryLaterCall() throws Exception {
+        Command<String, String, KeyScanCursor<String>> failed = pending();
+        failed.getOutput().setError("ERR invalid cursor");
+        failed.complete();
+        when(connection.scan(isNull(ScanCursor.class), any(ScanArgs.class))).thenReturn((RedisFuture) failed);
+
+        ScanIterator<String> iterator = ScanIterator.scan(connection);
+        for (int i = 0; i < 2; i++) {
+            try {
+                iterator.hasNext();
+                fail("Missing RedisException");
+            } catch (RedisException e) {
+                assertThat(e).hasMessage("ERR invalid cursor");
+            }
+        }
+
+        try {
+            iterator.next();
+            fail("Missing RedisException");
+        } catch (RedisException e) {
+            assertThat(e).hasMessage("ERR invalid cursor");
+        }
+    }
+
+    private Command<String, String, KeyScanCursor<String>> page(String cursor, String... keys) {
+        Command<String, String, KeyScanCursor<String>> command = pending();
+        complete(command, cursor, keys);
+        return command;
+    }
+
+    private Command<String, String, KeyScanCursor<String>> pending() {
+        return new Command<String, String, KeyScanCursor<String>>(CommandType.SCAN, new KeyScanOutput<String, String>(
+                new Utf8StringCodec()), null);
+    }
+
+    private void complete(Command<String, String, KeyScanCursor<String>> command, String cursor, String... keys) {
+        command.getOutput().set(ByteBuffer.wrap(cursor.getBytes()));
+        for (String key : keys) {
+            command.getOutput().set(ByteBuffer.wrap(key.getBytes()));
+        }
+        command.complete();
+    }
+}
@@ -0,0 +1,99 @@
+package com.lambdaworks.redis;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.lambdaworks.redis.codec.Utf8StringCodec;
+import com.lambdaworks.redis.output.StatusOutput;
+import com.lambdaworks.redis.protocol.Command;
+import com.lambdaworks.redis.protocol.CommandType;
+
+@RunWith(MockitoJUnitRunner.class)
+@SuppressWarnings({ "unchecked", "rawtypes" })
+public class ScriptExecutorTest {
+
+    private static final String SCRIPT = "return 1";
+    private static final String DIGEST = "e0e1f9fabfc9d4800c877a703b823ac0578ff8db";
+
+    @Mock
+    private RedisScriptingAsyncConnection<String, String> connection;
+
+    private Command<String, String, String> evalsha = command(CommandType.EVALSHA);
+    private Command<String, String, String> eval = command(CommandType.EVAL);
+
+    private ScriptExecutor<String, String> sut;
+
+    @Before
+    public void before() throws Exception {
+        when(connection.<String> evalsha(anyString(), any(ScriptOutputType.class), any(String[].class))).thenReturn(
+                (RedisFuture) evalsha);
+        when(connection.<String> eval(anyString(), any(ScriptOutputType.class), any(String[].class))).thenReturn(
+                (RedisFuture) eval);
+        sut = new ScriptExecutor<String, String>(connection);
+    }
+
+    @Test
+    public void digestIsComputedOnce() throws Exception {
+        assertThat(sut.getDigest(SCRIPT)).isEqualTo(DIGEST);
+        assertThat(sut.getDigest(SCRIPT)).isSameAs(sut.getDigest(SCRIPT));
+        assertThat(sut.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void executesUsingEvalsha() throws Exception {
+        RedisFuture<String> result = sut.execute(SCRIPT, ScriptOutputType.STATUS, "key");
+        verify(connection).evalsha(DIGEST, ScriptOutputType.STATUS, "key");
+        assertThat(result.isDone()).isFalse();
+
+        evalsha.getOutput().set(ByteBuffer.wrap("hello moon".getBytes()));
+        evalsha.complete();
+
+        assertThat(result.get()).isEqualTo("hello moon");
+        verify(connection, never()).eval(anyString(), any(ScriptOutputType.class), any(String[].class));
+    }
+
+    @Test
+    public void fallsBackToEvalOnNoScript() throws Exception {
+        RedisFuture<String> result = sut.execute(SCRIPT, ScriptOutputType.STATUS, "key");
+
+        evalsha.getOutput().setError("NOSCRIPT No matching script. Please use EVAL.");
+        evalsha.complete();
+
+        verify(connection).eval(SCRIPT, ScriptOutputType.STATUS, "key");
+        assertThat(result.isDone()).isFalse();
+
+        eval.getOutput().set(ByteBuffer.wrap("hello moon".getBytes()));
+        eval.complete();
+
+        assertThat(result.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(result.get()).isEqualTo("hello moon");
+        assertThat(result.getError()).isNull();
+    }
+
+    @Test
+    public void otherErrorsAreReported() throws Exception {
+        RedisFuture<String> result = sut.execute(SCRIPT, ScriptOutputType.STATUS, "key");
+
+        evalsha.getOutput().setError("ERR Error running script");
+        evalsha.complete();
+
+        assertThat(result.isDone()).isTrue();
+        assertThat(result.getError()).isEqualTo("ERR Error running script");
+        verify(connection, never()).eval(anyString(), any(ScriptOutputType.class), any(String[].class));
+    }
+
+    private Command<String, String, String> command(CommandType type) {
+        return new Command<String, String, String>(type, new StatusOutput<String, String>(new Utf8StringCodec()), null);
+    }
+}
@@ -39,6 +39,26 @@ public class ScriptingCommandTest extends AbstractCommandTest {
         assertThat(redis.eval("return {ARGV[1], ARGV[2]}", MULTI, keys, "a", "b")).isEqualTo(list("a", "b"));
     }
 
+    @Test
+    public void evalStreaming() throws Exception {
+        ListStreamingAdapter<String> streamingAdapter = new ListStreamingAdapter<String>();
+        String[] keys = new String[] { "one" };
+
+        assertThat(redis.eval(streamingAdapter, "return {KEYS[1], ARGV[1]}", keys, "a")).isEqualTo(2L);
+        assertThat(streamingAdapter.getList()).isEqualTo(list("one", "a"));
+    }
+
+    @Test
+    public void evalshaStreaming() throws Exception {
+        redis.scriptFlush();
+        String digest = redis.scriptLoad("return {ARGV[1], ARGV[2]}");
+        ListStreamingAdapter<String> streamingAdapter = new ListStreamingAdapter<String>();
+        String[] keys = new String[0];
+
+        assertThat(redis.evalsha(streamingAdapter, digest, keys, "a", "b")).isEqualTo(2L);
+        assertThat(streamingAdapter.getList()).isEqualTo(list("a", "b"));
+    }
+
     @Test
     public void evalsha() throws Exception {
         redis.scriptFlush();
@@ -0,0 +1,132 @@
+package com.lambdaworks.redis;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.google.common.base.Supplier;
+import com.lambdaworks.redis.pubsub.RedisPubSubConnection;
+
+import io.netty.channel.Channel;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SentinelTopologyProviderTest {
+
+    private SocketAddress oldMaster = new InetSocketAddress("127.0.0.1", 6379);
+    private SocketAddress newMaster = new InetSocketAddress("127.0.0.1", 6380);
+
+    @Mock
+    private Supplier<SocketAddress> masterLookup;
+
+    @Mock
+    private RedisPubSubConnection<String, String> sentinelConnection;
+
+    @Mock
+    private RedisChannelHandler<String, String> connection;
+
+    @Mock
+    private Channel channel;
+
+    private SentinelTopologyProvider sut;
+
+    @Before
+    public void before() throws Exception {
+        when(masterLookup.get()).thenReturn(oldMaster);
+        when(sentinelConnection.isOpen()).thenReturn(true);
+        when(connection.getChannel()).thenReturn(channel);
+        when(channel.isActive()).thenReturn(true);
+        when(channel.remoteAddress()).thenReturn(oldMaster);
+
+        sut = new SentinelTopologyProvider("mymaster", masterLookup);
+        sut.subscribe(sentinelConnection);
+    }
+
+    @Test
+    public void subscribesToSwitchMaster() throws Exception {
+        verify(sentinelConnection).addListener(sut);
+        verify(sentinelConnection).subscribe(SentinelTopologyProvider.SWITCH_MASTER, SentinelTopologyProvider.SLAVE,
+                SentinelTopologyProvider.SDOWN, SentinelTopologyProvider.SDOWN_END);
+    }
+
+    @Test
+    public void cachesMaster() throws Exception {
+        assertThat(sut.getMaster()).isEqualTo(oldMaster);
+        assertThat(sut.getMaster()).isEqualTo(oldMaster);
+
+        verify(masterLookup, times(1)).get();
+    }
+
+    @Test
+    public void looksUpMasterWithoutSentinelSubscription() throws Exception {
+        sut.getMaster();
+        when(sentinelConnection.isOpen()).thenReturn(false);
+
+        sut.getMaster();
+
+        verify(masterLookup, times(2)).get();
+    }
+
+    @Test
+    public void switchMasterReconnectsConnections() throws Exception {
+        sut.getMaster();
+        sut.register(connection);
+
+        sut.message(SentinelTopologyProvider.SWITCH_MASTER, "mymaster 127.0.0.1 6379 127.0.0.1 6380");
+
+        assertThat(sut.getMaster()).isEqualTo(newMaster);
+        verify(channel).close();
+        verify(masterLookup, times(1)).get();
+    }
+
+    @Test
+    public void ignoresOtherMasters() throws Exception {
+        sut.getMaster();
+        sut.register(connection);
+
+        sut.message(SentinelTopologyProvider.SWITCH_MASTER, "othermaster 127.0.0.1 6379 127.0.0.1 6380");
+        sut.message(SentinelTopologyProvider.SWITCH_MASTER, "mymaster invalid");
+
+        assertThat(sut.getMaster()).isEqualTo(oldMaster);
+        verify(channel, never()).close();
+    }
+
+    @Test
+    public void keepsConnectionsToNewMaster() throws Exception {
+        when(channel.remoteAddress()).thenReturn(newMaster);
+        sut.register(connection);
+
+        sut.message(SentinelTopologyProvider.SWITCH_MASTER, "mymaster 127.0.0.1 6379 127.0.0.1 6380");
+
+        verify(channel, never()).close();
+    }
+
+    @Test
+    public void slaveEventsNotifyTopologyListeners() throws Exception {
+        Runnable listener = mock(Runnable.class);
+        sut.addTopologyListener(listener);
+
+        sut.message(SentinelTopologyProvider.SLAVE, "slave 127.0.0.1:6381 127.0.0.1 6381 @ mymaster 127.0.0.1 6379");
+        sut.message(SentinelTopologyProvider.SDOWN, "slave 127.0.0.1:6381 127.0.0.1 6381 @ othermaster 127.0.0.1 6379");
+        sut.message(SentinelTopologyProvider.SDOWN, "master mymaster 127.0.0.1 6379");
+
+        verify(listener, times(1)).run();
+
+        sut.message(SentinelTopologyProvider.SWITCH_MASTER, "mymaster 127.0.0.1 6379 127.0.0.1 6380");
+        verify(listener, times(2)).run();
+    }
+
+    @Test
+    public void closeClosesSentinelConnections() throws Exception {
+        sut.close();
+
+        verify(sentinelConnection).close();
+    }
+}
@@ -0,0 +1,136 @@
+package com.lambdaworks.redis;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.lambdaworks.redis.codec.Utf8StringCodec;
+import com.lambdaworks.redis.protocol.RedisCommand;
+
+public class SingleFlightTest extends AbstractCommandTest {
+
+    private RedisAsyncConnectionImpl<String, String> async;
+
+    @Before
+    public void openAsyncConnection() throws Exception {
+        async = (RedisAsyncConnectionImpl<String, String>) client.connectAsync();
+        async.setSingleFlight(true);
+    }
+
+    @After
+    public void closeAsyncConnection() throws Exception {
+        async.close();
+    }
+
+    @Test
+    public void identicalReadsReachRedisOnce() throws Exception {
+        redis.set(key, value);
+        redis.configResetstat();
+
+        // the reads stay in flight until BLPOP returns.
+        RedisFuture<KeyValue<String, String>> blpop = async.blpop(10, "blocker");
+        List<RedisFuture<String>> futures = new ArrayList<RedisFuture<String>>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(async.get(key));
+        }
+        redis.lpush("blocker", "unblock");
+
+        assertThat(blpop.get()).isEqualTo(kv("blocker", "unblock"));
+        for (RedisFuture<String> future : futures) {
+            assertThat(future.get()).isEqualTo(value);
+        }
+        assertThat(commandStats("get")).startsWith("cmdstat_get:calls=1,");
+
+        assertThat(async.get(key).get()).isEqualTo(value);
+        assertThat(commandStats("get")).startsWith("cmdstat_get:calls=2,");
+    }
+
+    @Test
+    public void cancelledReadDoesNotCancelIdenticalReads() throws Exception {
+        redis.set(key, value);
+
+        RedisFuture<KeyValue<String, String>> blpop = async.blpop(10, "blocker");
+        RedisFuture<String> cancelled = async.get(key);
+        RedisFuture<String> retained = async.get(key);
+        cancelled.cancel(true);
+        redis.lpush("blocker", "unblock");
+
+        blpop.get();
+        assertThat(cancelled.isCancelled()).isTrue();
+        assertThat(retained.get()).isEqualTo(value);
+    }
+
+    @Test
+    public void readsAreNotSharedAcrossWrites() throws Exception {
+        redis.set(key, value);
+        redis.configResetstat();
+
+        // the first read stays in flight while the write and the second read are issued.
+        RedisFuture<KeyValue<String, String>> blpop = async.blpop(10, "blocker");
+        RedisFuture<String> before = async.get(key);
+        async.set(key, value + "X");
+        RedisFuture<String> after = async.get(key);
+        assertThat(before.isDone()).isFalse();
+        redis.lpush("blocker", "unblock");
+
+        blpop.get();
+        assertThat(before.get()).isEqualTo(value);
+        assertThat(after.get()).isEqualTo(value + "X");
+        assertThat(commandStats("get")).startsWith("cmdstat_get:calls=2,");
+    }
+
+    @Test
+    public void failedWriteIsNotShared() throws Exception {
+        final AtomicInteger writes = new AtomicInteger();
+        RedisAsyncConnectionImpl<String, String> connection = new RedisAsyncConnectionImpl<String, String>(
+                new RedisChannelWriter<String, String>() {
+                    @Override
+                    public <T> RedisCommand<String, String, T> write(RedisCommand<String, String, T> command) {
+                        if (writes.getAndIncrement() == 0) {
+                            throw new RedisException("Connection is closed");
+                        }
+                        command.getOutput().set(ByteBuffer.wrap(value.getBytes()));
+                        command.complete();
+                        return command;
+                    }
+
+                    @Override
+                    public void close() {
+                    }
+
+                    @Override
+                    public void setRedisChannelHandler(RedisChannelHandler<String, String> redisChannelHandler) {
+                    }
+                }, new Utf8StringCodec(), 1, TimeUnit.SECONDS);
+        connection.setSingleFlight(true);
+
+        try {
+            connection.get(key);
+            fail("Missing RedisException");
+        } catch (RedisException e) {
+            assertThat(e).hasMessage("Connection is closed");
+        }
+
+        RedisFuture<String> future = connection.get(key);
+        assertThat(future.isDone()).isTrue();
+        assertThat(future.get()).isEqualTo(value);
+        assertThat(writes.get()).isEqualTo(2);
+    }
+
+    private String commandStats(String command) {
+        for (String line : redis.info("commandstats").split("\r\n")) {
+            if (line.startsWith("cmdstat_" + command + ":")) {
+                return line;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,42 @@
+package com.lambdaworks.redis;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.Test;
+
+import io.netty.bootstrap.Bootstrap;
+
+public class SocketOptionsTest {
+
+    @Test
+    public void defaults() throws Exception {
+        SocketOptions sut = ClientOptions.create().getSocketOptions();
+
+        assertThat(sut.isTcpNoDelay()).isTrue();
+        assertThat(sut.isKeepAlive()).isFalse();
+        assertThat(sut.getSendBufferSize()).isEqualTo(0);
+        assertThat(sut.getBufferAllocator()).isEqualTo(SocketOptions.BufferAllocator.DEFAULT);
+    }
+
+    @Test
+    public void optionsAreAppliedToBootstrap() throws Exception {
+        SocketOptions sut = new SocketOptions.Builder().withKeepAlive(true).withSendBufferSize(4096)
+                .withWriteBufferWaterMarks(8192, 16384).withReceiveBufferAllocator(512, 1024, 65536)
+                .withBufferAllocator(SocketOptions.BufferAllocator.POOLED).build();
+
+        Bootstrap bootstrap = new Bootstrap();
+        sut.apply(bootstrap);
+
+        String options = bootstrap.toString();
+        assertThat(options).contains("TCP_NODELAY=true", "SO_KEEPALIVE=true", "SO_SNDBUF=4096",
+                "WRITE_BUFFER_LOW_WATER_MARK=8192", "WRITE_BUFFER_HIGH_WATER_MARK=16384", "RCVBUF_ALLOCATOR", "ALLOCATOR");
+        assertThat(options.indexOf("WRITE_BUFFER_LOW_WATER_MARK")).isLessThan(
+                options.indexOf("WRITE_BUFFER_HIGH_WATER_MARK"));
+        assertThat(options).doesNotContain("SO_RCVBUF=");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void watermarksMustBeOrdered() throws Exception {
+        new SocketOptions.Builder().withWriteBufferWaterMarks(2048, 1024);
+    }
+}
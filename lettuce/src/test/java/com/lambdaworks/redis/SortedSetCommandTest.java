@@ -453,6 +453,16 @@ public class SortedSetCommandTest extends AbstractCommandTest {
         assertEquals(10, result2.size());
     }
 
+    @Test
+    public void zrangebylexStreaming() throws Exception {
+        setup100KeyValues(new HashSet<String>());
+        ListStreamingAdapter<String> streamingAdapter = new ListStreamingAdapter<String>();
+
+        assertEquals(100, redis.zrangebylex(streamingAdapter, key, "-", "+").longValue());
+        assertEquals(10, redis.zrangebylex(streamingAdapter, key, "-", "+", 10, 10).longValue());
+        assertEquals(110, streamingAdapter.getList().size());
+    }
+
     @Test
     public void zremrangebylex() throws Exception {
         setup100KeyValues(new HashSet<String>());
@@ -1,13 +1,16 @@
 package com.lambdaworks.redis.cluster;
 
 import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
 
 import java.util.concurrent.TimeUnit;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import com.lambdaworks.redis.RedisChannelWriter;
 import com.lambdaworks.redis.codec.Utf8StringCodec;
+import com.lambdaworks.redis.metrics.MetricsCollector;
 import com.lambdaworks.redis.output.StatusOutput;
 import com.lambdaworks.redis.protocol.Command;
 import com.lambdaworks.redis.protocol.CommandType;
@@ -48,4 +51,18 @@ public class ClusterCommandTest {
         command.complete();
         sut.await(1, TimeUnit.MINUTES);
     }
+
+    @Test
+    public void movedRedirectIsRecorded() throws Exception {
+
+        MetricsCollector metricsCollector = mock(MetricsCollector.class);
+        RedisChannelWriter retry = mock(RedisChannelWriter.class);
+        sut = new ClusterCommand(command, retry, 2, metricsCollector);
+
+        command.getOutput().setError("MOVED 1234 127.0.0.1:7380");
+        sut.complete();
+
+        verify(metricsCollector).recordRedirect(CommandType.TYPE, MetricsCollector.RedirectType.MOVED);
+        verify(retry).write(sut);
+    }
 }
@@ -0,0 +1,77 @@
+package com.lambdaworks.redis.cluster;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.Collections;
+import java.util.EnumSet;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.lambdaworks.redis.RedisAsyncConnectionImpl;
+import com.lambdaworks.redis.RedisException;
+import com.lambdaworks.redis.RedisURI;
+import com.lambdaworks.redis.cluster.models.partitions.Partitions;
+import com.lambdaworks.redis.cluster.models.partitions.RedisClusterNode;
+import com.lambdaworks.redis.codec.RedisCodec;
+
+@RunWith(MockitoJUnitRunner.class)
+@SuppressWarnings("unchecked")
+public class RedisClusterClientConnectMastersTest {
+
+    @Mock
+    private RedisAsyncConnectionImpl<String, String> master1;
+
+    @Mock
+    private RedisAsyncConnectionImpl<String, String> master2;
+
+    @Test
+    public void connectionsAreClosedIfAMasterCannotBeConnected() throws Exception {
+
+        RedisClusterClient sut = new RedisClusterClient(RedisURI.Builder.redis("127.0.0.1", 7379).build()) {
+            @Override
+            protected Partitions loadPartitions() {
+                Partitions partitions = new Partitions();
+                partitions.addPartition(node(7379, RedisClusterNode.NodeFlag.MASTER));
+                partitions.addPartition(node(7380, RedisClusterNode.NodeFlag.SLAVE));
+                partitions.addPartition(node(7381, RedisClusterNode.NodeFlag.MASTER));
+                partitions.addPartition(node(7382, RedisClusterNode.NodeFlag.MASTER));
+                return partitions;
+            }
+
+            @Override
+            <K, V> RedisAsyncConnectionImpl<K, V> connectAsyncImpl(RedisCodec<K, V> codec, SocketAddress socketAddress) {
+                switch (((InetSocketAddress) socketAddress).getPort()) {
+                    case 7379:
+                        return (RedisAsyncConnectionImpl<K, V>) master1;
+                    case 7381:
+                        return (RedisAsyncConnectionImpl<K, V>) master2;
+                    default:
+                        throw new RedisException("Unable to connect");
+                }
+            }
+        };
+
+        try {
+            sut.connectMastersAsync();
+            fail("Missing RedisException");
+        } catch (RedisException e) {
+            assertThat(e).hasMessage("Unable to connect");
+        } finally {
+            sut.shutdown();
+        }
+
+        verify(master1).close();
+        verify(master2).close();
+    }
+
+    private RedisClusterNode node(int port, RedisClusterNode.NodeFlag flag) {
+        return new RedisClusterNode(RedisURI.Builder.redis("127.0.0.1", port).build(), "node-" + port, true, null, 0, 0, 0,
+                Collections.<Integer> emptyList(), EnumSet.of(flag));
+    }
+}
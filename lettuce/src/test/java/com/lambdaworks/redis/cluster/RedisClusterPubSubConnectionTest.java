@@ -0,0 +1,189 @@
+package com.lambdaworks.redis.cluster;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.lambdaworks.redis.RedisConnectionStateListener;
+import com.lambdaworks.redis.RedisURI;
+import com.lambdaworks.redis.cluster.models.partitions.Partitions;
+import com.lambdaworks.redis.cluster.models.partitions.RedisClusterNode;
+import com.lambdaworks.redis.codec.Utf8StringCodec;
+import com.lambdaworks.redis.pubsub.RedisPubSubConnectionImpl;
+import com.lambdaworks.redis.pubsub.RedisPubSubListener;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RedisClusterPubSubConnectionTest {
+
+    private Utf8StringCodec codec = new Utf8StringCodec();
+
+    private Partitions partitions = new Partitions();
+    private RedisClusterNode node1 = node("node1", 7379, 0, 8191);
+    private RedisClusterNode node2 = node("node2", 7380, 8192, 16383);
+
+    private Set<Closeable> closeableResources = new HashSet<Closeable>();
+
+    @Mock
+    private RedisClusterClient client;
+
+    @Mock
+    private Executor refreshExecutor;
+
+    @Mock
+    private RedisPubSubConnectionImpl<String, String> connection1;
+
+    @Mock
+    private RedisPubSubConnectionImpl<String, String> connection2;
+
+    @Mock
+    private RedisPubSubListener<String, String> listener;
+
+    private RedisClusterPubSubConnection<String, String> sut;
+
+    @Before
+    public void before() throws Exception {
+        partitions.addPartition(node1);
+        partitions.addPartition(node2);
+
+        when(client.getPartitions()).thenReturn(partitions);
+        when(client.connectPubSubAsyncImpl(codec, node1.getUri())).thenReturn(connection1);
+        when(client.connectPubSubAsyncImpl(codec, node2.getUri())).thenReturn(connection2);
+
+        sut = new RedisClusterPubSubConnection<String, String>(client, codec, refreshExecutor, closeableResources);
+    }
+
+    @Test
+    public void subscribeOnSlotOwner() throws Exception {
+        String channel1 = channelForSlots(0, 8191);
+        String channel2 = channelForSlots(8192, 16383);
+
+        sut.subscribe(channel1, channel2);
+
+        verify(connection1).subscribe(channel1);
+        verify(connection2).subscribe(channel2);
+        assertThat(sut.getSubscriptionNodeId(channel1)).isEqualTo("node1");
+        assertThat(sut.getSubscriptionNodeId(channel2)).isEqualTo("node2");
+    }
+
+    @Test
+    public void connectsOnlyToNodesWithSubscriptions() throws Exception {
+        sut.subscribe(channelForSlots(0, 8191));
+
+        verify(client).connectPubSubAsyncImpl(codec, node1.getUri());
+        verify(client, never()).connectPubSubAsyncImpl(codec, node2.getUri());
+    }
+
+    @Test
+    public void unsubscribeOnSubscriptionNode() throws Exception {
+        String channel = channelForSlots(8192, 16383);
+        sut.subscribe(channel);
+
+        sut.unsubscribe(channel);
+
+        verify(connection2).unsubscribe(channel);
+        assertThat(sut.getSubscriptionNodeId(channel)).isNull();
+    }
+
+    @Test
+    public void psubscribeOnOwnerOfFirstSlot() throws Exception {
+        sut.psubscribe("news.*");
+
+        verify(connection1).psubscribe("news.*");
+        verifyZeroInteractions(connection2);
+    }
+
+    @Test
+    public void refreshMovesSubscriptionsToNewSlotOwner() throws Exception {
+        String channel = channelForSlots(0, 8191);
+        sut.subscribe(channel);
+
+        node1.setSlots(new ArrayList<Integer>());
+        node2.setSlots(slots(0, 16383));
+        sut.refreshSubscriptions();
+
+        verify(client).reloadPartitions();
+        verify(connection1).unsubscribe(channel);
+        verify(connection2).subscribe(channel);
+        verify(connection1).close();
+        assertThat(sut.getSubscriptionNodeId(channel)).isEqualTo("node2");
+    }
+
+    @Test
+    public void refreshIsScheduledWhenNodeConnectionDisconnects() throws Exception {
+        ArgumentCaptor<RedisConnectionStateListener> captor = ArgumentCaptor.forClass(RedisConnectionStateListener.class);
+        verify(client).addListener(captor.capture());
+        sut.subscribe(channelForSlots(0, 8191));
+
+        captor.getValue().onRedisDisconnected(connection2);
+        verifyZeroInteractions(refreshExecutor);
+
+        captor.getValue().onRedisDisconnected(connection1);
+        captor.getValue().onRedisDisconnected(connection1);
+        verify(refreshExecutor).execute(any(Runnable.class));
+    }
+
+    @Test
+    public void listenersReceiveMessagesOfAllNodes() throws Exception {
+        sut.addListener(listener);
+        sut.subscribe(channelForSlots(0, 8191));
+
+        ArgumentCaptor<RedisPubSubListener> captor = ArgumentCaptor.forClass(RedisPubSubListener.class);
+        verify(connection1).addListener(captor.capture());
+        captor.getValue().message("channel", "message");
+
+        verify(listener).message("channel", "message");
+    }
+
+    @Test
+    public void closeClosesNodeConnections() throws Exception {
+        assertThat(closeableResources).contains(sut);
+        sut.subscribe(channelForSlots(0, 8191), channelForSlots(8192, 16383));
+
+        sut.close();
+
+        verify(connection1).close();
+        verify(connection2).close();
+        verify(client).removeListener(any(RedisConnectionStateListener.class));
+        assertThat(closeableResources).isEmpty();
+    }
+
+    private String channelForSlots(int from, int to) {
+        for (int i = 0;; i++) {
+            String channel = "channel-" + i;
+            int slot = SlotHash.getSlot(codec.encodeKey(channel));
+            if (slot >= from && slot <= to) {
+                return channel;
+            }
+        }
+    }
+
+    private static RedisClusterNode node(String nodeId, int port, int from, int to) {
+        RedisClusterNode node = new RedisClusterNode();
+        node.setNodeId(nodeId);
+        node.setUri(RedisURI.Builder.redis("localhost", port).build());
+        node.setSlots(slots(from, to));
+        return node;
+    }
+
+    private static List<Integer> slots(int from, int to) {
+        List<Integer> slots = new ArrayList<Integer>();
+        for (int i = from; i <= to; i++) {
+            slots.add(i);
+        }
+        return slots;
+    }
+}
@@ -0,0 +1,79 @@
+package com.lambdaworks.redis.metrics;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.AdditionalAnswers.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.lambdaworks.redis.RedisAsyncConnectionImpl;
+import com.lambdaworks.redis.RedisChannelWriter;
+import com.lambdaworks.redis.RedisFuture;
+import com.lambdaworks.redis.codec.Utf8StringCodec;
+import com.lambdaworks.redis.protocol.CommandType;
+import com.lambdaworks.redis.protocol.RedisCommand;
+
+public class DefaultMetricsCollectorTest {
+
+    private DefaultMetricsCollector sut = new DefaultMetricsCollector();
+
+    @Test
+    public void commandLatencies() throws Exception {
+        for (int i = 1; i <= 100; i++) {
+            sut.recordCommandLatency(CommandType.GET, TimeUnit.MICROSECONDS.toNanos(i));
+        }
+        sut.recordCommandLatency(CommandType.SET, 0);
+
+        MetricsSnapshot snapshot = sut.newSnapshot(false).build();
+
+        assertThat(snapshot.getCommandLatencies()).containsKeys(CommandType.GET, CommandType.SET);
+        CommandLatency latency = snapshot.getCommandLatencies().get(CommandType.GET);
+        assertThat(latency.getCount()).isEqualTo(100);
+        assertThat(latency.getMin(TimeUnit.MICROSECONDS)).isEqualTo(1);
+        assertThat(latency.getMax(TimeUnit.MICROSECONDS)).isEqualTo(100);
+        assertThat(latency.getMean(TimeUnit.NANOSECONDS)).isEqualTo(50500);
+        assertThat(latency.getPercentile(50, TimeUnit.NANOSECONDS)).isBetween(50000L, 65535L);
+        assertThat(latency.getPercentile(100, TimeUnit.MICROSECONDS)).isEqualTo(100);
+        assertThat(snapshot.getCommandLatencies().get(CommandType.SET).getPercentile(99, TimeUnit.NANOSECONDS)).isEqualTo(0);
+    }
+
+    @Test
+    public void snapshotReset() throws Exception {
+        sut.recordCommandLatency(CommandType.GET, 10);
+        sut.recordReconnect(null);
+        sut.recordRedirect(CommandType.GET, MetricsCollector.RedirectType.MOVED);
+        sut.recordRedirect(CommandType.GET, MetricsCollector.RedirectType.ASK);
+
+        MetricsSnapshot snapshot = sut.newSnapshot(true).build();
+        assertThat(snapshot.getCommandLatencies()).hasSize(1);
+        assertThat(snapshot.getReconnects()).isEqualTo(1);
+        assertThat(snapshot.getMovedRedirects()).isEqualTo(1);
+        assertThat(snapshot.getAskRedirects()).isEqualTo(1);
+
+        snapshot = sut.newSnapshot(true).build();
+        assertThat(snapshot.getCommandLatencies()).isEmpty();
+        assertThat(snapshot.getReconnects()).isEqualTo(0);
+        assertThat(snapshot.getMovedRedirects()).isEqualTo(0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void connectionRecordsCommandLatency() throws Exception {
+        RedisChannelWriter<String, String> writer = mock(RedisChannelWriter.class);
+        when(writer.write(any(RedisCommand.class))).then(returnsFirstArg());
+        RedisAsyncConnectionImpl<String, String> connection = new RedisAsyncConnectionImpl<String, String>(writer,
+                new Utf8StringCodec(), 1, TimeUnit.SECONDS);
+        connection.setMetricsCollector(sut);
+
+        RedisFuture<String> get = connection.get("key");
+        RedisFuture<String> cancelled = connection.get("key");
+        cancelled.cancel(true);
+        ((RedisCommand<String, String, String>) get).complete();
+
+        MetricsSnapshot snapshot = sut.newSnapshot(false).build();
+        assertThat(snapshot.getCommandLatencies().get(CommandType.GET).getCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,204 @@
+package com.lambdaworks.redis.protocol;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.lambdaworks.redis.ClientOptions;
+import com.lambdaworks.redis.SocketOptions;
+import com.lambdaworks.redis.codec.Utf8StringCodec;
+import com.lambdaworks.redis.output.StatusOutput;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.CharsetUtil;
+import io.netty.util.ResourceLeakDetector;
+
+/**
+ * Reference counting of the buffers allocated by {@link CommandHandler}. Runs with paranoid leak detection.
+ */
+public class CommandHandlerBufferTest {
+
+    private static ResourceLeakDetector.Level leakDetectionLevel;
+
+    private CommandHandler<String, String> sut;
+    private EmbeddedChannel channel;
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        leakDetectionLevel = ResourceLeakDetector.getLevel();
+        ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.PARANOID);
+    }
+
+    @AfterClass
+    public static void afterClass() throws Exception {
+        ResourceLeakDetector.setLevel(leakDetectionLevel);
+    }
+
+    @Before
+    public void before() throws Exception {
+        setup(new ClientOptions.Builder());
+    }
+
+    private void setup(ClientOptions.Builder builder) {
+        SocketOptions socketOptions = new SocketOptions.Builder().withDirectBuffers(true).build();
+        ClientOptions clientOptions = builder.withSocketOptions(socketOptions).build();
+        sut = new CommandHandler<String, String>(clientOptions, new ArrayBlockingQueue<RedisCommand<String, String, ?>>(10));
+
+        channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        // pooled buffers are recycled once released, so their reference count cannot be checked after releasing them.
+        channel.config().setAllocator(new UnpooledByteBufAllocator(true));
+        channel.pipeline().addFirst(sut);
+        channel.pipeline().fireChannelRegistered();
+    }
+
+    @After
+    public void after() throws Exception {
+        channel.finish();
+    }
+
+    @Test
+    public void encodesCommandsIntoDirectBuffers() throws Exception {
+        Command<String, String, String> command = command();
+        channel.writeOutbound(command);
+
+        ByteBuf encoded = (ByteBuf) channel.readOutbound();
+        assertThat(encoded.isDirect()).isTrue();
+        assertThat(encoded.toString(CharsetUtil.US_ASCII)).isEqualTo("*1\r\n$4\r\nPING\r\n");
+        assertThat(encoded.release()).isTrue();
+
+        ByteBuf response = channel.alloc().directBuffer().writeBytes("+PONG\r\n".getBytes());
+        channel.writeInbound(response);
+
+        assertThat(response.refCnt()).isEqualTo(0);
+        assertThat(command.get()).isEqualTo("PONG");
+    }
+
+    @Test
+    public void cumulationBufferIsDirect() throws Exception {
+        assertThat(sut.buffer.isDirect()).isTrue();
+    }
+
+    @Test
+    public void cumulationBufferIsReleasedOnReRegistration() throws Exception {
+        ByteBuf first = sut.buffer;
+
+        channel.pipeline().fireChannelRegistered();
+
+        assertThat(first.refCnt()).isEqualTo(0);
+        assertThat(sut.buffer.refCnt()).isEqualTo(1);
+    }
+
+    @Test
+    public void cumulationBufferIsReleasedOnClose() throws Exception {
+        ByteBuf buffer = sut.buffer;
+
+        sut.close();
+
+        assertThat(buffer.refCnt()).isEqualTo(0);
+        assertThat(sut.buffer).isNull();
+    }
+
+    @Test
+    public void bufferIsReleasedIfEncodingFails() throws Exception {
+        final ByteBuf[] encodeBuffer = new ByteBuf[1];
+        Command<String, String, String> command = new Command<String, String, String>(CommandType.PING,
+                new StatusOutput<String, String>(new Utf8StringCodec()), null) {
+            @Override
+            public void encode(ByteBuf buf) {
+                encodeBuffer[0] = buf;
+                throw new IllegalStateException("encoding failed");
+            }
+        };
+
+        try {
+            channel.writeOutbound(command);
+            channel.checkException();
+            fail("Missing IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertThat(e).hasMessage("encoding failed");
+        }
+
+        assertThat(encodeBuffer[0].refCnt()).isEqualTo(0);
+        assertThat(channel.readOutbound()).isNull();
+    }
+
+    @Test
+    public void capacityIsReleasedIfEncodingFails() throws Exception {
+        channel.finish();
+        setup(new ClientOptions.Builder().withRequestQueueSize(1));
+        channel.pipeline().fireChannelActive();
+
+        Command<String, String, String> failing = new Command<String, String, String>(CommandType.PING,
+                new StatusOutput<String, String>(new Utf8StringCodec()), null) {
+            @Override
+            public void encode(ByteBuf buf) {
+                throw new IllegalStateException("encoding failed");
+            }
+        };
+        sut.write(failing);
+
+        assertThat(failing.isDone()).isTrue();
+        assertThat(failing.getException()).hasMessage("encoding failed");
+        assertThat(sut.getPendingCommandCount()).isEqualTo(0);
+
+        sut.write(command());
+        assertThat(((ByteBuf) channel.readOutbound()).release()).isTrue();
+        assertThat(sut.getPendingCommandCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void unansweredCommandsExpireOnReplay() throws Exception {
+        channel.finish();
+        setup(new ClientOptions.Builder().withDisconnectedBufferTimeout(10, TimeUnit.MILLISECONDS));
+
+        channel.pipeline().fireChannelActive();
+        Command<String, String, String> command = command();
+        sut.write(command);
+        assertThat(((ByteBuf) channel.readOutbound()).release()).isTrue();
+        assertThat(sut.getPendingCommandCount()).isEqualTo(1);
+
+        channel.pipeline().fireChannelInactive();
+        Thread.sleep(20);
+        channel.pipeline().fireChannelActive();
+
+        assertThat(command.isDone()).isTrue();
+        assertThat(command.getOutput().getError()).isEqualTo("Command expired while disconnected");
+        assertThat(channel.readOutbound()).isNull();
+        assertThat(sut.getPendingCommandCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void unansweredCommandsAreReplayedWithinTimeout() throws Exception {
+        channel.finish();
+        setup(new ClientOptions.Builder().withDisconnectedBufferTimeout(1, TimeUnit.MINUTES));
+
+        channel.pipeline().fireChannelActive();
+        Command<String, String, String> command = command();
+        sut.write(command);
+        assertThat(((ByteBuf) channel.readOutbound()).release()).isTrue();
+        assertThat(sut.getPendingCommandCount()).isEqualTo(1);
+
+        channel.pipeline().fireChannelInactive();
+        channel.pipeline().fireChannelActive();
+
+        ByteBuf replayed = (ByteBuf) channel.readOutbound();
+        assertThat(replayed.toString(CharsetUtil.US_ASCII)).isEqualTo("*1\r\n$4\r\nPING\r\n");
+        assertThat(replayed.release()).isTrue();
+        assertThat(command.isDone()).isFalse();
+    }
+
+    private Command<String, String, String> command() {
+        return new Command<String, String, String>(CommandType.PING, new StatusOutput<String, String>(new Utf8StringCodec()),
+                null);
+    }
+}
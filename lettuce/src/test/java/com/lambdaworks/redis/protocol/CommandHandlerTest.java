@@ -4,17 +4,27 @@ import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.*;
 
+import java.util.Arrays;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import com.lambdaworks.redis.ClientOptions;
+import com.lambdaworks.redis.RedisException;
 import com.lambdaworks.redis.codec.Utf8StringCodec;
 import com.lambdaworks.redis.output.StatusOutput;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.CharsetUtil;
 
 @RunWith(MockitoJUnitRunner.class)
 public class CommandHandlerTest {
@@ -45,4 +55,199 @@ public class CommandHandlerTest {
         verify(context).fireExceptionCaught(any(Exception.class));
     }
 
+    @Test
+    public void requestQueueSizeRejectsCommands() throws Exception {
+        ClientOptions clientOptions = new ClientOptions.Builder().withRequestQueueSize(2).build();
+        CommandHandler<String, String> handler = new CommandHandler<String, String>(clientOptions,
+                new ArrayBlockingQueue<RedisCommand<String, String, ?>>(10));
+
+        handler.write(command());
+        handler.write(command());
+        assertThat(handler.getPendingCommandCount()).isEqualTo(2);
+        assertThat(handler.getBufferedCommandCount()).isEqualTo(2);
+
+        try {
+            handler.write(command());
+            fail("Missing RedisException");
+        } catch (RedisException e) {
+            assertThat(e).hasMessageContaining("Request queue size exceeded");
+        }
+
+        assertThat(handler.getPendingCommandCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void requestQueueSizeBlocksCommands() throws Exception {
+        ClientOptions clientOptions = new ClientOptions.Builder().withRequestQueueSize(1)
+                .withBackpressurePolicy(ClientOptions.BackpressurePolicy.BLOCK)
+                .withBackpressureTimeout(10, TimeUnit.MILLISECONDS).build();
+        CommandHandler<String, String> handler = new CommandHandler<String, String>(clientOptions,
+                new ArrayBlockingQueue<RedisCommand<String, String, ?>>(10));
+
+        handler.write(command());
+
+        long start = System.currentTimeMillis();
+        try {
+            handler.write(command());
+            fail("Missing RedisException");
+        } catch (RedisException e) {
+            assertThat(System.currentTimeMillis() - start).isGreaterThanOrEqualTo(10);
+        }
+
+        handler.releaseCapacity();
+        handler.write(command());
+        assertThat(handler.getPendingCommandCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void disconnectedRejectsCommands() throws Exception {
+        ClientOptions clientOptions = new ClientOptions.Builder().withDisconnectedBehavior(
+                ClientOptions.DisconnectedBehavior.REJECT_COMMANDS).build();
+        CommandHandler<String, String> handler = disconnectedHandler(clientOptions);
+
+        try {
+            handler.write(command());
+            fail("Missing RedisException");
+        } catch (RedisException e) {
+            assertThat(e).hasMessageContaining("disconnected");
+        }
+
+        assertThat(handler.getPendingCommandCount()).isEqualTo(0);
+        assertThat(handler.getBufferedCommandCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void disconnectedAcceptsReadCommands() throws Exception {
+        ClientOptions clientOptions = new ClientOptions.Builder().withDisconnectedBehavior(
+                ClientOptions.DisconnectedBehavior.ACCEPT_READ_COMMANDS).build();
+        CommandHandler<String, String> handler = disconnectedHandler(clientOptions);
+
+        handler.write(command(CommandType.GET));
+
+        try {
+            handler.write(command(CommandType.APPEND));
+            fail("Missing RedisException");
+        } catch (RedisException e) {
+            assertThat(e).hasMessageContaining("only read commands");
+        }
+
+        assertThat(handler.getPendingCommandCount()).isEqualTo(1);
+        assertThat(handler.getBufferedCommandCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void disconnectedBufferSizeRejectsCommands() throws Exception {
+        ClientOptions clientOptions = new ClientOptions.Builder().withDisconnectedBufferSize(1).build();
+        CommandHandler<String, String> handler = disconnectedHandler(clientOptions);
+
+        handler.write(command());
+
+        try {
+            handler.write(command());
+            fail("Missing RedisException");
+        } catch (RedisException e) {
+            assertThat(e).hasMessageContaining("Disconnected buffer size exceeded");
+        }
+
+        assertThat(handler.getPendingCommandCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void expiredAndCancelledCommandsAreNotReplayed() throws Exception {
+        ClientOptions clientOptions = new ClientOptions.Builder().withDisconnectedBufferTimeout(10, TimeUnit.MILLISECONDS)
+                .build();
+        CommandHandler<String, String> handler = disconnectedHandler(clientOptions);
+
+        Command<String, String, String> expired = command();
+        handler.write(expired);
+        Thread.sleep(20);
+
+        Command<String, String, String> cancelled = command();
+        handler.write(cancelled);
+        cancelled.cancel(true);
+
+        Command<String, String, String> replayed = command();
+        handler.write(replayed);
+
+        Channel channel = mock(Channel.class);
+        when(context.channel()).thenReturn(channel);
+        handler.channelActive(context);
+
+        assertThat(expired.isDone()).isTrue();
+        assertThat(expired.getOutput().getError()).isEqualTo("Command expired while disconnected");
+        verify(channel, never()).writeAndFlush(expired);
+        verify(channel, never()).writeAndFlush(cancelled);
+        verify(channel).writeAndFlush(replayed);
+        assertThat(handler.getPendingCommandCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void commandsAreCompletedByCompletionExecutor() throws Exception {
+        BlockingQueue<RedisCommand<String, String, ?>> queue = new ArrayBlockingQueue<RedisCommand<String, String, ?>>(10);
+        CommandHandler<String, String> handler = new CommandHandler<String, String>(ClientOptions.create(), queue);
+        Executor completionExecutor = mock(Executor.class);
+        handler.setCompletionExecutor(completionExecutor);
+
+        when(context.alloc()).thenReturn(UnpooledByteBufAllocator.DEFAULT);
+        handler.channelRegistered(context);
+
+        Command<String, String, String> command = command();
+        queue.add(command);
+        handler.channelRead(context, Unpooled.copiedBuffer("+OK\r\n", CharsetUtil.US_ASCII));
+
+        assertThat(queue).isEmpty();
+        assertThat(command.isDone()).isFalse();
+
+        ArgumentCaptor<Runnable> completion = ArgumentCaptor.forClass(Runnable.class);
+        verify(completionExecutor).execute(completion.capture());
+        completion.getValue().run();
+
+        assertThat(command.isDone()).isTrue();
+        assertThat(command.get()).isEqualTo("OK");
+    }
+
+    @Test
+    public void batchCommandsAreQueuedIndividually() throws Exception {
+        BlockingQueue<RedisCommand<String, String, ?>> queue = new ArrayBlockingQueue<RedisCommand<String, String, ?>>(10);
+        ClientOptions clientOptions = new ClientOptions.Builder().withRequestQueueSize(2).build();
+        CommandHandler<String, String> handler = new CommandHandler<String, String>(clientOptions, queue);
+
+        when(context.alloc()).thenReturn(UnpooledByteBufAllocator.DEFAULT);
+        handler.channelRegistered(context);
+
+        Command<String, String, String> first = command();
+        Command<String, String, String> second = command();
+        CommandBatch<String, String, String> batch = new CommandBatch<String, String, String>(Arrays.asList(first, second));
+
+        handler.write(batch);
+        assertThat(handler.getPendingCommandCount()).isEqualTo(2);
+
+        handler.write(context, batch, null);
+        assertThat(queue).containsExactly(first, second);
+
+        handler.channelRead(context, Unpooled.copiedBuffer("+OK\r\n+OK\r\n", CharsetUtil.US_ASCII));
+
+        assertThat(first.get()).isEqualTo("OK");
+        assertThat(second.get()).isEqualTo("OK");
+        assertThat(batch.get()).isEqualTo("OK");
+        assertThat(handler.getPendingCommandCount()).isEqualTo(0);
+    }
+
+    private CommandHandler<String, String> disconnectedHandler(ClientOptions clientOptions) throws Exception {
+        CommandHandler<String, String> handler = new CommandHandler<String, String>(clientOptions,
+                new ArrayBlockingQueue<RedisCommand<String, String, ?>>(10));
+
+        when(context.channel()).thenReturn(mock(Channel.class));
+        handler.channelActive(context);
+        handler.channelInactive(context);
+        return handler;
+    }
+
+    private Command<String, String, String> command() {
+        return command(CommandType.APPEND);
+    }
+
+    private Command<String, String, String> command(CommandType type) {
+        return new Command<String, String, String>(type, new StatusOutput<String, String>(new Utf8StringCodec()), null);
+    }
 }
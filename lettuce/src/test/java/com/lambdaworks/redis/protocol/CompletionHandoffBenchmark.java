@@ -0,0 +1,98 @@
+package com.lambdaworks.redis.protocol;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import com.lambdaworks.redis.ClientOptions;
+import com.lambdaworks.redis.codec.Utf8StringCodec;
+import com.lambdaworks.redis.output.StatusOutput;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.CharsetUtil;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.EventExecutorGroup;
+
+/**
+ * Measures the cost of completing commands on the I/O thread compared to a handoff to a computation thread. Decodes batches
+ * of responses with {@link CommandHandler} and waits until the listeners of all commands ran. Run with {@code main}, not part
+ * of the test suite.
+ * 
+ * @author <a href="mailto:mpaluch@paluch.biz">Mark Paluch</a>
+ */
+public class CompletionHandoffBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int WARMUP_ROUNDS = 2000;
+    private static final int ROUNDS = 5000;
+
+    public static void main(String[] args) throws Exception {
+
+        EventExecutorGroup computation = new DefaultEventExecutorGroup(1);
+        try {
+            run("I/O thread", null);
+            run("computation", computation.next());
+        } finally {
+            computation.shutdownGracefully(0, 1, TimeUnit.SECONDS).await();
+        }
+    }
+
+    private static void run(String name, Executor completionExecutor) throws Exception {
+
+        BlockingQueue<RedisCommand<String, String, ?>> queue = new ArrayBlockingQueue<RedisCommand<String, String, ?>>(
+                BATCH_SIZE);
+        CommandHandler<String, String> handler = new CommandHandler<String, String>(ClientOptions.create(), queue);
+        handler.setCompletionExecutor(completionExecutor);
+
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        channel.pipeline().addFirst(handler);
+        channel.pipeline().fireChannelRegistered();
+
+        byte[] response = "+OK\r\n".getBytes(CharsetUtil.US_ASCII);
+        ByteBuf responses = Unpooled.buffer(response.length * BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            responses.writeBytes(response);
+        }
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            round(channel, queue, responses);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            round(channel, queue, responses);
+        }
+        long duration = System.nanoTime() - start;
+
+        System.out.println(String.format("%-12s %6d ns/command", name, duration / ((long) ROUNDS * BATCH_SIZE)));
+        channel.finish();
+    }
+
+    private static void round(EmbeddedChannel channel, BlockingQueue<RedisCommand<String, String, ?>> queue,
+            ByteBuf responses) throws Exception {
+
+        final CountDownLatch completed = new CountDownLatch(BATCH_SIZE);
+        Runnable listener = new Runnable() {
+            @Override
+            public void run() {
+                completed.countDown();
+            }
+        };
+
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            Command<String, String, String> command = new Command<String, String, String>(CommandType.PING,
+                    new StatusOutput<String, String>(new Utf8StringCodec()), null);
+            command.addListener(listener, MoreExecutors.sameThreadExecutor());
+            queue.put(command);
+        }
+
+        channel.writeInbound(responses.duplicate().retain());
+        completed.await();
+    }
+}
@@ -0,0 +1,98 @@
+package com.lambdaworks.redis.protocol;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.*;
+
+import java.net.SocketAddress;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.google.common.base.Supplier;
+import com.lambdaworks.redis.ClientOptions;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ConnectionWatchdogTest {
+
+    private Bootstrap bootstrap = new Bootstrap();
+
+    @Mock
+    private Executor reconnectWorkers;
+
+    @Mock
+    private Supplier<SocketAddress> socketAddressSupplier;
+
+    @Mock
+    private Timer timer;
+
+    @Test
+    public void exponentialBackoffIsCapped() throws Exception {
+        ClientOptions clientOptions = new ClientOptions.Builder().withReconnectBackoff(10, 100, TimeUnit.MILLISECONDS)
+                .withReconnectJitter(false).build();
+        ConnectionWatchdog sut = new ConnectionWatchdog(clientOptions, bootstrap, timer, null, null, null);
+
+        assertThat(sut.getReconnectDelay(1)).isEqualTo(20);
+        assertThat(sut.getReconnectDelay(3)).isEqualTo(80);
+        assertThat(sut.getReconnectDelay(4)).isEqualTo(100);
+        assertThat(sut.getReconnectDelay(64)).isEqualTo(100);
+    }
+
+    @Test
+    public void jitterStaysWithinBackoff() throws Exception {
+        ClientOptions clientOptions = new ClientOptions.Builder().withReconnectBackoff(10, 100, TimeUnit.MILLISECONDS)
+                .build();
+        ConnectionWatchdog sut = new ConnectionWatchdog(clientOptions, bootstrap, timer, null, null, null);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(sut.getReconnectDelay(2)).isBetween(0L, 40L);
+            assertThat(sut.getReconnectDelay(10)).isBetween(0L, 100L);
+        }
+    }
+
+    @Test
+    public void reconnectIsPerformedByReconnectWorkers() throws Exception {
+        Semaphore reconnectPermits = new Semaphore(1);
+        ConnectionWatchdog sut = new ConnectionWatchdog(ClientOptions.create(), bootstrap, timer, reconnectWorkers,
+                reconnectPermits, socketAddressSupplier);
+        sut.setReconnect(true);
+
+        sut.run(null);
+
+        verify(reconnectWorkers).execute(any(Runnable.class));
+        verifyZeroInteractions(socketAddressSupplier, timer);
+        assertThat(reconnectPermits.availablePermits()).isEqualTo(0);
+    }
+
+    @Test
+    public void reconnectIsDeferredWithoutPermit() throws Exception {
+        ConnectionWatchdog sut = new ConnectionWatchdog(ClientOptions.create(), bootstrap, timer, reconnectWorkers,
+                new Semaphore(0), socketAddressSupplier);
+        sut.setReconnect(true);
+
+        sut.run(null);
+
+        verifyZeroInteractions(reconnectWorkers);
+        verify(timer).newTimeout(any(TimerTask.class), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    public void noReconnectAfterReconnectDisabled() throws Exception {
+        ConnectionWatchdog sut = new ConnectionWatchdog(ClientOptions.create(), bootstrap, timer, reconnectWorkers, null,
+                socketAddressSupplier);
+
+        sut.run(null);
+
+        verifyZeroInteractions(reconnectWorkers, timer);
+    }
+}
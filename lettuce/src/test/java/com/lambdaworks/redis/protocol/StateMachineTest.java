@@ -7,15 +7,22 @@ import static org.assertj.core.api.Assertions.*;
 
 import java.nio.charset.Charset;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.Before;
 import org.junit.Test;
 
 import com.lambdaworks.redis.RedisException;
+import com.lambdaworks.redis.ScoredValues;
 import com.lambdaworks.redis.codec.RedisCodec;
 import com.lambdaworks.redis.codec.Utf8StringCodec;
+import com.lambdaworks.redis.output.BitSetOutput;
+import com.lambdaworks.redis.output.DoubleOutput;
 import com.lambdaworks.redis.output.IntegerOutput;
+import com.lambdaworks.redis.output.MapOutput;
+import com.lambdaworks.redis.output.ScoredValuesOutput;
 import com.lambdaworks.redis.output.StatusOutput;
 import com.lambdaworks.redis.output.ValueListOutput;
 import com.lambdaworks.redis.output.ValueOutput;
@@ -71,6 +78,56 @@ public class StateMachineTest {
         assertThat(output.get()).isEqualTo(Arrays.asList(null, "ok"));
     }
 
+    @Test
+    public void scoredValues() throws Exception {
+        CommandOutput<String, String, ScoredValues<String>> output = new ScoredValuesOutput<String, String>(codec);
+        ByteBuf buffer = buffer("*4\r\n$1\r\na\r\n$3\r\n1.5\r\n$1\r\nb\r\n$4\r\n-inf\r\n");
+        assertThat(rsm.decode(buffer, output)).isTrue();
+
+        assertThat(output.get().size()).isEqualTo(2);
+        assertThat(output.get().getValue(0)).isEqualTo("a");
+        assertThat(output.get().getScore(0)).isEqualTo(1.5);
+        assertThat(output.get().getValue(1)).isEqualTo("b");
+        assertThat(output.get().getScores()).containsExactly(1.5, Double.NEGATIVE_INFINITY);
+    }
+
+    @Test
+    public void presizedCollections() throws Exception {
+        CommandOutput<String, String, List<String>> list = new ValueListOutput<String, String>(codec);
+        assertThat(rsm.decode(buffer("*3\r\n$1\r\na\r\n$-1\r\n$1\r\nc\r\n"), list)).isTrue();
+        assertThat(list.get()).containsExactly("a", null, "c");
+
+        CommandOutput<String, String, Map<String, String>> map = new MapOutput<String, String>(codec);
+        assertThat(rsm.decode(buffer("*4\r\n$1\r\na\r\n$1\r\n1\r\n$1\r\nb\r\n$1\r\n2\r\n"), map)).isTrue();
+        assertThat(map.get()).hasSize(2).containsEntry("a", "1").containsEntry("b", "2");
+
+        CommandOutput<String, String, List<String>> empty = new ValueListOutput<String, String>(codec);
+        assertThat(rsm.decode(buffer("*0\r\n"), empty)).isTrue();
+        assertThat(empty.get()).isEmpty();
+    }
+
+    @Test
+    public void bitSet() throws Exception {
+        CommandOutput<String, String, BitSet> output = new BitSetOutput<String, String>(codec);
+        assertThat(rsm.decode(buffer("*3\r\n:1\r\n:0\r\n:1\r\n"), output)).isTrue();
+        assertThat(output.get().get(0)).isTrue();
+        assertThat(output.get().get(1)).isFalse();
+        assertThat(output.get().get(2)).isTrue();
+    }
+
+    @Test
+    public void doubles() throws Exception {
+        for (String value : Arrays.asList("0", "-0", "1", "+2.5", "-2.5", "3.14159", "0.1", "0.10000000000000001",
+                "123456789012345", "1234567890123456789", "1e10", "-1.5E-3", "inf", "+inf", "-inf")) {
+            CommandOutput<String, String, Double> output = new DoubleOutput<String, String>(codec);
+            assertThat(rsm.decode(buffer("$" + value.length() + "\r\n" + value + "\r\n"), output)).isTrue();
+
+            double expected = value.endsWith("inf") ? (value.startsWith("-") ? Double.NEGATIVE_INFINITY
+                    : Double.POSITIVE_INFINITY) : Double.parseDouble(value);
+            assertThat(output.get()).as(value).isEqualTo(expected);
+        }
+    }
+
     @Test
     public void partialFirstLine() throws Exception {
         assertThat(rsm.decode(buffer("+"), output)).isFalse();
@@ -0,0 +1,148 @@
+package com.lambdaworks.redis.pubsub;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.lambdaworks.redis.codec.Utf8StringCodec;
+import com.lambdaworks.redis.protocol.RedisCommand;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.CharsetUtil;
+
+public class PubSubCommandHandlerTest {
+
+    private static final String MESSAGES = "*3\r\n$7\r\nmessage\r\n$2\r\nch\r\n$5\r\nfirst\r\n"
+            + "*4\r\n$8\r\npmessage\r\n$2\r\nc*\r\n$2\r\nch\r\n$6\r\nsecond\r\n";
+
+    private List<String> received = new ArrayList<String>();
+    private List<Integer> batchSizes = new ArrayList<Integer>();
+    private EmbeddedChannel channel;
+    private RedisPubSubConnectionImpl<String, String> connection;
+
+    private RedisPubSubBatchListener<String, String> batchListener = new RedisPubSubBatchListener<String, String>() {
+        @Override
+        public void messages(PubSubMessageBatch<String, String> batch) {
+            batchSizes.add(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                String message = batch.isRaw() ? CharsetUtil.UTF_8.decode(batch.getRawMessage(i)).toString() : batch
+                        .getMessage(i);
+                received.add(batch.getPattern(i) + ":" + batch.getChannel(i) + ":" + message);
+            }
+        }
+    };
+
+    private RedisPubSubListener<String, String> listener = new RedisPubSubAdapter<String, String>() {
+        @Override
+        public void message(String channel, String message) {
+            received.add("listener:" + channel + ":" + message);
+        }
+
+        @Override
+        public void subscribed(String channel, long count) {
+            received.add("subscribed:" + channel);
+        }
+    };
+
+    @Before
+    public void before() throws Exception {
+        Utf8StringCodec codec = new Utf8StringCodec();
+        PubSubCommandHandler<String, String> handler = new PubSubCommandHandler<String, String>(
+                new LinkedBlockingQueue<RedisCommand<String, String, ?>>(), codec);
+        connection = new RedisPubSubConnectionImpl<String, String>(handler, codec, 1, TimeUnit.SECONDS);
+        connection.addBatchListener(batchListener);
+
+        channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        channel.pipeline().addFirst(handler, connection);
+        channel.pipeline().fireChannelRegistered();
+    }
+
+    @After
+    public void after() throws Exception {
+        channel.finish();
+    }
+
+    @Test
+    public void singleDeliveryNotifiesPerMessage() throws Exception {
+        connection.addListener(listener);
+
+        channel.writeInbound(Unpooled.copiedBuffer(MESSAGES, CharsetUtil.UTF_8));
+
+        assertThat(batchSizes).isEmpty();
+        assertThat(received).containsExactly("listener:ch:first");
+    }
+
+    @Test
+    public void messagesOfOneReadAreDeliveredAsBatch() throws Exception {
+        connection.setMessageDelivery(RedisPubSubConnection.MessageDelivery.BATCH);
+        connection.addListener(listener);
+
+        channel.writeInbound(Unpooled.copiedBuffer(MESSAGES, CharsetUtil.UTF_8));
+
+        assertThat(batchSizes).containsExactly(2);
+        assertThat(received).containsExactly("null:ch:first", "c*:ch:second", "listener:ch:first");
+    }
+
+    @Test
+    public void partialMessagesAreDeliveredWithNextRead() throws Exception {
+        connection.setMessageDelivery(RedisPubSubConnection.MessageDelivery.BATCH);
+
+        channel.writeInbound(Unpooled.copiedBuffer(MESSAGES.substring(0, 50), CharsetUtil.UTF_8));
+        channel.writeInbound(Unpooled.copiedBuffer(MESSAGES.substring(50), CharsetUtil.UTF_8));
+
+        assertThat(batchSizes).containsExactly(1, 1);
+        assertThat(received).containsExactly("null:ch:first", "c*:ch:second");
+    }
+
+    @Test
+    public void subscriptionNotificationsRetainOrder() throws Exception {
+        connection.setMessageDelivery(RedisPubSubConnection.MessageDelivery.BATCH);
+        connection.addListener(listener);
+
+        channel.writeInbound(Unpooled.copiedBuffer("*3\r\n$7\r\nmessage\r\n$2\r\nch\r\n$5\r\nfirst\r\n"
+                + "*3\r\n$9\r\nsubscribe\r\n$5\r\nother\r\n:2\r\n" + "*3\r\n$7\r\nmessage\r\n$5\r\nother\r\n$2\r\nhi\r\n",
+                CharsetUtil.UTF_8));
+
+        assertThat(batchSizes).containsExactly(1, 1);
+        assertThat(received).containsExactly("null:ch:first", "listener:ch:first", "subscribed:other", "null:other:hi",
+                "listener:other:hi");
+        assertThat(connection.getChannels()).containsOnly("other");
+    }
+
+    @Test
+    public void rawBatchExposesPayload() throws Exception {
+        connection.setMessageDelivery(RedisPubSubConnection.MessageDelivery.RAW_BATCH);
+        connection.addListener(listener);
+
+        channel.writeInbound(Unpooled.copiedBuffer(MESSAGES, CharsetUtil.UTF_8));
+
+        assertThat(batchSizes).containsExactly(2);
+        assertThat(received).containsExactly("null:ch:first", "c*:ch:second");
+    }
+
+    @Test
+    public void copiedBatchOwnsRawPayload() throws Exception {
+        PubSubOutput<String, String> output = new PubSubOutput<String, String>(new Utf8StringCodec(), true);
+        for (String element : new String[] { "message", "ch", "payload" }) {
+            output.set(ByteBuffer.wrap(element.getBytes()));
+        }
+        PubSubMessageBatch<String, String> batch = new PubSubMessageBatch<String, String>(true);
+        batch.add(output);
+
+        PubSubMessageBatch<String, String> copy = batch.copy();
+        batch.getRawMessage(0).put(0, (byte) 'P');
+
+        assertThat(CharsetUtil.UTF_8.decode(copy.getRawMessage(0)).toString()).isEqualTo("payload");
+        assertThat(copy.getChannel(0)).isEqualTo("ch");
+    }
+}
@@ -0,0 +1,192 @@
+package com.lambdaworks.redis.pubsub;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.lambdaworks.redis.RedisChannelWriter;
+import com.lambdaworks.redis.codec.RedisCodec;
+import com.lambdaworks.redis.codec.Utf8StringCodec;
+import com.lambdaworks.redis.protocol.RedisCommand;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RedisPubSubConnectionImplTest {
+
+    @Mock
+    private RedisChannelWriter<String, String> writer;
+
+    @Mock
+    private RedisMessageListener<String, String> channelListener;
+
+    @Mock
+    private RedisMessageListener<String, String> otherListener;
+
+    @Mock
+    private RedisMessageListener<String, String> patternListener;
+
+    private RedisCodec<String, String> codec = new Utf8StringCodec();
+    private RedisPubSubConnectionImpl<String, String> sut;
+
+    @Before
+    public void before() throws Exception {
+        sut = new RedisPubSubConnectionImpl<String, String>(writer, codec, 1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void messagesAreRoutedToChannelListeners() throws Exception {
+        sut.addMessageListener("channel", channelListener);
+        sut.addMessageListener("other", otherListener);
+        sut.addPatternListener("chan*", patternListener);
+
+        sut.channelRead(output(codec, "message", "channel", "hello"));
+        sut.channelRead(output(codec, "pmessage", "chan*", "channel", "world"));
+
+        verify(channelListener).message("channel", "hello");
+        verify(patternListener).message("channel", "world");
+        verifyZeroInteractions(otherListener);
+        verifyNoMoreInteractions(channelListener, patternListener);
+    }
+
+    @Test
+    public void removedListenerIsNotNotified() throws Exception {
+        sut.addMessageListener("channel", channelListener);
+        sut.removeMessageListener("channel", channelListener);
+
+        sut.channelRead(output(codec, "message", "channel", "hello"));
+
+        verifyZeroInteractions(channelListener);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void byteArrayChannelsAreRoutedByContent() throws Exception {
+        RedisMessageListener<byte[], byte[]> listener = mock(RedisMessageListener.class);
+        RedisPubSubConnectionImpl<byte[], byte[]> connection = new RedisPubSubConnectionImpl<byte[], byte[]>(
+                mock(RedisChannelWriter.class), new ByteArrayCodec(), 1, TimeUnit.SECONDS);
+
+        connection.addMessageListener("channel".getBytes(), listener);
+        connection.channelRead(output(new ByteArrayCodec(), "message", "channel", "hello"));
+
+        verify(listener).message(any(byte[].class), any(byte[].class));
+    }
+
+    @Test
+    public void subscriptionStateIsTracked() throws Exception {
+        sut.channelRead(output(codec, "subscribe", "channel", 1));
+        sut.channelRead(output(codec, "psubscribe", "pattern*", 2));
+
+        assertThat(sut.getChannels()).containsOnly("channel");
+        assertThat(sut.getPatterns()).containsOnly("pattern*");
+
+        sut.channelRead(output(codec, "unsubscribe", "channel", 1));
+
+        assertThat(sut.getChannels()).isEmpty();
+        assertThat(sut.getPatterns()).containsOnly("pattern*");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void subscriptionsAreRenewedAfterReconnect() throws Exception {
+        sut.channelRead(output(codec, "subscribe", "channel", 1));
+
+        sut.activated();
+
+        verify(writer).write(any(RedisCommand.class));
+        assertThat(sut.getChannels()).isEmpty();
+    }
+
+    @Test
+    public void listenersAreNotifiedByDispatchExecutor() throws Exception {
+        Executor dispatchExecutor = mock(Executor.class);
+        sut.setDispatchExecutor(dispatchExecutor);
+        sut.addMessageListener("channel", channelListener);
+
+        sut.channelRead(output(codec, "message", "channel", "hello"));
+
+        verifyZeroInteractions(channelListener);
+        ArgumentCaptor<Runnable> dispatch = ArgumentCaptor.forClass(Runnable.class);
+        verify(dispatchExecutor).execute(dispatch.capture());
+
+        dispatch.getValue().run();
+        verify(channelListener).message("channel", "hello");
+    }
+
+    @Test
+    public void bufferedMessagesAreDeliveredByDispatchExecutor() throws Exception {
+        Executor dispatchExecutor = mock(Executor.class);
+        sut.setDispatchExecutor(dispatchExecutor);
+        sut.setSubscriptionBuffer(1, RedisPubSubConnection.OverflowPolicy.DROP_NEWEST);
+        sut.addMessageListener("channel", channelListener);
+
+        sut.channelRead(output(codec, "message", "channel", "first"));
+        sut.channelRead(output(codec, "message", "channel", "second"));
+
+        assertThat(sut.getBufferedMessageCount()).isEqualTo(1);
+        assertThat(sut.getBufferedMessageCount("channel")).isEqualTo(1);
+        assertThat(sut.getDroppedMessageCount()).isEqualTo(1);
+
+        ArgumentCaptor<Runnable> drain = ArgumentCaptor.forClass(Runnable.class);
+        verify(dispatchExecutor).execute(drain.capture());
+        drain.getValue().run();
+
+        verify(channelListener).message("channel", "first");
+        verifyNoMoreInteractions(channelListener);
+        assertThat(sut.getBufferedMessageCount()).isEqualTo(0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void subscriptionBufferRequiresDispatchExecutor() throws Exception {
+        sut.setSubscriptionBuffer(1, RedisPubSubConnection.OverflowPolicy.DROP_NEWEST);
+    }
+
+    private static class ByteArrayCodec extends RedisCodec<byte[], byte[]> {
+
+        @Override
+        public byte[] decodeKey(ByteBuffer bytes) {
+            return decodeValue(bytes);
+        }
+
+        @Override
+        public byte[] decodeValue(ByteBuffer bytes) {
+            byte[] result = new byte[bytes.remaining()];
+            bytes.get(result);
+            return result;
+        }
+
+        @Override
+        public byte[] encodeKey(byte[] key) {
+            return key;
+        }
+
+        @Override
+        public byte[] encodeValue(byte[] value) {
+            return value;
+        }
+    }
+
+    private static <K, V> PubSubOutput<K, V> output(RedisCodec<K, V> codec, String... elements) {
+        PubSubOutput<K, V> output = new PubSubOutput<K, V>(codec);
+        for (String element : elements) {
+            output.set(ByteBuffer.wrap(element.getBytes()));
+        }
+        return output;
+    }
+
+    private static PubSubOutput<String, String> output(RedisCodec<String, String> codec, String type, String name,
+            long count) {
+        PubSubOutput<String, String> output = output(codec, type, name);
+        output.set(count);
+        return output;
+    }
+}
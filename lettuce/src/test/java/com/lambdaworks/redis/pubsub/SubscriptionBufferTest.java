@@ -0,0 +1,141 @@
+package com.lambdaworks.redis.pubsub;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.junit.Test;
+
+public class SubscriptionBufferTest {
+
+    private List<Runnable> tasks = new ArrayList<Runnable>();
+    private Executor executor = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+    };
+
+    private RecordingCallback callback = new RecordingCallback();
+
+    @Test
+    public void messagesAreDeliveredInOrderByOneTask() throws Exception {
+        SubscriptionBuffer<String, String> sut = buffer(10, RedisPubSubConnection.OverflowPolicy.DROP_NEWEST);
+
+        sut.offer(null, "ch", "1");
+        sut.offer(null, "ch", "2");
+
+        assertThat(tasks).hasSize(1);
+        assertThat(sut.size()).isEqualTo(2);
+
+        tasks.remove(0).run();
+
+        assertThat(callback.delivered).containsExactly("1", "2");
+        assertThat(sut.size()).isEqualTo(0);
+
+        sut.offer(null, "ch", "3");
+        assertThat(tasks).hasSize(1);
+    }
+
+    @Test
+    public void dropNewest() throws Exception {
+        SubscriptionBuffer<String, String> sut = buffer(2, RedisPubSubConnection.OverflowPolicy.DROP_NEWEST);
+
+        offer(sut, "1", "2", "3");
+        tasks.remove(0).run();
+
+        assertThat(callback.delivered).containsExactly("1", "2");
+        assertThat(callback.dropped).isEqualTo(1);
+    }
+
+    @Test
+    public void dropOldest() throws Exception {
+        SubscriptionBuffer<String, String> sut = buffer(2, RedisPubSubConnection.OverflowPolicy.DROP_OLDEST);
+
+        offer(sut, "1", "2", "3");
+        tasks.remove(0).run();
+
+        assertThat(callback.delivered).containsExactly("2", "3");
+        assertThat(callback.dropped).isEqualTo(1);
+    }
+
+    @Test
+    public void disconnectDropsBufferedMessages() throws Exception {
+        SubscriptionBuffer<String, String> sut = buffer(2, RedisPubSubConnection.OverflowPolicy.DISCONNECT);
+
+        offer(sut, "1", "2", "3");
+
+        assertThat(callback.disconnects).isEqualTo(1);
+        assertThat(callback.dropped).isEqualTo(3);
+        assertThat(sut.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void pauseReadsUntilHalfDrained() throws Exception {
+        SubscriptionBuffer<String, String> sut = buffer(4, RedisPubSubConnection.OverflowPolicy.PAUSE_READS);
+
+        offer(sut, "1", "2", "3", "4", "5", "6");
+
+        assertThat(callback.pauses).isEqualTo(1);
+        assertThat(sut.size()).isEqualTo(6);
+        assertThat(callback.dropped).isEqualTo(0);
+
+        tasks.remove(0).run();
+
+        assertThat(callback.resumes).isEqualTo(1);
+        assertThat(callback.sizeOnResume).isEqualTo(2);
+        assertThat(callback.delivered).containsExactly("1", "2", "3", "4", "5", "6");
+    }
+
+    private SubscriptionBuffer<String, String> buffer(int capacity, RedisPubSubConnection.OverflowPolicy overflowPolicy) {
+        SubscriptionBuffer<String, String> buffer = new SubscriptionBuffer<String, String>(capacity, overflowPolicy, executor,
+                callback);
+        callback.buffer = buffer;
+        return buffer;
+    }
+
+    private void offer(SubscriptionBuffer<String, String> buffer, String... messages) {
+        for (String message : messages) {
+            buffer.offer(null, "ch", message);
+        }
+    }
+
+    private static class RecordingCallback implements SubscriptionBuffer.Callback<String, String> {
+
+        private SubscriptionBuffer<String, String> buffer;
+        private List<String> delivered = new ArrayList<String>();
+        private int dropped;
+        private int pauses;
+        private int resumes;
+        private int disconnects;
+        private int sizeOnResume;
+
+        @Override
+        public void deliver(String pattern, String channel, String message) {
+            delivered.add(message);
+        }
+
+        @Override
+        public void dropped(int count) {
+            dropped += count;
+        }
+
+        @Override
+        public void pause() {
+            pauses++;
+        }
+
+        @Override
+        public void resume() {
+            resumes++;
+            sizeOnResume = buffer.size();
+        }
+
+        @Override
+        public void disconnect() {
+            disconnects++;
+        }
+    }
+}